@@ -0,0 +1,35 @@
+package lee;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Input generators shared by the JMH benchmarks. Same data shape as
+ * the hand-timed tests, but seeded so that every fork sees the same input.
+ */
+public class BenchData {
+	public static final long SEED = 20161105L;
+
+	public static int[] randomIntArray(int length){
+		int[] arr = new int[length];
+		Random r = new Random(SEED);
+		for(int i=0; i<arr.length; i++){
+			arr[i] = r.nextInt();
+		}
+		return arr;
+	}
+	public static ArrayList<String> randomStringList(int listLength){
+		ArrayList<String> list = new ArrayList<>(listLength);
+		Random rand = new Random(SEED);
+		int strLength = 10;
+		StringBuilder buf = new StringBuilder(strLength);
+		for(int i=0; i<listLength; i++){
+			buf.delete(0, buf.length());
+			for(int j=0; j<strLength; j++){
+				buf.append((char)('a'+rand.nextInt(26)));
+			}
+			list.add(buf.toString());
+		}
+		return list;
+	}
+}
@@ -2,10 +2,13 @@ package lee;
 
 import java.util.Arrays;
 import java.util.Random;
+
+import lee.kernel.PrimitiveKernels;
 /**
- * java -server -Xms10G -Xmx10G -XX:+PrintGCDetails 
- * -XX:+UseConcMarkSweepGC -XX:CompileThreshold=1000 lee/IntTest
- * taskset -c 0-[0,1,3,7] java ...
+ * java -server -Xms10G -Xmx10G -Xlog:gc 
+ * -XX:+UseG1GC -XX:CompileThreshold=1000 lee/IntTest
+ * per collector and heap size: java -cp benchmarks.jar lee.jmh.GcMatrixRunner IntBenchmark
+ * core scaling (taskset -c 0-[0,1,3,7]): java -cp benchmarks.jar lee.jmh.ScalingRunner -cores 1,2,4,8
  * @author CarpenterLee
  */
 public class IntTest {
@@ -32,6 +35,8 @@ public class IntTest {
 			int min1 = 1;
 			int min2 = 2;
 			int min3 = 3;
+			int min4 = 4;
+			int min5 = 5;
 			long startTime;
 			
 			startTime = System.nanoTime();
@@ -52,8 +57,20 @@ public class IntTest {
 			}
 			TimeUtil.outTimeUs(startTime, "minIntParallelStream time:", times);
 			
+			startTime = System.nanoTime();
+			for(int i=0; i<times; i++){
+				min4 = minIntKernel(arr);
+			}
+			TimeUtil.outTimeUs(startTime, "minIntKernel time:", times);
 			
-			System.out.println(min1==min2 && min2==min3);
+			startTime = System.nanoTime();
+			for(int i=0; i<times; i++){
+				min5 = minIntKernelParallel(arr);
+			}
+			TimeUtil.outTimeUs(startTime, "minIntKernelParallel time:", times);
+			
+			
+			System.out.println(min1==min2 && min2==min3 && min3==min4 && min4==min5);
 		}
 	}
 	private void warmUp(){
@@ -63,6 +80,8 @@ public class IntTest {
 //			minIntFor(arr);
 			minIntStream(arr);
 			minIntParallelStream(arr);
+			minIntKernel(arr);
+			minIntKernelParallel(arr);
 			
 		}
 	}
@@ -80,6 +99,12 @@ public class IntTest {
 	private int minIntParallelStream(int[] arr){
 		return Arrays.stream(arr).parallel().min().getAsInt();
 	}
+	private int minIntKernel(int[] arr){
+		return PrimitiveKernels.min(arr);
+	}
+	private int minIntKernelParallel(int[] arr){
+		return PrimitiveKernels.parallelMin(arr);
+	}
 	private void randomInt(int[] arr){
 		Random r = new Random();
 		for(int i=0; i<arr.length; i++){
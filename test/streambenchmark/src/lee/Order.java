@@ -0,0 +1,46 @@
+package lee;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+public class Order{
+	private String userName;
+	private double price;
+	private long timestamp;
+	public Order(String userName, double price, long timestamp) {
+		this.userName = userName;
+		this.price = price;
+		this.timestamp = timestamp;
+	}
+	public String getUserName() {
+		return userName;
+	}
+	public double getPrice() {
+		return price;
+	}
+	public long getTimestamp() {
+		return timestamp;
+	}
+	public static List<Order> genOrders(int listLength){
+		ArrayList<Order> list = new ArrayList<>(listLength);
+		Random rand = new Random(BenchData.SEED);
+		int users = listLength/200;// 200 orders per user
+		users = users==0 ? listLength : users;
+		ArrayList<String> userNames = new ArrayList<>(users);
+		for(int i=0; i<users; i++){
+			userNames.add(new UUID(rand.nextLong(), rand.nextLong()).toString());
+		}
+		for(int i=0; i<listLength; i++){
+			double price = rand.nextInt(1000);
+			String userName = userNames.get(rand.nextInt(users));
+			list.add(new Order(userName, price, System.nanoTime()));
+		}
+		return list;
+	}
+	@Override
+	public String toString(){
+		return userName + "::" + price;
+	}
+}
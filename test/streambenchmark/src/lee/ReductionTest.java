@@ -1,17 +1,18 @@
 package lee;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
-import java.util.UUID;
 import java.util.stream.Collectors;
 
+import lee.collect.ObjDoubleHashMap;
+import lee.collect.PrimitiveCollectors;
+
 /**
- * java -server -Xms10G -Xmx10G -XX:+PrintGCDetails 
- * -XX:+UseConcMarkSweepGC -XX:CompileThreshold=1000 lee/ReductionTest
- * taskset -c 0-[0,1,3,7] java ...
+ * java -server -Xms10G -Xmx10G -Xlog:gc 
+ * -XX:+UseG1GC -XX:CompileThreshold=1000 lee/ReductionTest
+ * per collector and heap size: java -cp benchmarks.jar lee.jmh.GcMatrixRunner ReductionBenchmark
+ * core scaling (taskset -c 0-[0,1,3,7]): java -cp benchmarks.jar lee.jmh.ScalingRunner -cores 1,2,4,8
  * @author CarpenterLee
  */
 public class ReductionTest {
@@ -36,6 +37,8 @@ public class ReductionTest {
 			Map<String, Double> map1 = null;
 			Map<String, Double> map2 = null;
 			Map<String, Double> map3 = null;
+			ObjDoubleHashMap<String> map4 = null;
+			ObjDoubleHashMap<String> map5 = null;
 			
 			long startTime;
 			
@@ -57,7 +60,20 @@ public class ReductionTest {
 			}
 			TimeUtil.outTimeUs(startTime, "sumOrderParallelStream time:", times);
 			
+			startTime = System.nanoTime();
+			for(int i=0; i<times; i++){
+				map4 = sumOrderPrimitiveStream(orders);
+			}
+			TimeUtil.outTimeUs(startTime, "sumOrderPrimitiveStream time:", times);
+			
+			startTime = System.nanoTime();
+			for(int i=0; i<times; i++){
+				map5 = sumOrderPrimitiveParallelStream(orders);
+			}
+			TimeUtil.outTimeUs(startTime, "sumOrderPrimitiveParallelStream time:", times);
+			
 			System.out.println("users=" + map3.size());
+			System.out.println(map1.equals(map4.toMap()) && map1.equals(map5.toMap()));
 		
 		}
 	}
@@ -67,6 +83,8 @@ public class ReductionTest {
 			sumOrderForLoop(orders);
 			sumOrderStream(orders);
 			sumOrderParallelStream(orders);
+			sumOrderPrimitiveStream(orders);
+			sumOrderPrimitiveParallelStream(orders);
 			
 		}
 	}
@@ -93,43 +111,12 @@ public class ReductionTest {
 				Collectors.groupingBy(Order::getUserName, 
 						Collectors.summingDouble(Order::getPrice)));
 	}
-}
-class Order{
-	private String userName;
-	private double price;
-	private long timestamp;
-	public Order(String userName, double price, long timestamp) {
-		this.userName = userName;
-		this.price = price;
-		this.timestamp = timestamp;
-	}
-	public String getUserName() {
-		return userName;
-	}
-	public double getPrice() {
-		return price;
-	}
-	public long getTimestamp() {
-		return timestamp;
-	}
-	public static List<Order> genOrders(int listLength){
-		ArrayList<Order> list = new ArrayList<>(listLength);
-		Random rand = new Random();
-		int users = listLength/200;// 200 orders per user
-		users = users==0 ? listLength : users;
-		ArrayList<String> userNames = new ArrayList<>(users);
-		for(int i=0; i<users; i++){
-			userNames.add(UUID.randomUUID().toString());
-		}
-		for(int i=0; i<listLength; i++){
-			double price = rand.nextInt(1000);
-			String userName = userNames.get(rand.nextInt(users));
-			list.add(new Order(userName, price, System.nanoTime()));
-		}
-		return list;
+	private ObjDoubleHashMap<String> sumOrderPrimitiveStream(List<Order> orders){
+		return orders.stream().collect(
+				PrimitiveCollectors.groupingSumDouble(Order::getUserName, Order::getPrice));
 	}
-	@Override
-	public String toString(){
-		return userName + "::" + price;
+	private ObjDoubleHashMap<String> sumOrderPrimitiveParallelStream(List<Order> orders){
+		return orders.parallelStream().collect(
+				PrimitiveCollectors.groupingSumDouble(Order::getUserName, Order::getPrice));
 	}
 }
@@ -1,12 +1,16 @@
 package lee;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 
+import lee.collect.TopKCollectors;
+
 /**
- * java -server -Xms10G -Xmx10G -XX:+PrintGCDetails 
- * -XX:+UseConcMarkSweepGC -XX:CompileThreshold=1000 lee/StringTest
- * taskset -c 0-[0,1,3,7] java ...
+ * java -server -Xms10G -Xmx10G -Xlog:gc 
+ * -XX:+UseG1GC -XX:CompileThreshold=1000 lee/StringTest
+ * per collector and heap size: java -cp benchmarks.jar lee.jmh.GcMatrixRunner StringBenchmark
+ * core scaling (taskset -c 0-[0,1,3,7]): java -cp benchmarks.jar lee.jmh.ScalingRunner -cores 1,2,4,8
  * @author CarpenterLee
  */
 public class StringTest {
@@ -52,6 +56,17 @@ public class StringTest {
 			TimeUtil.outTimeUs(startTime, "minStringParallelStream time:", times);
 			
 			System.out.println(min1.equals(min2) && min2.equals(min3));
+			
+			int[] ks = {1, 10, 1000};
+			for(int k : ks){
+				List<String> top = null;
+				startTime = System.nanoTime();
+				for(int i=0; i<times; i++){
+					top = topKStringParallelStream(list, k);
+				}
+				TimeUtil.outTimeUs(startTime, "topKStringParallelStream k=" + k + " time:", times);
+				System.out.println(top.get(0).equals(min1));
+			}
 //			System.out.println(min1);
 		}
 	}
@@ -61,6 +76,7 @@ public class StringTest {
 			minStringForLoop(list);
 			minStringStream(list);
 			minStringParallelStream(list);
+			topKStringParallelStream(list, 10);
 			
 		}
 	}
@@ -84,6 +100,9 @@ public class StringTest {
 	private String minStringParallelStream(ArrayList<String> list){
 		return list.stream().parallel().min(String::compareTo).get();
 	}
+	private List<String> topKStringParallelStream(ArrayList<String> list, int k){
+		return list.parallelStream().collect(TopKCollectors.smallestStrings(k));
+	}
 	private ArrayList<String> randomStringList(int listLength){
 		ArrayList<String> list = new ArrayList<>(listLength);
 		Random rand = new Random();
@@ -0,0 +1,102 @@
+package lee.collect;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Keeps the {@code k} smallest elements seen under a comparator. The kept
+ * elements form a max-heap, so the root is the current k-th smallest and a
+ * candidate that does not beat it costs one comparison. Not thread safe.
+ */
+public class BoundedHeap<T> {
+	private final Comparator<? super T> comparator;
+	private final Object[] heap;
+	private int size;
+
+	public BoundedHeap(int k, Comparator<? super T> comparator) {
+		if(k <= 0){
+			throw new IllegalArgumentException("k must be > 0: " + k);
+		}
+		this.comparator = comparator;
+		this.heap = new Object[k];
+	}
+
+	public int size(){
+		return size;
+	}
+	public void offer(T t){
+		if(size < heap.length){
+			heap[size] = t;
+			siftUp(size++);
+		}else if(compare(t, at(0)) < 0){
+			heap[0] = t;
+			siftDown(0);
+		}
+	}
+	public BoundedHeap<T> merge(BoundedHeap<T> other){
+		if(other.size > size){
+			other.mergeFrom(this);
+			return other;
+		}
+		mergeFrom(other);
+		return this;
+	}
+	/**
+	 * The kept elements, smallest first.
+	 */
+	@SuppressWarnings("unchecked")
+	public List<T> toSortedList(){
+		Object[] copy = Arrays.copyOf(heap, size);
+		Arrays.sort(copy, (a, b) -> comparator.compare((T)a, (T)b));
+		List<T> list = new ArrayList<>(size);
+		for(Object o : copy){
+			list.add((T)o);
+		}
+		return list;
+	}
+
+	private void mergeFrom(BoundedHeap<T> other){
+		for(int i=0; i<other.size; i++){
+			offer(other.at(i));
+		}
+	}
+	@SuppressWarnings("unchecked")
+	private T at(int i){
+		return (T)heap[i];
+	}
+	private int compare(T a, T b){
+		return comparator.compare(a, b);
+	}
+	private void siftUp(int i){
+		T t = at(i);
+		while(i > 0){
+			int parent = (i - 1) >>> 1;
+			T p = at(parent);
+			if(compare(t, p) <= 0){
+				break;
+			}
+			heap[i] = p;
+			i = parent;
+		}
+		heap[i] = t;
+	}
+	private void siftDown(int i){
+		T t = at(i);
+		int half = size >>> 1;
+		while(i < half){
+			int child = 2 * i + 1;
+			int right = child + 1;
+			if(right < size && compare(at(right), at(child)) > 0){
+				child = right;
+			}
+			if(compare(t, at(child)) >= 0){
+				break;
+			}
+			heap[i] = heap[child];
+			i = child;
+		}
+		heap[i] = t;
+	}
+}
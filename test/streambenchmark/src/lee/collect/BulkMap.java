@@ -0,0 +1,90 @@
+package lee.collect;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+
+/**
+ * Bulk {@code forEach}/{@code replaceAll}/{@code mergeAll} over a
+ * {@link ConcurrentHashMap}, run in parallel once the map holds at least
+ * {@code parallelismThreshold} entries. The threshold has the meaning of
+ * {@code ConcurrentHashMap.forEach(long, BiConsumer)}: {@code Long.MAX_VALUE}
+ * keeps every operation sequential, 1 splits as far as the pool allows.
+ * <p>
+ * {@code HashMap.replaceAll} and {@code ConcurrentHashMap.replaceAll} walk the
+ * table on the calling thread; here the table is split across the
+ * {@code ForkJoinPool} the caller runs in (the common pool otherwise) and every
+ * entry is updated under its bin lock, so point reads and writes from other
+ * threads stay safe while a bulk update runs.
+ */
+public class BulkMap<K, V> {
+	public static final long DEFAULT_THRESHOLD = 1L << 14;
+
+	private final ConcurrentHashMap<K, V> map;
+	private final long parallelismThreshold;
+
+	public BulkMap(){
+		this(new ConcurrentHashMap<>(), DEFAULT_THRESHOLD);
+	}
+	public BulkMap(int expectedSize){
+		this(new ConcurrentHashMap<>(expectedSize), DEFAULT_THRESHOLD);
+	}
+	public BulkMap(ConcurrentHashMap<K, V> map, long parallelismThreshold){
+		if(parallelismThreshold < 1){
+			throw new IllegalArgumentException("parallelismThreshold < 1: " + parallelismThreshold);
+		}
+		this.map = Objects.requireNonNull(map);
+		this.parallelismThreshold = parallelismThreshold;
+	}
+
+	/**
+	 * The backing map; point operations go straight to it.
+	 */
+	public ConcurrentHashMap<K, V> map(){
+		return map;
+	}
+	public long parallelismThreshold(){
+		return parallelismThreshold;
+	}
+	public int size(){
+		return map.size();
+	}
+
+	public void forEach(BiConsumer<? super K, ? super V> action){
+		map.forEach(parallelismThreshold, action);
+	}
+	/**
+	 * Replaces every value with {@code f.apply(key, value)}. Like
+	 * {@code Map.replaceAll}, a null result is an error rather than a removal.
+	 */
+	public void replaceAll(BiFunction<? super K, ? super V, ? extends V> f){
+		Objects.requireNonNull(f);
+		BiFunction<K, V, V> nonNull = (k, v) -> Objects.requireNonNull(f.apply(k, v), "replaceAll produced null");
+		map.forEach(parallelismThreshold, (k, v) -> map.computeIfPresent(k, nonNull));
+	}
+	/**
+	 * Merges every entry of {@code other} into this map as {@code Map.merge}
+	 * does: absent keys take the value of {@code other}, present keys
+	 * {@code f.apply(old, value)}, and a null result removes the key.
+	 * {@code other} is traversed in parallel when it is a
+	 * {@code ConcurrentHashMap} or large enough; any other map must not be
+	 * modified meanwhile.
+	 */
+	public void mergeAll(Map<? extends K, ? extends V> other, BiFunction<? super V, ? super V, ? extends V> f){
+		Objects.requireNonNull(f);
+		if(other instanceof ConcurrentHashMap){
+			((ConcurrentHashMap<? extends K, ? extends V>)other).forEach(parallelismThreshold, (k, v) -> map.merge(k, v, f));
+		}else if(other.size() >= parallelismThreshold){
+			other.entrySet().parallelStream().forEach(e -> map.merge(e.getKey(), e.getValue(), f));
+		}else{
+			other.forEach((k, v) -> map.merge(k, v, f));
+		}
+	}
+
+	@Override
+	public String toString(){
+		return map.toString();
+	}
+}
@@ -0,0 +1,166 @@
+package lee.collect;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Collector;
+
+/**
+ * Key to set-of-values map that replaces the
+ * {@code map.computeIfAbsent(k, x -> new HashSet<>()).add(v)} idiom without
+ * a {@code HashSet} per key: a key with one value maps to the value itself,
+ * a small group to an exact-size array, and only groups above
+ * {@code setThreshold} values get a hash set. Null keys and values are
+ * rejected. Not thread safe; see {@link ConcurrentSetMultimap}.
+ * <pre>
+ * CompactSetMultimap&lt;String, Order&gt; byUser = orders.stream().collect(
+ *         CompactSetMultimap.toMultimap(Order::getUserName, Function.identity()));
+ * </pre>
+ */
+public class CompactSetMultimap<K, V> {
+	private final HashMap<K, Object> groups;
+	private final int setThreshold;
+	private int size;
+
+	public CompactSetMultimap(){
+		this(16, CompactValues.DEFAULT_SET_THRESHOLD);
+	}
+	public CompactSetMultimap(int expectedKeys){
+		this(expectedKeys, CompactValues.DEFAULT_SET_THRESHOLD);
+	}
+	public CompactSetMultimap(int expectedKeys, int setThreshold){
+		if(setThreshold < 1){
+			throw new IllegalArgumentException("setThreshold < 1: " + setThreshold);
+		}
+		groups = new HashMap<>(Math.max(16, (int)(expectedKeys / 0.75f) + 1));
+		this.setThreshold = setThreshold;
+	}
+
+	/**
+	 * Adds {@code value} to the group of {@code key}; false if it was
+	 * already there.
+	 */
+	public boolean put(K key, V value){
+		Objects.requireNonNull(key, "key");
+		Objects.requireNonNull(value, "value");
+		Object group = groups.get(key);
+		if(group == null){
+			groups.put(key, CompactValues.single(value));
+		}else if(group instanceof CompactValues.Large){
+			if(!((CompactValues.Large)group).set.add(value)){
+				return false;
+			}
+		}else if(CompactValues.contains(group, value)){
+			return false;
+		}else{
+			groups.put(key, CompactValues.plus(group, value, setThreshold, false));
+		}
+		size++;
+		return true;
+	}
+	public boolean remove(Object key, Object value){
+		Object group = groups.get(key);
+		if(!CompactValues.contains(group, value)){
+			return false;
+		}
+		Object rest = CompactValues.minus(group, value);
+		if(rest == null){
+			groups.remove(key);
+		}else if(rest != group){
+			groups.put(CompactValues.uncheckedCast(key), rest);
+		}
+		size--;
+		return true;
+	}
+	/**
+	 * Adds every entry of {@code other}.
+	 */
+	public void putAll(CompactSetMultimap<? extends K, ? extends V> other){
+		other.forEach(this::put);
+	}
+	/**
+	 * Read-only live view of the values of {@code key}, empty if it has none.
+	 */
+	public Set<V> get(Object key){
+		return CompactValues.view(groups, key);
+	}
+	public boolean containsKey(Object key){
+		return groups.containsKey(key);
+	}
+	public boolean containsEntry(Object key, Object value){
+		return CompactValues.contains(groups.get(key), value);
+	}
+	/**
+	 * Number of values of {@code key}.
+	 */
+	public int count(Object key){
+		return CompactValues.size(groups.get(key));
+	}
+	/**
+	 * Number of key-value entries.
+	 */
+	public int size(){
+		return size;
+	}
+	public boolean isEmpty(){
+		return size == 0;
+	}
+	public Set<K> keySet(){
+		return Collections.unmodifiableSet(groups.keySet());
+	}
+	public void forEach(BiConsumer<? super K, ? super V> action){
+		groups.forEach((k, group) -> CompactValues.forEach(group, v -> action.accept(k, CompactValues.<V>uncheckedCast(v))));
+	}
+	/**
+	 * Copy as the {@code HashMap<K, HashSet<V>>} this class replaces.
+	 */
+	public Map<K, Set<V>> toMap(){
+		Map<K, Set<V>> map = new HashMap<>(groups.size() * 2);
+		groups.forEach((k, group) -> map.put(k, CompactValues.copy(group)));
+		return map;
+	}
+
+	/**
+	 * Groups the stream elements' values by key straight into a multimap.
+	 */
+	public static <T, K, V> Collector<T, ?, CompactSetMultimap<K, V>> toMultimap(
+			Function<? super T, ? extends K> keyOf, Function<? super T, ? extends V> valueOf){
+		return Collector.of(CompactSetMultimap::new,
+				(m, t) -> m.put(keyOf.apply(t), valueOf.apply(t)),
+				CompactSetMultimap::merge,
+				Collector.Characteristics.IDENTITY_FINISH, Collector.Characteristics.UNORDERED);
+	}
+	/**
+	 * Inverted-index form of {@link #toMultimap}: every element's value is
+	 * added under each of its keys.
+	 */
+	public static <T, K, V> Collector<T, ?, CompactSetMultimap<K, V>> toIndex(
+			Function<? super T, ? extends Iterable<? extends K>> keysOf, Function<? super T, ? extends V> valueOf){
+		return Collector.of(CompactSetMultimap::new,
+				(m, t) -> {
+					V v = valueOf.apply(t);
+					for(K k : keysOf.apply(t)){
+						m.put(k, v);
+					}
+				},
+				CompactSetMultimap::merge,
+				Collector.Characteristics.IDENTITY_FINISH, Collector.Characteristics.UNORDERED);
+	}
+
+	private static <K, V> CompactSetMultimap<K, V> merge(CompactSetMultimap<K, V> a, CompactSetMultimap<K, V> b){
+		if(a.size < b.size){
+			b.putAll(a);
+			return b;
+		}
+		a.putAll(b);
+		return a;
+	}
+	@Override
+	public String toString(){
+		return toMap().toString();
+	}
+}
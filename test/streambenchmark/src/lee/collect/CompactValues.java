@@ -0,0 +1,180 @@
+package lee.collect;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Encoding of one key's value group in the compact multimaps. A group is
+ * the value itself while it has one element, an exact-size {@code Object[]}
+ * (never modified once published) up to the set threshold, and a
+ * {@link Large} hash set above it. A lone value that is itself an
+ * {@code Object[]} is stored as a one-element array so it is never mistaken
+ * for a group.
+ */
+final class CompactValues {
+	static final int DEFAULT_SET_THRESHOLD = 8;
+
+	private CompactValues(){}
+
+	static final class Large {
+		final Set<Object> set;
+
+		Large(Set<Object> set){
+			this.set = set;
+		}
+	}
+
+	static Object single(Object v){
+		return v instanceof Object[] || v instanceof Large ? new Object[]{v} : v;
+	}
+	static int size(Object group){
+		if(group == null){
+			return 0;
+		}
+		if(group instanceof Object[]){
+			return ((Object[])group).length;
+		}
+		return group instanceof Large ? ((Large)group).set.size() : 1;
+	}
+	static boolean contains(Object group, Object v){
+		if(group == null){
+			return false;
+		}
+		if(group instanceof Object[]){
+			for(Object e : (Object[])group){
+				if(e.equals(v)){
+					return true;
+				}
+			}
+			return false;
+		}
+		return group instanceof Large ? ((Large)group).set.contains(v) : group.equals(v);
+	}
+	/**
+	 * {@code group} plus {@code v}, for a non-empty group below the set
+	 * threshold that does not contain {@code v}.
+	 */
+	static Object plus(Object group, Object v, int setThreshold, boolean concurrent){
+		Object[] arr = group instanceof Object[] ? (Object[])group : new Object[]{group};
+		if(arr.length >= setThreshold){
+			Set<Object> set = concurrent ? ConcurrentHashMap.newKeySet(arr.length * 2) : new HashSet<>(arr.length * 4);
+			Collections.addAll(set, arr);
+			set.add(v);
+			return new Large(set);
+		}
+		Object[] next = Arrays.copyOf(arr, arr.length + 1);
+		next[arr.length] = v;
+		return next;
+	}
+	/**
+	 * {@code group} without {@code v}, or null once it is empty. A set
+	 * stays a set until its last value goes.
+	 */
+	static Object minus(Object group, Object v){
+		if(group instanceof Large){
+			Set<Object> set = ((Large)group).set;
+			set.remove(v);
+			return set.isEmpty() ? null : group;
+		}
+		if(!(group instanceof Object[])){
+			return group.equals(v) ? null : group;
+		}
+		Object[] arr = (Object[])group;
+		int i = 0;
+		while(i < arr.length && !arr[i].equals(v)){
+			i++;
+		}
+		if(i == arr.length){
+			return group;
+		}
+		if(arr.length == 1){
+			return null;
+		}
+		if(arr.length == 2){
+			return single(arr[1 - i]);
+		}
+		Object[] next = new Object[arr.length - 1];
+		System.arraycopy(arr, 0, next, 0, i);
+		System.arraycopy(arr, i + 1, next, i, next.length - i);
+		return next;
+	}
+	static void forEach(Object group, Consumer<Object> action){
+		if(group instanceof Object[]){
+			for(Object e : (Object[])group){
+				action.accept(e);
+			}
+		}else if(group instanceof Large){
+			((Large)group).set.forEach(action);
+		}else if(group != null){
+			action.accept(group);
+		}
+	}
+	static Iterator<Object> iterator(Object group){
+		if(group instanceof Large){
+			return Collections.unmodifiableSet(((Large)group).set).iterator();
+		}
+		Object[] arr = group == null ? new Object[0]
+				: group instanceof Object[] ? (Object[])group : new Object[]{group};
+		return new Iterator<Object>(){
+			int i;
+
+			@Override
+			public boolean hasNext(){
+				return i < arr.length;
+			}
+			@Override
+			public Object next(){
+				if(i >= arr.length){
+					throw new NoSuchElementException();
+				}
+				return arr[i++];
+			}
+		};
+	}
+	static <V> Set<V> copy(Object group){
+		Set<V> set = new HashSet<>(size(group) * 2);
+		forEach(group, e -> set.add(uncheckedCast(e)));
+		return set;
+	}
+	/**
+	 * Read-only live view of the group of {@code key} in {@code groups}.
+	 */
+	static <V> Set<V> view(Map<?, Object> groups, Object key){
+		return new AbstractSet<V>(){
+			@Override
+			public int size(){
+				return CompactValues.size(groups.get(key));
+			}
+			@Override
+			public boolean contains(Object o){
+				return CompactValues.contains(groups.get(key), o);
+			}
+			@Override
+			public Iterator<V> iterator(){
+				Iterator<Object> it = CompactValues.iterator(groups.get(key));
+				return new Iterator<V>(){
+					@Override
+					public boolean hasNext(){
+						return it.hasNext();
+					}
+					@Override
+					public V next(){
+						return uncheckedCast(it.next());
+					}
+				};
+			}
+		};
+	}
+	@SuppressWarnings("unchecked")
+	static <V> V uncheckedCast(Object o){
+		return (V)o;
+	}
+}
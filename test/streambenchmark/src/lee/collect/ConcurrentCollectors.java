@@ -0,0 +1,140 @@
+package lee.collect;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.DoubleAccumulator;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collector;
+
+/**
+ * CONCURRENT + UNORDERED grouping collectors. A parallel stream shares a single
+ * {@link ConcurrentHashMap} among all fork-join leaves and each key owns a striped
+ * {@link DoubleAdder}/{@link LongAdder} style cell, so there is no per-leaf map
+ * and no key-by-key merge at the end.
+ * <pre>
+ * Map&lt;String, Double&gt; sums = orders.parallelStream().collect(
+ *         ConcurrentCollectors.groupingSumDouble(Order::getUserName, Order::getPrice));
+ * </pre>
+ * The finisher copies the cells into a plain {@code ConcurrentMap} of boxed
+ * values, one entry per key. Use the {@code *Cells} variants to skip that copy.
+ */
+public final class ConcurrentCollectors {
+	private static final Collector.Characteristics[] CH_CONCURRENT_ID = {
+			Collector.Characteristics.CONCURRENT, Collector.Characteristics.UNORDERED,
+			Collector.Characteristics.IDENTITY_FINISH};
+	private static final Collector.Characteristics[] CH_CONCURRENT_NOID = {
+			Collector.Characteristics.CONCURRENT, Collector.Characteristics.UNORDERED};
+
+	private ConcurrentCollectors(){}
+
+	public static <T, K> Collector<T, ?, ConcurrentMap<K, Double>> groupingSumDouble(
+			Function<? super T, ? extends K> classifier, ToDoubleFunction<? super T> mapper){
+		return finish(groupingSumDoubleCells(classifier, mapper), DoubleAdder::sum);
+	}
+	public static <T, K> Collector<T, ?, ConcurrentMap<K, Long>> groupingCount(
+			Function<? super T, ? extends K> classifier){
+		return finish(groupingCountCells(classifier), LongAdder::sum);
+	}
+	public static <T, K> Collector<T, ?, ConcurrentMap<K, Long>> groupingSumLong(
+			Function<? super T, ? extends K> classifier, ToLongFunction<? super T> mapper){
+		return finish(groupingSumLongCells(classifier, mapper), LongAdder::sum);
+	}
+	public static <T, K> Collector<T, ?, ConcurrentMap<K, Double>> groupingMinDouble(
+			Function<? super T, ? extends K> classifier, ToDoubleFunction<? super T> mapper){
+		return finish(doubleAccumulatorCells(classifier, mapper, Double.POSITIVE_INFINITY, true), DoubleAccumulator::get);
+	}
+	public static <T, K> Collector<T, ?, ConcurrentMap<K, Double>> groupingMaxDouble(
+			Function<? super T, ? extends K> classifier, ToDoubleFunction<? super T> mapper){
+		return finish(doubleAccumulatorCells(classifier, mapper, Double.NEGATIVE_INFINITY, false), DoubleAccumulator::get);
+	}
+	public static <T, K> Collector<T, ?, ConcurrentMap<K, Long>> groupingMinLong(
+			Function<? super T, ? extends K> classifier, ToLongFunction<? super T> mapper){
+		return finish(longAccumulatorCells(classifier, mapper, Long.MAX_VALUE, true), LongAccumulator::get);
+	}
+	public static <T, K> Collector<T, ?, ConcurrentMap<K, Long>> groupingMaxLong(
+			Function<? super T, ? extends K> classifier, ToLongFunction<? super T> mapper){
+		return finish(longAccumulatorCells(classifier, mapper, Long.MIN_VALUE, false), LongAccumulator::get);
+	}
+
+	public static <T, K> Collector<T, ?, ConcurrentHashMap<K, DoubleAdder>> groupingSumDoubleCells(
+			Function<? super T, ? extends K> classifier, ToDoubleFunction<? super T> mapper){
+		return cells((map, t) -> cell(map, classifier.apply(t), DoubleAdder::new).add(mapper.applyAsDouble(t)),
+				(a, b) -> a.add(b.sum()));
+	}
+	public static <T, K> Collector<T, ?, ConcurrentHashMap<K, LongAdder>> groupingCountCells(
+			Function<? super T, ? extends K> classifier){
+		return cells((map, t) -> cell(map, classifier.apply(t), LongAdder::new).increment(),
+				(a, b) -> a.add(b.sum()));
+	}
+	public static <T, K> Collector<T, ?, ConcurrentHashMap<K, LongAdder>> groupingSumLongCells(
+			Function<? super T, ? extends K> classifier, ToLongFunction<? super T> mapper){
+		return cells((map, t) -> cell(map, classifier.apply(t), LongAdder::new).add(mapper.applyAsLong(t)),
+				(a, b) -> a.add(b.sum()));
+	}
+
+	private static <T, K> Collector<T, ?, ConcurrentHashMap<K, DoubleAccumulator>> doubleAccumulatorCells(
+			Function<? super T, ? extends K> classifier, ToDoubleFunction<? super T> mapper,
+			double identity, boolean min){
+		Supplier<DoubleAccumulator> factory = min
+				? () -> new DoubleAccumulator(Math::min, identity)
+				: () -> new DoubleAccumulator(Math::max, identity);
+		return cells((map, t) -> cell(map, classifier.apply(t), factory).accumulate(mapper.applyAsDouble(t)),
+				(a, b) -> a.accumulate(b.get()));
+	}
+	private static <T, K> Collector<T, ?, ConcurrentHashMap<K, LongAccumulator>> longAccumulatorCells(
+			Function<? super T, ? extends K> classifier, ToLongFunction<? super T> mapper,
+			long identity, boolean min){
+		Supplier<LongAccumulator> factory = min
+				? () -> new LongAccumulator(Math::min, identity)
+				: () -> new LongAccumulator(Math::max, identity);
+		return cells((map, t) -> cell(map, classifier.apply(t), factory).accumulate(mapper.applyAsLong(t)),
+				(a, b) -> a.accumulate(b.get()));
+	}
+	/**
+	 * get() first: once a key exists the hot path is a lock-free read,
+	 * computeIfAbsent only locks a bin for the first element of a group.
+	 */
+	private static <K, C> C cell(ConcurrentHashMap<K, C> map, K key, Supplier<C> factory){
+		if(key == null){
+			throw new NullPointerException("element cannot be mapped to a null key");
+		}
+		C c = map.get(key);
+		return c != null ? c : map.computeIfAbsent(key, k -> factory.get());
+	}
+	private static <T, K, C> Collector<T, ?, ConcurrentHashMap<K, C>> cells(
+			BiConsumer<ConcurrentHashMap<K, C>, T> accumulator, BiConsumer<C, C> mergeCell){
+		return Collector.of(ConcurrentHashMap::new, accumulator, (a, b) -> {
+			// only reached when the collector is driven without the CONCURRENT path
+			b.forEach((k, c) -> {
+				C old = a.putIfAbsent(k, c);
+				if(old != null){
+					mergeCell.accept(old, c);
+				}
+			});
+			return a;
+		}, CH_CONCURRENT_ID);
+	}
+	private static <T, K, C, V> Collector<T, ?, ConcurrentMap<K, V>> finish(
+			Collector<T, ?, ConcurrentHashMap<K, C>> cells, Function<C, V> value){
+		return collectAndThen(cells, map -> {
+			ConcurrentHashMap<K, V> result = new ConcurrentHashMap<>(map.size() * 2);
+			for(Map.Entry<K, C> e : map.entrySet()){
+				result.put(e.getKey(), value.apply(e.getValue()));
+			}
+			return result;
+		});
+	}
+	private static <T, A, R, RR> Collector<T, A, RR> collectAndThen(
+			Collector<T, A, R> downstream, Function<R, RR> finisher){
+		return Collector.of(downstream.supplier(), downstream.accumulator(), downstream.combiner(),
+				downstream.finisher().andThen(finisher), CH_CONCURRENT_NOID);
+	}
+}
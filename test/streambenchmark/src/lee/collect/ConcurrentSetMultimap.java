@@ -0,0 +1,166 @@
+package lee.collect;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Collector;
+
+/**
+ * Thread-safe {@link CompactSetMultimap} over a {@link ConcurrentHashMap}.
+ * Every update of a key's group runs inside {@code compute} under that key's
+ * bin lock; small groups are replaced rather than modified, and groups above
+ * {@code setThreshold} live in a concurrent key set, so readers never lock.
+ */
+public class ConcurrentSetMultimap<K, V> {
+	private final ConcurrentHashMap<K, Object> groups;
+	private final int setThreshold;
+	private final LongAdder size = new LongAdder();
+
+	public ConcurrentSetMultimap(){
+		this(16, CompactValues.DEFAULT_SET_THRESHOLD);
+	}
+	public ConcurrentSetMultimap(int expectedKeys){
+		this(expectedKeys, CompactValues.DEFAULT_SET_THRESHOLD);
+	}
+	public ConcurrentSetMultimap(int expectedKeys, int setThreshold){
+		if(setThreshold < 1){
+			throw new IllegalArgumentException("setThreshold < 1: " + setThreshold);
+		}
+		groups = new ConcurrentHashMap<>(expectedKeys);
+		this.setThreshold = setThreshold;
+	}
+
+	/**
+	 * Adds {@code value} to the group of {@code key}; false if it was
+	 * already there.
+	 */
+	public boolean put(K key, V value){
+		Objects.requireNonNull(key, "key");
+		Objects.requireNonNull(value, "value");
+		boolean[] added = new boolean[1];
+		groups.compute(key, (k, group) -> {
+			if(group == null){
+				added[0] = true;
+				return CompactValues.single(value);
+			}
+			if(group instanceof CompactValues.Large){
+				added[0] = ((CompactValues.Large)group).set.add(value);
+				return group;
+			}
+			if(CompactValues.contains(group, value)){
+				return group;
+			}
+			added[0] = true;
+			return CompactValues.plus(group, value, setThreshold, true);
+		});
+		if(added[0]){
+			size.increment();
+		}
+		return added[0];
+	}
+	public boolean remove(Object key, Object value){
+		boolean[] removed = new boolean[1];
+		groups.computeIfPresent(CompactValues.uncheckedCast(key), (k, group) -> {
+			if(!CompactValues.contains(group, value)){
+				return group;
+			}
+			removed[0] = true;
+			return CompactValues.minus(group, value);
+		});
+		if(removed[0]){
+			size.decrement();
+		}
+		return removed[0];
+	}
+	/**
+	 * Adds every entry of {@code other}.
+	 */
+	public void putAll(ConcurrentSetMultimap<? extends K, ? extends V> other){
+		other.forEach(this::put);
+	}
+	/**
+	 * Read-only live view of the values of {@code key}, empty if it has none.
+	 */
+	public Set<V> get(Object key){
+		return CompactValues.view(groups, key);
+	}
+	public boolean containsKey(Object key){
+		return groups.containsKey(key);
+	}
+	public boolean containsEntry(Object key, Object value){
+		return CompactValues.contains(groups.get(key), value);
+	}
+	/**
+	 * Number of values of {@code key}.
+	 */
+	public int count(Object key){
+		return CompactValues.size(groups.get(key));
+	}
+	/**
+	 * Number of key-value entries; exact only while no update is running.
+	 */
+	public int size(){
+		return size.intValue();
+	}
+	public boolean isEmpty(){
+		return groups.isEmpty();
+	}
+	public Set<K> keySet(){
+		return Collections.unmodifiableSet(groups.keySet());
+	}
+	public void forEach(BiConsumer<? super K, ? super V> action){
+		groups.forEach((k, group) -> CompactValues.forEach(group, v -> action.accept(k, CompactValues.<V>uncheckedCast(v))));
+	}
+	/**
+	 * Copy as the {@code HashMap<K, HashSet<V>>} this class replaces.
+	 */
+	public Map<K, Set<V>> toMap(){
+		Map<K, Set<V>> map = new HashMap<>(groups.size() * 2);
+		groups.forEach((k, group) -> map.put(k, CompactValues.copy(group)));
+		return map;
+	}
+
+	/**
+	 * Concurrent collector: all threads of a parallel stream fill one multimap.
+	 */
+	public static <T, K, V> Collector<T, ?, ConcurrentSetMultimap<K, V>> toMultimap(
+			Function<? super T, ? extends K> keyOf, Function<? super T, ? extends V> valueOf){
+		return Collector.of(ConcurrentSetMultimap::new,
+				(m, t) -> m.put(keyOf.apply(t), valueOf.apply(t)),
+				ConcurrentSetMultimap::merge,
+				Collector.Characteristics.CONCURRENT, Collector.Characteristics.IDENTITY_FINISH,
+				Collector.Characteristics.UNORDERED);
+	}
+	/**
+	 * Inverted-index form of {@link #toMultimap}: every element's value is
+	 * added under each of its keys.
+	 */
+	public static <T, K, V> Collector<T, ?, ConcurrentSetMultimap<K, V>> toIndex(
+			Function<? super T, ? extends Iterable<? extends K>> keysOf, Function<? super T, ? extends V> valueOf){
+		return Collector.of(ConcurrentSetMultimap::new,
+				(m, t) -> {
+					V v = valueOf.apply(t);
+					for(K k : keysOf.apply(t)){
+						m.put(k, v);
+					}
+				},
+				ConcurrentSetMultimap::merge,
+				Collector.Characteristics.CONCURRENT, Collector.Characteristics.IDENTITY_FINISH,
+				Collector.Characteristics.UNORDERED);
+	}
+
+	private static <K, V> ConcurrentSetMultimap<K, V> merge(ConcurrentSetMultimap<K, V> a, ConcurrentSetMultimap<K, V> b){
+		a.putAll(b);
+		return a;
+	}
+	@Override
+	public String toString(){
+		return toMap().toString();
+	}
+}
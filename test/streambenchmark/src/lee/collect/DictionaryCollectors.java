@@ -0,0 +1,69 @@
+package lee.collect;
+
+import java.util.Arrays;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collector;
+
+/**
+ * Grouping collectors that route keys through a shared {@link KeyDictionary}
+ * and accumulate into a {@code double[]} indexed by id. Parallel leaves encode
+ * into the same dictionary, so their arrays line up and combine element-wise.
+ * <pre>
+ * KeyDictionary&lt;String&gt; users = new KeyDictionary&lt;&gt;();
+ * double[] sums = orders.parallelStream().collect(
+ *         DictionaryCollectors.groupingSumDouble(users, Order::getUserName, Order::getPrice));
+ * Map&lt;String, Double&gt; byName = users.toMap(sums);
+ * </pre>
+ * The result may be shorter than {@code dictionary.size()} if other keys were
+ * encoded meanwhile; missing ids have sum 0.
+ */
+public final class DictionaryCollectors {
+	private DictionaryCollectors(){}
+
+	public static <T, K> Collector<T, ?, double[]> groupingSumDouble(KeyDictionary<K> dictionary,
+			Function<? super T, ? extends K> classifier, ToDoubleFunction<? super T> mapper){
+		return Collector.of(
+				() -> new DoubleColumn(dictionary.size()),
+				(col, t) -> col.add(dictionary.encode(classifier.apply(t)), mapper.applyAsDouble(t)),
+				DoubleColumn::addAll,
+				DoubleColumn::toArray,
+				Collector.Characteristics.UNORDERED);
+	}
+
+	/**
+	 * Growable {@code double[]} indexed by id.
+	 */
+	static final class DoubleColumn {
+		double[] values;
+		int length;
+
+		DoubleColumn(int capacity) {
+			values = new double[Math.max(16, capacity)];
+		}
+		void add(int id, double v){
+			if(id >= values.length){
+				values = Arrays.copyOf(values, Math.max(id + 1, values.length * 2));
+			}
+			values[id] += v;
+			if(id >= length){
+				length = id + 1;
+			}
+		}
+		DoubleColumn addAll(DoubleColumn other){
+			DoubleColumn into = this, from = other;
+			if(other.values.length > values.length){
+				into = other;
+				from = this;
+			}
+			for(int i=0; i<from.length; i++){
+				into.values[i] += from.values[i];
+			}
+			into.length = Math.max(into.length, from.length);
+			return into;
+		}
+		double[] toArray(){
+			return values.length == length ? values : Arrays.copyOf(values, length);
+		}
+	}
+}
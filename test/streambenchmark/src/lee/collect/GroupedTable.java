@@ -0,0 +1,374 @@
+package lee.collect;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Result of a {@link MultiKeyGrouping}: groups are dense ids {@code 0..size()-1}
+ * in first-seen order, with their key components stored flat in one
+ * {@code Object[]} ({@code levels} slots per group) and each aggregation in its
+ * own column indexed by group id.
+ * <p>
+ * {@link #asMap(String)} exposes an aggregation as the nested maps
+ * {@code groupingBy(k1, groupingBy(k2, ...))} would return; the levels of the
+ * view are indexed lazily from the flat table when first read.
+ */
+public final class GroupedTable {
+	private static final float LOAD_FACTOR = 0.5f;
+
+	private final MultiKeyGrouping.Spec<Object> spec;
+	private final int levels;
+	private final Object[] scratch;
+
+	private int[] table;	// group id + 1, 0 = empty
+	private int mask;
+	private int size;
+	private Object[] keys;
+	private int[] hashes;
+	private long[] counts;
+	private final double[][] values;	// one column per SUM/MIN/MAX aggregation, null for LIST
+	private final List<Object>[][] lists;	// one column per LIST aggregation, null otherwise
+
+	@SuppressWarnings("unchecked")
+	GroupedTable(MultiKeyGrouping.Spec<?> spec) {
+		this.spec = (MultiKeyGrouping.Spec<Object>)spec;
+		this.levels = spec.classifiers.size();
+		this.scratch = new Object[levels];
+		int n = spec.aggregations.size();
+		this.values = new double[n][];
+		this.lists = (List<Object>[][])new List<?>[n][];
+		allocate(16);
+	}
+
+	public int size(){
+		return size;
+	}
+	public int levels(){
+		return levels;
+	}
+	/** Key component {@code level} of {@code group}. */
+	public Object key(int group, int level){
+		check(group);
+		return keys[group * levels + level];
+	}
+	public long count(int group){
+		check(group);
+		return counts[group];
+	}
+	/** Value of a sum/min/max aggregation. */
+	public double value(String aggregation, int group){
+		check(group);
+		double[] column = values[indexOf(aggregation)];
+		if(column == null){
+			throw new IllegalArgumentException(aggregation + " is a list aggregation");
+		}
+		return column[group];
+	}
+	public List<Object> list(String aggregation, int group){
+		check(group);
+		List<Object>[] column = lists[indexOf(aggregation)];
+		if(column == null){
+			throw new IllegalArgumentException(aggregation + " is not a list aggregation");
+		}
+		return Collections.unmodifiableList(column[group]);
+	}
+	/** Group whose key components equal {@code keys}, or -1. */
+	public int find(Object... keys){
+		if(keys.length != levels){
+			throw new IllegalArgumentException("expected " + levels + " key components, got " + keys.length);
+		}
+		int h = hash(keys);
+		for(int i=h & mask; ; i=(i + 1) & mask){
+			int id = table[i] - 1;
+			if(id < 0){
+				return -1;
+			}
+			if(hashes[id] == h && keyEquals(id, keys)){
+				return id;
+			}
+		}
+	}
+
+	/**
+	 * Nested read-only view {@code key1 -> key2 -> ... -> value}, where the value
+	 * is a {@code Long} for {@link MultiKeyGrouping#COUNT}, a {@code Double} for
+	 * sum/min/max and a {@code List} for list aggregations. Keys iterate in
+	 * first-seen order.
+	 */
+	public Map<Object, Object> asMap(String aggregation){
+		int a = MultiKeyGrouping.COUNT.equals(aggregation) ? -1 : indexOf(aggregation);
+		int[] all = new int[size];
+		for(int i=0; i<size; i++){
+			all[i] = i;
+		}
+		return new LevelView(0, all, a);
+	}
+
+	// ---- accumulation ----
+
+	void accumulate(Object t){
+		for(int l=0; l<levels; l++){
+			Object k = spec.classifiers.get(l).apply(t);
+			if(k == null){
+				throw new NullPointerException("element cannot be mapped to a null key");
+			}
+			scratch[l] = k;
+		}
+		int id = findOrInsert(scratch, hash(scratch));
+		counts[id]++;
+		List<MultiKeyGrouping.Aggregation<Object>> aggregations = spec.aggregations;
+		for(int a=0; a<aggregations.size(); a++){
+			MultiKeyGrouping.Aggregation<Object> agg = aggregations.get(a);
+			switch(agg.kind){
+			case SUM:
+				values[a][id] += agg.toDouble.applyAsDouble(t);
+				break;
+			case MIN:
+				values[a][id] = Math.min(values[a][id], agg.toDouble.applyAsDouble(t));
+				break;
+			case MAX:
+				values[a][id] = Math.max(values[a][id], agg.toDouble.applyAsDouble(t));
+				break;
+			case LIST:
+				lists[a][id].add(agg.toObject.apply(t));
+				break;
+			default:
+				throw new AssertionError(agg.kind);
+			}
+		}
+	}
+
+	/** Appends the groups of {@code other} after this table's, in its encounter order. */
+	void mergeAll(GroupedTable other){
+		List<MultiKeyGrouping.Aggregation<Object>> aggregations = spec.aggregations;
+		for(int g=0; g<other.size; g++){
+			System.arraycopy(other.keys, g * levels, scratch, 0, levels);
+			int id = findOrInsert(scratch, other.hashes[g]);
+			counts[id] += other.counts[g];
+			for(int a=0; a<aggregations.size(); a++){
+				switch(aggregations.get(a).kind){
+				case SUM:
+					values[a][id] += other.values[a][g];
+					break;
+				case MIN:
+					values[a][id] = Math.min(values[a][id], other.values[a][g]);
+					break;
+				case MAX:
+					values[a][id] = Math.max(values[a][id], other.values[a][g]);
+					break;
+				case LIST:
+					lists[a][id].addAll(other.lists[a][g]);
+					break;
+				default:
+					throw new AssertionError();
+				}
+			}
+		}
+	}
+
+	private int findOrInsert(Object[] key, int h){
+		for(int i=h & mask; ; i=(i + 1) & mask){
+			int id = table[i] - 1;
+			if(id < 0){
+				id = size++;
+				if(id == counts.length){
+					grow();
+				}
+				System.arraycopy(key, 0, keys, id * levels, levels);
+				hashes[id] = h;
+				initAggregates(id);
+				if(size > table.length * LOAD_FACTOR){
+					rehash(table.length << 1);
+				}else{
+					table[i] = id + 1;
+				}
+				return id;
+			}
+			if(hashes[id] == h && keyEquals(id, key)){
+				return id;
+			}
+		}
+	}
+	private boolean keyEquals(int id, Object[] key){
+		int base = id * levels;
+		for(int l=0; l<levels; l++){
+			if(!keys[base + l].equals(key[l])){
+				return false;
+			}
+		}
+		return true;
+	}
+	private int hash(Object[] key){
+		int h = 1;
+		for(Object k : key){
+			h = 31 * h + k.hashCode();
+		}
+		return HashUtil.mix(h);
+	}
+
+	private void allocate(int capacity){
+		keys = new Object[capacity * levels];
+		hashes = new int[capacity];
+		counts = new long[capacity];
+		for(int a=0; a<values.length; a++){
+			if(spec.aggregations.get(a).kind == MultiKeyGrouping.Aggregation.Kind.LIST){
+				@SuppressWarnings("unchecked")
+				List<Object>[] column = (List<Object>[])new List<?>[capacity];
+				lists[a] = column;
+			}else{
+				values[a] = new double[capacity];
+			}
+		}
+		table = new int[HashUtil.tableSize(capacity, LOAD_FACTOR)];
+		mask = table.length - 1;
+	}
+	private void grow(){
+		int capacity = counts.length << 1;
+		keys = Arrays.copyOf(keys, capacity * levels);
+		hashes = Arrays.copyOf(hashes, capacity);
+		counts = Arrays.copyOf(counts, capacity);
+		for(int a=0; a<values.length; a++){
+			if(values[a] != null){
+				values[a] = Arrays.copyOf(values[a], capacity);
+			}else{
+				lists[a] = Arrays.copyOf(lists[a], capacity);
+			}
+		}
+	}
+	/** Rebuilds the slot table; group ids and columns are untouched. */
+	private void rehash(int tableSize){
+		table = new int[tableSize];
+		mask = tableSize - 1;
+		for(int id=0; id<size; id++){
+			int i = hashes[id] & mask;
+			while(table[i] != 0){
+				i = (i + 1) & mask;
+			}
+			table[i] = id + 1;
+		}
+	}
+	private void initAggregates(int id){
+		for(int a=0; a<values.length; a++){
+			switch(spec.aggregations.get(a).kind){
+			case MIN:
+				values[a][id] = Double.POSITIVE_INFINITY;
+				break;
+			case MAX:
+				values[a][id] = Double.NEGATIVE_INFINITY;
+				break;
+			case LIST:
+				lists[a][id] = new ArrayList<>();
+				break;
+			default:
+			}
+		}
+	}
+
+	private int indexOf(String aggregation){
+		List<MultiKeyGrouping.Aggregation<Object>> aggregations = spec.aggregations;
+		for(int a=0; a<aggregations.size(); a++){
+			if(aggregations.get(a).name.equals(aggregation)){
+				return a;
+			}
+		}
+		throw new IllegalArgumentException("no aggregation named " + aggregation);
+	}
+	private void check(int group){
+		if(group < 0 || group >= size){
+			throw new IndexOutOfBoundsException("group " + group + ", size " + size);
+		}
+	}
+	private Object leafValue(int aggregation, int group){
+		if(aggregation < 0){
+			return counts[group];
+		}
+		if(values[aggregation] != null){
+			return values[aggregation][group];
+		}
+		return Collections.unmodifiableList(lists[aggregation][group]);
+	}
+
+	/** One level of {@link #asMap}: the groups in {@code members} keyed by component {@code level}. */
+	private final class LevelView extends AbstractMap<Object, Object> {
+		private final int level;
+		private final int[] members;
+		private final int aggregation;
+		private Map<Object, int[]> children;
+
+		LevelView(int level, int[] members, int aggregation) {
+			this.level = level;
+			this.members = members;
+			this.aggregation = aggregation;
+		}
+
+		private Map<Object, int[]> children(){
+			if(children == null){
+				// two passes so each child gets an exact-size member array
+				Map<Object, int[]> cursors = new LinkedHashMap<>();
+				for(int g : members){
+					cursors.computeIfAbsent(keys[g * levels + level], k -> new int[1])[0]++;
+				}
+				Map<Object, int[]> byKey = new LinkedHashMap<>();
+				for(Map.Entry<Object, int[]> e : cursors.entrySet()){
+					byKey.put(e.getKey(), new int[e.getValue()[0]]);
+					e.getValue()[0] = 0;
+				}
+				for(int g : members){
+					Object k = keys[g * levels + level];
+					byKey.get(k)[cursors.get(k)[0]++] = g;
+				}
+				children = byKey;
+			}
+			return children;
+		}
+		private Object child(int[] groups){
+			return level == levels - 1 ? leafValue(aggregation, groups[0]) : new LevelView(level + 1, groups, aggregation);
+		}
+
+		@Override
+		public Object get(Object key){
+			int[] groups = children().get(key);
+			return groups == null ? null : child(groups);
+		}
+		@Override
+		public boolean containsKey(Object key){
+			return children().containsKey(key);
+		}
+		@Override
+		public int size(){
+			return children().size();
+		}
+		@Override
+		public Set<Entry<Object, Object>> entrySet(){
+			return new AbstractSet<Entry<Object, Object>>(){
+				@Override
+				public int size(){
+					return children().size();
+				}
+				@Override
+				public Iterator<Entry<Object, Object>> iterator(){
+					Iterator<Map.Entry<Object, int[]>> it = children().entrySet().iterator();
+					return new Iterator<Entry<Object, Object>>(){
+						@Override
+						public boolean hasNext(){
+							return it.hasNext();
+						}
+						@Override
+						public Entry<Object, Object> next(){
+							Map.Entry<Object, int[]> e = it.next();
+							return new SimpleImmutableEntry<>(e.getKey(), child(e.getValue()));
+						}
+					};
+				}
+			};
+		}
+	}
+}
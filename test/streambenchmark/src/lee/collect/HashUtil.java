@@ -0,0 +1,38 @@
+package lee.collect;
+
+/**
+ * Hashing helpers shared by the open-addressing maps.
+ */
+final class HashUtil {
+	private static final int MAX_CAPACITY = 1 << 30;
+
+	private HashUtil(){}
+
+	/**
+	 * Spreads the bits of a hash code so that linear probing on
+	 * a power-of-two table does not cluster on poor hashCode()s.
+	 */
+	static int mix(int h){
+		h *= 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+	static int mix(long h){
+		h *= 0x9E3779B97F4A7C15L;
+		return (int)(h ^ (h >>> 32));
+	}
+	/**
+	 * Smallest power of two table that holds {@code expected} keys
+	 * without exceeding {@code loadFactor}.
+	 */
+	static int tableSize(int expected, float loadFactor){
+		if(expected < 0){
+			throw new IllegalArgumentException("expected size < 0: " + expected);
+		}
+		long need = (long)Math.ceil(Math.max(expected, 2) / (double)loadFactor);
+		if(need > MAX_CAPACITY){
+			return MAX_CAPACITY;
+		}
+		int cap = Integer.highestOneBit((int)need);
+		return cap < need ? cap << 1 : cap;
+	}
+}
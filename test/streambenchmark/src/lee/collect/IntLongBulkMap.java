@@ -0,0 +1,197 @@
+package lee.collect;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntConsumer;
+import java.util.function.LongBinaryOperator;
+import java.util.stream.IntStream;
+
+/**
+ * Map from primitive {@code int} keys to primitive {@code long} values split
+ * into {@value #SEGMENTS} {@link IntLongHashMap} segments by the high bits of
+ * the key's hash. Point operations lock one segment; the bulk
+ * {@code forEach}/{@code replaceAll}/{@code mergeAll} run one task per segment,
+ * in parallel once the map holds at least {@code parallelismThreshold} entries,
+ * and never box a key or a value.
+ */
+public class IntLongBulkMap {
+	static final int SEGMENT_BITS = 6;
+	static final int SEGMENTS = 1 << SEGMENT_BITS;
+
+	private final IntLongHashMap[] segments = new IntLongHashMap[SEGMENTS];
+	private final long parallelismThreshold;
+
+	public IntLongBulkMap(){
+		this(16 * SEGMENTS, BulkMap.DEFAULT_THRESHOLD);
+	}
+	public IntLongBulkMap(int expectedSize){
+		this(expectedSize, BulkMap.DEFAULT_THRESHOLD);
+	}
+	public IntLongBulkMap(int expectedSize, long parallelismThreshold){
+		if(expectedSize < 0){
+			throw new IllegalArgumentException("expected size < 0: " + expectedSize);
+		}
+		if(parallelismThreshold < 1){
+			throw new IllegalArgumentException("parallelismThreshold < 1: " + parallelismThreshold);
+		}
+		for(int i=0; i<SEGMENTS; i++){
+			segments[i] = new IntLongHashMap(expectedSize / SEGMENTS + 1);
+		}
+		this.parallelismThreshold = parallelismThreshold;
+	}
+
+	public int size(){
+		int n = 0;
+		for(IntLongHashMap seg : segments){
+			synchronized(seg){
+				n += seg.size();
+			}
+		}
+		return n;
+	}
+	public boolean isEmpty(){
+		return size() == 0;
+	}
+	public boolean containsKey(int key){
+		IntLongHashMap seg = segmentOf(key);
+		synchronized(seg){
+			return seg.containsKey(key);
+		}
+	}
+	public long getOrDefault(int key, long defaultValue){
+		IntLongHashMap seg = segmentOf(key);
+		synchronized(seg){
+			return seg.getOrDefault(key, defaultValue);
+		}
+	}
+	public void put(int key, long value){
+		IntLongHashMap seg = segmentOf(key);
+		synchronized(seg){
+			seg.put(key, value);
+		}
+	}
+	/**
+	 * Adds {@code delta} to the value of {@code key}, starting from 0.
+	 */
+	public void addTo(int key, long delta){
+		IntLongHashMap seg = segmentOf(key);
+		synchronized(seg){
+			seg.addTo(key, delta);
+		}
+	}
+	/**
+	 * Maps {@code key} to {@code value} if absent, otherwise to
+	 * {@code op.applyAsLong(old, value)}.
+	 */
+	public void merge(int key, long value, LongBinaryOperator op){
+		IntLongHashMap seg = segmentOf(key);
+		synchronized(seg){
+			seg.merge(key, value, op);
+		}
+	}
+
+	/**
+	 * Calls {@code action} for every entry; segments may be visited
+	 * concurrently, so {@code action} must be thread safe.
+	 */
+	public void forEach(IntLongConsumer action){
+		eachSegment(i -> {
+			IntLongHashMap seg = segments[i];
+			synchronized(seg){
+				seg.forEach(action);
+			}
+		});
+	}
+	/**
+	 * Replaces every value with {@code f.applyAsLong(key, value)}.
+	 */
+	public void replaceAll(IntLongToLongFunction f){
+		eachSegment(i -> {
+			IntLongHashMap seg = segments[i];
+			synchronized(seg){
+				seg.replaceAll(f);
+			}
+		});
+	}
+	/**
+	 * Merges every entry of {@code other} into this map with {@code op}.
+	 * Both maps share the segment layout, so segment {@code i} of
+	 * {@code other} only ever lands in segment {@code i} of this one.
+	 * {@code other} must not be modified meanwhile.
+	 */
+	public void mergeAll(IntLongBulkMap other, LongBinaryOperator op){
+		if(other == this){
+			throw new IllegalArgumentException("merging a map into itself");
+		}
+		eachSegment(i -> {
+			IntLongHashMap seg = segments[i];
+			synchronized(seg){
+				seg.mergeAll(other.segments[i], op);
+			}
+		}, size() + (long)other.size());
+	}
+	/**
+	 * Merges every entry of {@code other} into this map with {@code op}:
+	 * the entries are bucketed by segment on the calling thread, then each
+	 * bucket is merged by its own task.
+	 */
+	public void mergeAll(IntLongHashMap other, LongBinaryOperator op){
+		int[] counts = new int[SEGMENTS];
+		other.forEach((k, v) -> counts[segmentIndex(k)]++);
+		int[][] keys = new int[SEGMENTS][];
+		long[][] values = new long[SEGMENTS][];
+		for(int i=0; i<SEGMENTS; i++){
+			keys[i] = new int[counts[i]];
+			values[i] = new long[counts[i]];
+		}
+		int[] fill = new int[SEGMENTS];
+		other.forEach((k, v) -> {
+			int s = segmentIndex(k);
+			int j = fill[s]++;
+			keys[s][j] = k;
+			values[s][j] = v;
+		});
+		eachSegment(i -> {
+			IntLongHashMap seg = segments[i];
+			int[] ks = keys[i];
+			long[] vs = values[i];
+			synchronized(seg){
+				for(int j=0; j<ks.length; j++){
+					seg.merge(ks[j], vs[j], op);
+				}
+			}
+		}, size() + (long)other.size());
+	}
+	public Map<Integer, Long> toMap(){
+		Map<Integer, Long> map = new HashMap<>(size() * 2);
+		for(IntLongHashMap seg : segments){
+			synchronized(seg){
+				seg.forEach((k, v) -> map.put(k, v));
+			}
+		}
+		return map;
+	}
+
+	static int segmentIndex(int key){
+		return HashUtil.mix(key) >>> (32 - SEGMENT_BITS);
+	}
+	private IntLongHashMap segmentOf(int key){
+		return segments[segmentIndex(key)];
+	}
+	private void eachSegment(IntConsumer task){
+		eachSegment(task, size());
+	}
+	private void eachSegment(IntConsumer task, long work){
+		if(work < parallelismThreshold){
+			for(int i=0; i<SEGMENTS; i++){
+				task.accept(i);
+			}
+		}else{
+			IntStream.range(0, SEGMENTS).parallel().forEach(task);
+		}
+	}
+	@Override
+	public String toString(){
+		return toMap().toString();
+	}
+}
@@ -0,0 +1,10 @@
+package lee.collect;
+
+/**
+ * Consumer of an {@code int} key and a {@code long} value,
+ * the primitive counterpart of {@code BiConsumer<Integer, Long>}.
+ */
+@FunctionalInterface
+public interface IntLongConsumer {
+	void accept(int key, long value);
+}
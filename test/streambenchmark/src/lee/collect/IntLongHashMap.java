@@ -0,0 +1,194 @@
+package lee.collect;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * Open-addressing hash map from primitive {@code int} keys to primitive
+ * {@code long} values. Slot key 0 marks a free slot, so the key 0 itself
+ * is kept out of the table in a dedicated field. Not thread safe.
+ */
+public class IntLongHashMap {
+	private static final float LOAD_FACTOR = 0.5f;
+
+	private int[] keys;
+	private long[] values;
+	private int size;
+	private int mask;
+	private int threshold;
+	private boolean hasZeroKey;
+	private long zeroValue;
+
+	public IntLongHashMap(){
+		this(16);
+	}
+	public IntLongHashMap(int expectedSize){
+		int cap = HashUtil.tableSize(expectedSize, LOAD_FACTOR);
+		keys = new int[cap];
+		values = new long[cap];
+		mask = cap - 1;
+		threshold = (int)(cap * LOAD_FACTOR);
+	}
+	public int size(){
+		return hasZeroKey ? size + 1 : size;
+	}
+	public boolean isEmpty(){
+		return size() == 0;
+	}
+	public boolean containsKey(int key){
+		return key == 0 ? hasZeroKey : indexOf(key) >= 0;
+	}
+	public long getOrDefault(int key, long defaultValue){
+		if(key == 0){
+			return hasZeroKey ? zeroValue : defaultValue;
+		}
+		int i = indexOf(key);
+		return i < 0 ? defaultValue : values[i];
+	}
+	public void put(int key, long value){
+		if(key == 0){
+			hasZeroKey = true;
+			zeroValue = value;
+			return;
+		}
+		int i = insertionIndex(key);
+		values[i] = value;
+	}
+	/**
+	 * Adds {@code delta} to the value of {@code key}, starting from 0.
+	 */
+	public void addTo(int key, long delta){
+		if(key == 0){
+			hasZeroKey = true;
+			zeroValue += delta;
+			return;
+		}
+		int i = insertionIndex(key);
+		values[i] += delta;
+	}
+	/**
+	 * Maps {@code key} to {@code value} if absent, otherwise to
+	 * {@code op.applyAsLong(old, value)}.
+	 */
+	public void merge(int key, long value, LongBinaryOperator op){
+		if(key == 0){
+			zeroValue = hasZeroKey ? op.applyAsLong(zeroValue, value) : value;
+			hasZeroKey = true;
+			return;
+		}
+		int i = HashUtil.mix(key) & mask;
+		int k;
+		while((k = keys[i]) != 0){
+			if(k == key){
+				values[i] = op.applyAsLong(values[i], value);
+				return;
+			}
+			i = (i + 1) & mask;
+		}
+		keys[i] = key;
+		values[i] = value;
+		if(++size > threshold){
+			rehash();
+		}
+	}
+	/**
+	 * Merges every entry of {@code other} into this map with {@code op}.
+	 */
+	public void mergeAll(IntLongHashMap other, LongBinaryOperator op){
+		if(other.hasZeroKey){
+			merge(0, other.zeroValue, op);
+		}
+		int[] ks = other.keys;
+		long[] vs = other.values;
+		for(int i=0; i<ks.length; i++){
+			if(ks[i] != 0){
+				merge(ks[i], vs[i], op);
+			}
+		}
+	}
+	public void forEach(IntLongConsumer action){
+		if(hasZeroKey){
+			action.accept(0, zeroValue);
+		}
+		int[] ks = keys;
+		for(int i=0; i<ks.length; i++){
+			if(ks[i] != 0){
+				action.accept(ks[i], values[i]);
+			}
+		}
+	}
+	/**
+	 * Replaces every value with {@code f.applyAsLong(key, value)} in place.
+	 */
+	public void replaceAll(IntLongToLongFunction f){
+		if(hasZeroKey){
+			zeroValue = f.applyAsLong(0, zeroValue);
+		}
+		int[] ks = keys;
+		long[] vs = values;
+		for(int i=0; i<ks.length; i++){
+			if(ks[i] != 0){
+				vs[i] = f.applyAsLong(ks[i], vs[i]);
+			}
+		}
+	}
+	public Map<Integer, Long> toMap(){
+		Map<Integer, Long> map = new HashMap<>(size() * 2);
+		forEach((k, v) -> map.put(k, v));
+		return map;
+	}
+
+	private int indexOf(int key){
+		int i = HashUtil.mix(key) & mask;
+		int k;
+		while((k = keys[i]) != 0){
+			if(k == key){
+				return i;
+			}
+			i = (i + 1) & mask;
+		}
+		return -1;
+	}
+	private int insertionIndex(int key){
+		int i = HashUtil.mix(key) & mask;
+		int k;
+		while((k = keys[i]) != 0){
+			if(k == key){
+				return i;
+			}
+			i = (i + 1) & mask;
+		}
+		keys[i] = key;
+		values[i] = 0L;
+		if(++size > threshold){
+			rehash();
+			return indexOf(key);
+		}
+		return i;
+	}
+	private void rehash(){
+		int[] oldKeys = keys;
+		long[] oldValues = values;
+		int cap = oldKeys.length << 1;
+		keys = new int[cap];
+		values = new long[cap];
+		mask = cap - 1;
+		threshold = (int)(cap * LOAD_FACTOR);
+		for(int j=0; j<oldKeys.length; j++){
+			int k = oldKeys[j];
+			if(k != 0){
+				int i = HashUtil.mix(k) & mask;
+				while(keys[i] != 0){
+					i = (i + 1) & mask;
+				}
+				keys[i] = k;
+				values[i] = oldValues[j];
+			}
+		}
+	}
+	@Override
+	public String toString(){
+		return toMap().toString();
+	}
+}
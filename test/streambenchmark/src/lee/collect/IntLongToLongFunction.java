@@ -0,0 +1,11 @@
+package lee.collect;
+
+/**
+ * Function of an {@code int} key and a {@code long} value to a new
+ * {@code long} value, the primitive counterpart of
+ * {@code BiFunction<Integer, Long, Long>} as used by {@code Map.replaceAll}.
+ */
+@FunctionalInterface
+public interface IntLongToLongFunction {
+	long applyAsLong(int key, long value);
+}
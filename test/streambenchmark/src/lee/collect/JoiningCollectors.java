@@ -0,0 +1,237 @@
+package lee.collect;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collector;
+import java.util.stream.IntStream;
+
+/**
+ * {@code Collectors.joining} replacements for very large outputs.
+ * <p>
+ * Accumulation only keeps references and running lengths, in segments of at
+ * most {@link #SEGMENT_SIZE} elements, so combining parallel results links
+ * segments instead of copying text. The finisher then knows the exact output
+ * length, allocates one {@code char[]}, and every segment copies its elements
+ * straight to its precomputed offset, in parallel for large outputs. There is no
+ * {@code StringBuilder} regrowth and no intermediate strings.
+ * <p>
+ * {@link #toChannel} streams the same layout to a {@link WritableByteChannel}
+ * through one fixed buffer, so an export never needs its full size in memory.
+ */
+public final class JoiningCollectors {
+	/** Elements per accumulation segment, also the unit of parallel fill. */
+	static final int SEGMENT_SIZE = 8192;
+	/** Outputs shorter than this are filled by the calling thread. */
+	private static final long PARALLEL_FILL_CHARS = 1 << 20;
+	private static final int MAX_ARRAY = Integer.MAX_VALUE - 8;
+	private static final int CHANNEL_BUFFER = 1 << 16;
+
+	private JoiningCollectors(){}
+
+	public static Collector<CharSequence, ?, String> joining(){
+		return joining("", "", "");
+	}
+	public static Collector<CharSequence, ?, String> joining(CharSequence delimiter){
+		return joining(delimiter, "", "");
+	}
+	public static Collector<CharSequence, ?, String> joining(CharSequence delimiter, CharSequence prefix, CharSequence suffix){
+		String d = delimiter.toString(), p = prefix.toString(), s = suffix.toString();
+		return Collector.of(Parts::new, Parts::add, Parts::addAll, parts -> parts.toText(d, p, s));
+	}
+
+	/**
+	 * Writes the joined text to {@code channel} as UTF-8 and returns the number of
+	 * bytes written. The channel is not closed.
+	 */
+	public static Collector<CharSequence, ?, Long> toChannel(WritableByteChannel channel,
+			CharSequence delimiter, CharSequence prefix, CharSequence suffix){
+		Objects.requireNonNull(channel);
+		String d = delimiter.toString(), p = prefix.toString(), s = suffix.toString();
+		return Collector.of(Parts::new, Parts::add, Parts::addAll, parts -> parts.write(channel, d, p, s));
+	}
+
+	/** Up to {@link #SEGMENT_SIZE} elements and their total length. */
+	private static final class Segment {
+		final CharSequence[] items;
+		int count;
+		long chars;
+
+		Segment(int capacity) {
+			items = new CharSequence[capacity];
+		}
+	}
+
+	private static final class Parts {
+		final List<Segment> segments = new ArrayList<>();
+		Segment last;
+		long count;
+		long chars;
+
+		void add(CharSequence cs){
+			Objects.requireNonNull(cs);
+			Segment seg = last;
+			if(seg == null || seg.count == seg.items.length){
+				if(seg != null && seg.items.length < SEGMENT_SIZE){
+					// first segment starts small so tiny joins stay tiny
+					Segment bigger = new Segment(Math.min(SEGMENT_SIZE, seg.items.length * 4));
+					System.arraycopy(seg.items, 0, bigger.items, 0, seg.count);
+					bigger.count = seg.count;
+					bigger.chars = seg.chars;
+					segments.set(segments.size() - 1, bigger);
+					seg = bigger;
+				}else{
+					seg = new Segment(segments.isEmpty() ? 16 : SEGMENT_SIZE);
+					segments.add(seg);
+				}
+				last = seg;
+			}
+			int len = cs.length();
+			seg.items[seg.count++] = cs;
+			seg.chars += len;
+			chars += len;
+			count++;
+		}
+		Parts addAll(Parts other){
+			segments.addAll(other.segments);
+			last = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+			count += other.count;
+			chars += other.chars;
+			return this;
+		}
+
+		String toText(String delimiter, String prefix, String suffix){
+			long total = prefix.length() + chars + suffix.length() + (count == 0 ? 0 : (count - 1) * delimiter.length());
+			if(total > MAX_ARRAY){
+				throw new OutOfMemoryError("joined length " + total + " exceeds the maximum array size");
+			}
+			char[] out = new char[(int)total];
+			prefix.getChars(0, prefix.length(), out, 0);
+			suffix.getChars(0, suffix.length(), out, out.length - suffix.length());
+			int n = segments.size();
+			// exclusive prefix sums: where each segment starts and how many elements precede it
+			int[] offsets = new int[n];
+			long[] before = new long[n];
+			long pos = prefix.length(), items = 0;
+			for(int i=0; i<n; i++){
+				offsets[i] = (int)pos;
+				before[i] = items;
+				Segment seg = segments.get(i);
+				pos += seg.chars + (long)(i == 0 ? seg.count - 1 : seg.count) * delimiter.length();
+				items += seg.count;
+			}
+			if(total >= PARALLEL_FILL_CHARS && n > 1){
+				IntStream.range(0, n).parallel().forEach(i -> fill(segments.get(i), before[i] == 0, out, offsets[i], delimiter));
+			}else{
+				for(int i=0; i<n; i++){
+					fill(segments.get(i), before[i] == 0, out, offsets[i], delimiter);
+				}
+			}
+			return new String(out);
+		}
+
+		/** Writes the segment at {@code at}; every element but the very first is preceded by the delimiter. */
+		private static void fill(Segment seg, boolean first, char[] out, int at, String delimiter){
+			int dl = delimiter.length();
+			for(int i=0; i<seg.count; i++){
+				if(!first || i > 0){
+					delimiter.getChars(0, dl, out, at);
+					at += dl;
+				}
+				at = copy(seg.items[i], out, at);
+			}
+		}
+		private static int copy(CharSequence cs, char[] out, int at){
+			int len = cs.length();
+			if(cs instanceof String){
+				((String)cs).getChars(0, len, out, at);
+			}else if(cs instanceof StringBuilder){
+				((StringBuilder)cs).getChars(0, len, out, at);
+			}else{
+				for(int i=0; i<len; i++){
+					out[at + i] = cs.charAt(i);
+				}
+			}
+			return at + len;
+		}
+
+		long write(WritableByteChannel channel, String delimiter, String prefix, String suffix){
+			ChannelWriter w = new ChannelWriter(channel);
+			w.write(prefix);
+			boolean first = true;
+			for(Segment seg : segments){
+				for(int i=0; i<seg.count; i++){
+					if(!first){
+						w.write(delimiter);
+					}
+					first = false;
+					w.write(seg.items[i]);
+				}
+			}
+			w.write(suffix);
+			return w.finish();
+		}
+	}
+
+	/** UTF-8 encoder over one reused heap buffer. */
+	private static final class ChannelWriter {
+		private final WritableByteChannel channel;
+		private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+		private final ByteBuffer buffer = ByteBuffer.allocate(CHANNEL_BUFFER);
+		private long written;
+
+		ChannelWriter(WritableByteChannel channel) {
+			this.channel = channel;
+		}
+		void write(CharSequence cs){
+			if(cs.length() == 0){
+				return;
+			}
+			CharBuffer in = CharBuffer.wrap(cs);
+			while(true){
+				CoderResult r = encoder.encode(in, buffer, false);
+				if(r.isOverflow()){
+					drain();
+				}else if(r.isUnderflow()){
+					if(in.hasRemaining()){
+						// only a lone high surrogate is left, which cannot be encoded on its own
+						throw new IllegalArgumentException("element ends with an unpaired surrogate");
+					}
+					return;
+				}else{
+					try{
+						r.throwException();
+					}catch(CharacterCodingException e){
+						throw new IllegalArgumentException(e);
+					}
+				}
+			}
+		}
+		long finish(){
+			encoder.encode(CharBuffer.wrap(new char[0]), buffer, true);
+			encoder.flush(buffer);
+			drain();
+			return written;
+		}
+		private void drain(){
+			buffer.flip();
+			try{
+				while(buffer.hasRemaining()){
+					written += channel.write(buffer);
+				}
+			}catch(IOException e){
+				throw new UncheckedIOException(e);
+			}
+			buffer.clear();
+		}
+	}
+}
@@ -0,0 +1,187 @@
+package lee.collect;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Concurrent dictionary that maps keys to dense {@code int} ids {@code 0..size()-1}
+ * in first-seen order, so a key such as {@code Order.userName} is hashed and
+ * compared once when it is encoded, and every later aggregation indexes a
+ * {@code double[]} by id.
+ * <p>
+ * The key-to-id side is split into lock-striped {@link HashMap}s chosen by the
+ * key's hash; threads only contend when they hit the same stripe. The id-to-key
+ * side is a list of fixed-size chunks allocated on demand and read without locking.
+ * An id counts towards {@link #size()} only once its key and every smaller
+ * id's key are stored, so readers bounded by {@code size()} never see a gap.
+ * An {@link #encode} that fails part way (say, out of memory) still counts its
+ * id, whose key then reads as null; the key gets a new id when encoded again.
+ */
+public class KeyDictionary<K> {
+	private static final int CHUNK_SHIFT = 12;
+	private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+	private static final int MAX_CHUNKS = 1 << (31 - CHUNK_SHIFT);
+
+	private final Stripe<K>[] stripes;
+	private final int stripeMask;
+	private final AtomicInteger nextId = new AtomicInteger();
+	private final AtomicInteger published = new AtomicInteger();
+	private final AtomicReferenceArray<AtomicReferenceArray<K>> chunks = new AtomicReferenceArray<>(MAX_CHUNKS);
+
+	public KeyDictionary(){
+		this(Runtime.getRuntime().availableProcessors() * 16);
+	}
+	@SuppressWarnings("unchecked")
+	public KeyDictionary(int stripeCount){
+		int n = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+		stripes = (Stripe<K>[])new Stripe<?>[n];
+		for(int i=0; i<n; i++){
+			stripes[i] = new Stripe<>();
+		}
+		stripeMask = n - 1;
+	}
+
+	/**
+	 * Id of {@code key}, assigning the next free id if it has none yet.
+	 */
+	public int encode(K key){
+		if(key == null){
+			throw new NullPointerException("null key");
+		}
+		Stripe<K> stripe = stripes[HashUtil.mix(key.hashCode()) & stripeMask];
+		synchronized(stripe){
+			Integer id = stripe.ids.get(key);
+			if(id != null){
+				return id;
+			}
+			int newId = claim();
+			try{
+				publish(newId, key);
+				stripe.ids.put(key, newId);
+			}finally{
+				advance(newId);
+			}
+			return newId;
+		}
+	}
+	/**
+	 * Id of {@code key}, or -1 if it was never encoded.
+	 */
+	public int lookup(Object key){
+		Stripe<K> stripe = stripes[HashUtil.mix(key.hashCode()) & stripeMask];
+		synchronized(stripe){
+			Integer id = stripe.ids.get(key);
+			return id == null ? -1 : id;
+		}
+	}
+	/**
+	 * Key of {@code id}, or null if the {@link #encode} that assigned it failed.
+	 * An id can be resolved from any thread once that call has returned.
+	 */
+	public K key(int id){
+		if(id < 0 || id >= size()){
+			throw new IndexOutOfBoundsException("id " + id + " of " + size());
+		}
+		return chunks.get(id >>> CHUNK_SHIFT).get(id & (CHUNK_SIZE - 1));
+	}
+	/**
+	 * Number of ids handed out so far whose keys can be read.
+	 */
+	public int size(){
+		return published.get();
+	}
+
+	/**
+	 * Encodes the key of every element, in parallel if asked; the result is
+	 * aligned with {@code elements}.
+	 */
+	public <T> int[] encodeAll(List<? extends T> elements, Function<? super T, ? extends K> keyOf, boolean parallel){
+		int[] ids = new int[elements.size()];
+		IntStream range = IntStream.range(0, ids.length);
+		(parallel ? range.parallel() : range).forEach(i -> ids[i] = encode(keyOf.apply(elements.get(i))));
+		return ids;
+	}
+	/**
+	 * Per-id sums of {@code values}, indexed by the aligned {@code ids}.
+	 */
+	public double[] sumById(int[] ids, double[] values){
+		if(ids.length != values.length){
+			throw new IllegalArgumentException("ids and values differ in length");
+		}
+		double[] sums = new double[size()];
+		for(int i=0; i<ids.length; i++){
+			sums[ids[i]] += values[i];
+		}
+		return sums;
+	}
+	/**
+	 * Boxes a per-id array back into a key map; ids past the end of
+	 * {@code byId} are left out.
+	 */
+	public Map<K, Double> toMap(double[] byId){
+		int n = Math.min(byId.length, size());
+		Map<K, Double> map = new HashMap<>(n * 2);
+		for(int id=0; id<n; id++){
+			K key = key(id);
+			if(key != null){
+				map.put(key, byId[id]);
+			}
+		}
+		return map;
+	}
+
+	/**
+	 * Next free id. The last int is never handed out, so {@code id + 1} is a
+	 * valid published count.
+	 */
+	private int claim(){
+		while(true){
+			int id = nextId.get();
+			if(id == Integer.MAX_VALUE){
+				throw new IllegalStateException("dictionary is full");
+			}
+			if(nextId.compareAndSet(id, id + 1)){
+				return id;
+			}
+		}
+	}
+	// package-private so tests can make it fail
+	void publish(int id, K key){
+		int c = id >>> CHUNK_SHIFT;
+		AtomicReferenceArray<K> chunk = chunks.get(c);
+		if(chunk == null){
+			chunks.compareAndSet(c, null, new AtomicReferenceArray<>(CHUNK_SIZE));
+			chunk = chunks.get(c);
+		}
+		chunk.set(id & (CHUNK_SIZE - 1), key);
+	}
+
+	/**
+	 * Moves the published count past {@code id}, after waiting for the
+	 * smaller ids, which are at most a store away from being published.
+	 */
+	private void advance(int id){
+		while(!published.compareAndSet(id, id + 1)){
+			Thread.yield();
+		}
+	}
+
+	private static final class Stripe<K> {
+		final Map<K, Integer> ids = new HashMap<>();
+	}
+
+	@Override
+	public String toString(){
+		Object[] keys = new Object[Math.min(size(), 16)];
+		for(int i=0; i<keys.length; i++){
+			keys[i] = key(i);
+		}
+		return "KeyDictionary[size=" + size() + ", first=" + Arrays.toString(keys) + "]";
+	}
+}
@@ -0,0 +1,106 @@
+package lee.collect;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collector;
+
+/**
+ * Multi-level grouping in one pass and one hash table. The classifier values of
+ * an element are hashed together once and looked up in the flat
+ * open-addressing table of a {@link GroupedTable}, instead of one
+ * {@code HashMap} per outer key as nested {@code groupingBy} builds; every
+ * aggregation is updated in the same pass.
+ * <pre>
+ * GroupedTable t = orders.stream().collect(MultiKeyGrouping.&lt;Order&gt;by(Order::getUserName)
+ *         .thenBy(o -&gt; o.getPrice() &gt;= 500)
+ *         .sum("total", Order::getPrice)
+ *         .max("largest", Order::getPrice)
+ *         .collector());
+ * Map&lt;Object, Object&gt; totals = t.asMap("total");	// user -&gt; expensive? -&gt; sum
+ * </pre>
+ * A count per group is always kept and is available as {@link #COUNT}.
+ */
+public final class MultiKeyGrouping<T> {
+	/** Name of the built-in per-group count. */
+	public static final String COUNT = "count";
+
+	final List<Function<? super T, ?>> classifiers = new ArrayList<>();
+	final List<Aggregation<T>> aggregations = new ArrayList<>();
+
+	private MultiKeyGrouping(){}
+
+	public static <T> MultiKeyGrouping<T> by(Function<? super T, ?> classifier){
+		return new MultiKeyGrouping<T>().thenBy(classifier);
+	}
+	public MultiKeyGrouping<T> thenBy(Function<? super T, ?> classifier){
+		classifiers.add(Objects.requireNonNull(classifier));
+		return this;
+	}
+
+	public MultiKeyGrouping<T> sum(String name, ToDoubleFunction<? super T> mapper){
+		return add(new Aggregation<>(Aggregation.Kind.SUM, name, mapper, null));
+	}
+	public MultiKeyGrouping<T> min(String name, ToDoubleFunction<? super T> mapper){
+		return add(new Aggregation<>(Aggregation.Kind.MIN, name, mapper, null));
+	}
+	public MultiKeyGrouping<T> max(String name, ToDoubleFunction<? super T> mapper){
+		return add(new Aggregation<>(Aggregation.Kind.MAX, name, mapper, null));
+	}
+	/** Values of each group in encounter order, like {@code mapping(mapper, toList())}. */
+	public MultiKeyGrouping<T> list(String name, Function<? super T, ?> mapper){
+		return add(new Aggregation<>(Aggregation.Kind.LIST, name, null, mapper));
+	}
+
+	public Collector<T, ?, GroupedTable> collector(){
+		Spec<T> spec = new Spec<>(new ArrayList<>(classifiers), new ArrayList<>(aggregations));
+		return Collector.of(() -> new GroupedTable(spec), GroupedTable::accumulate,
+				(a, b) -> {
+					a.mergeAll(b);
+					return a;
+				}, Collector.Characteristics.IDENTITY_FINISH);
+	}
+
+	private MultiKeyGrouping<T> add(Aggregation<T> aggregation){
+		if(COUNT.equals(aggregation.name)){
+			throw new IllegalArgumentException("\"" + COUNT + "\" is reserved");
+		}
+		for(Aggregation<T> a : aggregations){
+			if(a.name.equals(aggregation.name)){
+				throw new IllegalArgumentException("duplicate aggregation " + aggregation.name);
+			}
+		}
+		aggregations.add(aggregation);
+		return this;
+	}
+
+	static final class Aggregation<T> {
+		enum Kind { SUM, MIN, MAX, LIST }
+
+		final Kind kind;
+		final String name;
+		final ToDoubleFunction<? super T> toDouble;
+		final Function<? super T, ?> toObject;
+
+		Aggregation(Kind kind, String name, ToDoubleFunction<? super T> toDouble, Function<? super T, ?> toObject) {
+			this.kind = kind;
+			this.name = Objects.requireNonNull(name);
+			this.toDouble = kind == Kind.LIST ? null : Objects.requireNonNull(toDouble);
+			this.toObject = kind == Kind.LIST ? Objects.requireNonNull(toObject) : null;
+		}
+	}
+
+	/** Frozen classifiers and aggregations shared by every table of one collector. */
+	static final class Spec<T> {
+		final List<Function<? super T, ?>> classifiers;
+		final List<Aggregation<T>> aggregations;
+
+		Spec(List<Function<? super T, ?>> classifiers, List<Aggregation<T>> aggregations) {
+			this.classifiers = Collections.unmodifiableList(classifiers);
+			this.aggregations = Collections.unmodifiableList(aggregations);
+		}
+	}
+}
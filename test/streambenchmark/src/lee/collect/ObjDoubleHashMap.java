@@ -0,0 +1,171 @@
+package lee.collect;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.ObjDoubleConsumer;
+
+/**
+ * Open-addressing hash map from object keys to primitive {@code double} values.
+ * Keys and values live in two parallel arrays, probed linearly, so an update
+ * neither boxes the value nor allocates an entry. Null keys are not allowed.
+ * Not thread safe.
+ */
+public class ObjDoubleHashMap<K> {
+	private static final float LOAD_FACTOR = 0.5f;
+
+	private Object[] keys;
+	private double[] values;
+	private int size;
+	private int mask;
+	private int threshold;
+
+	public ObjDoubleHashMap(){
+		this(16);
+	}
+	public ObjDoubleHashMap(int expectedSize){
+		int cap = HashUtil.tableSize(expectedSize, LOAD_FACTOR);
+		keys = new Object[cap];
+		values = new double[cap];
+		mask = cap - 1;
+		threshold = (int)(cap * LOAD_FACTOR);
+	}
+	public int size(){
+		return size;
+	}
+	public boolean isEmpty(){
+		return size == 0;
+	}
+	public boolean containsKey(Object key){
+		return indexOf(key) >= 0;
+	}
+	/**
+	 * Returns the value mapped to {@code key}, or {@code defaultValue} if absent.
+	 */
+	public double getOrDefault(Object key, double defaultValue){
+		int i = indexOf(key);
+		return i < 0 ? defaultValue : values[i];
+	}
+	public void put(K key, double value){
+		int i = insertionIndex(key);
+		values[i] = value;
+	}
+	/**
+	 * Adds {@code delta} to the value of {@code key}, starting from 0.
+	 */
+	public void addTo(K key, double delta){
+		int i = insertionIndex(key);
+		values[i] += delta;
+	}
+	/**
+	 * Maps {@code key} to {@code value} if absent, otherwise to
+	 * {@code op.applyAsDouble(old, value)}.
+	 */
+	public void merge(K key, double value, DoubleBinaryOperator op){
+		Objects.requireNonNull(key);
+		int i = HashUtil.mix(key.hashCode()) & mask;
+		Object k;
+		while((k = keys[i]) != null){
+			if(k.equals(key)){
+				values[i] = op.applyAsDouble(values[i], value);
+				return;
+			}
+			i = (i + 1) & mask;
+		}
+		keys[i] = key;
+		values[i] = value;
+		if(++size > threshold){
+			rehash();
+		}
+	}
+	/**
+	 * Merges every entry of {@code other} into this map with {@code op}.
+	 */
+	@SuppressWarnings("unchecked")
+	public void mergeAll(ObjDoubleHashMap<K> other, DoubleBinaryOperator op){
+		Object[] ks = other.keys;
+		double[] vs = other.values;
+		for(int i=0; i<ks.length; i++){
+			if(ks[i] != null){
+				merge((K)ks[i], vs[i], op);
+			}
+		}
+	}
+	@SuppressWarnings("unchecked")
+	public void forEach(ObjDoubleConsumer<? super K> action){
+		Object[] ks = keys;
+		for(int i=0; i<ks.length; i++){
+			if(ks[i] != null){
+				action.accept((K)ks[i], values[i]);
+			}
+		}
+	}
+	/**
+	 * Copies this map into a boxed {@link HashMap}, e.g. to compare with
+	 * the result of {@code Collectors.groupingBy}.
+	 */
+	public Map<K, Double> toMap(){
+		Map<K, Double> map = new HashMap<>(size * 2);
+		forEach((k, v) -> map.put(k, v));
+		return map;
+	}
+
+	private int indexOf(Object key){
+		Objects.requireNonNull(key);
+		int i = HashUtil.mix(key.hashCode()) & mask;
+		Object k;
+		while((k = keys[i]) != null){
+			if(k.equals(key)){
+				return i;
+			}
+			i = (i + 1) & mask;
+		}
+		return -1;
+	}
+	/**
+	 * Index of {@code key}, inserting it with value 0 if absent.
+	 */
+	private int insertionIndex(K key){
+		Objects.requireNonNull(key);
+		int i = HashUtil.mix(key.hashCode()) & mask;
+		Object k;
+		while((k = keys[i]) != null){
+			if(k.equals(key)){
+				return i;
+			}
+			i = (i + 1) & mask;
+		}
+		keys[i] = key;
+		values[i] = 0;
+		if(++size > threshold){
+			rehash();
+			return indexOf(key);
+		}
+		return i;
+	}
+	private void rehash(){
+		Object[] oldKeys = keys;
+		double[] oldValues = values;
+		int cap = oldKeys.length << 1;
+		keys = new Object[cap];
+		values = new double[cap];
+		mask = cap - 1;
+		threshold = (int)(cap * LOAD_FACTOR);
+		for(int j=0; j<oldKeys.length; j++){
+			Object k = oldKeys[j];
+			if(k != null){
+				int i = HashUtil.mix(k.hashCode()) & mask;
+				while(keys[i] != null){
+					i = (i + 1) & mask;
+				}
+				keys[i] = k;
+				values[i] = oldValues[j];
+			}
+		}
+	}
+	@Override
+	public String toString(){
+		return toMap().toString();
+	}
+}
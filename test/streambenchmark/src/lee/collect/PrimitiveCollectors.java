@@ -0,0 +1,122 @@
+package lee.collect;
+
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.Function;
+import java.util.function.LongBinaryOperator;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collector;
+
+/**
+ * Grouping collectors whose per-group accumulator is a primitive slot in an
+ * open-addressing map, instead of the boxed value plus {@code double[]} holder
+ * that {@code Collectors.groupingBy(f, Collectors.summingDouble(g))} allocates
+ * for every group.
+ * <pre>
+ * ObjDoubleHashMap&lt;String&gt; sums = orders.stream().collect(
+ *         PrimitiveCollectors.groupingSumDouble(Order::getUserName, Order::getPrice));
+ * </pre>
+ * Unlike {@code Collectors.summingDouble} the double sums are plain
+ * (no Kahan compensation), which is what a hand-written for-loop does.
+ */
+public final class PrimitiveCollectors {
+	private static final Collector.Characteristics[] CH_ID_UNORDERED = {
+			Collector.Characteristics.IDENTITY_FINISH, Collector.Characteristics.UNORDERED};
+
+	private PrimitiveCollectors(){}
+
+	// ---------- object key -> double value ----------
+
+	public static <T, K> Collector<T, ?, ObjDoubleHashMap<K>> groupingSumDouble(
+			Function<? super T, ? extends K> classifier, ToDoubleFunction<? super T> mapper){
+		return objDouble((m, t) -> m.addTo(classifier.apply(t), mapper.applyAsDouble(t)), Double::sum);
+	}
+	public static <T, K> Collector<T, ?, ObjDoubleHashMap<K>> groupingMinDouble(
+			Function<? super T, ? extends K> classifier, ToDoubleFunction<? super T> mapper){
+		return objDouble((m, t) -> m.merge(classifier.apply(t), mapper.applyAsDouble(t), Math::min), Math::min);
+	}
+	public static <T, K> Collector<T, ?, ObjDoubleHashMap<K>> groupingMaxDouble(
+			Function<? super T, ? extends K> classifier, ToDoubleFunction<? super T> mapper){
+		return objDouble((m, t) -> m.merge(classifier.apply(t), mapper.applyAsDouble(t), Math::max), Math::max);
+	}
+
+	// ---------- object key -> long value ----------
+
+	public static <T, K> Collector<T, ?, ObjLongHashMap<K>> groupingCount(
+			Function<? super T, ? extends K> classifier){
+		return objLong((m, t) -> m.addTo(classifier.apply(t), 1L), Long::sum);
+	}
+	public static <T, K> Collector<T, ?, ObjLongHashMap<K>> groupingSumLong(
+			Function<? super T, ? extends K> classifier, ToLongFunction<? super T> mapper){
+		return objLong((m, t) -> m.addTo(classifier.apply(t), mapper.applyAsLong(t)), Long::sum);
+	}
+	public static <T, K> Collector<T, ?, ObjLongHashMap<K>> groupingMinLong(
+			Function<? super T, ? extends K> classifier, ToLongFunction<? super T> mapper){
+		return objLong((m, t) -> m.merge(classifier.apply(t), mapper.applyAsLong(t), Math::min), Math::min);
+	}
+	public static <T, K> Collector<T, ?, ObjLongHashMap<K>> groupingMaxLong(
+			Function<? super T, ? extends K> classifier, ToLongFunction<? super T> mapper){
+		return objLong((m, t) -> m.merge(classifier.apply(t), mapper.applyAsLong(t), Math::max), Math::max);
+	}
+
+	// ---------- int key -> long value ----------
+
+	public static <T> Collector<T, ?, IntLongHashMap> groupingIntCount(ToIntFunction<? super T> classifier){
+		return intLong((m, t) -> m.addTo(classifier.applyAsInt(t), 1L), Long::sum);
+	}
+	public static <T> Collector<T, ?, IntLongHashMap> groupingIntSumLong(
+			ToIntFunction<? super T> classifier, ToLongFunction<? super T> mapper){
+		return intLong((m, t) -> m.addTo(classifier.applyAsInt(t), mapper.applyAsLong(t)), Long::sum);
+	}
+	public static <T> Collector<T, ?, IntLongHashMap> groupingIntMinLong(
+			ToIntFunction<? super T> classifier, ToLongFunction<? super T> mapper){
+		return intLong((m, t) -> m.merge(classifier.applyAsInt(t), mapper.applyAsLong(t), Math::min), Math::min);
+	}
+	public static <T> Collector<T, ?, IntLongHashMap> groupingIntMaxLong(
+			ToIntFunction<? super T> classifier, ToLongFunction<? super T> mapper){
+		return intLong((m, t) -> m.merge(classifier.applyAsInt(t), mapper.applyAsLong(t), Math::max), Math::max);
+	}
+
+	private static <T, K> Collector<T, ?, ObjDoubleHashMap<K>> objDouble(
+			BiConsumer<ObjDoubleHashMap<K>, T> accumulator, DoubleBinaryOperator op){
+		Supplier<ObjDoubleHashMap<K>> supplier = ObjDoubleHashMap::new;
+		BinaryOperator<ObjDoubleHashMap<K>> combiner = (a, b) -> {
+			if(a.size() < b.size()){
+				b.mergeAll(a, op);
+				return b;
+			}
+			a.mergeAll(b, op);
+			return a;
+		};
+		return Collector.of(supplier, accumulator, combiner, CH_ID_UNORDERED);
+	}
+	private static <T, K> Collector<T, ?, ObjLongHashMap<K>> objLong(
+			BiConsumer<ObjLongHashMap<K>, T> accumulator, LongBinaryOperator op){
+		Supplier<ObjLongHashMap<K>> supplier = ObjLongHashMap::new;
+		BinaryOperator<ObjLongHashMap<K>> combiner = (a, b) -> {
+			if(a.size() < b.size()){
+				b.mergeAll(a, op);
+				return b;
+			}
+			a.mergeAll(b, op);
+			return a;
+		};
+		return Collector.of(supplier, accumulator, combiner, CH_ID_UNORDERED);
+	}
+	private static <T> Collector<T, ?, IntLongHashMap> intLong(
+			BiConsumer<IntLongHashMap, T> accumulator, LongBinaryOperator op){
+		BinaryOperator<IntLongHashMap> combiner = (a, b) -> {
+			if(a.size() < b.size()){
+				b.mergeAll(a, op);
+				return b;
+			}
+			a.mergeAll(b, op);
+			return a;
+		};
+		return Collector.of(IntLongHashMap::new, accumulator, combiner, CH_ID_UNORDERED);
+	}
+}
@@ -0,0 +1,148 @@
+package lee.collect;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * {@link BoundedHeap} specialized for strings in natural order. Next to every
+ * kept string it stores its first 8 chars packed big-endian into a {@code long}
+ * (one byte per char, missing chars as 0), computed once when the string
+ * enters. While both strings are Latin-1 in their first 8 chars, comparing the
+ * packed prefixes unsigned gives the same answer as {@code compareTo} unless
+ * the prefixes are equal, so most heap comparisons are a single {@code long}
+ * compare and only ties fall back to {@code String.compareTo}.
+ * Not thread safe.
+ */
+public class StringTopK {
+	private final boolean largest;
+	private final String[] heap;
+	private final long[] prefixes;
+	private final boolean[] packed;
+	private int size;
+
+	/**
+	 * @param largest keep the k largest instead of the k smallest
+	 */
+	public StringTopK(int k, boolean largest) {
+		if(k <= 0){
+			throw new IllegalArgumentException("k must be > 0: " + k);
+		}
+		this.largest = largest;
+		heap = new String[k];
+		prefixes = new long[k];
+		packed = new boolean[k];
+	}
+
+	public int size(){
+		return size;
+	}
+	public void offer(String s){
+		long p = 0;
+		boolean latin1 = true;
+		int n = Math.min(8, s.length());
+		for(int i=0; i<n; i++){
+			char c = s.charAt(i);
+			if(c > 0xFF){
+				latin1 = false;
+				break;
+			}
+			p = (p << 8) | c;
+		}
+		if(latin1){
+			p <<= 8 * (8 - n);
+		}
+		if(size < heap.length){
+			set(size, s, p, latin1);
+			siftUp(size++);
+		}else if(compare(s, p, latin1, 0) < 0){
+			set(0, s, p, latin1);
+			siftDown(0);
+		}
+	}
+	public StringTopK merge(StringTopK other){
+		StringTopK into = this, from = other;
+		if(other.size > size){
+			into = other;
+			from = this;
+		}
+		for(int i=0; i<from.size; i++){
+			into.offer(from.heap[i]);
+		}
+		return into;
+	}
+	/**
+	 * The kept strings, best first: ascending for smallest, descending for largest.
+	 */
+	public List<String> toSortedList(){
+		String[] copy = Arrays.copyOf(heap, size);
+		Arrays.sort(copy);
+		List<String> list = new ArrayList<>(size);
+		if(largest){
+			for(int i=copy.length-1; i>=0; i--){
+				list.add(copy[i]);
+			}
+		}else{
+			list.addAll(Arrays.asList(copy));
+		}
+		return list;
+	}
+
+	private void set(int i, String s, long p, boolean latin1){
+		heap[i] = s;
+		prefixes[i] = p;
+		packed[i] = latin1;
+	}
+	/**
+	 * Compares a candidate with slot {@code j} in heap order: negative when
+	 * the candidate is better, i.e. smaller for top-smallest.
+	 */
+	private int compare(String s, long p, boolean latin1, int j){
+		int c;
+		if(latin1 && packed[j] && p != prefixes[j]){
+			c = Long.compareUnsigned(p, prefixes[j]);
+		}else{
+			c = s.compareTo(heap[j]);
+		}
+		return largest ? -c : c;
+	}
+	private int compare(int i, int j){
+		return compare(heap[i], prefixes[i], packed[i], j);
+	}
+	private void siftUp(int i){
+		while(i > 0){
+			int parent = (i - 1) >>> 1;
+			if(compare(i, parent) <= 0){
+				break;
+			}
+			swap(i, parent);
+			i = parent;
+		}
+	}
+	private void siftDown(int i){
+		int half = size >>> 1;
+		while(i < half){
+			int child = 2 * i + 1;
+			int right = child + 1;
+			if(right < size && compare(right, child) > 0){
+				child = right;
+			}
+			if(compare(i, child) >= 0){
+				break;
+			}
+			swap(i, child);
+			i = child;
+		}
+	}
+	private void swap(int i, int j){
+		String s = heap[i];
+		heap[i] = heap[j];
+		heap[j] = s;
+		long p = prefixes[i];
+		prefixes[i] = prefixes[j];
+		prefixes[j] = p;
+		boolean b = packed[i];
+		packed[i] = packed[j];
+		packed[j] = b;
+	}
+}
@@ -0,0 +1,47 @@
+package lee.collect;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collector;
+
+/**
+ * Top-K collectors backed by a bounded heap of size k: O(n log k) time and
+ * O(k) space per fork-join leaf, instead of {@code sorted().limit(k)} which
+ * sorts the whole input. Parallel leaves merge their heaps pairwise.
+ * <pre>
+ * List&lt;String&gt; first10 = list.parallelStream().collect(TopKCollectors.smallestStrings(10));
+ * </pre>
+ * Results are ordered best first. Among elements the comparator considers
+ * equal, which ones are kept is unspecified.
+ */
+public final class TopKCollectors {
+	private TopKCollectors(){}
+
+	public static <T> Collector<T, ?, List<T>> smallest(int k, Comparator<? super T> comparator){
+		if(k <= 0){
+			throw new IllegalArgumentException("k must be > 0: " + k);
+		}
+		return Collector.of(() -> new BoundedHeap<T>(k, comparator), BoundedHeap::offer,
+				BoundedHeap::merge, BoundedHeap::toSortedList, Collector.Characteristics.UNORDERED);
+	}
+	public static <T> Collector<T, ?, List<T>> largest(int k, Comparator<? super T> comparator){
+		return smallest(k, comparator.reversed());
+	}
+	/**
+	 * {@link #smallest} in natural order, comparing Latin-1 prefixes as packed longs.
+	 */
+	public static Collector<String, ?, List<String>> smallestStrings(int k){
+		return strings(k, false);
+	}
+	public static Collector<String, ?, List<String>> largestStrings(int k){
+		return strings(k, true);
+	}
+
+	private static Collector<String, ?, List<String>> strings(int k, boolean largest){
+		if(k <= 0){
+			throw new IllegalArgumentException("k must be > 0: " + k);
+		}
+		return Collector.of(() -> new StringTopK(k, largest), StringTopK::offer,
+				StringTopK::merge, StringTopK::toSortedList, Collector.Characteristics.UNORDERED);
+	}
+}
@@ -0,0 +1,443 @@
+package lee.flat;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Spliterator;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * flatMap without a stream per element.
+ * <p>
+ * {@code Stream.flatMap} builds a new stream pipeline for every outer element,
+ * which dominates when inner collections hold a handful of elements. The
+ * {@code mapMulti*} operators here (the Java 16 API, for this Java 8 module)
+ * hand the mapper the downstream consumer itself, so a bulk traversal pushes
+ * inner elements straight through with no allocation per element. Only a
+ * short-circuiting {@code tryAdvance} buffers the elements of one outer element.
+ * <p>
+ * {@link #flatMapCollection} and {@link #flatMapToInt} know their inner
+ * sources, so they can also split inside one large inner collection when the
+ * outer stream has too few elements left to split.
+ */
+public final class FlatMaps {
+	/** Characteristics a flattened stream keeps from its outer source. */
+	private static final int KEPT = Spliterator.ORDERED;
+
+	private FlatMaps(){}
+
+	public static <T, R> Stream<R> mapMulti(Stream<T> stream, BiConsumer<? super T, ? super Consumer<R>> mapper){
+		return StreamSupport.stream(new Multi<>(stream.spliterator(), mapper), stream.isParallel()).onClose(stream::close);
+	}
+	public static <T> IntStream mapMultiToInt(Stream<T> stream, BiConsumer<? super T, ? super IntConsumer> mapper){
+		return StreamSupport.intStream(new MultiInt<>(stream.spliterator(), mapper), stream.isParallel()).onClose(stream::close);
+	}
+	public static <T> LongStream mapMultiToLong(Stream<T> stream, BiConsumer<? super T, ? super LongConsumer> mapper){
+		return StreamSupport.longStream(new MultiLong<>(stream.spliterator(), mapper), stream.isParallel()).onClose(stream::close);
+	}
+	public static <T> DoubleStream mapMultiToDouble(Stream<T> stream, BiConsumer<? super T, ? super DoubleConsumer> mapper){
+		return StreamSupport.doubleStream(new MultiDouble<>(stream.spliterator(), mapper), stream.isParallel()).onClose(stream::close);
+	}
+
+	/** {@code flatMap(t -> mapper.apply(t).stream())}, pushing each inner element directly. */
+	public static <T, R> Stream<R> flatMapCollection(Stream<T> stream, Function<? super T, ? extends Collection<? extends R>> mapper){
+		return StreamSupport.stream(new Flat<T, R>(stream.spliterator(), t -> mapper.apply(t).spliterator(), -1), stream.isParallel())
+				.onClose(stream::close);
+	}
+	/** {@code flatMapToInt(t -> IntStream.of(mapper.apply(t)))} over arrays. */
+	public static <T> IntStream flatMapToInt(Stream<T> stream, Function<? super T, int[]> mapper){
+		return StreamSupport.intStream(new FlatInt<>(stream.spliterator(), mapper, -1), stream.isParallel()).onClose(stream::close);
+	}
+
+	// ---------- push-style ----------
+
+	private static final class Multi<T, R> implements Spliterator<R> {
+		private final Spliterator<T> source;
+		private final BiConsumer<? super T, ? super Consumer<R>> mapper;
+		private ArrayDeque<R> pending;
+
+		Multi(Spliterator<T> source, BiConsumer<? super T, ? super Consumer<R>> mapper) {
+			this.source = source;
+			this.mapper = mapper;
+		}
+		@Override
+		public void forEachRemaining(Consumer<? super R> action){
+			@SuppressWarnings("unchecked")
+			Consumer<R> sink = (Consumer<R>)action;
+			while(pending != null && !pending.isEmpty()){
+				sink.accept(pending.poll());
+			}
+			source.forEachRemaining(t -> mapper.accept(t, sink));
+		}
+		@Override
+		public boolean tryAdvance(Consumer<? super R> action){
+			if(pending == null){
+				pending = new ArrayDeque<>();
+			}
+			while(pending.isEmpty()){
+				if(!source.tryAdvance(t -> mapper.accept(t, (Consumer<R>)pending::add))){
+					return false;
+				}
+			}
+			action.accept(pending.poll());
+			return true;
+		}
+		@Override
+		public Spliterator<R> trySplit(){
+			if(pending != null && !pending.isEmpty()){
+				return null;
+			}
+			Spliterator<T> prefix = source.trySplit();
+			return prefix == null ? null : new Multi<>(prefix, mapper);
+		}
+		@Override
+		public long estimateSize(){
+			return source.estimateSize();
+		}
+		@Override
+		public int characteristics(){
+			return source.characteristics() & KEPT;
+		}
+	}
+
+	private static final class MultiInt<T> implements Spliterator.OfInt {
+		private final Spliterator<T> source;
+		private final BiConsumer<? super T, ? super IntConsumer> mapper;
+		private final IntBuffer pending = new IntBuffer();
+
+		MultiInt(Spliterator<T> source, BiConsumer<? super T, ? super IntConsumer> mapper) {
+			this.source = source;
+			this.mapper = mapper;
+		}
+		@Override
+		public void forEachRemaining(IntConsumer action){
+			pending.drainTo(action);
+			source.forEachRemaining(t -> mapper.accept(t, action));
+		}
+		@Override
+		public boolean tryAdvance(IntConsumer action){
+			while(pending.isEmpty()){
+				if(!source.tryAdvance(t -> mapper.accept(t, pending))){
+					return false;
+				}
+			}
+			action.accept(pending.poll());
+			return true;
+		}
+		@Override
+		public Spliterator.OfInt trySplit(){
+			if(!pending.isEmpty()){
+				return null;
+			}
+			Spliterator<T> prefix = source.trySplit();
+			return prefix == null ? null : new MultiInt<>(prefix, mapper);
+		}
+		@Override
+		public long estimateSize(){
+			return source.estimateSize();
+		}
+		@Override
+		public int characteristics(){
+			return source.characteristics() & KEPT;
+		}
+	}
+
+	private static final class MultiLong<T> implements Spliterator.OfLong {
+		private final Spliterator<T> source;
+		private final BiConsumer<? super T, ? super LongConsumer> mapper;
+		private long[] pending = new long[8];
+		private int head, tail;
+
+		MultiLong(Spliterator<T> source, BiConsumer<? super T, ? super LongConsumer> mapper) {
+			this.source = source;
+			this.mapper = mapper;
+		}
+		@Override
+		public void forEachRemaining(LongConsumer action){
+			while(head < tail){
+				action.accept(pending[head++]);
+			}
+			source.forEachRemaining(t -> mapper.accept(t, action));
+		}
+		@Override
+		public boolean tryAdvance(LongConsumer action){
+			while(head == tail){
+				head = tail = 0;
+				if(!source.tryAdvance(t -> mapper.accept(t, (LongConsumer)x -> {
+					if(tail == pending.length) pending = Arrays.copyOf(pending, tail * 2);
+					pending[tail++] = x;
+				}))){
+					return false;
+				}
+			}
+			action.accept(pending[head++]);
+			return true;
+		}
+		@Override
+		public Spliterator.OfLong trySplit(){
+			if(head < tail){
+				return null;
+			}
+			Spliterator<T> prefix = source.trySplit();
+			return prefix == null ? null : new MultiLong<>(prefix, mapper);
+		}
+		@Override
+		public long estimateSize(){
+			return source.estimateSize();
+		}
+		@Override
+		public int characteristics(){
+			return source.characteristics() & KEPT;
+		}
+	}
+
+	private static final class MultiDouble<T> implements Spliterator.OfDouble {
+		private final Spliterator<T> source;
+		private final BiConsumer<? super T, ? super DoubleConsumer> mapper;
+		private double[] pending = new double[8];
+		private int head, tail;
+
+		MultiDouble(Spliterator<T> source, BiConsumer<? super T, ? super DoubleConsumer> mapper) {
+			this.source = source;
+			this.mapper = mapper;
+		}
+		@Override
+		public void forEachRemaining(DoubleConsumer action){
+			while(head < tail){
+				action.accept(pending[head++]);
+			}
+			source.forEachRemaining(t -> mapper.accept(t, action));
+		}
+		@Override
+		public boolean tryAdvance(DoubleConsumer action){
+			while(head == tail){
+				head = tail = 0;
+				if(!source.tryAdvance(t -> mapper.accept(t, (DoubleConsumer)x -> {
+					if(tail == pending.length) pending = Arrays.copyOf(pending, tail * 2);
+					pending[tail++] = x;
+				}))){
+					return false;
+				}
+			}
+			action.accept(pending[head++]);
+			return true;
+		}
+		@Override
+		public Spliterator.OfDouble trySplit(){
+			if(head < tail){
+				return null;
+			}
+			Spliterator<T> prefix = source.trySplit();
+			return prefix == null ? null : new MultiDouble<>(prefix, mapper);
+		}
+		@Override
+		public long estimateSize(){
+			return source.estimateSize();
+		}
+		@Override
+		public int characteristics(){
+			return source.characteristics() & KEPT;
+		}
+	}
+
+	/** Growable int queue used as the tryAdvance buffer of {@link MultiInt}. */
+	private static final class IntBuffer implements IntConsumer {
+		private int[] items = new int[8];
+		private int head, tail;
+
+		@Override
+		public void accept(int x){
+			if(tail == items.length){
+				items = Arrays.copyOf(items, tail * 2);
+			}
+			items[tail++] = x;
+		}
+		boolean isEmpty(){
+			return head == tail;
+		}
+		int poll(){
+			int x = items[head++];
+			if(head == tail){
+				head = tail = 0;
+			}
+			return x;
+		}
+		void drainTo(IntConsumer action){
+			while(head < tail){
+				action.accept(items[head++]);
+			}
+			head = tail = 0;
+		}
+	}
+
+	// ---------- known inner sources ----------
+
+	/**
+	 * Size of the inner part plus the unopened outer elements times
+	 * {@code innerGuess}, the size of the first inner source this tree opened.
+	 * Without the guess a few huge inner collections would look like a few
+	 * elements, and the stream framework would size its split threshold (and so
+	 * the splits inside them) from that.
+	 */
+	private static long estimate(Spliterator<?> outer, Spliterator<?> inner, long innerGuess){
+		long rest = outer.estimateSize();
+		long n = rest > Long.MAX_VALUE / innerGuess ? Long.MAX_VALUE : rest * innerGuess;
+		if(inner != null){
+			n += inner.estimateSize();
+		}
+		return n < 0 ? Long.MAX_VALUE : n;
+	}
+
+	/**
+	 * Remaining elements are those of {@code inner} (the partly consumed current
+	 * outer element, if any) followed by those of every element left in {@code outer}.
+	 */
+	private static final class Flat<T, R> implements Spliterator<R> {
+		private final Spliterator<T> outer;
+		private final Function<? super T, ? extends Spliterator<? extends R>> mapper;
+		private Spliterator<? extends R> inner;
+		private long innerGuess;
+
+		Flat(Spliterator<T> outer, Function<? super T, ? extends Spliterator<? extends R>> mapper, long innerGuess) {
+			this.outer = outer;
+			this.mapper = mapper;
+			this.innerGuess = innerGuess;
+		}
+		@Override
+		public void forEachRemaining(Consumer<? super R> action){
+			if(inner != null){
+				inner.forEachRemaining(action);
+				inner = null;
+			}
+			outer.forEachRemaining(t -> mapper.apply(t).forEachRemaining(action));
+		}
+		@Override
+		public boolean tryAdvance(Consumer<? super R> action){
+			while(inner == null || !inner.tryAdvance(action)){
+				if(!outer.tryAdvance(t -> inner = mapper.apply(t))){
+					inner = null;
+					return false;
+				}
+			}
+			return true;
+		}
+		@Override
+		public Spliterator<R> trySplit(){
+			if(inner != null && inner.estimateSize() == 0){
+				inner = null;
+			}
+			if(inner == null){
+				Spliterator<T> prefix = outer.trySplit();
+				if(prefix != null){
+					return new Flat<>(prefix, mapper, innerGuess);
+				}
+				// outer cannot split: open its next element and split inside it
+				if(!outer.tryAdvance(t -> inner = mapper.apply(t))){
+					return null;
+				}
+			}
+			@SuppressWarnings("unchecked")
+			Spliterator<R> open = (Spliterator<R>)inner;
+			if(outer.estimateSize() > 0){
+				// the open element comes first: hand it off whole so later splits reach outer
+				inner = null;
+				return open;
+			}
+			return open.trySplit();
+		}
+		@Override
+		public long estimateSize(){
+			if(innerGuess < 0){
+				if(inner == null){
+					outer.tryAdvance(t -> inner = mapper.apply(t));
+				}
+				innerGuess = inner == null ? 1 : Math.max(1, inner.estimateSize());
+			}
+			return estimate(outer, inner, innerGuess);
+		}
+		@Override
+		public int characteristics(){
+			return outer.characteristics() & KEPT;
+		}
+	}
+
+	private static final class FlatInt<T> implements Spliterator.OfInt {
+		private final Spliterator<T> outer;
+		private final Function<? super T, int[]> mapper;
+		private Spliterator.OfInt inner;
+		private long innerGuess;
+
+		FlatInt(Spliterator<T> outer, Function<? super T, int[]> mapper, long innerGuess) {
+			this.outer = outer;
+			this.mapper = mapper;
+			this.innerGuess = innerGuess;
+		}
+		@Override
+		public void forEachRemaining(IntConsumer action){
+			if(inner != null){
+				inner.forEachRemaining(action);
+				inner = null;
+			}
+			outer.forEachRemaining(t -> {
+				for(int x : mapper.apply(t)){
+					action.accept(x);
+				}
+			});
+		}
+		@Override
+		public boolean tryAdvance(IntConsumer action){
+			while(inner == null || !inner.tryAdvance(action)){
+				if(!outer.tryAdvance(t -> inner = Arrays.spliterator(mapper.apply(t)))){
+					inner = null;
+					return false;
+				}
+			}
+			return true;
+		}
+		@Override
+		public Spliterator.OfInt trySplit(){
+			if(inner != null && inner.estimateSize() == 0){
+				inner = null;
+			}
+			if(inner == null){
+				Spliterator<T> prefix = outer.trySplit();
+				if(prefix != null){
+					return new FlatInt<>(prefix, mapper, innerGuess);
+				}
+				if(!outer.tryAdvance(t -> inner = Arrays.spliterator(mapper.apply(t)))){
+					return null;
+				}
+			}
+			if(outer.estimateSize() > 0){
+				Spliterator.OfInt open = inner;
+				inner = null;
+				return open;
+			}
+			return inner.trySplit();
+		}
+		@Override
+		public long estimateSize(){
+			if(innerGuess < 0){
+				if(inner == null){
+					outer.tryAdvance(t -> inner = Arrays.spliterator(mapper.apply(t)));
+				}
+				innerGuess = inner == null ? 1 : Math.max(1, inner.estimateSize());
+			}
+			return estimate(outer, inner, innerGuess);
+		}
+		@Override
+		public int characteristics(){
+			return outer.characteristics() & KEPT;
+		}
+	}
+}
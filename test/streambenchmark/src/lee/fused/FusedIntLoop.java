@@ -0,0 +1,15 @@
+package lee.fused;
+
+/**
+ * Implemented by the classes {@link LoopGenerator} spins: one loop running
+ * every stage of a pipeline over {@code a[from..to)}, or over the indexes
+ * themselves when {@code a} is null.
+ */
+public interface FusedIntLoop {
+	/**
+	 * @param init initial accumulator of a reduce terminal, ignored otherwise
+	 * @return the sum or count, the reduced {@code int} widened to {@code long},
+	 *         or 0 for forEach
+	 */
+	long run(int[] a, int from, int to, long init);
+}
@@ -0,0 +1,89 @@
+package lee.fused;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Sequential int pipeline that compiles to a single generated loop instead of a
+ * chain of {@code Sink}s. Same semantics as the matching {@code IntStream}
+ * pipeline: stages run in order, {@code limit} short-circuits so upstream
+ * stages (including {@code peek}) stop seeing elements once it is reached.
+ * <p>
+ * Instances are immutable; each stage method returns a new pipeline, so a
+ * prefix can be shared. Building the loop class is a one-off cost per shape,
+ * see {@link LoopGenerator}.
+ */
+public final class FusedIntPipeline {
+	private final int[] array;
+	private final int from;
+	private final int to;
+	private final List<Stage> stages;
+
+	private FusedIntPipeline(int[] array, int from, int to, List<Stage> stages) {
+		this.array = array;
+		this.from = from;
+		this.to = to;
+		this.stages = stages;
+	}
+
+	/** Like {@code IntStream.range(from, to)}. */
+	public static FusedIntPipeline range(int from, int to){
+		return new FusedIntPipeline(null, from, Math.max(from, to), Collections.emptyList());
+	}
+	/** Like {@code Arrays.stream(array)}; the array is not copied. */
+	public static FusedIntPipeline of(int[] array){
+		return new FusedIntPipeline(Objects.requireNonNull(array), 0, array.length, Collections.emptyList());
+	}
+
+	public FusedIntPipeline map(IntUnaryOperator mapper){
+		return then(new Stage(Stage.Kind.MAP, Objects.requireNonNull(mapper), 0));
+	}
+	public FusedIntPipeline filter(IntPredicate predicate){
+		return then(new Stage(Stage.Kind.FILTER, Objects.requireNonNull(predicate), 0));
+	}
+	public FusedIntPipeline peek(IntConsumer action){
+		return then(new Stage(Stage.Kind.PEEK, Objects.requireNonNull(action), 0));
+	}
+	public FusedIntPipeline skip(long n){
+		if(n < 0) throw new IllegalArgumentException(Long.toString(n));
+		return then(new Stage(Stage.Kind.SKIP, null, n));
+	}
+	public FusedIntPipeline limit(long maxSize){
+		if(maxSize < 0) throw new IllegalArgumentException(Long.toString(maxSize));
+		return then(new Stage(Stage.Kind.LIMIT, null, maxSize));
+	}
+
+	public void forEach(IntConsumer action){
+		run(new Stage(Stage.Kind.FOR_EACH, Objects.requireNonNull(action), 0), 0);
+	}
+	/** Sum widened to long, unlike {@code IntStream.sum()} which overflows. */
+	public long sum(){
+		return run(new Stage(Stage.Kind.SUM, null, 0), 0);
+	}
+	public long count(){
+		return run(new Stage(Stage.Kind.COUNT, null, 0), 0);
+	}
+	public int reduce(int identity, IntBinaryOperator op){
+		return (int)run(new Stage(Stage.Kind.REDUCE, Objects.requireNonNull(op), 0), identity);
+	}
+
+	private FusedIntPipeline then(Stage stage){
+		List<Stage> next = new ArrayList<>(stages.size() + 1);
+		next.addAll(stages);
+		next.add(stage);
+		return new FusedIntPipeline(array, from, to, next);
+	}
+
+	private long run(Stage terminal, long init){
+		List<Stage> all = new ArrayList<>(stages.size() + 1);
+		all.addAll(stages);
+		all.add(terminal);
+		return LoopGenerator.instantiate(all, array != null).run(array, from, to, init);
+	}
+}
@@ -0,0 +1,267 @@
+package lee.fused;
+
+import static org.objectweb.asm.Opcodes.*;
+
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+
+/**
+ * Spins one {@link FusedIntLoop} class per pipeline shape. The shape is the
+ * list of stage kinds plus the concrete class of every stage function, so each
+ * {@code invokeinterface} in a generated loop only ever sees one receiver class
+ * and C2 inlines it, where the JDK's shared {@code Sink.accept} call sites turn
+ * megamorphic once a few different pipelines have run.
+ * <p>
+ * Classes are defined by a private class loader (this module targets Java 8,
+ * where {@code Lookup.defineHiddenClass} does not exist) and cached for the life
+ * of the JVM.
+ */
+final class LoopGenerator {
+	private static final String LOOP = "lee/fused/FusedIntLoop";
+	private static final AtomicInteger COUNTER = new AtomicInteger();
+	private static final Map<List<Object>, Constructor<?>> CACHE = new ConcurrentHashMap<>();
+	private static final Loader LOADER = new Loader(LoopGenerator.class.getClassLoader());
+
+	// locals of run(int[] a, int from, int to, long init)
+	private static final int A = 1, FROM = 2, TO = 3, INIT = 4, I = 6, X = 7, ACC_L = 8, ACC_I = 10, COUNTERS = 11;
+
+	private LoopGenerator(){}
+
+	static FusedIntLoop instantiate(List<Stage> stages, boolean array){
+		List<Object> key = new ArrayList<>(stages.size() * 2 + 1);
+		key.add(array);
+		for(Stage s : stages){
+			key.add(s.kind);
+			key.add(s.fn == null ? null : s.fn.getClass());
+		}
+		Constructor<?> ctor = CACHE.computeIfAbsent(key, k -> define(stages, array));
+		Object[] fns = new Object[stages.size()];
+		long[] ns = new long[stages.size()];
+		for(int i=0; i<fns.length; i++){
+			fns[i] = stages.get(i).fn;
+			ns[i] = stages.get(i).n;
+		}
+		try{
+			return (FusedIntLoop)ctor.newInstance(fns, ns);
+		}catch(ReflectiveOperationException e){
+			throw new IllegalStateException("cannot instantiate fused loop", e);
+		}
+	}
+
+	private static Constructor<?> define(List<Stage> stages, boolean array){
+		String name = "lee/fused/gen/FusedLoop" + COUNTER.incrementAndGet();
+		ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
+		cw.visit(V1_8, ACC_PUBLIC | ACC_FINAL | ACC_SUPER, name, null, "java/lang/Object", new String[]{LOOP});
+		for(int k=0; k<stages.size(); k++){
+			Stage.Kind kind = stages.get(k).kind;
+			if(kind.descriptor != null){
+				cw.visitField(ACC_PRIVATE | ACC_FINAL, "f" + k, kind.descriptor, null, null).visitEnd();
+			}
+			if(kind == Stage.Kind.SKIP || kind == Stage.Kind.LIMIT){
+				cw.visitField(ACC_PRIVATE | ACC_FINAL, "n" + k, "J", null, null).visitEnd();
+			}
+		}
+		constructor(cw, name, stages);
+		run(cw, name, stages, array);
+		cw.visitEnd();
+		try{
+			Class<?> c = LOADER.define(name.replace('/', '.'), cw.toByteArray());
+			return c.getConstructor(Object[].class, long[].class);
+		}catch(NoSuchMethodException e){
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static void constructor(ClassWriter cw, String name, List<Stage> stages){
+		MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "<init>", "([Ljava/lang/Object;[J)V", null, null);
+		mv.visitCode();
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitMethodInsn(INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+		for(int k=0; k<stages.size(); k++){
+			Stage.Kind kind = stages.get(k).kind;
+			if(kind.descriptor != null){
+				mv.visitVarInsn(ALOAD, 0);
+				mv.visitVarInsn(ALOAD, 1);
+				push(mv, k);
+				mv.visitInsn(AALOAD);
+				mv.visitTypeInsn(CHECKCAST, kind.descriptor.substring(1, kind.descriptor.length() - 1));
+				mv.visitFieldInsn(PUTFIELD, name, "f" + k, kind.descriptor);
+			}
+			if(kind == Stage.Kind.SKIP || kind == Stage.Kind.LIMIT){
+				mv.visitVarInsn(ALOAD, 0);
+				mv.visitVarInsn(ALOAD, 2);
+				push(mv, k);
+				mv.visitInsn(LALOAD);
+				mv.visitFieldInsn(PUTFIELD, name, "n" + k, "J");
+			}
+		}
+		mv.visitInsn(RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+	}
+
+	/**
+	 * <pre>
+	 * for(i = from; i &lt; to; i++){
+	 *     if(any limit counter reached) break;
+	 *     x = a == null ? i : a[i];
+	 *     ...stages, "continue" on filter/skip...
+	 *     ...terminal...
+	 * }
+	 * </pre>
+	 */
+	private static void run(ClassWriter cw, String name, List<Stage> stages, boolean array){
+		MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "run", "([IIIJ)J", null, null);
+		mv.visitCode();
+		Stage.Kind terminal = stages.get(stages.size() - 1).kind;
+		mv.visitInsn(LCONST_0);
+		mv.visitVarInsn(LSTORE, ACC_L);
+		mv.visitVarInsn(LLOAD, INIT);
+		mv.visitInsn(L2I);
+		mv.visitVarInsn(ISTORE, ACC_I);
+		for(int k=0; k<stages.size(); k++){
+			mv.visitInsn(LCONST_0);
+			mv.visitVarInsn(LSTORE, counter(k));
+		}
+		mv.visitVarInsn(ILOAD, FROM);
+		mv.visitVarInsn(ISTORE, I);
+		mv.visitInsn(ICONST_0);
+		mv.visitVarInsn(ISTORE, X);
+
+		Label loop = new Label(), next = new Label(), end = new Label();
+		mv.visitLabel(loop);
+		mv.visitVarInsn(ILOAD, I);
+		mv.visitVarInsn(ILOAD, TO);
+		mv.visitJumpInsn(IF_ICMPGE, end);
+		for(int k=0; k<stages.size(); k++){
+			if(stages.get(k).kind == Stage.Kind.LIMIT){
+				mv.visitVarInsn(LLOAD, counter(k));
+				mv.visitVarInsn(ALOAD, 0);
+				mv.visitFieldInsn(GETFIELD, name, "n" + k, "J");
+				mv.visitInsn(LCMP);
+				mv.visitJumpInsn(IFGE, end);
+			}
+		}
+		if(array){
+			mv.visitVarInsn(ALOAD, A);
+			mv.visitVarInsn(ILOAD, I);
+			mv.visitInsn(IALOAD);
+		}else{
+			mv.visitVarInsn(ILOAD, I);
+		}
+		mv.visitVarInsn(ISTORE, X);
+
+		for(int k=0; k<stages.size(); k++){
+			Stage.Kind kind = stages.get(k).kind;
+			switch(kind){
+			case MAP:
+				loadFn(mv, name, k, kind);
+				mv.visitVarInsn(ILOAD, X);
+				mv.visitMethodInsn(INVOKEINTERFACE, "java/util/function/IntUnaryOperator", "applyAsInt", "(I)I", true);
+				mv.visitVarInsn(ISTORE, X);
+				break;
+			case FILTER:
+				loadFn(mv, name, k, kind);
+				mv.visitVarInsn(ILOAD, X);
+				mv.visitMethodInsn(INVOKEINTERFACE, "java/util/function/IntPredicate", "test", "(I)Z", true);
+				mv.visitJumpInsn(IFEQ, next);
+				break;
+			case PEEK:
+			case FOR_EACH:
+				loadFn(mv, name, k, kind);
+				mv.visitVarInsn(ILOAD, X);
+				mv.visitMethodInsn(INVOKEINTERFACE, "java/util/function/IntConsumer", "accept", "(I)V", true);
+				break;
+			case SKIP: {
+				Label pass = new Label();
+				mv.visitVarInsn(LLOAD, counter(k));
+				mv.visitVarInsn(ALOAD, 0);
+				mv.visitFieldInsn(GETFIELD, name, "n" + k, "J");
+				mv.visitInsn(LCMP);
+				mv.visitJumpInsn(IFGE, pass);
+				increment(mv, counter(k));
+				mv.visitJumpInsn(GOTO, next);
+				mv.visitLabel(pass);
+				break;
+			}
+			case LIMIT:
+				// the check at the top of the loop guarantees counter < n here
+				increment(mv, counter(k));
+				break;
+			case REDUCE:
+				loadFn(mv, name, k, kind);
+				mv.visitVarInsn(ILOAD, ACC_I);
+				mv.visitVarInsn(ILOAD, X);
+				mv.visitMethodInsn(INVOKEINTERFACE, "java/util/function/IntBinaryOperator", "applyAsInt", "(II)I", true);
+				mv.visitVarInsn(ISTORE, ACC_I);
+				break;
+			case SUM:
+				mv.visitVarInsn(LLOAD, ACC_L);
+				mv.visitVarInsn(ILOAD, X);
+				mv.visitInsn(I2L);
+				mv.visitInsn(LADD);
+				mv.visitVarInsn(LSTORE, ACC_L);
+				break;
+			case COUNT:
+				increment(mv, ACC_L);
+				break;
+			default:
+				throw new AssertionError(kind);
+			}
+		}
+		mv.visitLabel(next);
+		mv.visitIincInsn(I, 1);
+		mv.visitJumpInsn(GOTO, loop);
+
+		mv.visitLabel(end);
+		if(terminal == Stage.Kind.REDUCE){
+			mv.visitVarInsn(ILOAD, ACC_I);
+			mv.visitInsn(I2L);
+		}else{
+			mv.visitVarInsn(LLOAD, ACC_L);
+		}
+		mv.visitInsn(LRETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+	}
+
+	private static int counter(int k){
+		return COUNTERS + 2 * k;
+	}
+	private static void loadFn(MethodVisitor mv, String name, int k, Stage.Kind kind){
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitFieldInsn(GETFIELD, name, "f" + k, kind.descriptor);
+	}
+	private static void increment(MethodVisitor mv, int local){
+		mv.visitVarInsn(LLOAD, local);
+		mv.visitInsn(LCONST_1);
+		mv.visitInsn(LADD);
+		mv.visitVarInsn(LSTORE, local);
+	}
+	private static void push(MethodVisitor mv, int value){
+		if(value <= 5){
+			mv.visitInsn(ICONST_0 + value);
+		}else if(value <= Byte.MAX_VALUE){
+			mv.visitIntInsn(BIPUSH, value);
+		}else{
+			mv.visitIntInsn(SIPUSH, value);
+		}
+	}
+
+	private static final class Loader extends ClassLoader {
+		Loader(ClassLoader parent) {
+			super(parent);
+		}
+		Class<?> define(String name, byte[] bytes){
+			return defineClass(name, bytes, 0, bytes.length);
+		}
+	}
+}
@@ -0,0 +1,37 @@
+package lee.fused;
+
+/**
+ * One captured operation of a {@link FusedIntPipeline}: its kind plus either a
+ * function or a count.
+ */
+final class Stage {
+	enum Kind {
+		MAP("Ljava/util/function/IntUnaryOperator;"),
+		FILTER("Ljava/util/function/IntPredicate;"),
+		PEEK("Ljava/util/function/IntConsumer;"),
+		SKIP(null),
+		LIMIT(null),
+		// terminals
+		FOR_EACH("Ljava/util/function/IntConsumer;"),
+		REDUCE("Ljava/util/function/IntBinaryOperator;"),
+		SUM(null),
+		COUNT(null);
+
+		/** Field descriptor of the function, null for count-only stages. */
+		final String descriptor;
+
+		Kind(String descriptor) {
+			this.descriptor = descriptor;
+		}
+	}
+
+	final Kind kind;
+	final Object fn;
+	final long n;
+
+	Stage(Kind kind, Object fn, long n) {
+		this.kind = kind;
+		this.fn = fn;
+		this.n = n;
+	}
+}
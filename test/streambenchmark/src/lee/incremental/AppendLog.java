@@ -0,0 +1,60 @@
+package lee.incremental;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Append-only list in fixed-size chunks. Slots below the current size are never
+ * written again, so {@link #view()} is an immutable list over the live chunks:
+ * growing only reallocates the chunk directory, never copies elements.
+ * Single writer; views may be read from any thread once safely published.
+ */
+final class AppendLog<T> {
+	private static final int CHUNK_SHIFT = 10;
+	private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+
+	private Object[][] chunks = new Object[4][];
+	private int size;
+
+	void add(T t){
+		int chunk = size >>> CHUNK_SHIFT;
+		if(chunk == chunks.length){
+			chunks = Arrays.copyOf(chunks, chunks.length * 2);
+		}
+		if(chunks[chunk] == null){
+			chunks[chunk] = new Object[CHUNK_SIZE];
+		}
+		chunks[chunk][size & (CHUNK_SIZE - 1)] = t;
+		size++;
+	}
+	int size(){
+		return size;
+	}
+	List<T> view(){
+		return new View<>(chunks, size);
+	}
+
+	private static final class View<T> extends AbstractList<T> implements RandomAccess {
+		private final Object[][] chunks;
+		private final int size;
+
+		View(Object[][] chunks, int size) {
+			this.chunks = chunks;
+			this.size = size;
+		}
+		@Override
+		@SuppressWarnings("unchecked")
+		public T get(int index){
+			if(index < 0 || index >= size){
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+			}
+			return (T)chunks[index >>> CHUNK_SHIFT][index & (CHUNK_SIZE - 1)];
+		}
+		@Override
+		public int size(){
+			return size;
+		}
+	}
+}
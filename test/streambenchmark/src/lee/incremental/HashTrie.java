@@ -0,0 +1,432 @@
+package lee.incremental;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+
+/**
+ * Immutable hash array mapped trie, the snapshot type of the keyed
+ * {@link IncrementalCollector}s.
+ * <p>
+ * A new version shares every node the change did not touch, so publishing a
+ * snapshot is O(1) and {@link #diff} between two versions only walks the changed
+ * paths. Changes are made through an {@link Editor}: nodes it created since the
+ * last {@link Editor#publish()} are updated in place, so a micro-batch that hits
+ * the same key many times copies each path once.
+ */
+public final class HashTrie<K, V> {
+	private static final HashTrie<?, ?> EMPTY = new HashTrie<>(null, 0);
+
+	private final Node root;
+	private final int size;
+
+	private HashTrie(Node root, int size) {
+		this.root = root;
+		this.size = size;
+	}
+
+	@SuppressWarnings("unchecked")
+	public static <K, V> HashTrie<K, V> empty(){
+		return (HashTrie<K, V>)EMPTY;
+	}
+
+	public int size(){
+		return size;
+	}
+	public boolean isEmpty(){
+		return size == 0;
+	}
+	public V get(Object key){
+		return getOrDefault(key, null);
+	}
+	@SuppressWarnings("unchecked")
+	public V getOrDefault(Object key, V defaultValue){
+		Leaf leaf = find(root, 0, hash(key), key);
+		return leaf == null ? defaultValue : (V)leaf.value;
+	}
+	public boolean containsKey(Object key){
+		return find(root, 0, hash(key), key) != null;
+	}
+	public HashTrie<K, V> put(K key, V value){
+		Editor<K, V> editor = edit();
+		editor.put(key, value);
+		return editor.publish();
+	}
+	public Editor<K, V> edit(){
+		return new Editor<>(root, size);
+	}
+
+	@SuppressWarnings("unchecked")
+	public void forEach(BiConsumer<? super K, ? super V> action){
+		for(Leaf leaf : leaves()){
+			action.accept((K)leaf.key, (V)leaf.value);
+		}
+	}
+
+	/**
+	 * Calls {@code changed} for every key whose value differs between
+	 * {@code older} and this version, with a null value for removed keys.
+	 * Subtrees the two versions share are skipped without being visited.
+	 */
+	@SuppressWarnings("unchecked")
+	public void diff(HashTrie<K, V> older, BiConsumer<? super K, ? super V> changed){
+		diff(root, older.root, 0, (BiConsumer<Object, Object>)changed);
+	}
+
+	/** Read-only {@link Map} view, no copy. */
+	public Map<K, V> asMap(){
+		return new AbstractMap<K, V>(){
+			@Override
+			public int size(){
+				return size;
+			}
+			@Override
+			public V get(Object key){
+				return HashTrie.this.get(key);
+			}
+			@Override
+			public boolean containsKey(Object key){
+				return HashTrie.this.containsKey(key);
+			}
+			@Override
+			public Set<Entry<K, V>> entrySet(){
+				return new AbstractSet<Entry<K, V>>(){
+					@Override
+					public int size(){
+						return size;
+					}
+					@Override
+					@SuppressWarnings("unchecked")
+					public Iterator<Entry<K, V>> iterator(){
+						Iterator<Leaf> it = leaves().iterator();
+						return new Iterator<Entry<K, V>>(){
+							@Override
+							public boolean hasNext(){
+								return it.hasNext();
+							}
+							@Override
+							public Entry<K, V> next(){
+								Leaf leaf = it.next();
+								return new SimpleImmutableEntry<>((K)leaf.key, (V)leaf.value);
+							}
+						};
+					}
+				};
+			}
+		};
+	}
+
+	@Override
+	public String toString(){
+		return asMap().toString();
+	}
+
+	private Iterable<Leaf> leaves(){
+		return () -> new LeafIterator(root);
+	}
+
+	/**
+	 * Mutable handle on a version. Only one thread may use an editor; the
+	 * versions it publishes can be read from any thread.
+	 */
+	public static final class Editor<K, V> {
+		private Node root;
+		private int size;
+		private Object token = new Object();
+
+		Editor(Node root, int size) {
+			this.root = root;
+			this.size = size;
+		}
+
+		public int size(){
+			return size;
+		}
+		@SuppressWarnings("unchecked")
+		public V get(Object key){
+			Leaf leaf = find(root, 0, hash(key), key);
+			return leaf == null ? null : (V)leaf.value;
+		}
+		public void put(K key, V value){
+			merge(key, value, (a, b) -> b);
+		}
+		public void remove(Object key){
+			Leaf leaf = find(root, 0, hash(key), key);
+			if(leaf != null){
+				root = HashTrie.merge(this, root, 0, leaf.hash, key, null, (a, b) -> null);
+			}
+		}
+		/**
+		 * Same contract as {@link Map#merge}: stores {@code value} for an absent
+		 * key, otherwise the result of {@code fn(old, value)}, removing the key
+		 * when that is null.
+		 */
+		public void merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> fn){
+			Objects.requireNonNull(value);
+			root = HashTrie.merge(this, root, 0, hash(key), key, value, fn);
+		}
+		/**
+		 * Freezes the current version. Later edits copy any node the returned
+		 * trie can reach.
+		 */
+		public HashTrie<K, V> publish(){
+			token = new Object();
+			return size == 0 ? empty() : new HashTrie<>(root, size);
+		}
+	}
+
+	// ---- nodes ----
+
+	private static final class Node {
+		final Object token;
+		int bitmap;
+		Object[] slots;	// Leaf or Node, in bit order
+
+		Node(Object token, int bitmap, Object[] slots) {
+			this.token = token;
+			this.bitmap = bitmap;
+			this.slots = slots;
+		}
+	}
+
+	/** Entry; leaves with the same full hash are chained through {@code next}. */
+	private static final class Leaf {
+		final Object token;
+		final int hash;
+		final Object key;
+		Object value;
+		final Leaf next;
+
+		Leaf(Object token, int hash, Object key, Object value, Leaf next) {
+			this.token = token;
+			this.hash = hash;
+			this.key = key;
+			this.value = value;
+			this.next = next;
+		}
+	}
+
+	private static int hash(Object key){
+		int h = key.hashCode();
+		return h ^ (h >>> 16);
+	}
+	private static int index(int hash, int shift){
+		return (hash >>> shift) & 31;
+	}
+
+	private static Leaf find(Node node, int shift, int hash, Object key){
+		while(node != null){
+			int bit = 1 << index(hash, shift);
+			if((node.bitmap & bit) == 0){
+				return null;
+			}
+			Object slot = node.slots[Integer.bitCount(node.bitmap & (bit - 1))];
+			if(slot instanceof Node){
+				node = (Node)slot;
+				shift += 5;
+				continue;
+			}
+			for(Leaf leaf = (Leaf)slot; leaf != null; leaf = leaf.next){
+				if(leaf.hash == hash && leaf.key.equals(key)){
+					return leaf;
+				}
+			}
+			return null;
+		}
+		return null;
+	}
+
+	/** Returns the new node, null once it is empty. */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static Node merge(Editor<?, ?> ed, Node node, int shift, int hash, Object key, Object value, BiFunction fn){
+		if(node == null){
+			ed.size++;
+			return new Node(ed.token, 1 << index(hash, shift), new Object[]{new Leaf(ed.token, hash, key, value, null)});
+		}
+		int bit = 1 << index(hash, shift);
+		int idx = Integer.bitCount(node.bitmap & (bit - 1));
+		if((node.bitmap & bit) == 0){
+			ed.size++;
+			Object[] slots = new Object[node.slots.length + 1];
+			System.arraycopy(node.slots, 0, slots, 0, idx);
+			slots[idx] = new Leaf(ed.token, hash, key, value, null);
+			System.arraycopy(node.slots, idx, slots, idx + 1, node.slots.length - idx);
+			Node m = editable(ed, node);
+			m.bitmap |= bit;
+			m.slots = slots;
+			return m;
+		}
+		Object slot = node.slots[idx];
+		Object replacement;
+		if(slot instanceof Node){
+			replacement = merge(ed, (Node)slot, shift + 5, hash, key, value, fn);
+		}else{
+			Leaf chain = (Leaf)slot;
+			if(chain.hash != hash){
+				ed.size++;
+				replacement = pair(ed.token, shift + 5, chain, new Leaf(ed.token, hash, key, value, null));
+			}else{
+				replacement = mergeChain(ed, chain, key, value, fn);
+			}
+		}
+		if(replacement == slot){
+			return node;
+		}
+		if(replacement == null){
+			if(node.slots.length == 1){
+				return null;
+			}
+			Object[] slots = new Object[node.slots.length - 1];
+			System.arraycopy(node.slots, 0, slots, 0, idx);
+			System.arraycopy(node.slots, idx + 1, slots, idx, slots.length - idx);
+			Node m = editable(ed, node);
+			m.bitmap &= ~bit;
+			m.slots = slots;
+			return m;
+		}
+		Node m = editable(ed, node);
+		m.slots[idx] = replacement;
+		return m;
+	}
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static Leaf mergeChain(Editor<?, ?> ed, Leaf chain, Object key, Object value, BiFunction fn){
+		Leaf found = null;
+		for(Leaf leaf = chain; leaf != null; leaf = leaf.next){
+			if(leaf.key.equals(key)){
+				found = leaf;
+				break;
+			}
+		}
+		if(found == null){
+			if(value == null){
+				return chain;
+			}
+			ed.size++;
+			return new Leaf(ed.token, chain.hash, key, value, chain);
+		}
+		Object merged = fn.apply(found.value, value);
+		if(merged == found.value){
+			return chain;
+		}
+		if(merged != null && found.token == ed.token){
+			found.value = merged;
+			return chain;
+		}
+		if(merged == null){
+			ed.size--;
+		}
+		// rebuild the (tiny) chain without, or with a new copy of, the found leaf
+		Leaf rebuilt = merged == null ? null : new Leaf(ed.token, found.hash, found.key, merged, null);
+		for(Leaf leaf = chain; leaf != null; leaf = leaf.next){
+			if(leaf != found){
+				rebuilt = new Leaf(ed.token, leaf.hash, leaf.key, leaf.value, rebuilt);
+			}
+		}
+		return rebuilt;
+	}
+
+	private static Node pair(Object token, int shift, Leaf a, Leaf b){
+		int ia = index(a.hash, shift), ib = index(b.hash, shift);
+		if(ia == ib){
+			return new Node(token, 1 << ia, new Object[]{pair(token, shift + 5, a, b)});
+		}
+		return new Node(token, (1 << ia) | (1 << ib), ia < ib ? new Object[]{a, b} : new Object[]{b, a});
+	}
+
+	private static Node editable(Editor<?, ?> ed, Node node){
+		return node.token == ed.token ? node : new Node(ed.token, node.bitmap, node.slots.clone());
+	}
+
+	private static void diff(Object now, Object before, int shift, BiConsumer<Object, Object> changed){
+		if(now == before){
+			return;
+		}
+		if(now instanceof Node && before instanceof Node){
+			Node a = (Node)now, b = (Node)before;
+			for(int bits = a.bitmap | b.bitmap; bits != 0; bits &= bits - 1){
+				int bit = Integer.lowestOneBit(bits);
+				Object sa = (a.bitmap & bit) == 0 ? null : a.slots[Integer.bitCount(a.bitmap & (bit - 1))];
+				Object sb = (b.bitmap & bit) == 0 ? null : b.slots[Integer.bitCount(b.bitmap & (bit - 1))];
+				diff(sa, sb, shift + 5, changed);
+			}
+			return;
+		}
+		// at least one side is a leaf chain or missing: compare the two subtrees key by key
+		for(Iterator<Leaf> it = new LeafIterator(now); it.hasNext();){
+			Leaf leaf = it.next();
+			Leaf old = findIn(before, shift, leaf.hash, leaf.key);
+			if(old == null || !Objects.equals(old.value, leaf.value)){
+				changed.accept(leaf.key, leaf.value);
+			}
+		}
+		for(Iterator<Leaf> it = new LeafIterator(before); it.hasNext();){
+			Leaf leaf = it.next();
+			if(findIn(now, shift, leaf.hash, leaf.key) == null){
+				changed.accept(leaf.key, null);
+			}
+		}
+	}
+	private static Leaf findIn(Object subtree, int shift, int hash, Object key){
+		if(subtree instanceof Node){
+			return find((Node)subtree, shift, hash, key);
+		}
+		for(Leaf leaf = (Leaf)subtree; leaf != null; leaf = leaf.next){
+			if(leaf.hash == hash && leaf.key.equals(key)){
+				return leaf;
+			}
+		}
+		return null;
+	}
+
+	/** Depth-first walk over the leaves of a subtree (a Node, a Leaf chain or null). */
+	private static final class LeafIterator implements Iterator<Leaf> {
+		private final ArrayDeque<Object> stack = new ArrayDeque<>();
+		private Leaf next;
+
+		LeafIterator(Object subtree) {
+			if(subtree != null){
+				stack.push(subtree);
+			}
+			advance();
+		}
+		private void advance(){
+			if(next != null && next.next != null){
+				next = next.next;
+				return;
+			}
+			next = null;
+			while(!stack.isEmpty()){
+				Object top = stack.pop();
+				if(top instanceof Leaf){
+					next = (Leaf)top;
+					return;
+				}
+				Object[] slots = ((Node)top).slots;
+				for(int i=slots.length-1; i>=0; i--){
+					stack.push(slots[i]);
+				}
+			}
+		}
+		@Override
+		public boolean hasNext(){
+			return next != null;
+		}
+		@Override
+		public Leaf next(){
+			if(next == null){
+				throw new NoSuchElementException();
+			}
+			Leaf leaf = next;
+			advance();
+			return leaf;
+		}
+	}
+}
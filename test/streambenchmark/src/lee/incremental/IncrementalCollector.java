@@ -0,0 +1,25 @@
+package lee.incremental;
+
+import java.util.Collections;
+
+/**
+ * Collector over a source that never ends: it keeps its state between
+ * micro-batches and can be read at any time.
+ * <p>
+ * Appends are serialized; {@link #snapshot()} never blocks and returns an
+ * immutable result as of the last completed append, sharing structure with the
+ * live state instead of copying it.
+ *
+ * @param <T> element type
+ * @param <R> snapshot type
+ */
+public interface IncrementalCollector<T, R> {
+	/** Applies one micro-batch and publishes the new snapshot. */
+	void append(Iterable<? extends T> batch);
+
+	default void add(T t){
+		append(Collections.singletonList(t));
+	}
+
+	R snapshot();
+}
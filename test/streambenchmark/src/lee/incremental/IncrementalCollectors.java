@@ -0,0 +1,156 @@
+package lee.incremental;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Incremental counterparts of {@code Collectors.toList/toMap/partitioningBy/groupingBy}.
+ * Keyed snapshots are {@link HashTrie}s, so a dashboard can
+ * {@link HashTrie#diff diff} two of them in O(changes) instead of rereading
+ * every group.
+ */
+public final class IncrementalCollectors {
+	private IncrementalCollectors(){}
+
+	public static <T> IncrementalCollector<T, List<T>> toList(){
+		return new Base<T, List<T>>(new AppendLog<T>().view()){
+			private final AppendLog<T> log = new AppendLog<>();
+
+			@Override
+			void accept(T t){
+				log.add(t);
+			}
+			@Override
+			List<T> publish(){
+				return log.view();
+			}
+		};
+	}
+
+	/** Like {@code Collectors.toMap(keyMapper, valueMapper)}: a duplicate key throws. */
+	public static <T, K, U> IncrementalCollector<T, HashTrie<K, U>> toMap(Function<? super T, ? extends K> keyMapper,
+			Function<? super T, ? extends U> valueMapper){
+		return toMap(keyMapper, valueMapper, (a, b) -> {
+			throw new IllegalStateException("Duplicate key (attempted merging values " + a + " and " + b + ")");
+		});
+	}
+	public static <T, K, U> IncrementalCollector<T, HashTrie<K, U>> toMap(Function<? super T, ? extends K> keyMapper,
+			Function<? super T, ? extends U> valueMapper, BinaryOperator<U> merge){
+		return new Keyed<T, K, U>(){
+			@Override
+			void accept(T t){
+				editor.merge(keyMapper.apply(t), valueMapper.apply(t), merge);
+			}
+		};
+	}
+
+	public static <T, K> IncrementalCollector<T, HashTrie<K, Long>> groupingByCounting(Function<? super T, ? extends K> classifier){
+		return new Keyed<T, K, Long>(){
+			@Override
+			void accept(T t){
+				editor.merge(classifier.apply(t), 1L, Long::sum);
+			}
+		};
+	}
+
+	public static <T, K> IncrementalCollector<T, HashTrie<K, Double>> groupingBySumDouble(Function<? super T, ? extends K> classifier,
+			ToDoubleFunction<? super T> mapper){
+		return new Keyed<T, K, Double>(){
+			@Override
+			void accept(T t){
+				editor.merge(classifier.apply(t), mapper.applyAsDouble(t), Double::sum);
+			}
+		};
+	}
+
+	/**
+	 * Like {@code groupingBy(classifier, mapping(mapper, toList()))}. Each group is an
+	 * append-only log, and a batch republishes only the groups it touched.
+	 */
+	public static <T, K, U> IncrementalCollector<T, HashTrie<K, List<U>>> groupingByMapping(Function<? super T, ? extends K> classifier,
+			Function<? super T, ? extends U> mapper){
+		return new Keyed<T, K, List<U>>(){
+			private final Map<K, AppendLog<U>> logs = new HashMap<>();
+			private final Set<K> touched = new HashSet<>();
+
+			@Override
+			void accept(T t){
+				K key = classifier.apply(t);
+				logs.computeIfAbsent(key, k -> new AppendLog<>()).add(mapper.apply(t));
+				touched.add(key);
+			}
+			@Override
+			HashTrie<K, List<U>> publish(){
+				for(K key : touched){
+					editor.put(key, logs.get(key).view());
+				}
+				touched.clear();
+				return super.publish();
+			}
+		};
+	}
+
+	/** Like {@code partitioningBy(predicate)}: both keys are always present. */
+	public static <T> IncrementalCollector<T, HashTrie<Boolean, List<T>>> partitioningBy(Predicate<? super T> predicate){
+		return new Keyed<T, Boolean, List<T>>(){
+			private final AppendLog<T> yes = new AppendLog<>(), no = new AppendLog<>();
+			{
+				current = publish();
+			}
+
+			@Override
+			void accept(T t){
+				(predicate.test(t) ? yes : no).add(t);
+			}
+			@Override
+			HashTrie<Boolean, List<T>> publish(){
+				editor.put(Boolean.TRUE, yes.view());
+				editor.put(Boolean.FALSE, no.view());
+				return super.publish();
+			}
+		};
+	}
+
+	/** Serializes appends and publishes through a volatile field. */
+	abstract static class Base<T, R> implements IncrementalCollector<T, R> {
+		volatile R current;
+
+		Base(R initial) {
+			this.current = initial;
+		}
+
+		abstract void accept(T t);
+		abstract R publish();
+
+		@Override
+		public synchronized void append(Iterable<? extends T> batch){
+			for(T t : batch){
+				accept(t);
+			}
+			current = publish();
+		}
+		@Override
+		public R snapshot(){
+			return current;
+		}
+	}
+
+	private abstract static class Keyed<T, K, V> extends Base<T, HashTrie<K, V>> {
+		final HashTrie.Editor<K, V> editor = HashTrie.<K, V>empty().edit();
+
+		Keyed() {
+			super(HashTrie.empty());
+		}
+		@Override
+		HashTrie<K, V> publish(){
+			return editor.publish();
+		}
+	}
+}
@@ -0,0 +1,171 @@
+package lee.incremental;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Per-key count and sum over an event-time window, e.g. orders per user over the
+ * last minute keyed on {@code Order::getTimestamp}.
+ * <p>
+ * The window is cut into panes of {@code slide} time units; a tumbling window is
+ * the case {@code slide == size}. Each element is added to its pane and to the
+ * window's {@link HashTrie}; when the newest timestamp moves the window forward,
+ * expired panes are subtracted key by key. Both steps cost O(changes), never a
+ * rescan of the window. Keys whose count drops to zero are removed, which also
+ * resets the floating-point drift of repeated add/subtract.
+ * <p>
+ * Elements older than the start of the current window are dropped and counted in
+ * {@link Window#late()}.
+ */
+public final class WindowedAggregates<T, K> implements IncrementalCollector<T, WindowedAggregates.Window<K>> {
+	private final Function<? super T, ? extends K> classifier;
+	private final ToLongFunction<? super T> timestamp;
+	private final ToDoubleFunction<? super T> value;
+	private final long size;
+	private final long slide;
+
+	private final HashTrie.Editor<K, Aggregate> editor = HashTrie.<K, Aggregate>empty().edit();
+	/** Per-key totals of each open pane by start, kept to subtract when the pane expires. */
+	private final TreeMap<Long, Map<K, Aggregate>> panes = new TreeMap<>();
+	private long end = Long.MIN_VALUE;
+	private long late;
+	private volatile Window<K> current = new Window<>(Long.MIN_VALUE, Long.MIN_VALUE, HashTrie.empty(), 0);
+	private volatile Window<K> closed;
+
+	private WindowedAggregates(Function<? super T, ? extends K> classifier, ToLongFunction<? super T> timestamp,
+			ToDoubleFunction<? super T> value, long size, long slide) {
+		if(size <= 0 || slide <= 0 || size % slide != 0){
+			throw new IllegalArgumentException("size " + size + " must be a positive multiple of slide " + slide);
+		}
+		this.classifier = classifier;
+		this.timestamp = timestamp;
+		this.value = value;
+		this.size = size;
+		this.slide = slide;
+	}
+
+	public static <T, K> WindowedAggregates<T, K> tumbling(Function<? super T, ? extends K> classifier,
+			ToLongFunction<? super T> timestamp, ToDoubleFunction<? super T> value, long size){
+		return new WindowedAggregates<>(classifier, timestamp, value, size, size);
+	}
+	public static <T, K> WindowedAggregates<T, K> sliding(Function<? super T, ? extends K> classifier,
+			ToLongFunction<? super T> timestamp, ToDoubleFunction<? super T> value, long size, long slide){
+		return new WindowedAggregates<>(classifier, timestamp, value, size, slide);
+	}
+
+	@Override
+	public synchronized void append(Iterable<? extends T> batch){
+		for(T t : batch){
+			long ts = timestamp.applyAsLong(t);
+			long paneStart = Math.floorDiv(ts, slide) * slide;
+			if(end == Long.MIN_VALUE){
+				end = paneStart + slide;
+			}else if(paneStart >= end){
+				advance(paneStart + slide);
+			}else if(paneStart < end - size){
+				late++;
+				continue;
+			}
+			K key = classifier.apply(t);
+			double v = value.applyAsDouble(t);
+			Aggregate one = new Aggregate(1, v);
+			panes.computeIfAbsent(paneStart, p -> new HashMap<>()).merge(key, one, Aggregate::plus);
+			editor.merge(key, one, Aggregate::plus);
+		}
+		if(end != Long.MIN_VALUE){
+			current = new Window<>(end - size, end, editor.publish(), late);
+		}
+	}
+	/** The window as of the last append; the newest pane may still be filling. */
+	@Override
+	public Window<K> snapshot(){
+		return current;
+	}
+	/** The window just before the last time it moved forward, null until it has moved. */
+	public Window<K> closed(){
+		return closed;
+	}
+
+	private void advance(long newEnd){
+		closed = new Window<>(end - size, end, editor.publish(), late);
+		end = newEnd;
+		for(Iterator<Map<K, Aggregate>> it = panes.headMap(end - size).values().iterator(); it.hasNext();){
+			for(Map.Entry<K, Aggregate> e : it.next().entrySet()){
+				editor.merge(e.getKey(), e.getValue(), Aggregate::minus);
+			}
+			it.remove();
+		}
+	}
+	/** Count and sum of one key; immutable. */
+	public static final class Aggregate {
+		private final long count;
+		private final double sum;
+
+		Aggregate(long count, double sum) {
+			this.count = count;
+			this.sum = sum;
+		}
+		public long count(){
+			return count;
+		}
+		public double sum(){
+			return sum;
+		}
+		public double mean(){
+			return count == 0 ? 0 : sum / count;
+		}
+		Aggregate plus(Aggregate other){
+			return new Aggregate(count + other.count, sum + other.sum);
+		}
+		Aggregate minus(Aggregate other){
+			long c = count - other.count;
+			return c == 0 ? null : new Aggregate(c, sum - other.sum);
+		}
+		@Override
+		public boolean equals(Object o){
+			return o instanceof Aggregate && ((Aggregate)o).count == count
+					&& Double.doubleToLongBits(((Aggregate)o).sum) == Double.doubleToLongBits(sum);
+		}
+		@Override
+		public int hashCode(){
+			return Long.hashCode(count) * 31 + Double.hashCode(sum);
+		}
+		@Override
+		public String toString(){
+			return "count=" + count + ", sum=" + sum;
+		}
+	}
+
+	/** Aggregates of {@code [start, end)}. */
+	public static final class Window<K> {
+		private final long start;
+		private final long end;
+		private final HashTrie<K, Aggregate> groups;
+		private final long late;
+
+		Window(long start, long end, HashTrie<K, Aggregate> groups, long late) {
+			this.start = start;
+			this.end = end;
+			this.groups = groups;
+			this.late = late;
+		}
+		public long start(){
+			return start;
+		}
+		public long end(){
+			return end;
+		}
+		public HashTrie<K, Aggregate> groups(){
+			return groups;
+		}
+		/** Elements dropped so far for arriving behind the window. */
+		public long late(){
+			return late;
+		}
+	}
+}
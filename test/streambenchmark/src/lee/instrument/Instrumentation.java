@@ -0,0 +1,71 @@
+package lee.instrument;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Switches and metrics registry of {@link InstrumentedStream}. A pipeline is
+ * instrumented if its name was enabled here, listed in the comma-separated
+ * system property {@value #PROPERTY} ({@code *} for all), or switched on by
+ * {@link InstrumentedStream#instrument(boolean)}. Every instrumented run is
+ * added to its pipeline's snapshot and, if JFR is recording, published as
+ * {@code lee.PipelineRun} and {@code lee.PipelineStage} events.
+ */
+public final class Instrumentation {
+	public static final String PROPERTY = "lee.instrument";
+	/** Time one element in this many per stage. */
+	public static final int DEFAULT_SAMPLE_EVERY = 1024;
+
+	private static final Set<String> ENABLED = ConcurrentHashMap.newKeySet();
+	private static final Map<String, PipelineMetrics> METRICS = new ConcurrentHashMap<>();
+	private static volatile boolean all;
+	static {
+		String names = System.getProperty(PROPERTY, "");
+		for(String name : names.split(",")){
+			name = name.trim();
+			if(name.equals("*")){
+				all = true;
+			}else if(!name.isEmpty()){
+				ENABLED.add(name);
+			}
+		}
+	}
+
+	private Instrumentation(){}
+
+	public static void enable(String pipeline){
+		ENABLED.add(pipeline);
+	}
+	public static void disable(String pipeline){
+		ENABLED.remove(pipeline);
+	}
+	public static void enableAll(boolean on){
+		all = on;
+	}
+	public static boolean isEnabled(String pipeline){
+		return all || ENABLED.contains(pipeline);
+	}
+
+	/**
+	 * Sum of the instrumented runs of {@code pipeline}, or null.
+	 */
+	public static PipelineMetrics snapshot(String pipeline){
+		return METRICS.get(pipeline);
+	}
+	/**
+	 * Snapshots of every pipeline, by name.
+	 */
+	public static Map<String, PipelineMetrics> snapshot(){
+		return new TreeMap<>(METRICS);
+	}
+	public static void reset(){
+		METRICS.clear();
+	}
+
+	static void record(PipelineMetrics run){
+		METRICS.merge(run.getName(), run, PipelineMetrics::plus);
+		JfrEvents.commit(run);
+	}
+}
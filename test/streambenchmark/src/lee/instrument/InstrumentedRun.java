@@ -0,0 +1,373 @@
+package lee.instrument;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+
+/**
+ * Executes an instrumented pipeline. Each leaf of the split tree runs its
+ * chunk through its own chain of nodes and counters, so the hot path never
+ * touches shared state; the partial results and counters are combined in
+ * encounter order on the way back up, like a parallel stream does.
+ * <p>
+ * Counters are indexed by stage: 0 is the source, {@code 1..n} the
+ * intermediate operations and {@code n+1} the terminal accumulator. Every
+ * element is counted, but only every {@code sampleEvery}-th source element
+ * (and whatever it expands to) is timed, each stage timing only its own
+ * function, minus the calibrated cost of reading the clock.
+ */
+final class InstrumentedRun<A, R> {
+	/** Same split granularity as {@code java.util.stream.AbstractTask}. */
+	private static final int LEAF_TARGET = ForkJoinPool.getCommonPoolParallelism() << 2;
+	private static final long TIMER_OVERHEAD = calibrate();
+
+	private final String name;
+	private final List<Stage> stages;
+	private final Collector<Object, A, R> collector;
+	private final String terminal;
+	private final int sampleMask;
+	private final BiConsumer<A, Object> accumulator;
+
+	InstrumentedRun(String name, List<Stage> stages, Collector<Object, A, R> collector, String terminal, int sampleEvery){
+		this.name = name;
+		this.stages = stages;
+		this.collector = collector;
+		this.terminal = terminal;
+		this.sampleMask = sampleEvery - 1;
+		this.accumulator = collector.accumulator();
+	}
+
+	R execute(Spliterator<?> source, boolean parallel){
+		long start = System.nanoTime();
+		Partial result;
+		if(parallel){
+			long threshold = Math.max(1, source.estimateSize() / Math.max(1, LEAF_TARGET));
+			result = new SplitTask(source, 0, threshold, null).invoke();
+		}else{
+			result = leaf(source, 0);
+		}
+		R value = collector.finisher().apply(result.container);
+		long wall = System.nanoTime() - start;
+		Instrumentation.record(result.toMetrics(wall, parallel));
+		return value;
+	}
+
+	private Partial leaf(Spliterator<?> sp, int depth){
+		Leaf ctx = new Leaf();
+		A container = collector.supplier().get();
+		Node[] nodes = new Node[stages.size() + 2];
+		nodes[nodes.length - 1] = new TerminalNode<>(ctx, accumulator, container);
+		for(int i=stages.size(); i>0; i--){
+			nodes[i] = node(ctx, stages.get(i - 1), nodes[i + 1]);
+		}
+		nodes[0] = new SourceNode(ctx, sampleMask, nodes[1]);
+		sp.forEachRemaining(nodes[0]);
+		return new Partial(container, nodes, depth);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Node node(Leaf ctx, Stage stage, Node next){
+		switch(stage.kind){
+		case MAP:
+			return new MapNode(ctx, (Function<Object, Object>)stage.fn, next);
+		case FILTER:
+			return new FilterNode(ctx, (Predicate<Object>)stage.fn, next);
+		case FLAT_MAP:
+			return new FlatMapNode(ctx, (Function<Object, Stream<?>>)stage.fn, next);
+		default:
+			return new PeekNode(ctx, (Consumer<Object>)stage.fn, next);
+		}
+	}
+
+	private static long calibrate(){
+		long best = Long.MAX_VALUE;
+		for(int i=0; i<10_000; i++){
+			long a = System.nanoTime();
+			long b = System.nanoTime();
+			best = Math.min(best, b - a);
+		}
+		return best;
+	}
+
+	/**
+	 * Sampling switch of one leaf, set by its source node for each element.
+	 */
+	private static final class Leaf {
+		boolean sample;
+	}
+
+	/**
+	 * One stage of a leaf's chain, with its own counters so the hot path
+	 * only writes fields of the node it runs in.
+	 */
+	private abstract static class Node implements Consumer<Object> {
+		final Leaf ctx;
+		long in;
+		long sampled;
+		long nanos;
+
+		Node(Leaf ctx){
+			this.ctx = ctx;
+		}
+		final void timed(long start){
+			long d = System.nanoTime() - start - TIMER_OVERHEAD;
+			nanos += d > 0 ? d : 0;
+			sampled++;
+		}
+	}
+
+	private static final class SourceNode extends Node {
+		private final int mask;
+		private final Node next;
+
+		SourceNode(Leaf ctx, int mask, Node next){
+			super(ctx);
+			this.mask = mask;
+			this.next = next;
+		}
+		@Override
+		public void accept(Object t){
+			ctx.sample = (in++ & mask) == 0;
+			next.accept(t);
+		}
+	}
+
+	private static final class MapNode extends Node {
+		private final Function<Object, Object> fn;
+		private final Node next;
+
+		MapNode(Leaf ctx, Function<Object, Object> fn, Node next){
+			super(ctx);
+			this.fn = fn;
+			this.next = next;
+		}
+		@Override
+		public void accept(Object t){
+			in++;
+			Object r;
+			if(ctx.sample){
+				long start = System.nanoTime();
+				r = fn.apply(t);
+				timed(start);
+			}else{
+				r = fn.apply(t);
+			}
+			next.accept(r);
+		}
+	}
+
+	private static final class FilterNode extends Node {
+		private final Predicate<Object> fn;
+		private final Node next;
+
+		FilterNode(Leaf ctx, Predicate<Object> fn, Node next){
+			super(ctx);
+			this.fn = fn;
+			this.next = next;
+		}
+		@Override
+		public void accept(Object t){
+			in++;
+			boolean pass;
+			if(ctx.sample){
+				long start = System.nanoTime();
+				pass = fn.test(t);
+				timed(start);
+			}else{
+				pass = fn.test(t);
+			}
+			if(pass){
+				next.accept(t);
+			}
+		}
+	}
+
+	/**
+	 * Times the mapper that opens each inner stream; pulling the inner
+	 * elements through it is charged to the stages downstream.
+	 */
+	private static final class FlatMapNode extends Node {
+		private final Function<Object, Stream<?>> fn;
+		private final Node next;
+
+		FlatMapNode(Leaf ctx, Function<Object, Stream<?>> fn, Node next){
+			super(ctx);
+			this.fn = fn;
+			this.next = next;
+		}
+		@Override
+		public void accept(Object t){
+			in++;
+			Stream<?> inner;
+			if(ctx.sample){
+				long start = System.nanoTime();
+				inner = fn.apply(t);
+				timed(start);
+			}else{
+				inner = fn.apply(t);
+			}
+			if(inner != null){
+				try(Stream<?> s = inner){
+					s.sequential().forEach(next);
+				}
+			}
+		}
+	}
+
+	private static final class PeekNode extends Node {
+		private final Consumer<Object> fn;
+		private final Node next;
+
+		PeekNode(Leaf ctx, Consumer<Object> fn, Node next){
+			super(ctx);
+			this.fn = fn;
+			this.next = next;
+		}
+		@Override
+		public void accept(Object t){
+			in++;
+			if(ctx.sample){
+				long start = System.nanoTime();
+				fn.accept(t);
+				timed(start);
+			}else{
+				fn.accept(t);
+			}
+			next.accept(t);
+		}
+	}
+
+	private static final class TerminalNode<A> extends Node {
+		private final BiConsumer<A, Object> accumulator;
+		private final A container;
+
+		TerminalNode(Leaf ctx, BiConsumer<A, Object> accumulator, A container){
+			super(ctx);
+			this.accumulator = accumulator;
+			this.container = container;
+		}
+		@Override
+		public void accept(Object t){
+			in++;
+			if(ctx.sample){
+				long start = System.nanoTime();
+				accumulator.accept(container, t);
+				timed(start);
+			}else{
+				accumulator.accept(container, t);
+			}
+		}
+	}
+
+	/**
+	 * Result and counters of a subtree of the split tree.
+	 */
+	private final class Partial {
+		A container;
+		final long[] in;
+		final long[] sampled;
+		final long[] nanos;
+		long[] leafElements;
+		int[] leafDepths;
+		long steals;
+
+		Partial(A container, Node[] nodes, int depth){
+			this.container = container;
+			in = new long[nodes.length];
+			sampled = new long[nodes.length];
+			nanos = new long[nodes.length];
+			for(int i=0; i<nodes.length; i++){
+				in[i] = nodes[i].in;
+				sampled[i] = nodes[i].sampled;
+				nanos[i] = nodes[i].nanos;
+			}
+			leafElements = new long[]{in[0]};
+			leafDepths = new int[]{depth};
+		}
+		/**
+		 * Appends {@code right}, the subtree that follows this one in encounter order.
+		 */
+		Partial then(Partial right){
+			container = collector.combiner().apply(container, right.container);
+			for(int i=0; i<in.length; i++){
+				in[i] += right.in[i];
+				sampled[i] += right.sampled[i];
+				nanos[i] += right.nanos[i];
+			}
+			leafElements = concat(leafElements, right.leafElements);
+			int[] depths = Arrays.copyOf(leafDepths, leafDepths.length + right.leafDepths.length);
+			System.arraycopy(right.leafDepths, 0, depths, leafDepths.length, right.leafDepths.length);
+			leafDepths = depths;
+			steals += right.steals;
+			return this;
+		}
+		PipelineMetrics toMetrics(long wallNanos, boolean parallel){
+			List<StageMetrics> list = new ArrayList<>(in.length);
+			list.add(new StageMetrics(0, "source", in[0], sampled[0], nanos[0]));
+			for(int i=0; i<stages.size(); i++){
+				list.add(new StageMetrics(i + 1, stages.get(i).name, in[i + 1], sampled[i + 1], nanos[i + 1]));
+			}
+			int last = in.length - 1;
+			list.add(new StageMetrics(last, terminal, in[last], sampled[last], nanos[last]));
+			int maxDepth = 0;
+			for(int d : leafDepths){
+				maxDepth = Math.max(maxDepth, d);
+			}
+			return new PipelineMetrics(name, 1, parallel ? 1 : 0, wallNanos, steals, maxDepth,
+					leafElements, leafDepths, list);
+		}
+	}
+
+	private static long[] concat(long[] a, long[] b){
+		long[] r = Arrays.copyOf(a, a.length + b.length);
+		System.arraycopy(b, 0, r, a.length, b.length);
+		return r;
+	}
+
+	/**
+	 * Splits like {@code AbstractTask}: fork the prefix, compute the suffix
+	 * in place, then join. A forked task that runs on another thread than
+	 * its forker was stolen.
+	 */
+	private final class SplitTask extends RecursiveTask<Partial> {
+		private static final long serialVersionUID = 1L;
+
+		private final Spliterator<?> sp;
+		private final int depth;
+		private final long threshold;
+		private final transient Thread forker;
+
+		SplitTask(Spliterator<?> sp, int depth, long threshold, Thread forker){
+			this.sp = sp;
+			this.depth = depth;
+			this.threshold = threshold;
+			this.forker = forker;
+		}
+		@Override
+		protected Partial compute(){
+			Thread self = Thread.currentThread();
+			long stolen = forker != null && forker != self ? 1 : 0;
+			Partial result;
+			Spliterator<?> prefix;
+			if(sp.estimateSize() > threshold && (prefix = sp.trySplit()) != null){
+				SplitTask left = new SplitTask(prefix, depth + 1, threshold, self);
+				left.fork();
+				Partial right = new SplitTask(sp, depth + 1, threshold, null).compute();
+				result = left.join().then(right);
+			}else{
+				result = leaf(sp, depth);
+			}
+			result.steals += stolen;
+			return result;
+		}
+	}
+}
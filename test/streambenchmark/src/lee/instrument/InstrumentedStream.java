@@ -0,0 +1,176 @@
+package lee.instrument;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Stream pipeline that can be instrumented by name without changing the
+ * code that builds it.
+ * <pre>
+ * Map&lt;String, Double&gt; sums = InstrumentedStream.of("sumOrder", orders).parallel()
+ *         .filter(o -&gt; o.getPrice() &gt; 0, "positive")
+ *         .collect(Collectors.groupingBy(Order::getUserName, Collectors.summingDouble(Order::getPrice)));
+ * PipelineMetrics m = Instrumentation.snapshot("sumOrder");
+ * </pre>
+ * When the pipeline is not instrumented the operations are replayed onto a
+ * plain {@link Stream}, so it costs one list of stages per run. When it is,
+ * a run records per-stage element counts, sampled per-stage time, the shape
+ * of the split tree and the steal count (see {@link PipelineMetrics}).
+ * Like a stream, an instance is single use.
+ */
+public final class InstrumentedStream<T> {
+	private final String name;
+	private final Spliterator<?> source;
+	private final List<Stage> stages = new ArrayList<>();
+	private boolean parallel;
+	private Boolean instrument;
+	private int sampleEvery = Instrumentation.DEFAULT_SAMPLE_EVERY;
+	private boolean consumed;
+
+	private InstrumentedStream(String name, Spliterator<?> source){
+		if(name == null){
+			throw new NullPointerException("null pipeline name");
+		}
+		this.name = name;
+		this.source = source;
+	}
+
+	public static <T> InstrumentedStream<T> of(String pipeline, Collection<T> source){
+		return new InstrumentedStream<>(pipeline, source.spliterator());
+	}
+	public static <T> InstrumentedStream<T> of(String pipeline, Spliterator<T> source){
+		return new InstrumentedStream<>(pipeline, source);
+	}
+
+	public InstrumentedStream<T> parallel(){
+		parallel = true;
+		return this;
+	}
+	public InstrumentedStream<T> sequential(){
+		parallel = false;
+		return this;
+	}
+	/**
+	 * Overrides the {@link Instrumentation} switch for this run.
+	 */
+	public InstrumentedStream<T> instrument(boolean on){
+		instrument = on;
+		return this;
+	}
+	/**
+	 * Times one source element in {@code n}, a power of two; 1 times all.
+	 */
+	public InstrumentedStream<T> sampleEvery(int n){
+		if(n <= 0 || (n & (n - 1)) != 0){
+			throw new IllegalArgumentException("sampleEvery must be a power of two: " + n);
+		}
+		sampleEvery = n;
+		return this;
+	}
+
+	public <R> InstrumentedStream<R> map(Function<? super T, ? extends R> mapper){
+		return map(mapper, "map");
+	}
+	public <R> InstrumentedStream<R> map(Function<? super T, ? extends R> mapper, String stage){
+		return add(Stage.Kind.MAP, stage, mapper);
+	}
+	public InstrumentedStream<T> filter(Predicate<? super T> predicate){
+		return filter(predicate, "filter");
+	}
+	public InstrumentedStream<T> filter(Predicate<? super T> predicate, String stage){
+		return add(Stage.Kind.FILTER, stage, predicate);
+	}
+	public <R> InstrumentedStream<R> flatMap(Function<? super T, ? extends Stream<? extends R>> mapper){
+		return flatMap(mapper, "flatMap");
+	}
+	public <R> InstrumentedStream<R> flatMap(Function<? super T, ? extends Stream<? extends R>> mapper, String stage){
+		return add(Stage.Kind.FLAT_MAP, stage, mapper);
+	}
+	public InstrumentedStream<T> peek(Consumer<? super T> action){
+		return peek(action, "peek");
+	}
+	public InstrumentedStream<T> peek(Consumer<? super T> action, String stage){
+		return add(Stage.Kind.PEEK, stage, action);
+	}
+
+	public void forEach(Consumer<? super T> action){
+		if(!instrumented()){
+			plain().forEach(uncheckedCast(action));
+			return;
+		}
+		run(Collector.<Object, Void>of(() -> null, (v, t) -> action.accept(uncheckedCast(t)), (a, b) -> null), "forEach");
+	}
+	public long count(){
+		if(!instrumented()){
+			return plain().count();
+		}
+		return run(Collectors.counting(), "count");
+	}
+	public T reduce(T identity, BinaryOperator<T> op){
+		if(!instrumented()){
+			return uncheckedCast(plain().reduce(identity, uncheckedCast(op)));
+		}
+		return run(Collectors.reducing(identity, op), "reduce");
+	}
+	public <R> R collect(Collector<? super T, ?, R> collector){
+		if(!instrumented()){
+			return plain().collect(uncheckedCast(collector));
+		}
+		return run(collector, "collect");
+	}
+	public List<T> toList(){
+		if(!instrumented()){
+			return uncheckedCast(plain().collect(Collectors.toList()));
+		}
+		return run(Collectors.toList(), "toList");
+	}
+
+	public String getName(){
+		return name;
+	}
+	public boolean isParallel(){
+		return parallel;
+	}
+
+	@SuppressWarnings("unchecked")
+	private <R> InstrumentedStream<R> add(Stage.Kind kind, String stage, Object fn){
+		checkOpen();
+		stages.add(new Stage(kind, stage, fn));
+		return (InstrumentedStream<R>)this;
+	}
+	private boolean instrumented(){
+		checkOpen();
+		consumed = true;
+		return instrument != null ? instrument : Instrumentation.isEnabled(name);
+	}
+	private void checkOpen(){
+		if(consumed){
+			throw new IllegalStateException("pipeline " + name + " has already been operated upon");
+		}
+	}
+	private Stream<Object> plain(){
+		Stream<Object> s = StreamSupport.stream(InstrumentedStream.<Spliterator<Object>>uncheckedCast(source), parallel);
+		for(Stage stage : stages){
+			s = stage.applyTo(s);
+		}
+		return s;
+	}
+	private <A, R> R run(Collector<?, A, R> collector, String terminal){
+		Collector<Object, A, R> c = uncheckedCast(collector);
+		return new InstrumentedRun<>(name, stages, c, terminal, sampleEvery).execute(source, parallel);
+	}
+	@SuppressWarnings("unchecked")
+	private static <X> X uncheckedCast(Object o){
+		return (X)o;
+	}
+}
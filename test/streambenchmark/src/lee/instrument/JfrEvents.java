@@ -0,0 +1,112 @@
+package lee.instrument;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Publishes pipeline metrics as JFR events when the running JVM has JFR.
+ * Only the nested classes touch {@code jdk.jfr}, and they are not loaded
+ * when it is missing.
+ */
+final class JfrEvents {
+	private static final boolean AVAILABLE = available();
+
+	private JfrEvents(){}
+
+	static void commit(PipelineMetrics run){
+		if(AVAILABLE){
+			Recorder.commit(run);
+		}
+	}
+
+	private static boolean available(){
+		try{
+			Class.forName("jdk.jfr.Event", false, JfrEvents.class.getClassLoader());
+			return true;
+		}catch(ClassNotFoundException | LinkageError e){
+			return false;
+		}
+	}
+
+	private static final class Recorder {
+		static void commit(PipelineMetrics run){
+			RunEvent event = new RunEvent();
+			if(event.shouldCommit()){
+				StageMetrics hot = run.getHotStage();
+				event.pipeline = run.getName();
+				event.parallel = run.getParallelRuns() > 0;
+				event.elements = run.getElements();
+				event.wallTime = run.getWallNanos();
+				event.leaves = run.getLeaves();
+				event.maxDepth = run.getMaxDepth();
+				event.steals = run.getSteals();
+				event.hotStage = hot == null ? null : hot.getName();
+				event.commit();
+			}
+			for(StageMetrics s : run.getStages()){
+				StageEvent stage = new StageEvent();
+				if(!stage.shouldCommit()){
+					return;
+				}
+				stage.pipeline = run.getName();
+				stage.index = s.getIndex();
+				stage.stage = s.getName();
+				stage.elements = s.getElements();
+				stage.sampledElements = s.getSampledElements();
+				stage.estimatedTime = s.getEstimatedNanos();
+				stage.commit();
+			}
+		}
+	}
+
+	@Name("lee.PipelineRun")
+	@Label("Stream Pipeline Run")
+	@Category({"Java Lambda Internals", "Streams"})
+	@Description("One run of an instrumented stream pipeline")
+	@StackTrace(false)
+	static final class RunEvent extends Event {
+		@Label("Pipeline")
+		String pipeline;
+		@Label("Parallel")
+		boolean parallel;
+		@Label("Elements")
+		long elements;
+		@Label("Wall Time")
+		@Timespan(Timespan.NANOSECONDS)
+		long wallTime;
+		@Label("Leaves")
+		int leaves;
+		@Label("Max Depth")
+		int maxDepth;
+		@Label("Steals")
+		long steals;
+		@Label("Hot Stage")
+		String hotStage;
+	}
+
+	@Name("lee.PipelineStage")
+	@Label("Stream Pipeline Stage")
+	@Category({"Java Lambda Internals", "Streams"})
+	@Description("Per-stage counters of one run of an instrumented stream pipeline")
+	@StackTrace(false)
+	static final class StageEvent extends Event {
+		@Label("Pipeline")
+		String pipeline;
+		@Label("Stage Index")
+		int index;
+		@Label("Stage")
+		String stage;
+		@Label("Elements")
+		long elements;
+		@Label("Sampled Elements")
+		long sampledElements;
+		@Label("Estimated Time")
+		@Timespan(Timespan.NANOSECONDS)
+		long estimatedTime;
+	}
+}
@@ -0,0 +1,119 @@
+package lee.instrument;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Snapshot of an instrumented pipeline: one run, or the sum of all runs
+ * recorded under a name by {@link Instrumentation}. The split tree is
+ * described by its leaves, each a sequential chunk run by one task, in
+ * encounter order; for a sum of runs they are the last run's.
+ */
+public final class PipelineMetrics {
+	private final String name;
+	private final long runs;
+	private final long parallelRuns;
+	private final long wallNanos;
+	private final long steals;
+	private final int maxDepth;
+	private final long[] leafElements;
+	private final int[] leafDepths;
+	private final List<StageMetrics> stages;
+
+	PipelineMetrics(String name, long runs, long parallelRuns, long wallNanos, long steals, int maxDepth,
+			long[] leafElements, int[] leafDepths, List<StageMetrics> stages){
+		this.name = name;
+		this.runs = runs;
+		this.parallelRuns = parallelRuns;
+		this.wallNanos = wallNanos;
+		this.steals = steals;
+		this.maxDepth = maxDepth;
+		this.leafElements = leafElements;
+		this.leafDepths = leafDepths;
+		this.stages = Collections.unmodifiableList(stages);
+	}
+
+	public String getName(){
+		return name;
+	}
+	public long getRuns(){
+		return runs;
+	}
+	public long getParallelRuns(){
+		return parallelRuns;
+	}
+	public long getWallNanos(){
+		return wallNanos;
+	}
+	/** Source elements, all runs. */
+	public long getElements(){
+		return stages.get(0).getElements();
+	}
+	/** Forked tasks that ran on another thread than the one that forked them. */
+	public long getSteals(){
+		return steals;
+	}
+	public int getMaxDepth(){
+		return maxDepth;
+	}
+	public int getLeaves(){
+		return leafElements.length;
+	}
+	public long[] getLeafElements(){
+		return leafElements.clone();
+	}
+	public int[] getLeafDepths(){
+		return leafDepths.clone();
+	}
+	/** Source first, terminal operation last. */
+	public List<StageMetrics> getStages(){
+		return stages;
+	}
+	/**
+	 * User stage with the largest estimated time, or null if nothing was
+	 * sampled; the source and terminal stages are not candidates.
+	 */
+	public StageMetrics getHotStage(){
+		StageMetrics hot = null;
+		for(int i=1; i<stages.size() - 1; i++){
+			StageMetrics s = stages.get(i);
+			if(s.getSampledElements() > 0 && (hot == null || s.getEstimatedNanos() > hot.getEstimatedNanos())){
+				hot = s;
+			}
+		}
+		return hot;
+	}
+
+	/**
+	 * This snapshot plus a later run of the same pipeline.
+	 */
+	PipelineMetrics plus(PipelineMetrics later){
+		List<StageMetrics> sum = later.stages;
+		if(stages.size() == later.stages.size()){
+			sum = new ArrayList<>(stages.size());
+			for(int i=0; i<stages.size(); i++){
+				sum.add(stages.get(i).plus(later.stages.get(i)));
+			}
+		}
+		return new PipelineMetrics(name, runs + later.runs, parallelRuns + later.parallelRuns,
+				wallNanos + later.wallNanos, steals + later.steals, Math.max(maxDepth, later.maxDepth),
+				later.leafElements, later.leafDepths, sum);
+	}
+	@Override
+	public String toString(){
+		StringBuilder sb = new StringBuilder();
+		sb.append(name).append(": runs=").append(runs).append(" parallel=").append(parallelRuns)
+				.append(String.format(" wall=%.3fms", wallNanos / 1e6))
+				.append(" leaves=").append(getLeaves()).append(" maxDepth=").append(maxDepth)
+				.append(" steals=").append(steals);
+		if(leafElements.length <= 16){
+			sb.append(" leafElements=").append(Arrays.toString(leafElements));
+		}
+		for(StageMetrics s : stages){
+			sb.append('\n').append("  ").append(s);
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,43 @@
+package lee.instrument;
+
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * One intermediate operation of an {@link InstrumentedStream}.
+ */
+final class Stage {
+	enum Kind { MAP, FILTER, FLAT_MAP, PEEK }
+
+	final Kind kind;
+	final String name;
+	final Object fn;
+
+	Stage(Kind kind, String name, Object fn){
+		if(fn == null){
+			throw new NullPointerException("null " + kind.name().toLowerCase() + " function");
+		}
+		this.kind = kind;
+		this.name = name;
+		this.fn = fn;
+	}
+
+	/**
+	 * Appends this operation to a plain stream, for uninstrumented runs.
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	Stream<Object> applyTo(Stream<Object> s){
+		switch(kind){
+		case MAP:
+			return s.map((Function)fn);
+		case FILTER:
+			return s.filter((Predicate)fn);
+		case FLAT_MAP:
+			return s.flatMap((Function)fn);
+		default:
+			return s.peek((Consumer)fn);
+		}
+	}
+}
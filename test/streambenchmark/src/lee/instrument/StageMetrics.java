@@ -0,0 +1,53 @@
+package lee.instrument;
+
+/**
+ * Counters of one stage of an instrumented pipeline. Element counts are
+ * exact; time is measured on sampled elements only and scaled up.
+ */
+public final class StageMetrics {
+	private final int index;
+	private final String name;
+	private final long elements;
+	private final long sampledElements;
+	private final long sampledNanos;
+
+	StageMetrics(int index, String name, long elements, long sampledElements, long sampledNanos){
+		this.index = index;
+		this.name = name;
+		this.elements = elements;
+		this.sampledElements = sampledElements;
+		this.sampledNanos = sampledNanos;
+	}
+
+	/** 0 is the source, the terminal operation comes last. */
+	public int getIndex(){
+		return index;
+	}
+	public String getName(){
+		return name;
+	}
+	/** Elements that entered the stage. */
+	public long getElements(){
+		return elements;
+	}
+	public long getSampledElements(){
+		return sampledElements;
+	}
+	/** Time spent in the stage's own function on the sampled elements. */
+	public long getSampledNanos(){
+		return sampledNanos;
+	}
+	/** Sampled time scaled to all elements. */
+	public long getEstimatedNanos(){
+		return sampledElements == 0 ? 0 : (long)((double)sampledNanos * elements / sampledElements);
+	}
+
+	StageMetrics plus(StageMetrics o){
+		return new StageMetrics(index, name, elements + o.elements,
+				sampledElements + o.sampledElements, sampledNanos + o.sampledNanos);
+	}
+	@Override
+	public String toString(){
+		return String.format("%2d %-20s elements=%d est=%.3fms", index, name, elements, getEstimatedNanos() / 1e6);
+	}
+}
@@ -0,0 +1,49 @@
+package lee.jmh;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of benchmarks.jar. Accepts the usual JMH command line and
+ * adds our defaults: GC/allocation profiler on, JSON result file.
+ * <pre>
+ * mvn -pl test/streambenchmark -am package
+ * java -jar test/streambenchmark/target/benchmarks.jar IntBenchmark -p length=10000,1000000
+ * </pre>
+ * Options given on the command line win over the defaults here.
+ * <p>
+ * <b>Heap.</b> Most benchmarks fork with {@code -Xms10G -Xmx10G}, which the
+ * JVM commits up front: the machine needs more than 10 GB free, or the fork
+ * dies with an {@code hs_err_pid*.log}. On a smaller machine pass a smaller
+ * heap with {@code -jvmArgs}, which replaces the {@code @Fork} arguments;
+ * benchmarks whose largest point needs more than a few GB say how much.
+ */
+public class BenchmarkRunner {
+	public static final String DEFAULT_RESULT = "jmh-result.json";
+
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		CommandLineOptions cmd = new CommandLineOptions(args);
+		OptionsBuilder builder = new OptionsBuilder();
+		builder.parent(cmd);
+		if(cmd.getIncludes().isEmpty()){
+			builder.include("lee\\.jmh\\..*");
+		}
+		if(cmd.getProfilers().isEmpty()){
+			builder.addProfiler(GCProfiler.class);
+		}
+		if(!cmd.getResultFormat().hasValue()){
+			builder.resultFormat(ResultFormatType.JSON);
+		}
+		if(!cmd.getResult().hasValue()){
+			builder.result(DEFAULT_RESULT);
+		}
+		Options opts = builder.build();
+		new Runner(opts).run();
+	}
+}
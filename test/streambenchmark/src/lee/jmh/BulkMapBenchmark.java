@@ -0,0 +1,143 @@
+package lee.jmh;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import lee.BenchData;
+import lee.collect.BulkMap;
+import lee.collect.IntLongBulkMap;
+import lee.collect.IntLongHashMap;
+
+/**
+ * Bulk updates of a large cache: HashMap.replaceAll and
+ * ConcurrentHashMap.replaceAll (both on the calling thread) against
+ * ConcurrentHashMap.forEach(threshold), BulkMap and the segmented primitive
+ * IntLongBulkMap; plus forEach and merging a refresh batch of
+ * {@code length / 4} entries into the cache.
+ * Values only ever grow by one per call, so the maps are reused across invocations.
+ * At 10M entries the maps and batches hold about 3.5 GB; see
+ * {@link BenchmarkRunner} for the fork heap.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgs = {"-server", "-Xms10G", "-Xmx10G"})
+@State(Scope.Benchmark)
+public class BulkMapBenchmark {
+
+	@Param({"1000000", "10000000"})
+	public int length;
+
+	HashMap<Integer, Long> hashMap;
+	ConcurrentHashMap<Integer, Long> concurrentMap;
+	BulkMap<Integer, Long> bulkMap;
+	IntLongBulkMap intLongMap;
+
+	HashMap<Integer, Long> batch;
+	ConcurrentHashMap<Integer, Long> concurrentBatch;
+	IntLongHashMap intLongBatch;
+
+	@Setup
+	public void setUp(){
+		int[] keys = BenchData.randomIntArray(length);
+		hashMap = new HashMap<>(length * 2);
+		concurrentMap = new ConcurrentHashMap<>(length);
+		bulkMap = new BulkMap<>(length);
+		intLongMap = new IntLongBulkMap(length);
+		for(int k : keys){
+			hashMap.put(k, (long)k);
+			concurrentMap.put(k, (long)k);
+			bulkMap.map().put(k, (long)k);
+			intLongMap.put(k, k);
+		}
+		batch = new HashMap<>(length / 2);
+		intLongBatch = new IntLongHashMap(length / 4);
+		for(int i=0; i<length / 4; i++){
+			batch.put(keys[i * 4], 1L);
+			intLongBatch.put(keys[i * 4], 1L);
+		}
+		concurrentBatch = new ConcurrentHashMap<>(batch);
+	}
+
+	@Benchmark
+	public Map<Integer, Long> replaceAllHashMap(){
+		hashMap.replaceAll((k, v) -> v + 1);
+		return hashMap;
+	}
+	@Benchmark
+	public Map<Integer, Long> replaceAllConcurrentHashMap(){
+		concurrentMap.replaceAll((k, v) -> v + 1);
+		return concurrentMap;
+	}
+	@Benchmark
+	public Map<Integer, Long> replaceAllConcurrentForEach(){
+		concurrentMap.forEach(BulkMap.DEFAULT_THRESHOLD, (k, v) -> concurrentMap.computeIfPresent(k, (kk, vv) -> vv + 1));
+		return concurrentMap;
+	}
+	@Benchmark
+	public BulkMap<Integer, Long> replaceAllBulkMap(){
+		bulkMap.replaceAll((k, v) -> v + 1);
+		return bulkMap;
+	}
+	@Benchmark
+	public IntLongBulkMap replaceAllIntLong(){
+		intLongMap.replaceAll((k, v) -> v + 1);
+		return intLongMap;
+	}
+
+	@Benchmark
+	public long forEachHashMap(){
+		long[] sum = new long[1];
+		hashMap.forEach((k, v) -> sum[0] += v);
+		return sum[0];
+	}
+	@Benchmark
+	public long forEachBulkMap(){
+		LongAdder sum = new LongAdder();
+		bulkMap.forEach((k, v) -> sum.add(v));
+		return sum.sum();
+	}
+	@Benchmark
+	public long forEachIntLong(){
+		LongAdder sum = new LongAdder();
+		intLongMap.forEach((k, v) -> sum.add(v));
+		return sum.sum();
+	}
+
+	@Benchmark
+	public Map<Integer, Long> mergeHashMap(){
+		batch.forEach((k, v) -> hashMap.merge(k, v, Long::sum));
+		return hashMap;
+	}
+	@Benchmark
+	public BulkMap<Integer, Long> mergeAllBulkMap(){
+		bulkMap.mergeAll(batch, Long::sum);
+		return bulkMap;
+	}
+	@Benchmark
+	public BulkMap<Integer, Long> mergeAllBulkMapFromConcurrent(){
+		bulkMap.mergeAll(concurrentBatch, Long::sum);
+		return bulkMap;
+	}
+	@Benchmark
+	public IntLongBulkMap mergeAllIntLong(){
+		intLongMap.mergeAll(intLongBatch, Long::sum);
+		return intLongMap;
+	}
+}
@@ -0,0 +1,76 @@
+package lee.jmh;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import lee.Order;
+import lee.collect.ConcurrentCollectors;
+
+/**
+ * Scaling of the parallel per-user order sum with the number of workers:
+ * groupingBy (per-leaf HashMap + merge), groupingByConcurrent (shared map,
+ * boxed Double updated by merge) and ConcurrentCollectors (shared map of adders).
+ * Each pipeline runs inside its own ForkJoinPool of {@code parallelism} threads.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgs = {"-server", "-Xms10G", "-Xmx10G"})
+@State(Scope.Benchmark)
+public class ConcurrentGroupingBenchmark {
+
+	@Param({"1000000", "10000000", "40000000"})
+	public int length;
+
+	@Param({"1", "2", "4", "8", "16"})
+	public int parallelism;
+
+	List<Order> orders;
+	ForkJoinPool pool;
+
+	@Setup
+	public void setUp(){
+		orders = Order.genOrders(length);
+		pool = new ForkJoinPool(parallelism);
+	}
+	@TearDown
+	public void tearDown(){
+		pool.shutdown();
+	}
+
+	@Benchmark
+	public Map<String, Double> groupingBy() throws InterruptedException, ExecutionException {
+		return pool.submit(() -> orders.parallelStream().collect(
+				Collectors.groupingBy(Order::getUserName,
+						Collectors.summingDouble(Order::getPrice)))).get();
+	}
+	@Benchmark
+	public Map<String, Double> groupingByConcurrent() throws InterruptedException, ExecutionException {
+		return pool.submit(() -> orders.parallelStream().collect(
+				Collectors.groupingByConcurrent(Order::getUserName,
+						Collectors.summingDouble(Order::getPrice)))).get();
+	}
+	@Benchmark
+	public Map<String, Double> concurrentAdders() throws InterruptedException, ExecutionException {
+		return pool.submit(() -> orders.parallelStream().collect(
+				ConcurrentCollectors.groupingSumDouble(Order::getUserName, Order::getPrice))).get();
+	}
+}
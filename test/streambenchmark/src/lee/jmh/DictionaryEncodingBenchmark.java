@@ -0,0 +1,97 @@
+package lee.jmh;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import lee.Order;
+import lee.collect.DictionaryCollectors;
+import lee.collect.KeyDictionary;
+
+/**
+ * Per-user order sum keyed by the 36-char UUID user name vs by a dense id
+ * from {@link KeyDictionary}:
+ * <ul>
+ * <li>{@code sumOrderForLoop}, {@code sumOrderStream}: String-keyed HashMap, as in ReductionTest;</li>
+ * <li>{@code dictionaryCollector*}: stream collector that looks each name up in a warm dictionary;</li>
+ * <li>{@code encodeThenSum}: encode all names (dictionary warm) and sum by id;</li>
+ * <li>{@code preEncodedSum}: ids computed once in setup, the cost of every later aggregation.</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgs = {"-server", "-Xms10G", "-Xmx10G"})
+@State(Scope.Benchmark)
+public class DictionaryEncodingBenchmark {
+
+	@Param({"1000000", "10000000", "40000000"})
+	public int length;
+
+	List<Order> orders;
+	KeyDictionary<String> users;
+	int[] ids;
+	double[] prices;
+
+	@Setup
+	public void setUp(){
+		orders = Order.genOrders(length);
+		users = new KeyDictionary<>();
+		ids = users.encodeAll(orders, Order::getUserName, true);
+		prices = orders.stream().mapToDouble(Order::getPrice).toArray();
+	}
+
+	@Benchmark
+	public Map<String, Double> sumOrderForLoop(){
+		Map<String, Double> map = new HashMap<>();
+		for(Order od : orders){
+			String userName = od.getUserName();
+			Double v;
+			if((v=map.get(userName)) != null){
+				map.put(userName, v+od.getPrice());
+			}else{
+				map.put(userName, od.getPrice());
+			}
+		}
+		return map;
+	}
+	@Benchmark
+	public Map<String, Double> sumOrderStream(){
+		return orders.stream().collect(
+				Collectors.groupingBy(Order::getUserName,
+						Collectors.summingDouble(Order::getPrice)));
+	}
+	@Benchmark
+	public double[] dictionaryCollectorStream(){
+		return orders.stream().collect(
+				DictionaryCollectors.groupingSumDouble(users, Order::getUserName, Order::getPrice));
+	}
+	@Benchmark
+	public double[] dictionaryCollectorParallelStream(){
+		return orders.parallelStream().collect(
+				DictionaryCollectors.groupingSumDouble(users, Order::getUserName, Order::getPrice));
+	}
+	@Benchmark
+	public double[] encodeThenSum(){
+		return users.sumById(users.encodeAll(orders, Order::getUserName, false), prices);
+	}
+	@Benchmark
+	public double[] preEncodedSum(){
+		return users.sumById(ids, prices);
+	}
+}
@@ -0,0 +1,142 @@
+package lee.jmh;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import lee.BenchData;
+import lee.kernel.PrimitiveDistinct;
+import lee.kernel.RadixSort;
+
+/**
+ * distinct() and sorted() on int and long streams: the JDK operators vs
+ * {@link PrimitiveDistinct} and {@link RadixSort}, sequential and parallel.
+ * The distinct input has about four copies of every value.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgs = {"-server", "-Xms10G", "-Xmx10G"})
+@State(Scope.Benchmark)
+public class DistinctSortBenchmark {
+
+	@Param({"1000000", "10000000", "100000000"})
+	public int length;
+
+	int[] arr;
+	int[] dups;
+	long[] longArr;
+	long[] longDups;
+
+	@Setup
+	public void setUp(){
+		arr = BenchData.randomIntArray(length);
+		int range = Math.max(1, length / 4);
+		dups = Arrays.stream(arr).map(x -> Math.floorMod(x, range)).toArray();
+		longArr = new Random(BenchData.SEED).longs(length).toArray();
+		longDups = Arrays.stream(longArr).map(x -> Math.floorMod(x, (long)range)).toArray();
+	}
+
+	@Benchmark
+	public int[] distinctStream(){
+		return IntStream.of(dups).distinct().toArray();
+	}
+
+	@Benchmark
+	public int[] distinctStreamParallel(){
+		return IntStream.of(dups).parallel().distinct().toArray();
+	}
+
+	@Benchmark
+	public int[] distinctPrimitive(){
+		return PrimitiveDistinct.distinct(dups);
+	}
+
+	@Benchmark
+	public int[] distinctPrimitiveParallel(){
+		return PrimitiveDistinct.parallelDistinct(dups);
+	}
+
+	@Benchmark
+	public int[] sortedStream(){
+		return IntStream.of(arr).sorted().toArray();
+	}
+
+	@Benchmark
+	public int[] sortedStreamParallel(){
+		return IntStream.of(arr).parallel().sorted().toArray();
+	}
+
+	@Benchmark
+	public int[] radixSort(){
+		int[] a = arr.clone();
+		RadixSort.sort(a);
+		return a;
+	}
+
+	@Benchmark
+	public int[] radixSortParallel(){
+		int[] a = arr.clone();
+		RadixSort.parallelSort(a);
+		return a;
+	}
+
+	@Benchmark
+	public long[] distinctLongStream(){
+		return LongStream.of(longDups).distinct().toArray();
+	}
+
+	@Benchmark
+	public long[] distinctLongStreamParallel(){
+		return LongStream.of(longDups).parallel().distinct().toArray();
+	}
+
+	@Benchmark
+	public long[] distinctLongPrimitive(){
+		return PrimitiveDistinct.distinct(longDups);
+	}
+
+	@Benchmark
+	public long[] distinctLongPrimitiveParallel(){
+		return PrimitiveDistinct.parallelDistinct(longDups);
+	}
+
+	@Benchmark
+	public long[] sortedLongStream(){
+		return LongStream.of(longArr).sorted().toArray();
+	}
+
+	@Benchmark
+	public long[] sortedLongStreamParallel(){
+		return LongStream.of(longArr).parallel().sorted().toArray();
+	}
+
+	@Benchmark
+	public long[] radixSortLong(){
+		long[] a = longArr.clone();
+		RadixSort.sort(a);
+		return a;
+	}
+
+	@Benchmark
+	public long[] radixSortLongParallel(){
+		long[] a = longArr.clone();
+		RadixSort.parallelSort(a);
+		return a;
+	}
+}
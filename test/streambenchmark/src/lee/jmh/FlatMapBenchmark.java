@@ -0,0 +1,100 @@
+package lee.jmh;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import lee.BenchData;
+import lee.flat.FlatMaps;
+
+/**
+ * Flattening many tiny inner collections (2-5 elements each): stock
+ * {@code flatMap}, which builds a stream per outer element, vs the push-style
+ * operators of {@link FlatMaps}, for boxed lists and for {@code int[]}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgs = {"-server", "-Xms10G", "-Xmx10G"})
+@State(Scope.Benchmark)
+public class FlatMapBenchmark {
+
+	@Param({"1000000"})
+	public int outer;
+
+	@Param({"false", "true"})
+	public boolean parallel;
+
+	List<List<Integer>> lists;
+	List<int[]> arrays;
+
+	@Setup
+	public void setUp(){
+		Random r = new Random(BenchData.SEED);
+		lists = new ArrayList<>(outer);
+		arrays = new ArrayList<>(outer);
+		for(int i=0; i<outer; i++){
+			int[] a = r.ints(2 + r.nextInt(4)).toArray();
+			arrays.add(a);
+			List<Integer> l = new ArrayList<>(a.length);
+			for(int x : a){
+				l.add(x);
+			}
+			lists.add(l);
+		}
+	}
+
+	@Benchmark
+	public long flatMapList(){
+		return (parallel ? lists.parallelStream() : lists.stream()).flatMap(List::stream).mapToLong(Integer::longValue).sum();
+	}
+
+	@Benchmark
+	public long mapMultiList(){
+		return FlatMaps.<List<Integer>, Integer>mapMulti(parallel ? lists.parallelStream() : lists.stream(), (l, sink) -> {
+			for(int i=0; i<l.size(); i++){
+				sink.accept(l.get(i));
+			}
+		}).mapToLong(Integer::longValue).sum();
+	}
+
+	@Benchmark
+	public long flatMapCollection(){
+		return FlatMaps.flatMapCollection(parallel ? lists.parallelStream() : lists.stream(), l -> l).mapToLong(Integer::longValue).sum();
+	}
+
+	@Benchmark
+	public long flatMapToIntArray(){
+		return (parallel ? arrays.parallelStream() : arrays.stream()).flatMapToInt(IntStream::of).asLongStream().sum();
+	}
+
+	@Benchmark
+	public long mapMultiToIntArray(){
+		return FlatMaps.mapMultiToInt(parallel ? arrays.parallelStream() : arrays.stream(), (int[] a, IntConsumer sink) -> {
+			for(int x : a){
+				sink.accept(x);
+			}
+		}).asLongStream().sum();
+	}
+
+	@Benchmark
+	public long flatMapToIntFused(){
+		return FlatMaps.flatMapToInt(parallel ? arrays.parallelStream() : arrays.stream(), a -> a).asLongStream().sum();
+	}
+}
@@ -0,0 +1,80 @@
+package lee.jmh;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import lee.BenchData;
+import lee.fused.FusedIntPipeline;
+
+/**
+ * map/filter/sum over an int array: stock IntStream vs the generated loop of
+ * {@link FusedIntPipeline} vs a hand-written loop. Setup first runs a handful of
+ * unrelated IntStream pipelines so the JDK's shared sink call sites are already
+ * megamorphic, as they are in any real application.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgs = {"-server", "-Xms10G", "-Xmx10G"})
+@State(Scope.Benchmark)
+public class FusedPipelineBenchmark {
+
+	@Param({"10000", "1000000", "100000000"})
+	public int length;
+
+	@Param({"true", "false"})
+	public boolean pollute;
+
+	int[] arr;
+
+	@Setup
+	public void setUp(){
+		arr = BenchData.randomIntArray(length);
+		if(pollute){
+			int[] small = Arrays.copyOf(arr, Math.min(arr.length, 10000));
+			for(int round=0; round<200; round++){
+				IntStream.of(small).map(x -> x + 1).filter(x -> x > 0).sum();
+				IntStream.of(small).map(x -> x ^ 7).filter(x -> (x & 3) == 0).count();
+				IntStream.of(small).map(x -> x >>> 1).filter(x -> x != 5).max();
+				IntStream.of(small).map(Math::abs).filter(x -> x % 3 == 1).min();
+				IntStream.of(small).peek(x -> {}).skip(1).limit(small.length / 2).sum();
+			}
+		}
+	}
+
+	@Benchmark
+	public long mapFilterSumStream(){
+		return IntStream.of(arr).map(x -> x * 3).filter(x -> (x & 1) == 0).asLongStream().sum();
+	}
+
+	@Benchmark
+	public long mapFilterSumFused(){
+		return FusedIntPipeline.of(arr).map(x -> x * 3).filter(x -> (x & 1) == 0).sum();
+	}
+
+	@Benchmark
+	public long mapFilterSumFor(){
+		int[] arr = this.arr;
+		long sum = 0;
+		for(int i=0; i<arr.length; i++){
+			int x = arr[i] * 3;
+			if((x & 1) == 0)
+				sum += x;
+		}
+		return sum;
+	}
+}
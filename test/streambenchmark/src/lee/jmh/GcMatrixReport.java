@@ -0,0 +1,198 @@
+package lee.jmh;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Comparison report of a {@link GcMatrixRunner} run: one table per
+ * benchmark and parameter set, one row per collector and heap size, plus a
+ * summary of the best cell for score and for the longest pause. Written
+ * as Markdown and as CSV with one line per row.
+ */
+public class GcMatrixReport {
+	/** Secondary results shown per row, in column order. */
+	static final String[] METRICS = {"gc.alloc.rate", "gc.alloc.rate.norm", "gc.count", "gc.time",
+			"gc.pause.count", "gc.pause.total", "gc.pause.max"};
+	private static final String[] HEADERS = {"alloc MB/s", "alloc B/op", "GCs", "GC ms",
+			"pauses", "pause ms", "max pause ms"};
+
+	private final Map<String, List<Row>> groups = new LinkedHashMap<>();
+	private final List<String> failures = new ArrayList<>();
+
+	/**
+	 * One benchmark result under one collector and heap size.
+	 */
+	public static class Row {
+		final String benchmark;
+		final String params;
+		final String gc;
+		final String heap;
+		final double score;
+		final double error;
+		final String unit;
+		final boolean higherIsBetter;
+		final Map<String, Double> metrics;
+
+		public Row(String benchmark, String params, String gc, String heap, double score, double error, String unit,
+				boolean higherIsBetter, Map<String, Double> metrics){
+			this.benchmark = benchmark;
+			this.params = params;
+			this.gc = gc;
+			this.heap = heap;
+			this.score = score;
+			this.error = error;
+			this.unit = unit;
+			this.higherIsBetter = higherIsBetter;
+			this.metrics = metrics;
+		}
+		String group(){
+			return params.isEmpty() ? benchmark : benchmark + " " + params;
+		}
+		double metric(String name){
+			Double v = metrics.get(name);
+			return v == null ? Double.NaN : v;
+		}
+		boolean beats(Row o){
+			return higherIsBetter ? score > o.score : score < o.score;
+		}
+	}
+
+	public void add(Row row){
+		groups.computeIfAbsent(row.group(), g -> new ArrayList<>()).add(row);
+	}
+	/**
+	 * Records a cell that produced no results, e.g. a collector the JVM lacks.
+	 */
+	public void fail(String gc, String heap, String reason){
+		failures.add(gc + " " + heap + ": " + reason);
+	}
+	public int size(){
+		int n = 0;
+		for(List<Row> rows : groups.values()){
+			n += rows.size();
+		}
+		return n;
+	}
+
+	public String toMarkdown(){
+		StringBuilder sb = new StringBuilder("# GC matrix\n\n");
+		sb.append("| Benchmark | Best score | Shortest max pause |\n|---|---|---|\n");
+		for(Map.Entry<String, List<Row>> e : groups.entrySet()){
+			Row best = best(e.getValue());
+			Row calm = calmest(e.getValue());
+			sb.append("| ").append(e.getKey())
+					.append(" | ").append(cell(best)).append(String.format(Locale.ROOT, " (%s)", fmt(best.score)))
+					.append(" | ").append(cell(calm)).append(String.format(Locale.ROOT, " (%s ms)",
+							fmt(calm.metric("gc.pause.max"))))
+					.append(" |\n");
+		}
+		for(Map.Entry<String, List<Row>> e : groups.entrySet()){
+			List<Row> rows = e.getValue();
+			Row best = best(rows);
+			sb.append("\n## ").append(e.getKey()).append("\n\n")
+					.append(best.unit).append(best.higherIsBetter ? ", higher is better" : ", lower is better")
+					.append("\n\n| GC | Heap | Score | Error | vs best");
+			for(String h : HEADERS){
+				sb.append(" | ").append(h);
+			}
+			sb.append(" |\n|---|---|---|---|---");
+			for(int i=0; i<HEADERS.length; i++){
+				sb.append("|---");
+			}
+			sb.append("|\n");
+			for(Row r : rows){
+				sb.append("| ").append(r.gc).append(" | ").append(r.heap)
+						.append(" | ").append(fmt(r.score)).append(" | ").append(fmt(r.error))
+						.append(" | ").append(String.format(Locale.ROOT, "%.2fx", relative(r, best)));
+				for(String m : METRICS){
+					sb.append(" | ").append(fmt(r.metric(m)));
+				}
+				sb.append(" |\n");
+			}
+		}
+		if(!failures.isEmpty()){
+			sb.append("\n## Not run\n\n");
+			for(String f : failures){
+				sb.append("- ").append(f).append('\n');
+			}
+		}
+		return sb.toString();
+	}
+	public String toCsv(){
+		StringBuilder sb = new StringBuilder("benchmark,params,gc,heap,score,error,unit");
+		for(String m : METRICS){
+			sb.append(',').append(m);
+		}
+		sb.append('\n');
+		for(List<Row> rows : groups.values()){
+			for(Row r : rows){
+				sb.append(r.benchmark).append(",\"").append(r.params).append("\",").append(r.gc).append(',')
+						.append(r.heap).append(',').append(r.score).append(',').append(r.error).append(',')
+						.append(r.unit);
+				for(String m : METRICS){
+					double v = r.metric(m);
+					sb.append(',').append(Double.isNaN(v) ? "" : Double.toString(v));
+				}
+				sb.append('\n');
+			}
+		}
+		return sb.toString();
+	}
+	/**
+	 * Writes {@code base.md} and {@code base.csv}, returning the Markdown file.
+	 */
+	public Path write(String base) throws IOException {
+		Path md = Paths.get(base + ".md");
+		Files.write(md, toMarkdown().getBytes(StandardCharsets.UTF_8));
+		Files.write(Paths.get(base + ".csv"), toCsv().getBytes(StandardCharsets.UTF_8));
+		return md;
+	}
+
+	static Row best(List<Row> rows){
+		Row best = rows.get(0);
+		for(Row r : rows){
+			if(r.beats(best)){
+				best = r;
+			}
+		}
+		return best;
+	}
+	/**
+	 * Row with the shortest max pause; ties go to the better score.
+	 */
+	static Row calmest(List<Row> rows){
+		Comparator<Row> byPause = Comparator.comparingDouble(r -> {
+			double v = r.metric("gc.pause.max");
+			return Double.isNaN(v) ? Double.MAX_VALUE : v;
+		});
+		List<Row> sorted = new ArrayList<>(rows);
+		Collections.sort(sorted, byPause.thenComparing((a, b) -> a.beats(b) ? -1 : b.beats(a) ? 1 : 0));
+		return sorted.get(0);
+	}
+	/**
+	 * How many times better {@code best} is than {@code r}; 1.00 for the best.
+	 */
+	static double relative(Row r, Row best){
+		return best.higherIsBetter ? best.score / r.score : r.score / best.score;
+	}
+	private static String cell(Row r){
+		return r.gc + " " + r.heap;
+	}
+	private static String fmt(double v){
+		if(Double.isNaN(v)){
+			return "-";
+		}
+		return Math.abs(v) >= 100 || v == Math.rint(v) ? String.format(Locale.ROOT, "%.0f", v)
+				: String.format(Locale.ROOT, "%.3f", v);
+	}
+}
@@ -0,0 +1,196 @@
+package lee.jmh;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.ProfilerConfig;
+
+/**
+ * Runs the selected benchmarks once per garbage collector and heap size and
+ * writes a single comparison report ({@link GcMatrixReport}) of score,
+ * allocation rate, GC count and time, and pauses.
+ * <pre>
+ * java -cp test/streambenchmark/target/benchmarks.jar lee.jmh.GcMatrixRunner \
+ *         'IntBenchmark|StringBenchmark|ReductionBenchmark' -p length=1000000 \
+ *         -gc G1,Parallel,Z,Shenandoah -heap 1G,4G,10G -report gc-matrix
+ * </pre>
+ * {@code -gc}, {@code -heap} and {@code -report} are ours, everything else
+ * is the JMH command line. Each cell replaces the {@code @Fork} JVM
+ * arguments with {@code -server -Xms<heap> -Xmx<heap> -XX:+Use<gc>GC}; use
+ * {@code -jvmArgsAppend} for more. Collectors the JVM does not have are
+ * listed as not run.
+ */
+public class GcMatrixRunner {
+	public static final String DEFAULT_GCS = "G1,Parallel,Z,Shenandoah";
+	/** The 10G cells have the memory needs of {@link BenchmarkRunner}; use {@code -heap 1G,4G} on a smaller machine. */
+	public static final String DEFAULT_HEAPS = "1G,4G,10G";
+	public static final String DEFAULT_REPORT = "gc-matrix";
+
+	public enum Gc {
+		G1("-XX:+UseG1GC"),
+		PARALLEL("-XX:+UseParallelGC"),
+		Z("-XX:+UseZGC"),
+		SHENANDOAH("-XX:+UseShenandoahGC"),
+		/** Removed in JDK 14; only for comparing against older JVMs. */
+		CMS("-XX:+UseConcMarkSweepGC");
+
+		final String flag;
+
+		Gc(String flag){
+			this.flag = flag;
+		}
+		/**
+		 * Case-insensitive, with or without the GC suffix: {@code zgc}, {@code Parallel}.
+		 */
+		public static Gc parse(String name){
+			String n = name.trim().toUpperCase(Locale.ROOT);
+			if(n.endsWith("GC") && n.length() > 2){
+				n = n.substring(0, n.length() - 2);
+			}
+			return valueOf(n);
+		}
+	}
+
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException, IOException {
+		Map<String, String> own = new LinkedHashMap<>();
+		own.put("-gc", DEFAULT_GCS);
+		own.put("-heap", DEFAULT_HEAPS);
+		own.put("-report", DEFAULT_REPORT);
+		String[] jmhArgs = extract(args, own);
+		CommandLineOptions cmd = new CommandLineOptions(jmhArgs);
+		List<Gc> gcs = new ArrayList<>();
+		for(String g : own.get("-gc").split(",")){
+			gcs.add(Gc.parse(g));
+		}
+		List<String> heaps = Arrays.asList(own.get("-heap").split(","));
+
+		String jvm = cmd.getJvm().orElse(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+		GcMatrixReport report = new GcMatrixReport();
+		for(Gc gc : gcs){
+			if(!supported(jvm, gc)){
+				for(String heap : heaps){
+					report.fail(gc.name(), heap, jvm + " does not support " + gc.flag);
+				}
+				continue;
+			}
+			for(String heap : heaps){
+				System.out.println("# GC matrix cell: " + gc + " " + heap);
+				Collection<RunResult> results = new Runner(cell(cmd, gc, heap).build()).run();
+				if(results.isEmpty()){
+					report.fail(gc.name(), heap, "no results, see the log above");
+				}
+				for(RunResult r : results){
+					report.add(row(r, gc, heap));
+				}
+			}
+		}
+		Path md = report.write(own.get("-report"));
+		System.out.println("GC matrix report: " + md.toAbsolutePath());
+	}
+
+	/**
+	 * Options of one cell: the JMH command line with this collector and heap.
+	 */
+	static OptionsBuilder cell(CommandLineOptions cmd, Gc gc, String heap){
+		OptionsBuilder builder = new OptionsBuilder();
+		builder.parent(cmd);
+		if(cmd.getIncludes().isEmpty()){
+			builder.include("lee\\.jmh\\..*");
+		}
+		if(!hasProfiler(cmd, GCProfiler.class, "gc")){
+			builder.addProfiler(GCProfiler.class);
+		}
+		if(!hasProfiler(cmd, GcPauseProfiler.class, null)){
+			builder.addProfiler(GcPauseProfiler.class);
+		}
+		builder.jvmArgs("-server", "-Xms" + heap, "-Xmx" + heap, gc.flag);
+		return builder;
+	}
+
+	static GcMatrixReport.Row row(RunResult r, Gc gc, String heap){
+		BenchmarkParams p = r.getParams();
+		String benchmark = p.getBenchmark();
+		if(benchmark.startsWith("lee.jmh.")){
+			benchmark = benchmark.substring("lee.jmh.".length());
+		}
+		StringBuilder params = new StringBuilder();
+		for(String key : p.getParamsKeys()){
+			params.append(params.length() == 0 ? "" : " ").append(key).append('=').append(p.getParam(key));
+		}
+		Result<?> primary = r.getPrimaryResult();
+		@SuppressWarnings("rawtypes")	// JMH declares getSecondaryResults() with a raw Result
+		Map<String, Result> secondary = r.getSecondaryResults();
+		Map<String, Double> metrics = new LinkedHashMap<>();
+		for(String m : GcMatrixReport.METRICS){
+			Result<?> s = secondary.get(m);
+			if(s != null){
+				metrics.put(m, s.getScore());
+			}
+		}
+		return new GcMatrixReport.Row(benchmark, params.toString(), gc.name(), heap, primary.getScore(),
+				primary.getScoreError(), primary.getScoreUnit(), p.getMode() == Mode.Throughput, metrics);
+	}
+
+	/**
+	 * Removes our options from {@code args} into {@code own}, keyed by option.
+	 */
+	static String[] extract(String[] args, Map<String, String> own){
+		List<String> rest = new ArrayList<>();
+		for(int i=0; i<args.length; i++){
+			if(own.containsKey(args[i])){
+				if(i + 1 == args.length){
+					throw new IllegalArgumentException(args[i] + " needs a value");
+				}
+				own.put(args[i], args[++i]);
+			}else{
+				rest.add(args[i]);
+			}
+		}
+		return rest.toArray(new String[0]);
+	}
+
+	static boolean supported(String jvm, Gc gc){
+		try{
+			Process p = new ProcessBuilder(jvm, gc.flag, "-version").redirectErrorStream(true).start();
+			try(InputStream out = p.getInputStream()){
+				while(out.read() >= 0){
+					// drain the version banner
+				}
+			}
+			return p.waitFor() == 0;
+		}catch(IOException e){
+			return false;
+		}catch(InterruptedException e){
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	private static boolean hasProfiler(CommandLineOptions cmd, Class<?> profiler, String alias){
+		for(ProfilerConfig c : cmd.getProfilers()){
+			if(c.getKlass().equals(profiler.getName()) || c.getKlass().equals(alias)){
+				return true;
+			}
+		}
+		return false;
+	}
+}
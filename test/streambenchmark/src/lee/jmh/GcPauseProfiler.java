@@ -0,0 +1,96 @@
+package lee.jmh;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Collection;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+/**
+ * Stop-the-world pauses per iteration, from the collectors' MXBean
+ * notifications: {@code gc.pause.count}, {@code gc.pause.total} and
+ * {@code gc.pause.max}. Unlike {@code gc.time} of the GC profiler this
+ * leaves out the concurrent cycles that ZGC and Shenandoah report on their
+ * "Cycles" beans. The beans report whole milliseconds, so sub-millisecond
+ * pauses count but add 0.
+ */
+public class GcPauseProfiler implements InternalProfiler {
+	private static final Listener LISTENER = new Listener();
+
+	@Override
+	public String getDescription(){
+		return "GC pause count, total and max";
+	}
+	@Override
+	public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams){
+		LISTENER.reset();
+	}
+	@Override
+	@SuppressWarnings("rawtypes")	// the InternalProfiler signature uses a raw Result
+	public Collection<? extends Result> afterIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams,
+			IterationResult result){
+		long[] s = LISTENER.snapshot();
+		return Arrays.asList(
+				new ScalarResult("gc.pause.count", s[0], "counts", AggregationPolicy.SUM),
+				new ScalarResult("gc.pause.total", s[1], "ms", AggregationPolicy.SUM),
+				new ScalarResult("gc.pause.max", s[2], "ms", AggregationPolicy.MAX));
+	}
+
+	/**
+	 * Whether a notification of {@code bean} with {@code action} is a pause.
+	 */
+	static boolean isPause(String bean, String action){
+		return !bean.contains("Cycles") && !bean.contains("Concurrent") && !action.contains("cycle");
+	}
+
+	private static final class Listener implements NotificationListener {
+		private long count;
+		private long total;
+		private long max;
+
+		Listener(){
+			for(GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()){
+				if(bean instanceof NotificationEmitter){
+					((NotificationEmitter)bean).addNotificationListener(this, null, null);
+				}
+			}
+		}
+		@Override
+		public void handleNotification(Notification n, Object handback){
+			if(!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(n.getType())){
+				return;
+			}
+			GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData)n.getUserData());
+			if(isPause(info.getGcName(), info.getGcAction())){
+				long ms = info.getGcInfo().getDuration();
+				synchronized(this){
+					count++;
+					total += ms;
+					max = Math.max(max, ms);
+				}
+			}
+		}
+		synchronized void reset(){
+			count = 0;
+			total = 0;
+			max = 0;
+		}
+		synchronized long[] snapshot(){
+			return new long[]{count, total, max};
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package lee.jmh;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import lee.Order;
+import lee.incremental.HashTrie;
+import lee.incremental.IncrementalCollector;
+import lee.incremental.IncrementalCollectors;
+
+/**
+ * Dashboard refresh after one micro-batch of new orders: recompute the per-user
+ * sums from the whole history vs append the batch to an incremental collector
+ * and read the changed users from a snapshot diff.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgs = {"-server", "-Xms10G", "-Xmx10G"})
+@State(Scope.Benchmark)
+public class IncrementalGroupingBenchmark {
+
+	@Param({"100000", "1000000", "10000000"})
+	public int history;
+
+	@Param({"1000"})
+	public int batchSize;
+
+	List<Order> orders;
+	List<Order> batch;
+	IncrementalCollector<Order, HashTrie<String, Double>> sums;
+	HashTrie<String, Double> before;
+
+	@Setup(Level.Trial)
+	public void setUp(){
+		orders = Order.genOrders(history + batchSize);
+		batch = orders.subList(history, history + batchSize);
+	}
+
+	@Setup(Level.Invocation)
+	public void resetCollector(){
+		if(sums == null){
+			sums = IncrementalCollectors.groupingBySumDouble(Order::getUserName, Order::getPrice);
+			sums.append(orders.subList(0, history));
+		}
+		before = sums.snapshot();
+	}
+
+	@Benchmark
+	public Map<String, Double> recompute(){
+		return orders.stream().collect(Collectors.groupingBy(Order::getUserName, Collectors.summingDouble(Order::getPrice)));
+	}
+
+	@Benchmark
+	public int incremental(){
+		sums.append(batch);
+		int[] changed = {0};
+		sums.snapshot().diff(before, (k, v) -> changed[0]++);
+		return changed[0];
+	}
+}
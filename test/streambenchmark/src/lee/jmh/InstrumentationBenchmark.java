@@ -0,0 +1,78 @@
+package lee.jmh;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import lee.Order;
+import lee.instrument.Instrumentation;
+import lee.instrument.InstrumentedStream;
+
+/**
+ * Cost of instrumenting the sumOrder pipeline: a plain Stream against an
+ * InstrumentedStream that is switched off, on with the default sampling of
+ * one element in {@value Instrumentation#DEFAULT_SAMPLE_EVERY}, and on with
+ * every element timed. The target is within 2% of the plain stream when
+ * sampling.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgs = {"-server", "-Xms10G", "-Xmx10G"})
+@State(Scope.Benchmark)
+public class InstrumentationBenchmark {
+
+	@Param({"10000", "1000000"})
+	public int length;
+
+	@Param({"false", "true"})
+	public boolean parallel;
+
+	List<Order> orders;
+
+	@Setup
+	public void setUp(){
+		orders = Order.genOrders(length);
+		Instrumentation.reset();
+	}
+
+	@Benchmark
+	public Map<String, Double> plain(){
+		return (parallel ? orders.parallelStream() : orders.stream())
+				.filter(o -> o.getPrice() > 100)
+				.collect(Collectors.groupingBy(Order::getUserName, Collectors.summingDouble(Order::getPrice)));
+	}
+	@Benchmark
+	public Map<String, Double> disabled(){
+		return pipeline(false, Instrumentation.DEFAULT_SAMPLE_EVERY);
+	}
+	@Benchmark
+	public Map<String, Double> sampled(){
+		return pipeline(true, Instrumentation.DEFAULT_SAMPLE_EVERY);
+	}
+	@Benchmark
+	public Map<String, Double> timedEveryElement(){
+		return pipeline(true, 1);
+	}
+
+	private Map<String, Double> pipeline(boolean on, int sampleEvery){
+		InstrumentedStream<Order> s = InstrumentedStream.of("sumOrder", orders).instrument(on).sampleEvery(sampleEvery);
+		return (parallel ? s.parallel() : s)
+				.filter(o -> o.getPrice() > 100, "expensive")
+				.collect(Collectors.groupingBy(Order::getUserName, Collectors.summingDouble(Order::getPrice)));
+	}
+}
@@ -0,0 +1,69 @@
+package lee.jmh;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import lee.BenchData;
+import lee.kernel.PrimitiveKernels;
+
+/**
+ * JMH port of {@link lee.IntTest}: min of an int array,
+ * for-loop vs stream vs parallelStream.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgs = {"-server", "-Xms10G", "-Xmx10G"})
+@State(Scope.Benchmark)
+public class IntBenchmark {
+
+	@Param({"10000", "100000", "1000000", "10000000", "100000000", "1000000000"})
+	public int length;
+
+	int[] arr;
+
+	@Setup
+	public void setUp(){
+		arr = BenchData.randomIntArray(length);
+	}
+
+	@Benchmark
+	public int minIntFor(){
+		int[] arr = this.arr;
+		int min = Integer.MAX_VALUE;
+		for(int i=0; i<arr.length; i++){
+			if(arr[i]<min)
+				min = arr[i];
+		}
+		return min;
+	}
+	@Benchmark
+	public int minIntStream(){
+		return Arrays.stream(arr).min().getAsInt();
+	}
+	@Benchmark
+	public int minIntParallelStream(){
+		return Arrays.stream(arr).parallel().min().getAsInt();
+	}
+	@Benchmark
+	public int minIntKernel(){
+		return PrimitiveKernels.min(arr);
+	}
+	@Benchmark
+	public int minIntKernelParallel(){
+		return PrimitiveKernels.parallelMin(arr);
+	}
+}
@@ -0,0 +1,88 @@
+package lee.jmh;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import lee.BenchData;
+import lee.collect.JoiningCollectors;
+
+/**
+ * Joining 10-char strings into one CSV line: {@code Collectors.joining} vs the
+ * presized {@link JoiningCollectors}, sequential and parallel, plus streaming
+ * the same output to a discarding channel.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgs = {"-server", "-Xms10G", "-Xmx10G"})
+@State(Scope.Benchmark)
+public class JoiningBenchmark {
+
+	@Param({"100000", "1000000", "10000000"})
+	public int length;
+
+	List<String> list;
+
+	/** Counts bytes and drops them, so the benchmark measures encoding only. */
+	static final WritableByteChannel DISCARD = new WritableByteChannel(){
+		@Override
+		public int write(ByteBuffer src){
+			int n = src.remaining();
+			src.position(src.limit());
+			return n;
+		}
+		@Override
+		public boolean isOpen(){
+			return true;
+		}
+		@Override
+		public void close(){
+		}
+	};
+
+	@Setup
+	public void setUp(){
+		list = BenchData.randomStringList(length);
+	}
+
+	@Benchmark
+	public String jdkJoining(){
+		return list.stream().collect(Collectors.joining(",", "{", "}"));
+	}
+
+	@Benchmark
+	public String jdkJoiningParallel(){
+		return list.parallelStream().collect(Collectors.joining(",", "{", "}"));
+	}
+
+	@Benchmark
+	public String presizedJoining(){
+		return list.stream().collect(JoiningCollectors.joining(",", "{", "}"));
+	}
+
+	@Benchmark
+	public String presizedJoiningParallel(){
+		return list.parallelStream().collect(JoiningCollectors.joining(",", "{", "}"));
+	}
+
+	@Benchmark
+	public long toChannel(){
+		return list.stream().collect(JoiningCollectors.toChannel(DISCARD, ",", "{", "}"));
+	}
+}
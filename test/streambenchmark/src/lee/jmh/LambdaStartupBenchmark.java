@@ -0,0 +1,104 @@
+package lee.jmh;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import lee.lambda.LambdaPregenerator;
+import lee.lambda.SyntheticLambdaApp;
+
+/**
+ * Time to first request of a fresh JVM running a synthetic app whose first
+ * request runs {@code lambdas} lambda sites once: as compiled ({@code plain},
+ * every site spun by LambdaMetafactory), and after LambdaPregenerator in
+ * {@code bootstrap} and {@code direct} mode. Each invocation is one child
+ * process, so the score includes JVM boot, which is the same for all three.
+ * The apps are built once into {@code java.io.tmpdir} and reused by later forks.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 2, jvmArgs = {"-server"})
+@State(Scope.Benchmark)
+public class LambdaStartupBenchmark {
+
+	@Param({"5000"})
+	public int lambdas;
+
+	@Param({"plain", "bootstrap", "direct"})
+	public String variant;
+
+	ProcessBuilder command;
+
+	@Setup
+	public void setUp() throws IOException {
+		Path app = Paths.get(System.getProperty("java.io.tmpdir"), "lee-lambda-startup-" + lambdas);
+		Path plain = app.resolve("plain");
+		if(!Files.exists(plain.resolve("synth/App.class"))){
+			SyntheticLambdaApp.writeSources(app.resolve("src"), lambdas);
+			SyntheticLambdaApp.compile(app.resolve("src"), plain);
+		}
+		Path classes = app.resolve(variant);
+		if(!variant.equals("plain") && !Files.exists(classes.resolve("synth/App.class"))){
+			Path staging = Files.createTempDirectory(app, variant);
+			copy(plain, staging);
+			LambdaPregenerator.run(staging, LambdaPregenerator.Mode.valueOf(variant.toUpperCase(Locale.ROOT)));
+			Files.move(staging, classes);
+		}
+		String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+		String classPath = classes + File.pathSeparator + System.getProperty("java.class.path");
+		command = new ProcessBuilder(java, "-cp", classPath, SyntheticLambdaApp.MAIN).redirectErrorStream(true);
+	}
+
+	@Benchmark
+	public String timeToFirstRequest() throws IOException, InterruptedException {
+		Process p = command.start();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buf = new byte[4096];
+		try(InputStream in = p.getInputStream()){
+			int n;
+			while((n = in.read(buf)) > 0){
+				out.write(buf, 0, n);
+			}
+		}
+		String result = new String(out.toByteArray(), StandardCharsets.UTF_8);
+		if(p.waitFor() != 0){
+			throw new IllegalStateException("app failed: " + result);
+		}
+		return result;
+	}
+
+	private static void copy(Path from, Path to) throws IOException {
+		try(Stream<Path> walk = Files.walk(from)){
+			for(Path src : (Iterable<Path>)walk::iterator){
+				Path dst = to.resolve(from.relativize(src).toString());
+				if(Files.isDirectory(src)){
+					Files.createDirectories(dst);
+				}else{
+					Files.copy(src, dst);
+				}
+			}
+		}
+	}
+}
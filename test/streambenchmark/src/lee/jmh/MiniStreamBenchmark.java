@@ -0,0 +1,84 @@
+package lee.jmh;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import lee.BenchData;
+import lee.mini.IntMiniStream;
+import lee.mini.MiniStream;
+
+/**
+ * Tiny pipelines, where stream setup dominates: Stream.of / IntStream.of
+ * against the eager MiniStream / IntMiniStream at 1 to 1000 elements, plus
+ * the four-word {@code Stream.of("I", "love", "you", "too")} of
+ * CommonStreamOperation. The GC profiler's alloc.rate.norm shows the
+ * per-call garbage of each.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgs = {"-server", "-Xms10G", "-Xmx10G"})
+@State(Scope.Benchmark)
+public class MiniStreamBenchmark {
+
+	@Param({"1", "4", "20", "100", "1000"})
+	public int length;
+
+	String[] words;
+	int[] ints;
+	Integer[] boxed;
+
+	@Setup
+	public void setUp(){
+		words = BenchData.randomStringList(length).toArray(new String[0]);
+		ints = BenchData.randomIntArray(length);
+		boxed = IntStream.of(ints).boxed().toArray(Integer[]::new);
+	}
+
+	@Benchmark
+	public List<String> wordsStream(){
+		return Stream.of(words).filter(s -> s.charAt(0) < 'm').map(String::toUpperCase).collect(Collectors.toList());
+	}
+	@Benchmark
+	public List<String> wordsMini(){
+		return MiniStream.ofArray(words).filter(s -> s.charAt(0) < 'm').map(String::toUpperCase).toList();
+	}
+
+	@Benchmark
+	public int intStream(){
+		return IntStream.of(ints).map(x -> x * x).filter(x -> (x & 1) == 0).sum();
+	}
+	@Benchmark
+	public int boxedStream(){
+		return Stream.of(boxed).map(x -> x * x).filter(x -> (x & 1) == 0).reduce(0, Integer::sum);
+	}
+	@Benchmark
+	public int intMini(){
+		return IntMiniStream.ofArray(ints).map(x -> x * x).filter(x -> (x & 1) == 0).sum();
+	}
+
+	@Benchmark
+	public long literalStream(){
+		return Stream.of("I", "love", "you", "too").filter(s -> s.length() == 3).count();
+	}
+	@Benchmark
+	public long literalMini(){
+		return MiniStream.of("I", "love", "you", "too").filter(s -> s.length() == 3).count();
+	}
+}
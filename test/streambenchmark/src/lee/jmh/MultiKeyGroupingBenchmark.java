@@ -0,0 +1,64 @@
+package lee.jmh;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import lee.Order;
+import lee.collect.GroupedTable;
+import lee.collect.MultiKeyGrouping;
+
+/**
+ * Count and sum of orders per (user, price band): two nested
+ * {@code groupingBy} passes vs one pass of {@link MultiKeyGrouping}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgs = {"-server", "-Xms10G", "-Xmx10G"})
+@State(Scope.Benchmark)
+public class MultiKeyGroupingBenchmark {
+
+	@Param({"10000", "1000000", "10000000"})
+	public int length;
+
+	List<Order> orders;
+
+	@Setup
+	public void setUp(){
+		orders = Order.genOrders(length);
+	}
+
+	@Benchmark
+	public void nestedGroupingBy(Blackhole bh){
+		Map<String, Map<Integer, Long>> counts = orders.stream().collect(Collectors.groupingBy(Order::getUserName,
+				Collectors.groupingBy(o -> (int)o.getPrice() / 100, Collectors.counting())));
+		Map<String, Map<Integer, Double>> sums = orders.stream().collect(Collectors.groupingBy(Order::getUserName,
+				Collectors.groupingBy(o -> (int)o.getPrice() / 100, Collectors.summingDouble(Order::getPrice))));
+		bh.consume(counts);
+		bh.consume(sums);
+	}
+
+	@Benchmark
+	public GroupedTable flatGrouping(){
+		return orders.stream().collect(MultiKeyGrouping.<Order>by(Order::getUserName)
+				.thenBy(o -> (int)o.getPrice() / 100)
+				.sum("total", Order::getPrice)
+				.collector());
+	}
+}
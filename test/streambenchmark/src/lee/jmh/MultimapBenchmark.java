@@ -0,0 +1,185 @@
+package lee.jmh;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import lee.BenchData;
+import lee.collect.CompactSetMultimap;
+import lee.collect.ConcurrentSetMultimap;
+
+/**
+ * Inverted index of {@code postings} (term, doc) pairs with a skewed term
+ * distribution, so most terms have one or two docs: the
+ * {@code computeIfAbsent(k, x -> new HashSet<>()).add(v)} idiom and
+ * {@code groupingBy(toSet())} against CompactSetMultimap and
+ * ConcurrentSetMultimap. Build and lookup time, plus the retained heap of
+ * each index in the {@code footprint*} benchmarks (aux counter {@code retainedBytes}).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgs = {"-server", "-Xms10G", "-Xmx10G"})
+@State(Scope.Benchmark)
+public class MultimapBenchmark {
+
+	@Param({"1000000", "10000000"})
+	public int postings;
+
+	Integer[] terms;
+	Integer[] docs;
+	Map<Integer, Set<Integer>> hashIndex;
+	CompactSetMultimap<Integer, Integer> compactIndex;
+
+	@Setup
+	public void setUp(){
+		int distinct = Math.max(1, postings / 4);
+		Random r = new Random(BenchData.SEED);
+		terms = new Integer[postings];
+		docs = new Integer[postings];
+		Integer[] docIds = new Integer[postings / 8 + 1];
+		for(int i=0; i<docIds.length; i++){
+			docIds[i] = i;
+		}
+		for(int i=0; i<postings; i++){
+			double u = r.nextDouble();
+			terms[i] = (int)(distinct * u * u * u * u);
+			docs[i] = docIds[i / 8];
+		}
+		hashIndex = buildHashMapOfSets();
+		compactIndex = buildCompact();
+	}
+
+	@Benchmark
+	public Map<Integer, Set<Integer>> buildHashMapOfSets(){
+		Map<Integer, Set<Integer>> index = new HashMap<>();
+		for(int i=0; i<postings; i++){
+			index.computeIfAbsent(terms[i], x -> new HashSet<>()).add(docs[i]);
+		}
+		return index;
+	}
+	@Benchmark
+	public CompactSetMultimap<Integer, Integer> buildCompact(){
+		CompactSetMultimap<Integer, Integer> index = new CompactSetMultimap<>();
+		for(int i=0; i<postings; i++){
+			index.put(terms[i], docs[i]);
+		}
+		return index;
+	}
+	@Benchmark
+	public Map<Integer, Set<Integer>> collectGroupingBy(){
+		return IntStream.range(0, postings).boxed().collect(
+				Collectors.groupingBy(i -> terms[i], Collectors.mapping(i -> docs[i], Collectors.toSet())));
+	}
+	@Benchmark
+	public CompactSetMultimap<Integer, Integer> collectCompact(){
+		return IntStream.range(0, postings).boxed().collect(
+				CompactSetMultimap.toMultimap(i -> terms[i], i -> docs[i]));
+	}
+	@Benchmark
+	public Map<Integer, Set<Integer>> collectGroupingByParallel(){
+		return IntStream.range(0, postings).boxed().parallel().collect(
+				Collectors.groupingBy(i -> terms[i], Collectors.mapping(i -> docs[i], Collectors.toSet())));
+	}
+	@Benchmark
+	public Map<Integer, Set<Integer>> collectGroupingByConcurrent(){
+		return IntStream.range(0, postings).boxed().parallel().collect(
+				Collectors.groupingByConcurrent(i -> terms[i], Collectors.mapping(i -> docs[i], Collectors.toSet())));
+	}
+	@Benchmark
+	public ConcurrentSetMultimap<Integer, Integer> collectConcurrentCompact(){
+		return IntStream.range(0, postings).boxed().parallel().collect(
+				ConcurrentSetMultimap.toMultimap(i -> terms[i], i -> docs[i]));
+	}
+
+	@Benchmark
+	public int lookupHashMapOfSets(){
+		int hits = 0;
+		for(int i=0; i<postings; i++){
+			Set<Integer> set = hashIndex.get(terms[i]);
+			if(set != null && set.contains(docs[postings - 1 - i])){
+				hits++;
+			}
+		}
+		return hits;
+	}
+	@Benchmark
+	public int lookupCompact(){
+		int hits = 0;
+		for(int i=0; i<postings; i++){
+			if(compactIndex.containsEntry(terms[i], docs[postings - 1 - i])){
+				hits++;
+			}
+		}
+		return hits;
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@Warmup(iterations = 1)
+	@Measurement(iterations = 1)
+	public Object footprintHashMapOfSets(Footprint footprint){
+		return footprint.measure(this::buildHashMapOfSets);
+	}
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@Warmup(iterations = 1)
+	@Measurement(iterations = 1)
+	public Object footprintCompact(Footprint footprint){
+		return footprint.measure(this::buildCompact);
+	}
+
+	/**
+	 * Heap still used after a full GC with the built index reachable,
+	 * minus the heap used before building it.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Footprint {
+		static volatile Object keep;
+		public long retainedBytes;
+
+		@Setup(Level.Iteration)
+		public void reset(){
+			retainedBytes = 0;
+		}
+		Object measure(Supplier<?> build){
+			MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+			long before = usedAfterGc(memory);
+			keep = build.get();
+			retainedBytes = usedAfterGc(memory) - before;
+			Object built = keep;
+			keep = null;
+			return built;
+		}
+		private static long usedAfterGc(MemoryMXBean memory){
+			for(int i=0; i<3; i++){
+				System.gc();
+			}
+			return memory.getHeapMemoryUsage().getUsed();
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package lee.jmh;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import lee.Order;
+import lee.order.OrderFile;
+import lee.order.OrderFileWriter;
+
+/**
+ * Per-user order sum over the heap {@code ArrayList<Order>} vs the same rows
+ * read through a memory-mapped {@link OrderFile}. The file is written once per
+ * trial to the temp directory and is in the page cache when measured.
+ * <p>
+ * The 100M point crosses a mapped region boundary ({@link OrderFile#ROWS_PER_REGION})
+ * and needs a machine with about 14 GB free: the 10 GB fork heap holds the
+ * {@code ArrayList<Order>} baseline (roughly 3.6 GB at 100M rows) and the
+ * 2 GB file must stay in the page cache next to it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgs = {"-server", "-Xms10G", "-Xmx10G"})
+@State(Scope.Benchmark)
+public class OrderFileBenchmark {
+
+	@Param({"1000000", "10000000", "40000000", "100000000"})
+	public int length;
+
+	List<Order> orders;
+	Path path;
+	OrderFile file;
+
+	@Setup
+	public void setUp() throws IOException {
+		orders = Order.genOrders(length);
+		path = Files.createTempFile("orders", ".bin");
+		OrderFileWriter.write(path, orders);
+		file = OrderFile.open(path);
+	}
+	@TearDown
+	public void tearDown() throws IOException {
+		file.close();
+		Files.deleteIfExists(path);
+	}
+
+	@Benchmark
+	public Map<String, Double> sumOrderStream(){
+		return orders.stream().collect(
+				Collectors.groupingBy(Order::getUserName,
+						Collectors.summingDouble(Order::getPrice)));
+	}
+	@Benchmark
+	public Map<String, Double> sumOrderParallelStream(){
+		return orders.parallelStream().collect(
+				Collectors.groupingBy(Order::getUserName,
+						Collectors.summingDouble(Order::getPrice)));
+	}
+	@Benchmark
+	public Map<String, Double> mappedFileStream(){
+		return file.sumOrderByUserName(false);
+	}
+	@Benchmark
+	public Map<String, Double> mappedFileParallelStream(){
+		return file.sumOrderByUserName(true);
+	}
+}
@@ -0,0 +1,153 @@
+package lee.jmh;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import lee.Order;
+import lee.order.OrderTable;
+
+/**
+ * Per-user order sum over the heap {@code List<Order>} vs the columnar
+ * off-heap {@link OrderTable} holding the same rows, plus the memory each
+ * retains in the {@code footprint*} benchmarks (aux counters
+ * {@code heapBytes} and {@code directBytes}).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgs = {"-server", "-Xms10G", "-Xmx10G", "-XX:MaxDirectMemorySize=4G"})
+@State(Scope.Benchmark)
+public class OrderTableBenchmark {
+
+	@Param({"1000000", "10000000", "40000000"})
+	public int length;
+
+	List<Order> orders;
+	OrderTable table;
+
+	@Setup
+	public void setUp(){
+		orders = Order.genOrders(length);
+		table = OrderTable.from(orders);
+	}
+
+	@Benchmark
+	public Map<String, Double> sumOrderForLoop(){
+		Map<String, Double> map = new HashMap<>();
+		for(Order od : orders){
+			String userName = od.getUserName();
+			Double v;
+			if((v=map.get(userName)) != null){
+				map.put(userName, v+od.getPrice());
+			}else{
+				map.put(userName, od.getPrice());
+			}
+		}
+		return map;
+	}
+	@Benchmark
+	public double[] tableSumByUserId(){
+		return table.sumPriceByUserId();
+	}
+	@Benchmark
+	public double[] tableSumByUserIdParallel(){
+		return table.sumPriceByUserIdParallel();
+	}
+	@Benchmark
+	public Map<String, Double> tableSumByUserName(){
+		return table.sumOrderByUserName();
+	}
+	@Benchmark
+	public double tablePriceStream(){
+		return table.prices().sum();
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@Warmup(iterations = 1)
+	@Measurement(iterations = 1)
+	public Object footprintOrderList(Footprint footprint){
+		return footprint.measure(() -> Order.genOrders(length));
+	}
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@Warmup(iterations = 1)
+	@Measurement(iterations = 1)
+	public Object footprintOrderTable(Footprint footprint){
+		return footprint.measure(() -> OrderTable.generate(length));
+	}
+
+	/**
+	 * Heap and direct buffer memory still used after a full GC with the built
+	 * rows reachable, minus the same before building them.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Footprint {
+		static volatile Object keep;
+		public long heapBytes;
+		public long directBytes;
+
+		@Setup(Level.Iteration)
+		public void reset(){
+			heapBytes = 0;
+			directBytes = 0;
+		}
+		Object measure(Supplier<?> build){
+			MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+			fullGc();
+			long heapBefore = memory.getHeapMemoryUsage().getUsed();
+			long directBefore = directUsed();
+			keep = build.get();
+			fullGc();
+			heapBytes = memory.getHeapMemoryUsage().getUsed() - heapBefore;
+			directBytes = directUsed() - directBefore;
+			Object built = keep;
+			keep = null;
+			return built;
+		}
+		/** Direct buffers are freed by a cleaner after GC, so wait until their usage settles. */
+		private static void fullGc(){
+			long direct = -1;
+			for(int i=0; i<20 && (i < 3 || direct != directUsed()); i++){
+				direct = directUsed();
+				System.gc();
+				try{
+					Thread.sleep(50);
+				}catch(InterruptedException e){
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+		private static long directUsed(){
+			for(BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)){
+				if(pool.getName().equals("direct")){
+					return pool.getMemoryUsed();
+				}
+			}
+			return 0;
+		}
+	}
+}
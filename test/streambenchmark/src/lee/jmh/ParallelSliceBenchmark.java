@@ -0,0 +1,67 @@
+package lee.jmh;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import lee.parallel.ParallelSlice;
+
+/**
+ * Parallel limit/skip on large ranges: {@code IntStream.range(...).parallel().limit(n)}
+ * against {@link ParallelSlice}, for a sized source and for an unsized (filtered)
+ * one.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgs = {"-server", "-Xms10G", "-Xmx10G"})
+@State(Scope.Benchmark)
+public class ParallelSliceBenchmark {
+
+	@Param({"10000000", "100000000", "1000000000"})
+	public int length;
+
+	@Param({"3", "1000"})
+	public int n;
+
+	@Benchmark
+	public long limitJdk(){
+		return IntStream.range(0, length).parallel().limit(n).sum();
+	}
+
+	@Benchmark
+	public long limitSliced(){
+		return ParallelSlice.limit(IntStream.range(0, length).parallel(), n).sum();
+	}
+
+	@Benchmark
+	public long skipJdk(){
+		return IntStream.range(0, length).parallel().skip(length - n).sum();
+	}
+
+	@Benchmark
+	public long skipSliced(){
+		return ParallelSlice.skip(IntStream.range(0, length).parallel(), length - n).sum();
+	}
+
+	@Benchmark
+	public long limitUnsizedJdk(){
+		return IntStream.range(0, length).parallel().filter(x -> (x & 1) == 0).unordered().limit(n).sum();
+	}
+
+	@Benchmark
+	public long limitUnsizedSliced(){
+		return ParallelSlice.limit(IntStream.range(0, length).parallel().filter(x -> (x & 1) == 0), n).sum();
+	}
+}
@@ -0,0 +1,102 @@
+package lee.jmh;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import lee.Order;
+import lee.parallel.BoundedStreamPool;
+
+/**
+ * Latency of a small parallel request while a background thread keeps running
+ * the heavy {@code sumOrderParallelStream} aggregation:
+ * <ul>
+ * <li>{@code none}: no background load, the baseline;</li>
+ * <li>{@code common}: the aggregation shares {@code ForkJoinPool.commonPool()} with the request;</li>
+ * <li>{@code isolated}: the aggregation runs in a {@link BoundedStreamPool} of half the cores.</li>
+ * </ul>
+ * {@code pooledRequest} vs {@code commonRequest} with {@code background=none}
+ * is the cost of routing a request through a dedicated pool.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgs = {"-server", "-Xms4G", "-Xmx4G"})
+@State(Scope.Benchmark)
+public class PoolIsolationBenchmark {
+
+	@Param({"none", "common", "isolated"})
+	public String background;
+
+	@Param({"100000"})
+	public int requestLength;
+
+	List<Order> orders;
+	BoundedStreamPool heavyPool;
+	BoundedStreamPool requestPool;
+	Thread loader;
+	volatile boolean running;
+
+	@Setup
+	public void setUp(){
+		int cores = Runtime.getRuntime().availableProcessors();
+		heavyPool = new BoundedStreamPool("heavy", Math.max(1, cores / 2));
+		requestPool = new BoundedStreamPool("request", Math.max(1, cores - cores / 2));
+		if("none".equals(background)){
+			return;
+		}
+		orders = Order.genOrders(10000000);
+		boolean isolated = "isolated".equals(background);
+		running = true;
+		loader = new Thread(() -> {
+			while(running){
+				if(isolated){
+					heavyPool.invoke(this::sumOrderParallelStream);
+				}else{
+					sumOrderParallelStream();
+				}
+			}
+		}, "background-aggregation");
+		loader.setDaemon(true);
+		loader.start();
+	}
+	@TearDown
+	public void tearDown() throws InterruptedException {
+		running = false;
+		if(loader != null){
+			loader.join();
+		}
+		heavyPool.close();
+		requestPool.close();
+	}
+
+	@Benchmark
+	public long commonRequest(){
+		return IntStream.range(0, requestLength).parallel().asLongStream().map(i -> i * i).sum();
+	}
+	@Benchmark
+	public long pooledRequest(){
+		return requestPool.invoke(() -> IntStream.range(0, requestLength).parallel().asLongStream().map(i -> i * i).sum());
+	}
+
+	private Object sumOrderParallelStream(){
+		return orders.parallelStream().collect(
+				Collectors.groupingBy(Order::getUserName,
+						Collectors.summingDouble(Order::getPrice)));
+	}
+}
@@ -0,0 +1,83 @@
+package lee.jmh;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import lee.Order;
+import lee.collect.ObjDoubleHashMap;
+import lee.collect.PrimitiveCollectors;
+
+/**
+ * JMH port of {@link lee.ReductionTest}: per-user order sum,
+ * for-loop vs stream vs parallelStream.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgs = {"-server", "-Xms10G", "-Xmx10G"})
+@State(Scope.Benchmark)
+public class ReductionBenchmark {
+
+	@Param({"10000", "100000", "1000000", "10000000", "20000000", "40000000"})
+	public int length;
+
+	List<Order> orders;
+
+	@Setup
+	public void setUp(){
+		orders = Order.genOrders(length);
+	}
+
+	@Benchmark
+	public Map<String, Double> sumOrderForLoop(){
+		Map<String, Double> map = new HashMap<>();
+		for(Order od : orders){
+			String userName = od.getUserName();
+			Double v;
+			if((v=map.get(userName)) != null){
+				map.put(userName, v+od.getPrice());
+			}else{
+				map.put(userName, od.getPrice());
+			}
+		}
+		return map;
+	}
+	@Benchmark
+	public Map<String, Double> sumOrderStream(){
+		return orders.stream().collect(
+				Collectors.groupingBy(Order::getUserName,
+						Collectors.summingDouble(Order::getPrice)));
+	}
+	@Benchmark
+	public Map<String, Double> sumOrderParallelStream(){
+		return orders.parallelStream().collect(
+				Collectors.groupingBy(Order::getUserName,
+						Collectors.summingDouble(Order::getPrice)));
+	}
+	@Benchmark
+	public ObjDoubleHashMap<String> sumOrderPrimitiveStream(){
+		return orders.stream().collect(
+				PrimitiveCollectors.groupingSumDouble(Order::getUserName, Order::getPrice));
+	}
+	@Benchmark
+	public ObjDoubleHashMap<String> sumOrderPrimitiveParallelStream(){
+		return orders.parallelStream().collect(
+				PrimitiveCollectors.groupingSumDouble(Order::getUserName, Order::getPrice));
+	}
+}
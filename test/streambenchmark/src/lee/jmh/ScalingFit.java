@@ -0,0 +1,130 @@
+package lee.jmh;
+
+import java.util.Locale;
+
+/**
+ * Universal Scalability Law fit of measured speedups,
+ * {@code S(n) = n / (1 + sigma (n - 1) + kappa n (n - 1))}, where sigma is
+ * the contention (serial) fraction and kappa the coherency cost. Amdahl's
+ * law is the special case kappa = 0, with parallel fraction
+ * {@code p = 1 - sigma}. Both are fitted by least squares on the
+ * linearized form {@code n / S - 1 = sigma (n - 1) + kappa n (n - 1)},
+ * with the coefficients kept non-negative.
+ */
+public final class ScalingFit {
+	private final double sigma;
+	private final double kappa;
+	private final double r2;
+
+	private ScalingFit(double sigma, double kappa, double[] n, double[] speedup){
+		this.sigma = sigma;
+		this.kappa = kappa;
+		this.r2 = rSquared(n, speedup);
+	}
+
+	/**
+	 * Amdahl fit of {@code speedup[i]} at {@code n[i]} cores; NaN coefficients
+	 * if no point has more than one core.
+	 */
+	public static ScalingFit amdahl(double[] n, double[] speedup){
+		double sxy = 0, sxx = 0;
+		for(int i=0; i<n.length; i++){
+			double x = n[i] - 1;
+			sxy += x * (n[i] / speedup[i] - 1);
+			sxx += x * x;
+		}
+		double sigma = sxx == 0 ? Double.NaN : clamp(sxy / sxx, 0, 1);
+		return new ScalingFit(sigma, sxx == 0 ? Double.NaN : 0, n, speedup);
+	}
+	/**
+	 * USL fit; falls back to {@link #amdahl} when there are fewer than two
+	 * core counts above one or when the coherency term comes out negative.
+	 */
+	public static ScalingFit usl(double[] n, double[] speedup){
+		double s11 = 0, s12 = 0, s22 = 0, s1y = 0, s2y = 0;
+		int multi = 0;
+		for(int i=0; i<n.length; i++){
+			double x1 = n[i] - 1;
+			double x2 = n[i] * (n[i] - 1);
+			double y = n[i] / speedup[i] - 1;
+			s11 += x1 * x1;
+			s12 += x1 * x2;
+			s22 += x2 * x2;
+			s1y += x1 * y;
+			s2y += x2 * y;
+			if(n[i] > 1){
+				multi++;
+			}
+		}
+		double det = s11 * s22 - s12 * s12;
+		if(multi < 2 || Math.abs(det) < 1e-12 * s11 * s22){
+			return amdahl(n, speedup);
+		}
+		double sigma = (s1y * s22 - s2y * s12) / det;
+		double kappa = (s2y * s11 - s1y * s12) / det;
+		if(kappa <= 0){
+			return amdahl(n, speedup);
+		}
+		if(sigma < 0){
+			sigma = 0;
+			kappa = s2y / s22;
+			if(kappa <= 0){
+				return amdahl(n, speedup);
+			}
+		}
+		return new ScalingFit(Math.min(sigma, 1), kappa, n, speedup);
+	}
+
+	public double getSigma(){
+		return sigma;
+	}
+	public double getKappa(){
+		return kappa;
+	}
+	/** Amdahl's parallel fraction, {@code 1 - sigma}. */
+	public double getParallelFraction(){
+		return 1 - sigma;
+	}
+	/** Coefficient of determination of the fitted speedups; NaN if all speedups are equal. */
+	public double getRSquared(){
+		return r2;
+	}
+	/**
+	 * Core count of the highest predicted speedup; infinite without a
+	 * coherency term.
+	 */
+	public double getPeakCores(){
+		return kappa > 0 && sigma < 1 ? Math.sqrt((1 - sigma) / kappa) : Double.POSITIVE_INFINITY;
+	}
+	public double speedup(double n){
+		return n / (1 + sigma * (n - 1) + kappa * n * (n - 1));
+	}
+	public boolean isDefined(){
+		return !Double.isNaN(sigma);
+	}
+
+	private double rSquared(double[] n, double[] speedup){
+		if(!isDefined()){
+			return Double.NaN;
+		}
+		double mean = 0;
+		for(double s : speedup){
+			mean += s;
+		}
+		mean /= speedup.length;
+		double res = 0, tot = 0;
+		for(int i=0; i<n.length; i++){
+			double d = speedup[i] - speedup(n[i]);
+			res += d * d;
+			tot += (speedup[i] - mean) * (speedup[i] - mean);
+		}
+		return tot == 0 ? Double.NaN : 1 - res / tot;
+	}
+	private static double clamp(double v, double lo, double hi){
+		return Math.max(lo, Math.min(hi, v));
+	}
+	@Override
+	public String toString(){
+		return String.format(Locale.ROOT, "sigma=%.4f kappa=%.6f r2=%.3f", sigma, kappa, r2);
+	}
+}
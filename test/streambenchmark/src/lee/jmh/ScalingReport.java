@@ -0,0 +1,248 @@
+package lee.jmh;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Speedup, parallel efficiency and {@link ScalingFit}s of a
+ * {@link ScalingRunner} run. Points are grouped by benchmark, parameters
+ * (the data size) and ForkJoinPool parallelism; within a group the point
+ * with the fewest cores is the baseline, so speedups are relative to it and
+ * the fits see {@code cores / baseline cores}.
+ * <p>
+ * {@link #write} produces {@code scaling.csv} (one line per point),
+ * {@code scaling-fits.csv} (one line per group) and one SVG chart per
+ * benchmark and parallelism with a series per data size: measured
+ * speedups, the USL curve, the Amdahl curve and the ideal line.
+ */
+public class ScalingReport {
+	private static final String[] COLORS = {"#1f77b4", "#ff7f0e", "#2ca02c", "#d62728", "#9467bd", "#8c564b",
+			"#e377c2", "#7f7f7f"};
+
+	private final Map<String, List<Point>> groups = new LinkedHashMap<>();
+
+	/**
+	 * One benchmark result at one core count.
+	 */
+	public static class Point {
+		final String benchmark;
+		final String params;
+		final String parallelism;
+		final int cores;
+		final double score;
+		final double error;
+		final String unit;
+		final boolean higherIsBetter;
+
+		public Point(String benchmark, String params, String parallelism, int cores, double score, double error,
+				String unit, boolean higherIsBetter){
+			this.benchmark = benchmark;
+			this.params = params;
+			this.parallelism = parallelism;
+			this.cores = cores;
+			this.score = score;
+			this.error = error;
+			this.unit = unit;
+			this.higherIsBetter = higherIsBetter;
+		}
+		String chart(){
+			return benchmark + " parallelism=" + parallelism;
+		}
+		String group(){
+			return chart() + " " + params;
+		}
+	}
+
+	/**
+	 * A group with its speedups, ordered by core count.
+	 */
+	static final class Series {
+		final List<Point> points;
+		final double[] relativeCores;
+		final double[] speedup;
+		final ScalingFit amdahl;
+		final ScalingFit usl;
+
+		Series(List<Point> points){
+			this.points = points;
+			Point base = points.get(0);
+			relativeCores = new double[points.size()];
+			speedup = new double[points.size()];
+			for(int i=0; i<speedup.length; i++){
+				Point p = points.get(i);
+				relativeCores[i] = (double)p.cores / base.cores;
+				speedup[i] = p.higherIsBetter ? p.score / base.score : base.score / p.score;
+			}
+			amdahl = ScalingFit.amdahl(relativeCores, speedup);
+			usl = ScalingFit.usl(relativeCores, speedup);
+		}
+		double efficiency(int i){
+			return speedup[i] / relativeCores[i];
+		}
+	}
+
+	public void add(Point p){
+		groups.computeIfAbsent(p.group(), g -> new ArrayList<>()).add(p);
+	}
+	public int size(){
+		int n = 0;
+		for(List<Point> g : groups.values()){
+			n += g.size();
+		}
+		return n;
+	}
+
+	List<Series> series(){
+		List<Series> list = new ArrayList<>();
+		for(List<Point> g : groups.values()){
+			List<Point> sorted = new ArrayList<>(g);
+			sorted.sort(Comparator.comparingInt(p -> p.cores));
+			list.add(new Series(sorted));
+		}
+		return list;
+	}
+
+	public String pointsCsv(){
+		StringBuilder sb = new StringBuilder("benchmark,params,parallelism,cores,score,error,unit,speedup,efficiency\n");
+		for(Series s : series()){
+			for(int i=0; i<s.points.size(); i++){
+				Point p = s.points.get(i);
+				sb.append(p.benchmark).append(",\"").append(p.params).append("\",").append(p.parallelism).append(',')
+						.append(p.cores).append(',').append(p.score).append(',').append(p.error).append(',')
+						.append(p.unit).append(',').append(num(s.speedup[i])).append(',').append(num(s.efficiency(i)))
+						.append('\n');
+			}
+		}
+		return sb.toString();
+	}
+	public String fitsCsv(){
+		StringBuilder sb = new StringBuilder("benchmark,params,parallelism,baseline_cores,max_cores,max_speedup,"
+				+ "amdahl_parallel_fraction,amdahl_r2,usl_sigma,usl_kappa,usl_r2,usl_peak_cores\n");
+		for(Series s : series()){
+			Point base = s.points.get(0);
+			Point last = s.points.get(s.points.size() - 1);
+			double max = 0;
+			for(double v : s.speedup){
+				max = Math.max(max, v);
+			}
+			sb.append(base.benchmark).append(",\"").append(base.params).append("\",").append(base.parallelism)
+					.append(',').append(base.cores).append(',').append(last.cores).append(',').append(num(max))
+					.append(',').append(num(s.amdahl.getParallelFraction())).append(',').append(num(s.amdahl.getRSquared()))
+					.append(',').append(num(s.usl.getSigma())).append(',').append(num(s.usl.getKappa()))
+					.append(',').append(num(s.usl.getRSquared())).append(',').append(num(s.usl.getPeakCores()))
+					.append('\n');
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Chart of every data size of one benchmark and parallelism.
+	 */
+	String svg(String title, List<Series> sizes){
+		int w = 720, h = 440, left = 60, right = 180, top = 40, bottom = 50;
+		double maxX = 1, maxY = 1;
+		for(Series s : sizes){
+			for(int i=0; i<s.speedup.length; i++){
+				maxX = Math.max(maxX, s.relativeCores[i]);
+				maxY = Math.max(maxY, s.speedup[i]);
+			}
+		}
+		maxY = Math.max(maxY, maxX) * 1.05;
+		double sx = (w - left - right) / maxX, sy = (h - top - bottom) / maxY;
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format(Locale.ROOT,
+				"<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"%d\" height=\"%d\" font-family=\"sans-serif\" font-size=\"12\">\n",
+				w, h));
+		sb.append("<rect width=\"100%\" height=\"100%\" fill=\"white\"/>\n");
+		sb.append(String.format(Locale.ROOT, "<text x=\"%d\" y=\"20\" font-size=\"14\">%s</text>\n", left, escape(title)));
+		int x0 = left, y0 = h - bottom;
+		sb.append(String.format(Locale.ROOT,
+				"<path d=\"M%d %d H%d M%d %d V%d\" stroke=\"black\"/>\n", x0, y0, w - right, x0, y0, top));
+		for(int t=0; t<=4; t++){
+			double xv = maxX * t / 4, yv = maxY * t / 4;
+			sb.append(String.format(Locale.ROOT, "<text x=\"%.1f\" y=\"%d\" text-anchor=\"middle\">%s</text>\n",
+					x0 + xv * sx, y0 + 18, num(xv)));
+			sb.append(String.format(Locale.ROOT, "<text x=\"%d\" y=\"%.1f\" text-anchor=\"end\">%s</text>\n",
+					x0 - 6, y0 - yv * sy + 4, num(yv)));
+		}
+		sb.append(String.format(Locale.ROOT, "<text x=\"%d\" y=\"%d\" text-anchor=\"middle\">cores / baseline</text>\n",
+				(x0 + w - right) / 2, h - 12));
+		sb.append(String.format(Locale.ROOT, "<text x=\"14\" y=\"%d\" transform=\"rotate(-90 14 %d)\" text-anchor=\"middle\">speedup</text>\n",
+				(top + y0) / 2, (top + y0) / 2));
+		double ideal = Math.min(maxX, maxY);
+		sb.append(String.format(Locale.ROOT,
+				"<line x1=\"%d\" y1=\"%d\" x2=\"%.1f\" y2=\"%.1f\" stroke=\"#bbbbbb\" stroke-dasharray=\"6 4\"/>\n",
+				x0, y0, x0 + ideal * sx, y0 - ideal * sy));
+		for(int k=0; k<sizes.size(); k++){
+			Series s = sizes.get(k);
+			String color = COLORS[k % COLORS.length];
+			for(ScalingFit fit : new ScalingFit[]{s.usl, s.amdahl}){
+				if(!fit.isDefined()){
+					continue;
+				}
+				StringBuilder d = new StringBuilder();
+				for(int step=0; step<=50; step++){
+					double n = 1 + (maxX - 1) * step / 50;
+					d.append(step == 0 ? 'M' : 'L').append(String.format(Locale.ROOT, "%.1f %.1f ",
+							x0 + n * sx, y0 - Math.min(fit.speedup(n), maxY) * sy));
+				}
+				sb.append(String.format(Locale.ROOT, "<path d=\"%s\" fill=\"none\" stroke=\"%s\"%s/>\n",
+						d.toString().trim(), color, fit == s.usl ? "" : " stroke-dasharray=\"2 3\""));
+			}
+			for(int i=0; i<s.speedup.length; i++){
+				sb.append(String.format(Locale.ROOT, "<circle cx=\"%.1f\" cy=\"%.1f\" r=\"4\" fill=\"%s\"/>\n",
+						x0 + s.relativeCores[i] * sx, y0 - s.speedup[i] * sy, color));
+			}
+			int ly = top + 10 + k * 34;
+			sb.append(String.format(Locale.ROOT, "<circle cx=\"%d\" cy=\"%d\" r=\"4\" fill=\"%s\"/>\n",
+					w - right + 16, ly, color));
+			sb.append(String.format(Locale.ROOT, "<text x=\"%d\" y=\"%d\">%s</text>\n",
+					w - right + 26, ly + 4, escape(s.points.get(0).params)));
+			sb.append(String.format(Locale.ROOT, "<text x=\"%d\" y=\"%d\" font-size=\"10\">p=%s sigma=%s kappa=%s</text>\n",
+					w - right + 26, ly + 18, num(s.amdahl.getParallelFraction()), num(s.usl.getSigma()),
+					num(s.usl.getKappa())));
+		}
+		sb.append(String.format(Locale.ROOT,
+				"<text x=\"%d\" y=\"%d\" font-size=\"10\">solid: USL, dotted: Amdahl, dashed: ideal</text>\n",
+				w - right + 6, h - 12));
+		return sb.append("</svg>\n").toString();
+	}
+
+	/**
+	 * Writes the two CSV files and the charts into {@code dir}, returning the
+	 * files written.
+	 */
+	public List<Path> write(Path dir) throws IOException {
+		Files.createDirectories(dir);
+		List<Path> files = new ArrayList<>();
+		files.add(Files.write(dir.resolve("scaling.csv"), pointsCsv().getBytes(StandardCharsets.UTF_8)));
+		files.add(Files.write(dir.resolve("scaling-fits.csv"), fitsCsv().getBytes(StandardCharsets.UTF_8)));
+		Map<String, List<Series>> charts = new LinkedHashMap<>();
+		for(Series s : series()){
+			charts.computeIfAbsent(s.points.get(0).chart(), c -> new ArrayList<>()).add(s);
+		}
+		for(Map.Entry<String, List<Series>> e : charts.entrySet()){
+			String file = e.getKey().replaceAll("[^A-Za-z0-9.=_-]+", "_") + ".svg";
+			files.add(Files.write(dir.resolve(file), svg(e.getKey(), e.getValue()).getBytes(StandardCharsets.UTF_8)));
+		}
+		return files;
+	}
+
+	private static String num(double v){
+		if(Double.isNaN(v) || Double.isInfinite(v)){
+			return "";
+		}
+		return v == Math.rint(v) && Math.abs(v) < 1e9 ? Long.toString((long)v) : String.format(Locale.ROOT, "%.4g", v);
+	}
+	private static String escape(String s){
+		return s.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+	}
+}
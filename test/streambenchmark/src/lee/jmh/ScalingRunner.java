@@ -0,0 +1,202 @@
+package lee.jmh;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+
+/**
+ * Core-scaling study of the parallel benchmarks, replacing the manual
+ * {@code taskset -c 0-[0,1,3,7] java ...} runs. For every core count and
+ * ForkJoinPool parallelism it starts {@link BenchmarkRunner} under
+ * {@code taskset -c 0-(cores-1)}, so JMH and its forks see only those CPUs,
+ * then writes speedup, efficiency and Amdahl/USL fits per data size as CSV
+ * and SVG charts ({@link ScalingReport}).
+ * <pre>
+ * java -cp test/streambenchmark/target/benchmarks.jar lee.jmh.ScalingRunner \
+ *         -cores 1,2,4,8 -parallelism auto -out scaling -p length=1000000,10000000
+ * </pre>
+ * {@code -cores}, {@code -parallelism} ({@code auto} leaves the common pool
+ * at its default for the visible cores) and {@code -out} are ours; the rest
+ * is the JMH command line, with {@link #DEFAULT_INCLUDES} when it names no
+ * benchmark. The result file options are set here. Without {@code taskset}
+ * the forks get {@code -XX:ActiveProcessorCount} instead, which sizes the
+ * pools but does not pin threads.
+ */
+public class ScalingRunner {
+	public static final String DEFAULT_INCLUDES = "lee\\.jmh\\.(IntBenchmark\\.minIntParallelStream"
+			+ "|StringBenchmark\\.minStringParallelStream|ReductionBenchmark\\.sumOrderParallelStream)$";
+	public static final String DEFAULT_OUT = "scaling";
+	static final String PARALLELISM_PROPERTY = "java.util.concurrent.ForkJoinPool.common.parallelism";
+
+	public static void main(String[] args) throws IOException, CommandLineOptionException, InterruptedException {
+		Map<String, String> own = new LinkedHashMap<>();
+		own.put("-cores", defaultCores(Runtime.getRuntime().availableProcessors()));
+		own.put("-parallelism", "auto");
+		own.put("-out", DEFAULT_OUT);
+		own.put("-jvmArgsAppend", "");
+		String[] jmhArgs = GcMatrixRunner.extract(args, own);
+		boolean includes = !new CommandLineOptions(jmhArgs).getIncludes().isEmpty();
+
+		boolean taskset = hasTaskset();
+		if(!taskset){
+			System.out.println("# taskset not found, using -XX:ActiveProcessorCount without pinning");
+		}
+		int available = Runtime.getRuntime().availableProcessors();
+		ScalingReport report = new ScalingReport();
+		Path csv = Files.createTempFile("scaling", ".csv");
+		try{
+			for(String c : own.get("-cores").split(",")){
+				int cores = Integer.parseInt(c.trim());
+				if(cores > available){
+					System.out.println("# skipping " + cores + " cores, only " + available + " available");
+					continue;
+				}
+				for(String parallelism : own.get("-parallelism").split(",")){
+					parallelism = parallelism.trim();
+					List<String> command = command(cores, parallelism, taskset, jmhArgs, includes,
+							own.get("-jvmArgsAppend"), csv);
+					System.out.println("# scaling cell: " + String.join(" ", command));
+					int exit = new ProcessBuilder(command).inheritIO().start().waitFor();
+					if(exit != 0){
+						System.out.println("# cell failed with exit code " + exit);
+						continue;
+					}
+					for(ScalingReport.Point p : parse(Files.readAllLines(csv, StandardCharsets.UTF_8), cores, parallelism)){
+						report.add(p);
+					}
+				}
+			}
+		}finally{
+			Files.deleteIfExists(csv);
+		}
+		for(Path file : report.write(Paths.get(own.get("-out")))){
+			System.out.println("scaling report: " + file.toAbsolutePath());
+		}
+	}
+
+	static List<String> command(int cores, String parallelism, boolean taskset, String[] jmhArgs, boolean includes,
+			String jvmArgsAppend, Path csv){
+		List<String> cmd = new ArrayList<>();
+		StringBuilder append = new StringBuilder(jvmArgsAppend.trim());
+		if(taskset){
+			cmd.addAll(Arrays.asList("taskset", "-c", cores == 1 ? "0" : "0-" + (cores - 1)));
+		}else{
+			append.append(" -XX:ActiveProcessorCount=").append(cores);
+		}
+		if(!parallelism.equals("auto")){
+			append.append(" -D").append(PARALLELISM_PROPERTY).append('=').append(Integer.parseInt(parallelism));
+		}
+		cmd.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+		cmd.add("-cp");
+		cmd.add(System.getProperty("java.class.path"));
+		cmd.add(BenchmarkRunner.class.getName());
+		cmd.addAll(Arrays.asList(jmhArgs));
+		if(!includes){
+			cmd.add(DEFAULT_INCLUDES);
+		}
+		if(append.toString().trim().length() > 0){
+			cmd.add("-jvmArgsAppend");
+			cmd.add(append.toString().trim());
+		}
+		cmd.addAll(Arrays.asList("-rf", "csv", "-rff", csv.toString()));
+		return cmd;
+	}
+
+	/**
+	 * Primary results of a JMH CSV result file; the profilers' secondary
+	 * rows ({@code benchmark:metric}) are left out.
+	 */
+	static List<ScalingReport.Point> parse(List<String> lines, int cores, String parallelism){
+		List<ScalingReport.Point> points = new ArrayList<>();
+		if(lines.isEmpty()){
+			return points;
+		}
+		List<String> header = split(lines.get(0));
+		for(String line : lines.subList(1, lines.size())){
+			if(line.trim().isEmpty()){
+				continue;
+			}
+			List<String> f = split(line);
+			String benchmark = f.get(0);
+			if(benchmark.contains(":")){
+				continue;
+			}
+			if(benchmark.startsWith("lee.jmh.")){
+				benchmark = benchmark.substring("lee.jmh.".length());
+			}
+			StringBuilder params = new StringBuilder();
+			for(int i=7; i<f.size() && i<header.size(); i++){
+				String key = header.get(i);
+				if(key.startsWith("Param: ") && !f.get(i).isEmpty()){
+					params.append(params.length() == 0 ? "" : " ").append(key.substring(7)).append('=').append(f.get(i));
+				}
+			}
+			double error = f.get(5).isEmpty() || f.get(5).equals("NaN") ? Double.NaN : Double.parseDouble(f.get(5));
+			points.add(new ScalingReport.Point(benchmark, params.toString(), parallelism, cores,
+					Double.parseDouble(f.get(4)), error, f.get(6), f.get(1).equals("thrpt")));
+		}
+		return points;
+	}
+
+	/**
+	 * Fields of one CSV line, unquoted.
+	 */
+	static List<String> split(String line){
+		List<String> fields = new ArrayList<>();
+		StringBuilder cur = new StringBuilder();
+		boolean quoted = false;
+		for(int i=0; i<line.length(); i++){
+			char ch = line.charAt(i);
+			if(ch == '"'){
+				if(quoted && i + 1 < line.length() && line.charAt(i + 1) == '"'){
+					cur.append('"');
+					i++;
+				}else{
+					quoted = !quoted;
+				}
+			}else if(ch == ',' && !quoted){
+				fields.add(cur.toString());
+				cur.setLength(0);
+			}else{
+				cur.append(ch);
+			}
+		}
+		fields.add(cur.toString());
+		return fields;
+	}
+
+	/**
+	 * 1, 2, 4, ... up to and including {@code available}.
+	 */
+	static String defaultCores(int available){
+		StringBuilder sb = new StringBuilder();
+		for(int n=1; n<available; n<<=1){
+			sb.append(n).append(',');
+		}
+		return sb.append(available).toString();
+	}
+
+	private static boolean hasTaskset(){
+		if(!System.getProperty("os.name").toLowerCase().contains("linux")){
+			return false;
+		}
+		try{
+			return new ProcessBuilder("taskset", "-c", "0", "true").inheritIO().start().waitFor() == 0;
+		}catch(IOException e){
+			return false;
+		}catch(InterruptedException e){
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+}
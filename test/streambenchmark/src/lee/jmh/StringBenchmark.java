@@ -0,0 +1,65 @@
+package lee.jmh;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import lee.BenchData;
+
+/**
+ * JMH port of {@link lee.StringTest}: min of a list of 10-char strings,
+ * for-loop vs stream vs parallelStream.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgs = {"-server", "-Xms10G", "-Xmx10G"})
+@State(Scope.Benchmark)
+public class StringBenchmark {
+
+	@Param({"10000", "100000", "1000000", "10000000", "20000000", "40000000"})
+	public int length;
+
+	ArrayList<String> list;
+
+	@Setup
+	public void setUp(){
+		list = BenchData.randomStringList(length);
+	}
+
+	@Benchmark
+	public String minStringForLoop(){
+		String minStr = null;
+		boolean first = true;
+		for(String str : list){
+			if(first){
+				first = false;
+				minStr = str;
+			}
+			if(minStr.compareTo(str)>0){
+				minStr = str;
+			}
+		}
+		return minStr;
+	}
+	@Benchmark
+	public String minStringStream(){
+		return list.stream().min(String::compareTo).get();
+	}
+	@Benchmark
+	public String minStringParallelStream(){
+		return list.stream().parallel().min(String::compareTo).get();
+	}
+}
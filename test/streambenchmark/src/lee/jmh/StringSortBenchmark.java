@@ -0,0 +1,87 @@
+package lee.jmh;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import lee.BenchData;
+import lee.kernel.RadixSort;
+
+/**
+ * Sorting the 10-char keys of {@link lee.StringTest}: {@code Stream.sorted()} vs
+ * the fixed-width radix sort of {@link RadixSort}, and
+ * {@code sorted(reverseOrder())} vs the comparator fallback
+ * {@link RadixSort#sorted(java.util.stream.Stream, Comparator)}. Stops at 10M strings; 100M
+ * of them do not fit the 10G fork heap ({@link BenchmarkRunner}) next to their
+ * sorted copy; 10M take about 1.5 GB.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgs = {"-server", "-Xms10G", "-Xmx10G"})
+@State(Scope.Benchmark)
+public class StringSortBenchmark {
+
+	@Param({"1000000", "10000000"})
+	public int length;
+
+	List<String> list;
+
+	@Setup
+	public void setUp(){
+		list = BenchData.randomStringList(length);
+	}
+
+	@Benchmark
+	public Object[] sortedStream(){
+		return list.stream().sorted().toArray();
+	}
+
+	@Benchmark
+	public Object[] sortedStreamParallel(){
+		return list.parallelStream().sorted().toArray();
+	}
+
+	@Benchmark
+	public Object[] radixSort(){
+		return RadixSort.sortedFixedWidth(list.stream(), 10).toArray();
+	}
+
+	@Benchmark
+	public Object[] radixSortParallel(){
+		return RadixSort.sortedFixedWidth(list.parallelStream(), 10).toArray();
+	}
+
+	@Benchmark
+	public Object[] sortedComparatorStream(){
+		return list.stream().sorted(Comparator.reverseOrder()).toArray();
+	}
+
+	@Benchmark
+	public Object[] sortedComparatorStreamParallel(){
+		return list.parallelStream().sorted(Comparator.reverseOrder()).toArray();
+	}
+
+	@Benchmark
+	public Object[] sortedComparatorFallback(){
+		return RadixSort.sorted(list.stream(), Comparator.<String>reverseOrder()).toArray();
+	}
+
+	@Benchmark
+	public Object[] sortedComparatorFallbackParallel(){
+		return RadixSort.sorted(list.parallelStream(), Comparator.<String>reverseOrder()).toArray();
+	}
+}
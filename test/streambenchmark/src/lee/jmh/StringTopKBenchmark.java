@@ -0,0 +1,68 @@
+package lee.jmh;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import lee.BenchData;
+import lee.collect.TopKCollectors;
+
+/**
+ * Top-K smallest of the StringTest data: sorted().limit(k) vs the generic
+ * bounded-heap collector vs the packed-prefix string collector.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgs = {"-server", "-Xms10G", "-Xmx10G"})
+@State(Scope.Benchmark)
+public class StringTopKBenchmark {
+
+	@Param({"1000000", "10000000", "40000000"})
+	public int length;
+
+	@Param({"1", "10", "1000"})
+	public int k;
+
+	ArrayList<String> list;
+
+	@Setup
+	public void setUp(){
+		list = BenchData.randomStringList(length);
+	}
+
+	@Benchmark
+	public List<String> sortedLimitParallelStream(){
+		return list.parallelStream().sorted().limit(k).collect(Collectors.toList());
+	}
+	@Benchmark
+	public List<String> heapTopKStream(){
+		return list.stream().collect(TopKCollectors.smallest(k, String::compareTo));
+	}
+	@Benchmark
+	public List<String> heapTopKParallelStream(){
+		return list.parallelStream().collect(TopKCollectors.smallest(k, String::compareTo));
+	}
+	@Benchmark
+	public List<String> prefixTopKStream(){
+		return list.stream().collect(TopKCollectors.smallestStrings(k));
+	}
+	@Benchmark
+	public List<String> prefixTopKParallelStream(){
+		return list.parallelStream().collect(TopKCollectors.smallestStrings(k));
+	}
+}
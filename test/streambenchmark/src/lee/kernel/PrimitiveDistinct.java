@@ -0,0 +1,233 @@
+package lee.kernel;
+
+import java.util.Arrays;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * {@code distinct()} for {@code int}/{@code long} without boxing: first
+ * occurrences in encounter order, kept in an open-addressing set of primitives
+ * instead of a {@code HashSet<Integer>}.
+ * <p>
+ * The parallel variants stay ordered without a global lock. Element indexes are
+ * scattered into {@link #PARTITIONS} partitions by hash, ascending within each
+ * partition. Every partition then finds its first occurrences with a private
+ * set, and the flagged elements are compacted with a parallel prefix sum.
+ */
+public final class PrimitiveDistinct {
+	static final int PARTITIONS = 64;
+	private static final int PARTITION_SHIFT = Integer.numberOfLeadingZeros(PARTITIONS - 1);
+
+	private PrimitiveDistinct(){}
+
+	// ---------- int ----------
+
+	public static int[] distinct(int[] a){
+		IntSet set = new IntSet(a.length);
+		int[] out = new int[a.length];
+		int n = 0;
+		for(int x : a){
+			if(set.add(x)){
+				out[n++] = x;
+			}
+		}
+		return Arrays.copyOf(out, n);
+	}
+	public static int[] parallelDistinct(int[] a){
+		if(a.length < 2 * RadixSort.CHUNK_SIZE){
+			return distinct(a);
+		}
+		boolean[] keep = firstOccurrences(a.length, i -> partition(mix(a[i])),
+				size -> {
+					IntSet set = new IntSet(size);
+					return i -> set.add(a[i]);
+				});
+		int[] start = compactOffsets(keep);
+		int[] out = new int[start[start.length - 1]];
+		int chunks = start.length - 1;
+		IntStream.range(0, chunks).parallel().forEach(c -> {
+			int at = start[c];
+			for(int i=RadixSort.chunkFrom(keep.length, chunks, c), end=RadixSort.chunkFrom(keep.length, chunks, c + 1); i<end; i++){
+				if(keep[i]) out[at++] = a[i];
+			}
+		});
+		return out;
+	}
+	/** {@code stream.distinct()}, eager: the stream is drained into an array first. */
+	public static IntStream distinct(IntStream stream){
+		boolean parallel = stream.isParallel();
+		int[] a = stream.toArray();
+		IntStream out = Arrays.stream(parallel ? parallelDistinct(a) : distinct(a));
+		return parallel ? out.parallel() : out;
+	}
+
+	// ---------- long ----------
+
+	public static long[] distinct(long[] a){
+		LongSet set = new LongSet(a.length);
+		long[] out = new long[a.length];
+		int n = 0;
+		for(long x : a){
+			if(set.add(x)){
+				out[n++] = x;
+			}
+		}
+		return Arrays.copyOf(out, n);
+	}
+	public static long[] parallelDistinct(long[] a){
+		if(a.length < 2 * RadixSort.CHUNK_SIZE){
+			return distinct(a);
+		}
+		boolean[] keep = firstOccurrences(a.length, i -> partition(mix(a[i])),
+				size -> {
+					LongSet set = new LongSet(size);
+					return i -> set.add(a[i]);
+				});
+		int[] start = compactOffsets(keep);
+		long[] out = new long[start[start.length - 1]];
+		int chunks = start.length - 1;
+		IntStream.range(0, chunks).parallel().forEach(c -> {
+			int at = start[c];
+			for(int i=RadixSort.chunkFrom(keep.length, chunks, c), end=RadixSort.chunkFrom(keep.length, chunks, c + 1); i<end; i++){
+				if(keep[i]) out[at++] = a[i];
+			}
+		});
+		return out;
+	}
+	public static LongStream distinct(LongStream stream){
+		boolean parallel = stream.isParallel();
+		long[] a = stream.toArray();
+		LongStream out = Arrays.stream(parallel ? parallelDistinct(a) : distinct(a));
+		return parallel ? out.parallel() : out;
+	}
+
+	// ---------- shared parallel steps ----------
+
+	/**
+	 * Flags the first occurrence of every value. {@code partitionOf} maps an index
+	 * to its value's partition; {@code newFirstSeen} builds, per partition and
+	 * given its size, a test that is true the first time it sees an index's value.
+	 */
+	private static boolean[] firstOccurrences(int n, IntUnaryOperator partitionOf, IntFunction<IntPredicate> newFirstSeen){
+		int chunks = RadixSort.chunks(n);
+		int[][] counts = new int[chunks][PARTITIONS];
+		IntStream.range(0, chunks).parallel().forEach(c -> {
+			int[] count = counts[c];
+			for(int i=RadixSort.chunkFrom(n, chunks, c), end=RadixSort.chunkFrom(n, chunks, c + 1); i<end; i++){
+				count[partitionOf.applyAsInt(i)]++;
+			}
+		});
+		int[] partStart = RadixSort.offsets(counts);
+		int[] indexes = new int[n];
+		IntStream.range(0, chunks).parallel().forEach(c -> {
+			int[] next = counts[c];
+			for(int i=RadixSort.chunkFrom(n, chunks, c), end=RadixSort.chunkFrom(n, chunks, c + 1); i<end; i++){
+				indexes[next[partitionOf.applyAsInt(i)]++] = i;
+			}
+		});
+		boolean[] keep = new boolean[n];
+		IntStream.range(0, PARTITIONS).parallel().forEach(p -> {
+			int from = partStart[p], to = partStart[p + 1];
+			IntPredicate firstSeen = newFirstSeen.apply(to - from);
+			for(int k=from; k<to; k++){
+				int i = indexes[k];
+				keep[i] = firstSeen.test(i);
+			}
+		});
+		return keep;
+	}
+	/** Output offset of each chunk's kept elements, plus the total at the end. */
+	private static int[] compactOffsets(boolean[] keep){
+		int n = keep.length;
+		int chunks = RadixSort.chunks(n);
+		int[] kept = new int[chunks + 1];
+		IntStream.range(0, chunks).parallel().forEach(c -> {
+			int k = 0;
+			for(int i=RadixSort.chunkFrom(n, chunks, c), end=RadixSort.chunkFrom(n, chunks, c + 1); i<end; i++){
+				if(keep[i]) k++;
+			}
+			kept[c + 1] = k;
+		});
+		for(int c=1; c<=chunks; c++){
+			kept[c] += kept[c - 1];
+		}
+		return kept;
+	}
+
+	private static int mix(int h){
+		h *= 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+	private static int mix(long h){
+		h *= 0x9E3779B97F4A7C15L;
+		return (int)(h ^ (h >>> 32));
+	}
+	/** Power of two at least twice {@code expected}, capped at 2^30. */
+	private static int capacity(int expected){
+		long want = Math.max(4L, expected) * 2;
+		return want >= 1 << 30 ? 1 << 30 : Integer.highestOneBit((int)want - 1) << 1;
+	}
+	private static int partition(int mixed){
+		return mixed >>> PARTITION_SHIFT;
+	}
+
+	/** Insert-only open-addressing int set; 0 is tracked outside the table. */
+	private static final class IntSet {
+		private final int[] table;
+		private final int mask;
+		private boolean hasZero;
+
+		IntSet(int expected) {
+			int cap = capacity(expected);
+			table = new int[cap];
+			mask = cap - 1;
+		}
+		boolean add(int x){
+			if(x == 0){
+				if(hasZero) return false;
+				return hasZero = true;
+			}
+			for(int i=mix(x) & mask; ; i=(i + 1) & mask){
+				int t = table[i];
+				if(t == 0){
+					table[i] = x;
+					return true;
+				}
+				if(t == x){
+					return false;
+				}
+			}
+		}
+	}
+
+	private static final class LongSet {
+		private final long[] table;
+		private final int mask;
+		private boolean hasZero;
+
+		LongSet(int expected) {
+			int cap = capacity(expected);
+			table = new long[cap];
+			mask = cap - 1;
+		}
+		boolean add(long x){
+			if(x == 0){
+				if(hasZero) return false;
+				return hasZero = true;
+			}
+			for(int i=mix(x) & mask; ; i=(i + 1) & mask){
+				long t = table[i];
+				if(t == 0){
+					table[i] = x;
+					return true;
+				}
+				if(t == x){
+					return false;
+				}
+			}
+		}
+	}
+}
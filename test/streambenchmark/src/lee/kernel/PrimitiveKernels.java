@@ -0,0 +1,354 @@
+package lee.kernel;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoublePredicate;
+import java.util.function.IntPredicate;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongPredicate;
+
+/**
+ * min/max/sum/count-if over {@code int[]}, {@code long[]} and {@code double[]}.
+ * <p>
+ * The loops keep four independent accumulators over an unrolled body. That
+ * breaks the loop-carried dependency of the naive {@code minIntFor} loop and
+ * gives C2's superword pass straight-line lanes to vectorize, without needing
+ * the incubating Vector API (not available on the Java 8 target of this module).
+ * The {@code parallel*} variants split the range with ForkJoin down to
+ * {@link #PARALLEL_THRESHOLD} elements per leaf and run in the current pool,
+ * or the common pool when called from outside one.
+ * <p>
+ * Empty ranges return the identity: {@code MAX_VALUE} for min, {@code MIN_VALUE}
+ * for max ({@code +/-Infinity} for doubles), 0 for sum and count. Double sums
+ * are added in four interleaved partial sums, so the last bits may differ
+ * from a left-to-right loop.
+ */
+public final class PrimitiveKernels {
+	public static final int PARALLEL_THRESHOLD = 1 << 16;
+
+	private PrimitiveKernels(){}
+
+	// ---------- int[] ----------
+
+	public static int min(int[] a){
+		return min(a, 0, a.length);
+	}
+	public static int min(int[] a, int from, int to){
+		checkRange(a.length, from, to);
+		int m0 = Integer.MAX_VALUE, m1 = m0, m2 = m0, m3 = m0;
+		int i = from;
+		for(int end = to - 3; i < end; i += 4){
+			m0 = Math.min(m0, a[i]);
+			m1 = Math.min(m1, a[i + 1]);
+			m2 = Math.min(m2, a[i + 2]);
+			m3 = Math.min(m3, a[i + 3]);
+		}
+		for(; i < to; i++){
+			m0 = Math.min(m0, a[i]);
+		}
+		return Math.min(Math.min(m0, m1), Math.min(m2, m3));
+	}
+	public static int max(int[] a){
+		return max(a, 0, a.length);
+	}
+	public static int max(int[] a, int from, int to){
+		checkRange(a.length, from, to);
+		int m0 = Integer.MIN_VALUE, m1 = m0, m2 = m0, m3 = m0;
+		int i = from;
+		for(int end = to - 3; i < end; i += 4){
+			m0 = Math.max(m0, a[i]);
+			m1 = Math.max(m1, a[i + 1]);
+			m2 = Math.max(m2, a[i + 2]);
+			m3 = Math.max(m3, a[i + 3]);
+		}
+		for(; i < to; i++){
+			m0 = Math.max(m0, a[i]);
+		}
+		return Math.max(Math.max(m0, m1), Math.max(m2, m3));
+	}
+	/**
+	 * Sum widened to {@code long}, so it does not overflow below 2^32 elements.
+	 */
+	public static long sum(int[] a){
+		return sum(a, 0, a.length);
+	}
+	public static long sum(int[] a, int from, int to){
+		checkRange(a.length, from, to);
+		long s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+		int i = from;
+		for(int end = to - 3; i < end; i += 4){
+			s0 += a[i];
+			s1 += a[i + 1];
+			s2 += a[i + 2];
+			s3 += a[i + 3];
+		}
+		for(; i < to; i++){
+			s0 += a[i];
+		}
+		return s0 + s1 + s2 + s3;
+	}
+	public static long countIf(int[] a, IntPredicate p){
+		return countIf(a, 0, a.length, p);
+	}
+	public static long countIf(int[] a, int from, int to, IntPredicate p){
+		checkRange(a.length, from, to);
+		long n = 0;
+		for(int i = from; i < to; i++){
+			if(p.test(a[i])){
+				n++;
+			}
+		}
+		return n;
+	}
+
+	// ---------- long[] ----------
+
+	public static long min(long[] a){
+		return min(a, 0, a.length);
+	}
+	public static long min(long[] a, int from, int to){
+		checkRange(a.length, from, to);
+		long m0 = Long.MAX_VALUE, m1 = m0, m2 = m0, m3 = m0;
+		int i = from;
+		for(int end = to - 3; i < end; i += 4){
+			m0 = Math.min(m0, a[i]);
+			m1 = Math.min(m1, a[i + 1]);
+			m2 = Math.min(m2, a[i + 2]);
+			m3 = Math.min(m3, a[i + 3]);
+		}
+		for(; i < to; i++){
+			m0 = Math.min(m0, a[i]);
+		}
+		return Math.min(Math.min(m0, m1), Math.min(m2, m3));
+	}
+	public static long max(long[] a){
+		return max(a, 0, a.length);
+	}
+	public static long max(long[] a, int from, int to){
+		checkRange(a.length, from, to);
+		long m0 = Long.MIN_VALUE, m1 = m0, m2 = m0, m3 = m0;
+		int i = from;
+		for(int end = to - 3; i < end; i += 4){
+			m0 = Math.max(m0, a[i]);
+			m1 = Math.max(m1, a[i + 1]);
+			m2 = Math.max(m2, a[i + 2]);
+			m3 = Math.max(m3, a[i + 3]);
+		}
+		for(; i < to; i++){
+			m0 = Math.max(m0, a[i]);
+		}
+		return Math.max(Math.max(m0, m1), Math.max(m2, m3));
+	}
+	public static long sum(long[] a){
+		return sum(a, 0, a.length);
+	}
+	public static long sum(long[] a, int from, int to){
+		checkRange(a.length, from, to);
+		long s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+		int i = from;
+		for(int end = to - 3; i < end; i += 4){
+			s0 += a[i];
+			s1 += a[i + 1];
+			s2 += a[i + 2];
+			s3 += a[i + 3];
+		}
+		for(; i < to; i++){
+			s0 += a[i];
+		}
+		return s0 + s1 + s2 + s3;
+	}
+	public static long countIf(long[] a, LongPredicate p){
+		return countIf(a, 0, a.length, p);
+	}
+	public static long countIf(long[] a, int from, int to, LongPredicate p){
+		checkRange(a.length, from, to);
+		long n = 0;
+		for(int i = from; i < to; i++){
+			if(p.test(a[i])){
+				n++;
+			}
+		}
+		return n;
+	}
+
+	// ---------- double[] ----------
+
+	/**
+	 * Same semantics as {@link Math#min(double, double)}: NaN wins, -0.0 &lt; 0.0.
+	 */
+	public static double min(double[] a){
+		return min(a, 0, a.length);
+	}
+	public static double min(double[] a, int from, int to){
+		checkRange(a.length, from, to);
+		double m0 = Double.POSITIVE_INFINITY, m1 = m0, m2 = m0, m3 = m0;
+		int i = from;
+		for(int end = to - 3; i < end; i += 4){
+			m0 = Math.min(m0, a[i]);
+			m1 = Math.min(m1, a[i + 1]);
+			m2 = Math.min(m2, a[i + 2]);
+			m3 = Math.min(m3, a[i + 3]);
+		}
+		for(; i < to; i++){
+			m0 = Math.min(m0, a[i]);
+		}
+		return Math.min(Math.min(m0, m1), Math.min(m2, m3));
+	}
+	public static double max(double[] a){
+		return max(a, 0, a.length);
+	}
+	public static double max(double[] a, int from, int to){
+		checkRange(a.length, from, to);
+		double m0 = Double.NEGATIVE_INFINITY, m1 = m0, m2 = m0, m3 = m0;
+		int i = from;
+		for(int end = to - 3; i < end; i += 4){
+			m0 = Math.max(m0, a[i]);
+			m1 = Math.max(m1, a[i + 1]);
+			m2 = Math.max(m2, a[i + 2]);
+			m3 = Math.max(m3, a[i + 3]);
+		}
+		for(; i < to; i++){
+			m0 = Math.max(m0, a[i]);
+		}
+		return Math.max(Math.max(m0, m1), Math.max(m2, m3));
+	}
+	public static double sum(double[] a){
+		return sum(a, 0, a.length);
+	}
+	public static double sum(double[] a, int from, int to){
+		checkRange(a.length, from, to);
+		double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+		int i = from;
+		for(int end = to - 3; i < end; i += 4){
+			s0 += a[i];
+			s1 += a[i + 1];
+			s2 += a[i + 2];
+			s3 += a[i + 3];
+		}
+		for(; i < to; i++){
+			s0 += a[i];
+		}
+		return (s0 + s1) + (s2 + s3);
+	}
+	public static long countIf(double[] a, DoublePredicate p){
+		return countIf(a, 0, a.length, p);
+	}
+	public static long countIf(double[] a, int from, int to, DoublePredicate p){
+		checkRange(a.length, from, to);
+		long n = 0;
+		for(int i = from; i < to; i++){
+			if(p.test(a[i])){
+				n++;
+			}
+		}
+		return n;
+	}
+
+	// ---------- parallel ----------
+
+	public static int parallelMin(int[] a){
+		return invoke(new LongTask(0, a.length, (f, t) -> min(a, f, t), Math::min)).intValue();
+	}
+	public static int parallelMax(int[] a){
+		return invoke(new LongTask(0, a.length, (f, t) -> max(a, f, t), Math::max)).intValue();
+	}
+	public static long parallelSum(int[] a){
+		return invoke(new LongTask(0, a.length, (f, t) -> sum(a, f, t), Long::sum));
+	}
+	public static long parallelCountIf(int[] a, IntPredicate p){
+		return invoke(new LongTask(0, a.length, (f, t) -> countIf(a, f, t, p), Long::sum));
+	}
+	public static long parallelMin(long[] a){
+		return invoke(new LongTask(0, a.length, (f, t) -> min(a, f, t), Math::min));
+	}
+	public static long parallelMax(long[] a){
+		return invoke(new LongTask(0, a.length, (f, t) -> max(a, f, t), Math::max));
+	}
+	public static long parallelSum(long[] a){
+		return invoke(new LongTask(0, a.length, (f, t) -> sum(a, f, t), Long::sum));
+	}
+	public static long parallelCountIf(long[] a, LongPredicate p){
+		return invoke(new LongTask(0, a.length, (f, t) -> countIf(a, f, t, p), Long::sum));
+	}
+	public static double parallelMin(double[] a){
+		return invoke(new DoubleTask(0, a.length, (f, t) -> min(a, f, t), Math::min));
+	}
+	public static double parallelMax(double[] a){
+		return invoke(new DoubleTask(0, a.length, (f, t) -> max(a, f, t), Math::max));
+	}
+	public static double parallelSum(double[] a){
+		return invoke(new DoubleTask(0, a.length, (f, t) -> sum(a, f, t), Double::sum));
+	}
+	public static long parallelCountIf(double[] a, DoublePredicate p){
+		return invoke(new LongTask(0, a.length, (f, t) -> countIf(a, f, t, p), Long::sum));
+	}
+
+	private static <R> R invoke(RecursiveTask<R> task){
+		return ForkJoinTask.inForkJoinPool() ? task.invoke() : ForkJoinPool.commonPool().invoke(task);
+	}
+	private static void checkRange(int length, int from, int to){
+		if(from < 0 || to > length || from > to){
+			throw new ArrayIndexOutOfBoundsException("range [" + from + ", " + to + ") of " + length);
+		}
+	}
+
+	@FunctionalInterface
+	interface RangeToLong {
+		long apply(int from, int to);
+	}
+	@FunctionalInterface
+	interface RangeToDouble {
+		double apply(int from, int to);
+	}
+
+	@SuppressWarnings("serial")
+	private static final class LongTask extends RecursiveTask<Long> {
+		private final int from, to;
+		private final RangeToLong leaf;
+		private final LongBinaryOperator combiner;
+
+		LongTask(int from, int to, RangeToLong leaf, LongBinaryOperator combiner) {
+			this.from = from;
+			this.to = to;
+			this.leaf = leaf;
+			this.combiner = combiner;
+		}
+		@Override
+		protected Long compute(){
+			if(to - from <= PARALLEL_THRESHOLD){
+				return leaf.apply(from, to);
+			}
+			int mid = (from + to) >>> 1;
+			LongTask left = new LongTask(from, mid, leaf, combiner);
+			left.fork();
+			long right = new LongTask(mid, to, leaf, combiner).compute();
+			return combiner.applyAsLong(left.join(), right);
+		}
+	}
+	@SuppressWarnings("serial")
+	private static final class DoubleTask extends RecursiveTask<Double> {
+		private final int from, to;
+		private final RangeToDouble leaf;
+		private final DoubleBinaryOperator combiner;
+
+		DoubleTask(int from, int to, RangeToDouble leaf, DoubleBinaryOperator combiner) {
+			this.from = from;
+			this.to = to;
+			this.leaf = leaf;
+			this.combiner = combiner;
+		}
+		@Override
+		protected Double compute(){
+			if(to - from <= PARALLEL_THRESHOLD){
+				return leaf.apply(from, to);
+			}
+			int mid = (from + to) >>> 1;
+			DoubleTask left = new DoubleTask(from, mid, leaf, combiner);
+			left.fork();
+			double right = new DoubleTask(mid, to, leaf, combiner).compute();
+			return combiner.applyAsDouble(left.join(), right);
+		}
+	}
+}
@@ -0,0 +1,387 @@
+package lee.kernel;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Byte-wise radix sorts for {@code int[]}, {@code long[]} and fixed-width
+ * ASCII strings, and {@code sorted()} replacements built on them.
+ * <p>
+ * The sequential sorts are LSD: one counting pass per byte, skipped when every
+ * element has the same byte. The parallel sorts first scatter by the most
+ * significant byte, histogram and scatter both split across the pool. Each of
+ * the 256 buckets is then LSD-sorted on the remaining bytes as an independent
+ * task. Both need a scratch array the size of the input.
+ * <p>
+ * Arbitrary comparators fall back to {@link Arrays#parallelSort(Object[], Comparator)},
+ * which is already a parallel merge sort.
+ */
+public final class RadixSort {
+	/** Below this a comparison sort is faster than setting up 256 counters per pass. */
+	private static final int INSERTION_THRESHOLD = 64;
+	/** Minimum elements per chunk of the parallel scatter. */
+	static final int CHUNK_SIZE = 1 << 16;
+
+	private RadixSort(){}
+
+	// ---------- int[] ----------
+
+	public static void sort(int[] a){
+		if(a.length < INSERTION_THRESHOLD){
+			Arrays.sort(a);
+			return;
+		}
+		lsd(a, new int[a.length], 0, a.length, 4);
+	}
+	public static void parallelSort(int[] a){
+		int n = a.length;
+		if(n < 2 * CHUNK_SIZE){
+			sort(a);
+			return;
+		}
+		int[] buf = new int[n];
+		int chunks = chunks(n);
+		int[][] counts = new int[chunks][256];
+		IntStream.range(0, chunks).parallel().forEach(c -> {
+			int[] count = counts[c];
+			for(int i=chunkFrom(n, chunks, c), end=chunkFrom(n, chunks, c + 1); i<end; i++){
+				count[intByte(a[i], 3)]++;
+			}
+		});
+		int[] bucketStart = offsets(counts);
+		IntStream.range(0, chunks).parallel().forEach(c -> {
+			int[] next = counts[c];
+			for(int i=chunkFrom(n, chunks, c), end=chunkFrom(n, chunks, c + 1); i<end; i++){
+				buf[next[intByte(a[i], 3)]++] = a[i];
+			}
+		});
+		System.arraycopy(buf, 0, a, 0, n);
+		IntStream.range(0, 256).parallel().forEach(b -> {
+			int from = bucketStart[b], to = bucketStart[b + 1];
+			if(to - from < INSERTION_THRESHOLD){
+				Arrays.sort(a, from, to);
+			}else{
+				lsd(a, buf, from, to, 3);
+			}
+		});
+	}
+
+	/** Sorts {@code a[from, to)} by its low {@code bytes} bytes, using {@code buf[from, to)} as scratch. */
+	private static void lsd(int[] a, int[] buf, int from, int to, int bytes){
+		int[] src = a, dst = buf;
+		int[] count = new int[257];
+		for(int b=0; b<bytes; b++){
+			Arrays.fill(count, 0);
+			for(int i=from; i<to; i++){
+				count[intByte(src[i], b) + 1]++;
+			}
+			if(allInOneBucket(count, to - from)){
+				continue;
+			}
+			count[0] = from;
+			for(int k=1; k<257; k++){
+				count[k] += count[k - 1];
+			}
+			for(int i=from; i<to; i++){
+				dst[count[intByte(src[i], b)]++] = src[i];
+			}
+			int[] t = src;
+			src = dst;
+			dst = t;
+		}
+		if(src != a){
+			System.arraycopy(src, from, a, from, to - from);
+		}
+	}
+	/** Byte {@code b} (0 = least significant) as an unsigned bucket, sign bit flipped on the top byte. */
+	private static int intByte(int x, int b){
+		int v = (x >>> (b << 3)) & 0xFF;
+		return b == 3 ? v ^ 0x80 : v;
+	}
+
+	// ---------- long[] ----------
+
+	public static void sort(long[] a){
+		if(a.length < INSERTION_THRESHOLD){
+			Arrays.sort(a);
+			return;
+		}
+		lsd(a, new long[a.length], 0, a.length, 8);
+	}
+	public static void parallelSort(long[] a){
+		int n = a.length;
+		if(n < 2 * CHUNK_SIZE){
+			sort(a);
+			return;
+		}
+		long[] buf = new long[n];
+		int chunks = chunks(n);
+		int[][] counts = new int[chunks][256];
+		IntStream.range(0, chunks).parallel().forEach(c -> {
+			int[] count = counts[c];
+			for(int i=chunkFrom(n, chunks, c), end=chunkFrom(n, chunks, c + 1); i<end; i++){
+				count[longByte(a[i], 7)]++;
+			}
+		});
+		int[] bucketStart = offsets(counts);
+		IntStream.range(0, chunks).parallel().forEach(c -> {
+			int[] next = counts[c];
+			for(int i=chunkFrom(n, chunks, c), end=chunkFrom(n, chunks, c + 1); i<end; i++){
+				buf[next[longByte(a[i], 7)]++] = a[i];
+			}
+		});
+		System.arraycopy(buf, 0, a, 0, n);
+		IntStream.range(0, 256).parallel().forEach(b -> {
+			int from = bucketStart[b], to = bucketStart[b + 1];
+			if(to - from < INSERTION_THRESHOLD){
+				Arrays.sort(a, from, to);
+			}else{
+				lsd(a, buf, from, to, 7);
+			}
+		});
+	}
+
+	private static void lsd(long[] a, long[] buf, int from, int to, int bytes){
+		long[] src = a, dst = buf;
+		int[] count = new int[257];
+		for(int b=0; b<bytes; b++){
+			Arrays.fill(count, 0);
+			for(int i=from; i<to; i++){
+				count[longByte(src[i], b) + 1]++;
+			}
+			if(allInOneBucket(count, to - from)){
+				continue;
+			}
+			count[0] = from;
+			for(int k=1; k<257; k++){
+				count[k] += count[k - 1];
+			}
+			for(int i=from; i<to; i++){
+				dst[count[longByte(src[i], b)]++] = src[i];
+			}
+			long[] t = src;
+			src = dst;
+			dst = t;
+		}
+		if(src != a){
+			System.arraycopy(src, from, a, from, to - from);
+		}
+	}
+	private static int longByte(long x, int b){
+		int v = (int)(x >>> (b << 3)) & 0xFF;
+		return b == 7 ? v ^ 0x80 : v;
+	}
+
+	// ---------- fixed-width ASCII strings ----------
+
+	/**
+	 * Sorts strings that all have length {@code width} and only chars below 128,
+	 * like the 10-char keys of {@code StringTest}; same order as {@code Arrays.sort}.
+	 * Each string is packed once into {@code ceil(width / 8)} longs and the passes
+	 * then move an {@code int} permutation instead of touching the strings.
+	 *
+	 * @throws IllegalArgumentException if a string has another length or a non-ASCII char
+	 */
+	public static void sortFixedWidth(String[] a, int width){
+		sortFixedWidth(a, width, false);
+	}
+	public static void parallelSortFixedWidth(String[] a, int width){
+		sortFixedWidth(a, width, a.length >= 2 * CHUNK_SIZE);
+	}
+
+	private static void sortFixedWidth(String[] a, int width, boolean parallel){
+		int n = a.length;
+		if(width <= 0 || n < 2){
+			checkWidth(a, 0, n, width);
+			return;
+		}
+		int words = (width + 7) >>> 3;
+		long[] keys = new long[n * words];
+		if(parallel){
+			IntStream.range(0, n).parallel().forEach(i -> pack(a[i], width, keys, i * words));
+		}else{
+			for(int i=0; i<n; i++){
+				pack(a[i], width, keys, i * words);
+			}
+		}
+		int[] perm = new int[n], buf = new int[n];
+		if(parallel){
+			int chunks = chunks(n);
+			int[][] counts = new int[chunks][256];
+			IntStream.range(0, chunks).parallel().forEach(c -> {
+				int[] count = counts[c];
+				for(int i=chunkFrom(n, chunks, c), end=chunkFrom(n, chunks, c + 1); i<end; i++){
+					count[charAt(keys, words, i, 0)]++;
+				}
+			});
+			int[] bucketStart = offsets(counts);
+			IntStream.range(0, chunks).parallel().forEach(c -> {
+				int[] next = counts[c];
+				for(int i=chunkFrom(n, chunks, c), end=chunkFrom(n, chunks, c + 1); i<end; i++){
+					perm[next[charAt(keys, words, i, 0)]++] = i;
+				}
+			});
+			IntStream.range(0, 256).parallel().forEach(b ->
+					lsd(keys, words, perm, buf, bucketStart[b], bucketStart[b + 1], width, 1));
+		}else{
+			for(int i=0; i<n; i++){
+				perm[i] = i;
+			}
+			lsd(keys, words, perm, buf, 0, n, width, 0);
+		}
+		String[] sorted = new String[n];
+		for(int i=0; i<n; i++){
+			sorted[i] = a[perm[i]];
+		}
+		System.arraycopy(sorted, 0, a, 0, n);
+	}
+
+	/** Stable LSD over char positions {@code width-1 .. first} of {@code perm[from, to)}. */
+	private static void lsd(long[] keys, int words, int[] perm, int[] buf, int from, int to, int width, int first){
+		int[] src = perm, dst = buf;
+		int[] count = new int[129];
+		for(int p=width-1; p>=first; p--){
+			Arrays.fill(count, 0);
+			for(int i=from; i<to; i++){
+				count[charAt(keys, words, src[i], p) + 1]++;
+			}
+			if(allInOneBucket(count, to - from)){
+				continue;
+			}
+			count[0] = from;
+			for(int k=1; k<129; k++){
+				count[k] += count[k - 1];
+			}
+			for(int i=from; i<to; i++){
+				int idx = src[i];
+				dst[count[charAt(keys, words, idx, p)]++] = idx;
+			}
+			int[] t = src;
+			src = dst;
+			dst = t;
+		}
+		if(src != perm){
+			System.arraycopy(src, from, perm, from, to - from);
+		}
+	}
+	private static void pack(String s, int width, long[] keys, int at){
+		if(s.length() != width){
+			throw new IllegalArgumentException("expected width " + width + ": \"" + s + "\"");
+		}
+		for(int p=0; p<width; p++){
+			char c = s.charAt(p);
+			if(c >= 128){
+				throw new IllegalArgumentException("non-ASCII char at " + p + ": \"" + s + "\"");
+			}
+			keys[at + (p >>> 3)] |= (long)c << (56 - ((p & 7) << 3));
+		}
+	}
+	private static int charAt(long[] keys, int words, int index, int p){
+		return (int)(keys[index * words + (p >>> 3)] >>> (56 - ((p & 7) << 3))) & 0x7F;
+	}
+	private static void checkWidth(String[] a, int from, int to, int width){
+		for(int i=from; i<to; i++){
+			if(a[i].length() != width){
+				throw new IllegalArgumentException("expected width " + width + ": \"" + a[i] + "\"");
+			}
+		}
+	}
+
+	// ---------- stream adapters ----------
+
+	/** {@code stream.sorted()} via radix sort; a barrier, like {@code sorted()} itself. */
+	public static IntStream sorted(IntStream stream){
+		boolean parallel = stream.isParallel();
+		int[] a = stream.toArray();
+		if(parallel){
+			parallelSort(a);
+		}else{
+			sort(a);
+		}
+		IntStream out = Arrays.stream(a);
+		return parallel ? out.parallel() : out;
+	}
+	public static LongStream sorted(LongStream stream){
+		boolean parallel = stream.isParallel();
+		long[] a = stream.toArray();
+		if(parallel){
+			parallelSort(a);
+		}else{
+			sort(a);
+		}
+		LongStream out = Arrays.stream(a);
+		return parallel ? out.parallel() : out;
+	}
+	/** Natural order of fixed-width ASCII strings, see {@link #sortFixedWidth}. */
+	public static Stream<String> sortedFixedWidth(Stream<String> stream, int width){
+		boolean parallel = stream.isParallel();
+		String[] a = stream.toArray(String[]::new);
+		if(parallel){
+			parallelSortFixedWidth(a, width);
+		}else{
+			sortFixedWidth(a, width);
+		}
+		Stream<String> out = Arrays.stream(a);
+		return parallel ? out.parallel() : out;
+	}
+	/** Any comparator: stable parallel merge sort of the collected elements. */
+	public static <T> Stream<T> sorted(Stream<T> stream, Comparator<? super T> comparator){
+		boolean parallel = stream.isParallel();
+		@SuppressWarnings("unchecked")
+		T[] a = (T[])stream.toArray();
+		if(parallel){
+			Arrays.parallelSort(a, comparator);
+		}else{
+			Arrays.sort(a, comparator);
+		}
+		Stream<T> out = Arrays.stream(a);
+		return parallel ? out.parallel() : out;
+	}
+
+	// ---------- helpers ----------
+
+	private static boolean allInOneBucket(int[] shiftedCount, int n){
+		for(int k=1; k<shiftedCount.length; k++){
+			if(shiftedCount[k] == n){
+				return true;
+			}
+			if(shiftedCount[k] != 0){
+				return false;
+			}
+		}
+		return true;
+	}
+	static int chunks(int n){
+		int p = ForkJoinTask.inForkJoinPool() ? ForkJoinTask.getPool().getParallelism()
+				: ForkJoinPool.getCommonPoolParallelism();
+		return Math.max(1, Math.min(4 * p, n / CHUNK_SIZE));
+	}
+	static int chunkFrom(int n, int chunks, int c){
+		return (int)((long)n * c / chunks);
+	}
+	/**
+	 * Turns per-chunk bucket counts into per-chunk write cursors (bucket-major,
+	 * chunk order within a bucket, so the scatter is stable) and returns the 257
+	 * bucket boundaries.
+	 */
+	static int[] offsets(int[][] counts){
+		int buckets = counts[0].length;
+		int[] start = new int[buckets + 1];
+		int pos = 0;
+		for(int b=0; b<buckets; b++){
+			start[b] = pos;
+			for(int[] count : counts){
+				int c = count[b];
+				count[b] = pos;
+				pos += c;
+			}
+		}
+		start[buckets] = pos;
+		return start;
+	}
+}
@@ -0,0 +1,98 @@
+package lee.lambda;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Class and method access flags read straight from class files, so the
+ * pre-generator can tell whether a generated class may reference a type or
+ * call a method without loading anything.
+ */
+final class AccessResolver {
+	private final ClassLoader loader;
+	private final Map<String, ClassInfo> cache = new HashMap<>();
+
+	AccessResolver(ClassLoader loader){
+		this.loader = loader;
+	}
+
+	static final class ClassInfo {
+		final int access;
+		final Map<String, Integer> methods = new HashMap<>();
+
+		ClassInfo(int access){
+			this.access = access;
+		}
+	}
+
+	/**
+	 * Access flags of the class file of {@code internalName}, or null if it
+	 * cannot be found.
+	 */
+	ClassInfo info(String internalName){
+		if(cache.containsKey(internalName)){
+			return cache.get(internalName);
+		}
+		ClassInfo info = null;
+		try(InputStream in = loader.getResourceAsStream(internalName + ".class")){
+			if(in != null){
+				info = read(new ClassReader(in));
+			}
+		}catch(IOException e){
+			info = null;
+		}
+		cache.put(internalName, info);
+		return info;
+	}
+	/**
+	 * Access flags of a method declared by {@code owner}, or -1.
+	 */
+	int methodAccess(String owner, String name, String descriptor){
+		ClassInfo info = info(owner);
+		Integer access = info == null ? null : info.methods.get(name + descriptor);
+		return access == null ? -1 : access;
+	}
+	/**
+	 * Whether code in {@code fromPackage} may name {@code internalName}.
+	 */
+	boolean isAccessible(String internalName, String fromPackage){
+		if(packageOf(internalName).equals(fromPackage)){
+			return true;
+		}
+		ClassInfo info = info(internalName);
+		return info != null && (info.access & Opcodes.ACC_PUBLIC) != 0;
+	}
+	/**
+	 * Whether code in {@code fromPackage} may call a method with
+	 * {@code access} flags declared by {@code owner}.
+	 */
+	boolean isAccessible(String owner, int access, String fromPackage){
+		if((access & Opcodes.ACC_PRIVATE) != 0 || !isAccessible(owner, fromPackage)){
+			return false;
+		}
+		return (access & Opcodes.ACC_PUBLIC) != 0 || packageOf(owner).equals(fromPackage);
+	}
+
+	static String packageOf(String internalName){
+		int slash = internalName.lastIndexOf('/');
+		return slash < 0 ? "" : internalName.substring(0, slash);
+	}
+	private static ClassInfo read(ClassReader reader){
+		ClassInfo info = new ClassInfo(reader.getAccess());
+		reader.accept(new ClassVisitor(Opcodes.ASM9){
+			@Override
+			public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions){
+				info.methods.put(name + descriptor, access);
+				return null;
+			}
+		}, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+		return info;
+	}
+}
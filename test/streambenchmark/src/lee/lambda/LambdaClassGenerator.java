@@ -0,0 +1,270 @@
+package lee.lambda;
+
+import static org.objectweb.asm.Opcodes.*;
+
+import java.util.Set;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+
+/**
+ * Writes the class that {@code LambdaMetafactory} would spin for one lambda
+ * site: captured values in final fields, a static {@code create} factory with
+ * the site's factory type (non-capturing sites return a shared instance) and
+ * the interface method, which adapts its arguments and result the way the
+ * metafactory does (cast, box, unbox, widen) around one call to the target.
+ */
+final class LambdaClassGenerator {
+	private static final String OBJECT = "java/lang/Object";
+	private static final String INSTANCE = "INSTANCE";
+
+	private LambdaClassGenerator(){}
+
+	/**
+	 * Class bytes, or null if an argument or result needs an adaptation the
+	 * metafactory would do but this generator does not. Every class the
+	 * generated code casts to is added to {@code casts}.
+	 *
+	 * @param call    static, virtual, interface or constructor handle to invoke
+	 * @param params  arguments of {@code call}, receiver first
+	 * @param result  what {@code call} leaves on the stack
+	 */
+	static byte[] generate(String name, Type factoryType, String samName, Type samType, Type instantiatedType,
+			Handle call, Type[] params, Type result, Set<String> casts){
+		Type[] captured = factoryType.getArgumentTypes();
+		Type[] samArgs = samType.getArgumentTypes();
+		Type[] instArgs = instantiatedType.getArgumentTypes();
+		if(captured.length + samArgs.length != params.length || samArgs.length != instArgs.length){
+			return null;
+		}
+		String iface = factoryType.getReturnType().getInternalName();
+		ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		cw.visit(V1_8, ACC_FINAL | ACC_SUPER | ACC_SYNTHETIC, name, null, OBJECT, new String[]{iface});
+		for(int i=0; i<captured.length; i++){
+			cw.visitField(ACC_PRIVATE | ACC_FINAL, "arg$" + i, captured[i].getDescriptor(), null, null).visitEnd();
+		}
+		if(captured.length == 0){
+			cw.visitField(ACC_STATIC | ACC_FINAL, INSTANCE, "L" + name + ";", null, null).visitEnd();
+			MethodVisitor clinit = cw.visitMethod(ACC_STATIC, "<clinit>", "()V", null, null);
+			clinit.visitCode();
+			clinit.visitTypeInsn(NEW, name);
+			clinit.visitInsn(DUP);
+			clinit.visitMethodInsn(INVOKESPECIAL, name, "<init>", "()V", false);
+			clinit.visitFieldInsn(PUTSTATIC, name, INSTANCE, "L" + name + ";");
+			clinit.visitInsn(RETURN);
+			clinit.visitMaxs(0, 0);
+			clinit.visitEnd();
+		}
+		String ctorDesc = Type.getMethodDescriptor(Type.VOID_TYPE, captured);
+		MethodVisitor ctor = cw.visitMethod(ACC_PRIVATE, "<init>", ctorDesc, null, null);
+		ctor.visitCode();
+		ctor.visitVarInsn(ALOAD, 0);
+		ctor.visitMethodInsn(INVOKESPECIAL, OBJECT, "<init>", "()V", false);
+		int slot = 1;
+		for(int i=0; i<captured.length; i++){
+			ctor.visitVarInsn(ALOAD, 0);
+			ctor.visitVarInsn(captured[i].getOpcode(ILOAD), slot);
+			ctor.visitFieldInsn(PUTFIELD, name, "arg$" + i, captured[i].getDescriptor());
+			slot += captured[i].getSize();
+		}
+		ctor.visitInsn(RETURN);
+		ctor.visitMaxs(0, 0);
+		ctor.visitEnd();
+
+		MethodVisitor create = cw.visitMethod(ACC_STATIC, PregeneratedLambdas.FACTORY, factoryType.getDescriptor(), null, null);
+		create.visitCode();
+		if(captured.length == 0){
+			create.visitFieldInsn(GETSTATIC, name, INSTANCE, "L" + name + ";");
+		}else{
+			create.visitTypeInsn(NEW, name);
+			create.visitInsn(DUP);
+			slot = 0;
+			for(Type t : captured){
+				create.visitVarInsn(t.getOpcode(ILOAD), slot);
+				slot += t.getSize();
+			}
+			create.visitMethodInsn(INVOKESPECIAL, name, "<init>", ctorDesc, false);
+		}
+		create.visitInsn(ARETURN);
+		create.visitMaxs(0, 0);
+		create.visitEnd();
+
+		MethodVisitor sam = cw.visitMethod(ACC_PUBLIC, samName, samType.getDescriptor(), null, null);
+		sam.visitCode();
+		if(call.getTag() == H_NEWINVOKESPECIAL){
+			sam.visitTypeInsn(NEW, call.getOwner());
+			sam.visitInsn(DUP);
+		}
+		for(int i=0; i<captured.length; i++){
+			sam.visitVarInsn(ALOAD, 0);
+			sam.visitFieldInsn(GETFIELD, name, "arg$" + i, captured[i].getDescriptor());
+			if(!convert(sam, captured[i], captured[i], params[i], casts)){
+				return null;
+			}
+		}
+		slot = 1;
+		for(int i=0; i<samArgs.length; i++){
+			sam.visitVarInsn(samArgs[i].getOpcode(ILOAD), slot);
+			slot += samArgs[i].getSize();
+			if(!convert(sam, samArgs[i], instArgs[i], params[captured.length + i], casts)){
+				return null;
+			}
+		}
+		switch(call.getTag()){
+		case H_INVOKESTATIC:
+			sam.visitMethodInsn(INVOKESTATIC, call.getOwner(), call.getName(), call.getDesc(), call.isInterface());
+			break;
+		case H_INVOKEVIRTUAL:
+			sam.visitMethodInsn(INVOKEVIRTUAL, call.getOwner(), call.getName(), call.getDesc(), false);
+			break;
+		case H_INVOKEINTERFACE:
+			sam.visitMethodInsn(INVOKEINTERFACE, call.getOwner(), call.getName(), call.getDesc(), true);
+			break;
+		case H_NEWINVOKESPECIAL:
+			sam.visitMethodInsn(INVOKESPECIAL, call.getOwner(), "<init>", call.getDesc(), false);
+			break;
+		default:
+			return null;
+		}
+		Type samResult = samType.getReturnType();
+		if(!convert(sam, result, instantiatedType.getReturnType(), samResult, casts)){
+			return null;
+		}
+		sam.visitInsn(samResult.getOpcode(IRETURN));
+		sam.visitMaxs(0, 0);
+		sam.visitEnd();
+		cw.visitEnd();
+		return cw.toByteArray();
+	}
+
+	/**
+	 * Adapts the value on top of the stack from {@code from} to {@code to};
+	 * {@code hint} is the instantiated type, which picks the wrapper to
+	 * unbox from. False if the adaptation is not supported.
+	 */
+	static boolean convert(MethodVisitor mv, Type from, Type hint, Type to, Set<String> casts){
+		if(to.getSort() == Type.VOID){
+			if(from.getSize() > 0){
+				mv.visitInsn(from.getSize() == 2 ? POP2 : POP);
+			}
+			return true;
+		}
+		if(from.getSort() == Type.VOID){
+			return false;
+		}
+		boolean fromRef = isReference(from);
+		boolean toRef = isReference(to);
+		if(!fromRef && !toRef){
+			return widen(mv, from, to);
+		}
+		if(!fromRef){
+			Type box = boxed(from);
+			mv.visitMethodInsn(INVOKESTATIC, box.getInternalName(), "valueOf",
+					Type.getMethodDescriptor(box, from), false);
+			return true;
+		}
+		if(!toRef){
+			Type prim = unboxed(hint);
+			if(prim == null){
+				prim = to;
+			}
+			Type box = boxed(prim);
+			if(!from.equals(box)){
+				cast(mv, box, casts);
+			}
+			mv.visitMethodInsn(INVOKEVIRTUAL, box.getInternalName(), prim.getClassName() + "Value",
+					Type.getMethodDescriptor(prim), false);
+			return widen(mv, prim, to);
+		}
+		if(!from.equals(to) && !to.getInternalName().equals(OBJECT)){
+			cast(mv, to, casts);
+		}
+		return true;
+	}
+
+	private static void cast(MethodVisitor mv, Type type, Set<String> casts){
+		Type element = type.getSort() == Type.ARRAY ? type.getElementType() : type;
+		if(element.getSort() == Type.OBJECT){
+			casts.add(element.getInternalName());
+		}
+		mv.visitTypeInsn(CHECKCAST, type.getInternalName());
+	}
+	private static boolean isReference(Type t){
+		return t.getSort() == Type.OBJECT || t.getSort() == Type.ARRAY;
+	}
+	private static boolean widen(MethodVisitor mv, Type from, Type to){
+		int f = from.getSort();
+		int t = to.getSort();
+		if(f == t){
+			return true;
+		}
+		if(f == Type.BOOLEAN || t == Type.BOOLEAN || t == Type.BYTE || t == Type.CHAR){
+			return false;
+		}
+		boolean intLike = f == Type.BYTE || f == Type.SHORT || f == Type.CHAR || f == Type.INT;
+		switch(t){
+		case Type.SHORT:
+			return f == Type.BYTE;
+		case Type.INT:
+			return intLike;
+		case Type.LONG:
+			if(intLike){
+				mv.visitInsn(I2L);
+				return true;
+			}
+			return false;
+		case Type.FLOAT:
+			if(intLike){
+				mv.visitInsn(I2F);
+			}else if(f == Type.LONG){
+				mv.visitInsn(L2F);
+			}else{
+				return false;
+			}
+			return true;
+		case Type.DOUBLE:
+			if(intLike){
+				mv.visitInsn(I2D);
+			}else if(f == Type.LONG){
+				mv.visitInsn(L2D);
+			}else if(f == Type.FLOAT){
+				mv.visitInsn(F2D);
+			}else{
+				return false;
+			}
+			return true;
+		default:
+			return false;
+		}
+	}
+	private static Type boxed(Type prim){
+		switch(prim.getSort()){
+		case Type.BOOLEAN: return Type.getObjectType("java/lang/Boolean");
+		case Type.BYTE: return Type.getObjectType("java/lang/Byte");
+		case Type.CHAR: return Type.getObjectType("java/lang/Character");
+		case Type.SHORT: return Type.getObjectType("java/lang/Short");
+		case Type.INT: return Type.getObjectType("java/lang/Integer");
+		case Type.LONG: return Type.getObjectType("java/lang/Long");
+		case Type.FLOAT: return Type.getObjectType("java/lang/Float");
+		default: return Type.getObjectType("java/lang/Double");
+		}
+	}
+	private static Type unboxed(Type box){
+		if(box.getSort() != Type.OBJECT){
+			return null;
+		}
+		switch(box.getInternalName()){
+		case "java/lang/Boolean": return Type.BOOLEAN_TYPE;
+		case "java/lang/Byte": return Type.BYTE_TYPE;
+		case "java/lang/Character": return Type.CHAR_TYPE;
+		case "java/lang/Short": return Type.SHORT_TYPE;
+		case "java/lang/Integer": return Type.INT_TYPE;
+		case "java/lang/Long": return Type.LONG_TYPE;
+		case "java/lang/Float": return Type.FLOAT_TYPE;
+		case "java/lang/Double": return Type.DOUBLE_TYPE;
+		default: return null;
+		}
+	}
+}
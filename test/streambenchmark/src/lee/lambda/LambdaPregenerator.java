@@ -0,0 +1,355 @@
+package lee.lambda;
+
+import static org.objectweb.asm.Opcodes.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+
+/**
+ * Build step that moves lambda class spinning from startup to build time. It
+ * rewrites a directory of compiled classes in place: every
+ * {@code invokedynamic} site bootstrapped by {@code LambdaMetafactory.metafactory}
+ * gets its implementation class written next to the caller as
+ * {@code Caller$$PreLambda$N.class}, and the site is relinked to it, either
+ * <ul>
+ * <li>{@link Mode#BOOTSTRAP}: through {@link PregeneratedLambdas#metafactory},
+ * which falls back to the metafactory if the class is missing, or</li>
+ * <li>{@link Mode#DIRECT}: by replacing the {@code invokedynamic} with an
+ * {@code invokestatic} of the class's factory, so nothing is bootstrapped.</li>
+ * </ul>
+ * Sites the metafactory handles but a plain class cannot are left alone:
+ * {@code altMetafactory} (serializable lambdas, marker interfaces, bridges),
+ * {@code super::m} references, and targets or types that are not accessible
+ * from the caller's package. A private target in the caller is reached
+ * through a static synthetic bridge method added to the caller.
+ * <pre>
+ * mvn -pl test/streambenchmark -am package
+ * java -cp test/streambenchmark/target/benchmarks.jar lee.lambda.LambdaPregenerator \
+ *         app/target/classes direct app-dependency-classpath
+ * </pre>
+ * The rewritten classes need this package on the runtime class path in
+ * bootstrap mode only. Running the step twice is harmless.
+ */
+public final class LambdaPregenerator {
+	static final String SUFFIX = "$$PreLambda$";
+	private static final String LMF = "java/lang/invoke/LambdaMetafactory";
+	private static final String BRIDGE = "lambda$pregen$";
+
+	/**
+	 * How a relinked site reaches its class. {@code DIRECT} is what pays off
+	 * at startup: on JDK 17 linking an {@code invokedynamic} through any
+	 * bootstrap other than the metafactory costs about as much as the class
+	 * the metafactory would spin, so {@code BOOTSTRAP} only buys the fallback.
+	 */
+	public enum Mode {
+		BOOTSTRAP, DIRECT
+	}
+
+	/**
+	 * Counts of one run.
+	 */
+	public static final class Report {
+		int classes;
+		int rewritten;
+		int sites;
+		int generated;
+
+		/**
+		 * Class files scanned.
+		 */
+		public int classes(){
+			return classes;
+		}
+		/**
+		 * Class files that had at least one site relinked.
+		 */
+		public int rewritten(){
+			return rewritten;
+		}
+		/**
+		 * {@code invokedynamic} sites bootstrapped by the metafactory.
+		 */
+		public int sites(){
+			return sites;
+		}
+		/**
+		 * Sites relinked to a pre-generated class.
+		 */
+		public int generated(){
+			return generated;
+		}
+		@Override
+		public String toString(){
+			return "classes=" + classes + " rewritten=" + rewritten + " sites=" + sites
+					+ " generated=" + generated + " skipped=" + (sites - generated);
+		}
+	}
+
+	private final Path root;
+	private final Mode mode;
+	private final AccessResolver access;
+	private final Report report = new Report();
+
+	private LambdaPregenerator(Path root, Mode mode, ClassLoader loader){
+		this.root = root;
+		this.mode = mode;
+		this.access = new AccessResolver(loader);
+	}
+
+	/**
+	 * Rewrites every class file under {@code classesDir}. {@code classPath}
+	 * is where the classes' dependencies are found, for access checks; the
+	 * JDK is always searched.
+	 */
+	public static Report run(Path classesDir, Mode mode, List<Path> classPath) throws IOException {
+		List<URL> urls = new ArrayList<>();
+		urls.add(toUrl(classesDir));
+		for(Path p : classPath){
+			urls.add(toUrl(p));
+		}
+		try(URLClassLoader loader = new URLClassLoader(urls.toArray(new URL[0]), ClassLoader.getSystemClassLoader().getParent())){
+			LambdaPregenerator pregenerator = new LambdaPregenerator(classesDir, mode, loader);
+			List<Path> files;
+			try(Stream<Path> walk = Files.walk(classesDir)){
+				files = walk.filter(p -> p.toString().endsWith(".class") && !p.getFileName().toString().contains(SUFFIX))
+						.sorted().collect(Collectors.toList());
+			}
+			for(Path file : files){
+				pregenerator.rewrite(file);
+			}
+			return pregenerator.report;
+		}
+	}
+	public static Report run(Path classesDir, Mode mode) throws IOException {
+		return run(classesDir, mode, new ArrayList<>());
+	}
+
+	public static void main(String[] args) throws IOException {
+		if(args.length < 1 || args.length > 3){
+			System.err.println("usage: LambdaPregenerator <classes-dir> [direct|bootstrap] [class-path]");
+			System.exit(2);
+		}
+		Mode mode = args.length > 1 ? Mode.valueOf(args[1].toUpperCase(Locale.ROOT)) : Mode.DIRECT;
+		List<Path> classPath = new ArrayList<>();
+		if(args.length > 2){
+			for(String entry : args[2].split(File.pathSeparator)){
+				if(!entry.isEmpty()){
+					classPath.add(Paths.get(entry));
+				}
+			}
+		}
+		System.out.println(run(Paths.get(args[0]), mode, classPath));
+	}
+
+	private void rewrite(Path file) throws IOException {
+		report.classes++;
+		ClassReader reader = new ClassReader(Files.readAllBytes(file));
+		ClassWriter writer = new ClassWriter(reader, ClassWriter.COMPUTE_MAXS);
+		Rewriter rewriter = new Rewriter(writer);
+		reader.accept(rewriter, 0);
+		if(rewriter.generated.isEmpty()){
+			return;
+		}
+		report.rewritten++;
+		Files.write(file, writer.toByteArray());
+		for(Map.Entry<String, byte[]> e : rewriter.generated.entrySet()){
+			Files.write(root.resolve(e.getKey() + ".class"), e.getValue());
+		}
+	}
+
+	private static URL toUrl(Path p){
+		try{
+			return p.toUri().toURL();
+		}catch(MalformedURLException e){
+			throw new IllegalArgumentException(p.toString(), e);
+		}
+	}
+
+	/**
+	 * A private target reached through a static method of the caller.
+	 */
+	private static final class Bridge {
+		final String name;
+		final String descriptor;
+		final Handle target;
+
+		Bridge(String name, String descriptor, Handle target){
+			this.name = name;
+			this.descriptor = descriptor;
+			this.target = target;
+		}
+	}
+
+	private final class Rewriter extends ClassVisitor {
+		final Map<String, byte[]> generated = new LinkedHashMap<>();
+		final Map<Handle, Bridge> bridges = new LinkedHashMap<>();
+		String className;
+		String pkg;
+		boolean isInterface;
+		int nextClass;
+
+		Rewriter(ClassVisitor next){
+			super(ASM9, next);
+		}
+
+		@Override
+		public void visit(int version, int access, String name, String signature, String superName, String[] interfaces){
+			className = name;
+			pkg = AccessResolver.packageOf(name);
+			isInterface = (access & ACC_INTERFACE) != 0;
+			super.visit(version, access, name, signature, superName, interfaces);
+		}
+		@Override
+		public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions){
+			MethodVisitor mv = super.visitMethod(access, name, descriptor, signature, exceptions);
+			return new MethodVisitor(ASM9, mv){
+				@Override
+				public void visitInvokeDynamicInsn(String samName, String factoryDesc, Handle bsm, Object... args){
+					String generatedName = null;
+					if(bsm.getOwner().equals(LMF) && bsm.getName().equals("metafactory") && args.length == 3){
+						report.sites++;
+						generatedName = pregenerate(samName, Type.getMethodType(factoryDesc), (Type)args[0], (Handle)args[1], (Type)args[2]);
+					}
+					if(generatedName == null){
+						super.visitInvokeDynamicInsn(samName, factoryDesc, bsm, args);
+					}else if(mode == Mode.DIRECT){
+						super.visitMethodInsn(INVOKESTATIC, generatedName, PregeneratedLambdas.FACTORY, factoryDesc, false);
+					}else{
+						Handle pregenerated = new Handle(H_INVOKESTATIC, PregeneratedLambdas.OWNER,
+								PregeneratedLambdas.NAME, PregeneratedLambdas.DESCRIPTOR, false);
+						super.visitInvokeDynamicInsn(samName, factoryDesc, pregenerated, args[0], args[1], args[2], generatedName);
+					}
+				}
+			};
+		}
+		@Override
+		public void visitEnd(){
+			for(Bridge b : bridges.values()){
+				emitBridge(b);
+			}
+			super.visitEnd();
+		}
+
+		/**
+		 * Generates the class of one site; its internal name, or null to
+		 * leave the site to the metafactory.
+		 */
+		private String pregenerate(String samName, Type factoryType, Type samType, Handle impl, Type instantiatedType){
+			Type iface = factoryType.getReturnType();
+			if(iface.getSort() != Type.OBJECT || !access.isAccessible(iface.getInternalName(), pkg)){
+				return null;
+			}
+			int implAccess = access.methodAccess(impl.getOwner(), impl.getName(), impl.getDesc());
+			if(implAccess < 0){
+				return null;
+			}
+			Type implType = Type.getMethodType(impl.getDesc());
+			Type[] params;
+			Type result;
+			if(impl.getTag() == H_INVOKESTATIC || impl.getTag() == H_NEWINVOKESPECIAL){
+				params = implType.getArgumentTypes();
+			}else{
+				params = prepend(Type.getObjectType(impl.getOwner()), implType.getArgumentTypes());
+			}
+			result = impl.getTag() == H_NEWINVOKESPECIAL ? Type.getObjectType(impl.getOwner()) : implType.getReturnType();
+			Handle call;
+			if((implAccess & ACC_PRIVATE) != 0){
+				if(!impl.getOwner().equals(className)){
+					return null;
+				}
+				call = bridge(impl, Type.getMethodDescriptor(result, params));
+			}else if(impl.getTag() == H_INVOKESPECIAL || !access.isAccessible(impl.getOwner(), implAccess, pkg)){
+				return null;
+			}else{
+				call = impl;
+			}
+			String name;
+			do{
+				name = className + SUFFIX + nextClass++;
+			}while(Files.exists(root.resolve(name + ".class")));
+			Set<String> casts = new HashSet<>();
+			byte[] bytes = LambdaClassGenerator.generate(name, factoryType, samName, samType, instantiatedType,
+					call, params, result, casts);
+			if(bytes == null){
+				return null;
+			}
+			for(String c : casts){
+				if(!access.isAccessible(c, pkg)){
+					return null;
+				}
+			}
+			generated.put(name, bytes);
+			report.generated++;
+			return name;
+		}
+		private Handle bridge(Handle impl, String descriptor){
+			Bridge b = bridges.get(impl);
+			if(b == null){
+				String name;
+				int n = bridges.size();
+				do{
+					name = BRIDGE + n++;
+				}while(declares(name));
+				b = new Bridge(name, descriptor, impl);
+				bridges.put(impl, b);
+			}
+			return new Handle(H_INVOKESTATIC, className, b.name, b.descriptor, isInterface);
+		}
+		private boolean declares(String methodName){
+			AccessResolver.ClassInfo info = access.info(className);
+			return info != null && info.methods.keySet().stream().anyMatch(m -> m.startsWith(methodName + "("));
+		}
+		private void emitBridge(Bridge b){
+			int flags = ACC_STATIC | ACC_SYNTHETIC | (isInterface ? ACC_PUBLIC : 0);
+			MethodVisitor mv = cv.visitMethod(flags, b.name, b.descriptor, null, null);
+			mv.visitCode();
+			Handle target = b.target;
+			if(target.getTag() == H_NEWINVOKESPECIAL){
+				mv.visitTypeInsn(NEW, target.getOwner());
+				mv.visitInsn(DUP);
+			}
+			int slot = 0;
+			for(Type t : Type.getArgumentTypes(b.descriptor)){
+				mv.visitVarInsn(t.getOpcode(ILOAD), slot);
+				slot += t.getSize();
+			}
+			if(target.getTag() == H_INVOKESTATIC){
+				mv.visitMethodInsn(INVOKESTATIC, target.getOwner(), target.getName(), target.getDesc(), target.isInterface());
+			}else{
+				mv.visitMethodInsn(INVOKESPECIAL, target.getOwner(), target.getName(), target.getDesc(), target.isInterface());
+			}
+			mv.visitInsn(Type.getReturnType(b.descriptor).getOpcode(IRETURN));
+			mv.visitMaxs(0, 0);
+			mv.visitEnd();
+		}
+	}
+
+	private static Type[] prepend(Type first, Type[] rest){
+		Type[] all = new Type[rest.length + 1];
+		all[0] = first;
+		System.arraycopy(rest, 0, all, 1, rest.length);
+		return all;
+	}
+}
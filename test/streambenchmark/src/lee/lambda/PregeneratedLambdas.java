@@ -0,0 +1,71 @@
+package lee.lambda;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.ConstantCallSite;
+import java.lang.invoke.LambdaConversionException;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runtime half of {@link LambdaPregenerator}: the bootstrap method that
+ * rewritten {@code invokedynamic} lambda sites link through. It binds the site
+ * to the {@code create} factory of the class generated for it at build time,
+ * so no class is spun at runtime. If that class cannot be loaded or linked,
+ * the site falls back to {@link LambdaMetafactory#metafactory} with the
+ * original arguments, which this bootstrap receives unchanged.
+ */
+public final class PregeneratedLambdas {
+	static final String OWNER = "lee/lambda/PregeneratedLambdas";
+	static final String NAME = "metafactory";
+	static final String DESCRIPTOR = "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;"
+			+ "Ljava/lang/invoke/MethodType;Ljava/lang/invoke/MethodType;Ljava/lang/invoke/MethodHandle;"
+			+ "Ljava/lang/invoke/MethodType;Ljava/lang/String;)Ljava/lang/invoke/CallSite;";
+	static final String FACTORY = "create";
+
+	private static final LongAdder LINKED = new LongAdder();
+	private static final LongAdder FALLBACKS = new LongAdder();
+
+	private PregeneratedLambdas(){}
+
+	/**
+	 * Same arguments as {@code LambdaMetafactory.metafactory} plus the
+	 * internal name of the pre-generated class.
+	 */
+	public static CallSite metafactory(MethodHandles.Lookup caller, String samName, MethodType factoryType,
+			MethodType samMethodType, MethodHandle implMethod, MethodType instantiatedMethodType,
+			String className) throws LambdaConversionException {
+		MethodHandle create;
+		try{
+			Class<?> c = Class.forName(className.replace('/', '.'), true, caller.lookupClass().getClassLoader());
+			create = caller.findStatic(c, FACTORY, factoryType);
+		}catch(ReflectiveOperationException | LinkageError e){
+			FALLBACKS.increment();
+			return LambdaMetafactory.metafactory(caller, samName, factoryType, samMethodType, implMethod, instantiatedMethodType);
+		}
+		LINKED.increment();
+		if(factoryType.parameterCount() == 0){
+			try{
+				return new ConstantCallSite(MethodHandles.constant(factoryType.returnType(), create.invoke()));
+			}catch(Throwable e){
+				throw new IllegalStateException("cannot create " + className, e);
+			}
+		}
+		return new ConstantCallSite(create);
+	}
+
+	/**
+	 * Sites linked to a pre-generated class so far.
+	 */
+	public static long linked(){
+		return LINKED.sum();
+	}
+	/**
+	 * Sites that fell back to {@code LambdaMetafactory} so far.
+	 */
+	public static long fallbacks(){
+		return FALLBACKS.sum();
+	}
+}
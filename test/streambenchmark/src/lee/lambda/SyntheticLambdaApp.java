@@ -0,0 +1,121 @@
+package lee.lambda;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+/**
+ * Source generator for a synthetic service with a given number of lambda
+ * sites, all of which run once on its first request, the situation a service
+ * is in right after startup or an autoscaling event. The sites cycle through
+ * the shapes real code has: capturing and non-capturing lambdas, lambdas over
+ * {@code this}, static, bound, unbound and constructor references, and
+ * references that need boxing, unboxing or widening.
+ * <p>
+ * {@code synth.App.main} prints the first request's checksum and time.
+ */
+public final class SyntheticLambdaApp {
+	public static final String MAIN = "synth.App";
+	static final int LAMBDAS_PER_CLASS = 100;
+
+	private static final String[] SHAPES = {
+		"Function<String, Integer> f = s -> s.length() + #I; acc += f.apply(name);",
+		"IntUnaryOperator f = x -> x * #I + k; acc += f.applyAsInt(#I);",
+		"Supplier<String> f = () -> name + #I; acc += f.get().length();",
+		"BinaryOperator<Integer> f = Integer::sum; acc += f.apply(#I, k);",
+		"ToLongFunction<String> f = String::length; acc += f.applyAsLong(name) + #I;",
+		"Supplier<List<String>> f = ArrayList::new; List<String> l = f.get(); l.add(name); acc += l.size() + #I;",
+		"Predicate<String> f = s -> s.startsWith(\"h\" + (#I % 7)); acc += f.test(name) ? 1 : #I;",
+		"Comparator<String> f = Comparator.comparingInt(String::length); acc += f.compare(name, \"x\" + #I);",
+		"long[] box = {acc}; Runnable f = () -> box[0] += #I; f.run(); acc = box[0];",
+		"IntFunction<long[]> f = long[]::new; acc += f.apply(#I % 5 + 1).length;",
+		"Function<Integer, Long> f = Long::valueOf; acc += f.apply(#I);",
+		"UnaryOperator<String> f = #C::twice; acc += f.apply(name).length() + #I;",
+		"BiFunction<String, Integer, Character> f = String::charAt; acc += f.apply(name, #I % 2);",
+		"final long a = acc; LongSupplier f = () -> a * #I; acc += f.getAsLong();",
+		"ToIntFunction<Object> f = Object::hashCode; acc += f.applyAsInt(name) + #I;",
+		"Function<String, StringBuilder> f = StringBuilder::new; acc += f.apply(name).length() + #I;",
+	};
+
+	private SyntheticLambdaApp(){}
+
+	/**
+	 * Writes the sources of an app with {@code lambdas} sites under
+	 * {@code srcDir}, package {@code synth}.
+	 */
+	public static void writeSources(Path srcDir, int lambdas) throws IOException {
+		Path pkg = Files.createDirectories(srcDir.resolve("synth"));
+		int classes = (lambdas + LAMBDAS_PER_CLASS - 1) / LAMBDAS_PER_CLASS;
+		StringBuilder app = new StringBuilder();
+		app.append("package synth;\n\npublic class App {\n")
+				.append("\tpublic static long firstRequest(){\n\t\tlong acc = 0;\n");
+		for(int c=0; c<classes; c++){
+			String name = "Handler" + c;
+			int n = Math.min(LAMBDAS_PER_CLASS, lambdas - c * LAMBDAS_PER_CLASS);
+			write(pkg.resolve(name + ".java"), handler(name, c * LAMBDAS_PER_CLASS, n));
+			app.append("\t\tacc = new ").append(name).append("().handle(acc);\n");
+		}
+		app.append("\t\treturn acc;\n\t}\n")
+				.append("\tpublic static void main(String[] args){\n")
+				.append("\t\tlong start = System.nanoTime();\n")
+				.append("\t\tlong result = firstRequest();\n")
+				.append("\t\tSystem.out.println(result + \" \" + (System.nanoTime() - start) / 1000 + \"us\");\n")
+				.append("\t}\n}\n");
+		write(pkg.resolve("App.java"), app.toString());
+	}
+	/**
+	 * Compiles every source under {@code srcDir} to Java 8 class files in
+	 * {@code classesDir} with the running JDK's compiler.
+	 */
+	public static void compile(Path srcDir, Path classesDir) throws IOException {
+		JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+		if(javac == null){
+			throw new IllegalStateException("no Java compiler, run on a JDK");
+		}
+		Files.createDirectories(classesDir);
+		List<String> args = new ArrayList<>();
+		if(System.getProperty("java.specification.version").startsWith("1.")){
+			args.addAll(Arrays.asList("-source", "8", "-target", "8"));
+		}else{
+			args.addAll(Arrays.asList("--release", "8"));
+		}
+		args.addAll(Arrays.asList("-nowarn", "-encoding", "UTF-8", "-d", classesDir.toString()));
+		try(Stream<Path> walk = Files.walk(srcDir)){
+			args.addAll(walk.filter(p -> p.toString().endsWith(".java")).map(Path::toString).collect(Collectors.toList()));
+		}
+		ByteArrayOutputStream err = new ByteArrayOutputStream();
+		int status = javac.run(null, err, err, args.toArray(new String[0]));
+		if(status != 0){
+			throw new IllegalStateException("javac failed: " + new String(err.toByteArray(), StandardCharsets.UTF_8));
+		}
+	}
+
+	private static String handler(String name, int first, int n){
+		StringBuilder sb = new StringBuilder();
+		sb.append("package synth;\n\nimport java.util.*;\nimport java.util.function.*;\n\n")
+				.append("public class ").append(name).append(" {\n")
+				.append("\tprivate final String name = \"h").append(name).append("\";\n\n")
+				.append("\tprivate static String twice(String s){\n\t\treturn s + s;\n\t}\n")
+				.append("\tpublic long handle(long seed){\n\t\tlong acc = seed;\n\t\tint k = (int)seed;\n");
+		for(int i=0; i<n; i++){
+			int id = first + i;
+			sb.append("\t\t{ ").append(SHAPES[id % SHAPES.length].replace("#I", Integer.toString(id)).replace("#C", name))
+					.append(" }\n");
+		}
+		sb.append("\t\treturn acc;\n\t}\n}\n");
+		return sb.toString();
+	}
+	private static void write(Path file, String source) throws IOException {
+		Files.write(file, source.getBytes(StandardCharsets.UTF_8));
+	}
+}
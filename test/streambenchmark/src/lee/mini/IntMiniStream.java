@@ -0,0 +1,171 @@
+package lee.mini;
+
+import java.util.Arrays;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * {@code int} counterpart of {@link MiniStream}: eager, in place over its
+ * own {@code int[]}, and never boxes an element. An array passed to
+ * {@link #of} or {@link #ofArray} is borrowed: the first operation that writes
+ * copies it.
+ */
+public final class IntMiniStream {
+	private int[] elems;
+	private int size;
+	private boolean owned;
+
+	private IntMiniStream(int[] elems, int size, boolean owned){
+		this.elems = elems;
+		this.size = size;
+		this.owned = owned;
+	}
+
+	/**
+	 * Stream over {@code elems}, which is left untouched.
+	 */
+	public static IntMiniStream of(int... elems){
+		return new IntMiniStream(elems, elems.length, false);
+	}
+	/**
+	 * Stream over {@code array}, which is left untouched.
+	 */
+	public static IntMiniStream ofArray(int[] array){
+		return new IntMiniStream(array, array.length, false);
+	}
+	static IntMiniStream owning(int[] elems, int size){
+		return new IntMiniStream(elems, size, true);
+	}
+	public static IntMiniStream range(int from, int to){
+		int[] a = new int[Math.max(0, to - from)];
+		for(int i=0; i<a.length; i++){
+			a[i] = from + i;
+		}
+		return new IntMiniStream(a, a.length, true);
+	}
+
+	// ---------- intermediate, in place ----------
+
+	public IntMiniStream map(IntUnaryOperator f){
+		int[] out = writable();
+		for(int i=0; i<size; i++){
+			out[i] = f.applyAsInt(elems[i]);
+		}
+		return this;
+	}
+	public IntMiniStream filter(IntPredicate p){
+		int[] out = null;
+		int n = 0;
+		for(int i=0; i<size; i++){
+			int x = elems[i];
+			if(p.test(x)){
+				if(out != null){
+					out[n] = x;
+				}
+				n++;
+			}else if(out == null){
+				out = writable();
+			}
+		}
+		size = n;
+		return this;
+	}
+	public IntMiniStream sorted(){
+		Arrays.sort(writable(), 0, size);
+		return this;
+	}
+	public IntMiniStream limit(int n){
+		if(n < 0){
+			throw new IllegalArgumentException("limit < 0: " + n);
+		}
+		size = Math.min(size, n);
+		return this;
+	}
+	public <R> MiniStream<R> mapToObj(IntFunction<? extends R> f){
+		Object[] out = new Object[size];
+		for(int i=0; i<size; i++){
+			out[i] = f.apply(elems[i]);
+		}
+		return MiniStream.owning(out, size);
+	}
+
+	// ---------- terminal ----------
+
+	public void forEach(IntConsumer action){
+		for(int i=0; i<size; i++){
+			action.accept(elems[i]);
+		}
+	}
+	public int count(){
+		return size;
+	}
+	public int sum(){
+		int s = 0;
+		for(int i=0; i<size; i++){
+			s += elems[i];
+		}
+		return s;
+	}
+	public int reduce(int identity, IntBinaryOperator op){
+		int acc = identity;
+		for(int i=0; i<size; i++){
+			acc = op.applyAsInt(acc, elems[i]);
+		}
+		return acc;
+	}
+	public OptionalInt min(){
+		return size == 0 ? OptionalInt.empty() : OptionalInt.of(reduce(Integer.MAX_VALUE, Math::min));
+	}
+	public OptionalInt max(){
+		return size == 0 ? OptionalInt.empty() : OptionalInt.of(reduce(Integer.MIN_VALUE, Math::max));
+	}
+	public OptionalDouble average(){
+		if(size == 0){
+			return OptionalDouble.empty();
+		}
+		long s = 0;
+		for(int i=0; i<size; i++){
+			s += elems[i];
+		}
+		return OptionalDouble.of((double)s / size);
+	}
+	public boolean anyMatch(IntPredicate p){
+		for(int i=0; i<size; i++){
+			if(p.test(elems[i])){
+				return true;
+			}
+		}
+		return false;
+	}
+	public boolean allMatch(IntPredicate p){
+		for(int i=0; i<size; i++){
+			if(!p.test(elems[i])){
+				return false;
+			}
+		}
+		return true;
+	}
+	public boolean noneMatch(IntPredicate p){
+		return !anyMatch(p);
+	}
+	public int[] toArray(){
+		return Arrays.copyOf(elems, size);
+	}
+
+	private int[] writable(){
+		if(!owned){
+			elems = Arrays.copyOf(elems, size);
+			owned = true;
+		}
+		return elems;
+	}
+	@Override
+	public String toString(){
+		return Arrays.toString(toArray());
+	}
+}
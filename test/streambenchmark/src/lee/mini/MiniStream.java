@@ -0,0 +1,289 @@
+package lee.mini;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collector;
+
+/**
+ * Eager, array-backed stand-in for {@code Stream} on the 1-20 element
+ * collections most stream calls see, where building a pipeline of stages and
+ * {@code Sink}s costs more than the work. Every operation runs a plain loop
+ * over the elements right away.
+ * <p>
+ * {@code map}, {@code filter} and {@code sorted} rewrite the stream's array in
+ * place and return the same object, so
+ * {@code MiniStream.of("I", "love", "you", "too").filter(...).map(...).toList()}
+ * allocates one working copy of the elements and the stream. An array passed
+ * to {@link #of} or {@link #ofArray} is borrowed, never written: the first
+ * operation that writes copies it. Like a
+ * {@code Stream}, a mini stream is used once: after an intermediate operation
+ * only the returned stream may be used.
+ */
+public final class MiniStream<T> {
+	private static final int DISTINCT_LINEAR = 32;
+
+	private Object[] elems;
+	private int size;
+	private boolean owned;
+
+	private MiniStream(Object[] elems, int size, boolean owned){
+		this.elems = elems;
+		this.size = size;
+		this.owned = owned;
+	}
+
+	/**
+	 * Stream over {@code elems}, which is left untouched.
+	 */
+	@SafeVarargs
+	@SuppressWarnings("varargs")	// elems is only read, and copied before the first write
+	public static <T> MiniStream<T> of(T... elems){
+		return new MiniStream<>(elems, elems.length, false);
+	}
+	/**
+	 * Stream over {@code array}, which is left untouched.
+	 */
+	public static <T> MiniStream<T> ofArray(T[] array){
+		return new MiniStream<>(array, array.length, false);
+	}
+	public static <T> MiniStream<T> from(Collection<? extends T> c){
+		Object[] a = c.toArray();
+		return new MiniStream<>(a, a.length, true);
+	}
+	static <T> MiniStream<T> owning(Object[] elems, int size){
+		return new MiniStream<>(elems, size, true);
+	}
+	public static <T> MiniStream<T> empty(){
+		return new MiniStream<>(new Object[0], 0, true);
+	}
+
+	// ---------- intermediate, in place ----------
+
+	/**
+	 * Maps in place. A borrowed array is first copied into an {@code Object[]};
+	 * an owned typed array, such as a {@code String[]} from
+	 * {@code Collection.toArray()}, is kept as long as the results fit in it.
+	 */
+	@SuppressWarnings("unchecked")
+	public <R> MiniStream<R> map(Function<? super T, ? extends R> f){
+		Object[] out = writable();
+		Class<?> component = out.getClass().getComponentType();
+		for(int i=0; i<size; i++){
+			R r = f.apply((T)elems[i]);
+			if(component != Object.class && r != null && !component.isInstance(r)){
+				out = Arrays.copyOf(out, size, Object[].class);
+				component = Object.class;
+			}
+			out[i] = r;
+		}
+		elems = out;
+		return (MiniStream<R>)this;
+	}
+	@SuppressWarnings("unchecked")
+	public MiniStream<T> filter(Predicate<? super T> p){
+		Object[] out = null;
+		int n = 0;
+		for(int i=0; i<size; i++){
+			T t = (T)elems[i];
+			if(p.test(t)){
+				if(out != null){
+					out[n] = t;
+				}
+				n++;
+			}else if(out == null){
+				out = writable();
+			}
+		}
+		if(out != null){
+			Arrays.fill(out, n, size, null);
+			elems = out;
+		}
+		size = n;
+		return this;
+	}
+	@SuppressWarnings("unchecked")
+	public MiniStream<T> sorted(Comparator<? super T> c){
+		Object[] out = writable();
+		Arrays.sort((T[])out, 0, size, c);
+		elems = out;
+		return this;
+	}
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public MiniStream<T> sorted(){
+		return sorted((Comparator)Comparator.naturalOrder());
+	}
+	/**
+	 * Drops repeated elements, keeping the first; linear probing of the
+	 * kept prefix up to {@value #DISTINCT_LINEAR} elements, a hash set above.
+	 */
+	public MiniStream<T> distinct(){
+		if(size < 2){
+			return this;
+		}
+		Object[] out = writable();
+		int n = 0;
+		if(size <= DISTINCT_LINEAR){
+			outer:
+			for(int i=0; i<size; i++){
+				Object x = out[i];
+				for(int j=0; j<n; j++){
+					if(Objects.equals(out[j], x)){
+						continue outer;
+					}
+				}
+				out[n++] = x;
+			}
+		}else{
+			Set<Object> seen = new HashSet<>(size * 2);
+			for(int i=0; i<size; i++){
+				Object x = out[i];
+				if(seen.add(x)){
+					out[n++] = x;
+				}
+			}
+		}
+		Arrays.fill(out, n, size, null);
+		size = n;
+		return this;
+	}
+	public MiniStream<T> limit(int n){
+		if(n < 0){
+			throw new IllegalArgumentException("limit < 0: " + n);
+		}
+		size = Math.min(size, n);
+		return this;
+	}
+	@SuppressWarnings("unchecked")
+	public IntMiniStream mapToInt(ToIntFunction<? super T> f){
+		int[] out = new int[size];
+		for(int i=0; i<size; i++){
+			out[i] = f.applyAsInt((T)elems[i]);
+		}
+		return IntMiniStream.owning(out, size);
+	}
+	@SuppressWarnings("unchecked")
+	public <R> MiniStream<R> flatMap(Function<? super T, ? extends Collection<? extends R>> f){
+		Object[] out = new Object[size];
+		int n = 0;
+		for(int i=0; i<size; i++){
+			for(R r : f.apply((T)elems[i])){
+				if(n == out.length){
+					out = Arrays.copyOf(out, Math.max(4, n * 2));
+				}
+				out[n++] = r;
+			}
+		}
+		return owning(out, n);
+	}
+
+	// ---------- terminal ----------
+
+	@SuppressWarnings("unchecked")
+	public void forEach(Consumer<? super T> action){
+		for(int i=0; i<size; i++){
+			action.accept((T)elems[i]);
+		}
+	}
+	public int count(){
+		return size;
+	}
+	@SuppressWarnings("unchecked")
+	public T reduce(T identity, BinaryOperator<T> op){
+		T acc = identity;
+		for(int i=0; i<size; i++){
+			acc = op.apply(acc, (T)elems[i]);
+		}
+		return acc;
+	}
+	@SuppressWarnings("unchecked")
+	public Optional<T> reduce(BinaryOperator<T> op){
+		if(size == 0){
+			return Optional.empty();
+		}
+		T acc = (T)elems[0];
+		for(int i=1; i<size; i++){
+			acc = op.apply(acc, (T)elems[i]);
+		}
+		return Optional.of(acc);
+	}
+	@SuppressWarnings("unchecked")
+	public <R, A> R collect(Collector<? super T, A, R> collector){
+		A container = collector.supplier().get();
+		BiConsumer<A, ? super T> acc = collector.accumulator();
+		for(int i=0; i<size; i++){
+			acc.accept(container, (T)elems[i]);
+		}
+		if(collector.characteristics().contains(Collector.Characteristics.IDENTITY_FINISH)){
+			return (R)container;
+		}
+		return collector.finisher().apply(container);
+	}
+	/**
+	 * Read-only list over the elements; no copy when the stream owns an
+	 * exactly filled array.
+	 */
+	@SuppressWarnings("unchecked")
+	public List<T> toList(){
+		Object[] a = owned && size == elems.length ? elems : Arrays.copyOf(elems, size);
+		return Collections.unmodifiableList((List<T>)Arrays.asList(a));
+	}
+	public Object[] toArray(){
+		return Arrays.copyOf(elems, size);
+	}
+	public Optional<T> min(Comparator<? super T> c){
+		return reduce((a, b) -> c.compare(a, b) <= 0 ? a : b);
+	}
+	public Optional<T> max(Comparator<? super T> c){
+		return reduce((a, b) -> c.compare(a, b) >= 0 ? a : b);
+	}
+	@SuppressWarnings("unchecked")
+	public Optional<T> findFirst(){
+		return size == 0 ? Optional.empty() : Optional.of(Objects.requireNonNull((T)elems[0]));
+	}
+	@SuppressWarnings("unchecked")
+	public boolean anyMatch(Predicate<? super T> p){
+		for(int i=0; i<size; i++){
+			if(p.test((T)elems[i])){
+				return true;
+			}
+		}
+		return false;
+	}
+	@SuppressWarnings("unchecked")
+	public boolean allMatch(Predicate<? super T> p){
+		for(int i=0; i<size; i++){
+			if(!p.test((T)elems[i])){
+				return false;
+			}
+		}
+		return true;
+	}
+	public boolean noneMatch(Predicate<? super T> p){
+		return !anyMatch(p);
+	}
+
+	private Object[] writable(){
+		if(!owned){
+			elems = Arrays.copyOf(elems, size, Object[].class);
+			owned = true;
+		}
+		return elems;
+	}
+	@Override
+	public String toString(){
+		return Arrays.toString(toArray());
+	}
+}
@@ -0,0 +1,285 @@
+package lee.order;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import lee.Order;
+
+/**
+ * Read side of the binary order file, memory-mapped so the data never has to
+ * fit in the heap.
+ * <pre>
+ * header   int magic, int version, long rows, long dictionaryOffset   (24 bytes)
+ * records  rows x (int userId, double price, long timestamp)         (20 bytes each)
+ * dict     int count, count x (int length, UTF-8 bytes)
+ * </pre>
+ * Records are fixed width, so a row range maps to a byte range by arithmetic
+ * alone and {@link #spliterator()} splits exactly in halves. The file is mapped
+ * in regions of {@link #ROWS_PER_REGION} rows because a single mapping is
+ * limited to 2GB; tests open it with tiny regions to cross many boundaries.
+ * <p>
+ * {@link #stream(boolean)} hands out one reusable {@link Cursor} per spliterator,
+ * not an object per row: read what you need inside the pipeline, or call
+ * {@link Cursor#toOrder()} to keep a row.
+ */
+public class OrderFile implements Closeable {
+	static final int MAGIC = 0x4C4F5244; // "LORD"
+	static final int VERSION = 1;
+	static final int HEADER_BYTES = 24;
+	static final int RECORD_BYTES = Integer.BYTES + Double.BYTES + Long.BYTES;
+	static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+	/** Rows per mapped region by default, 20 * 2^26 bytes = 1.25GB. */
+	public static final int ROWS_PER_REGION = 1 << 26;
+
+	private final FileChannel channel;
+	private final MappedByteBuffer[] regions;
+	private final int rowsPerRegion;
+	private final String[] userNames;
+	private final long rows;
+
+	private OrderFile(FileChannel channel, MappedByteBuffer[] regions, int rowsPerRegion, String[] userNames, long rows) {
+		this.channel = channel;
+		this.regions = regions;
+		this.rowsPerRegion = rowsPerRegion;
+		this.userNames = userNames;
+		this.rows = rows;
+	}
+
+	public static OrderFile open(Path path) throws IOException {
+		return open(path, ROWS_PER_REGION);
+	}
+	static OrderFile open(Path path, int rowsPerRegion) throws IOException {
+		if(rowsPerRegion <= 0 || rowsPerRegion > ROWS_PER_REGION){
+			throw new IllegalArgumentException("rowsPerRegion out of range: " + rowsPerRegion);
+		}
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+		try{
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(BYTE_ORDER);
+			readFully(channel, header, 0);
+			header.flip();
+			if(header.getInt() != MAGIC){
+				throw new IOException("not an order file: " + path);
+			}
+			int version = header.getInt();
+			if(version != VERSION){
+				throw new IOException("unsupported order file version " + version + ": " + path);
+			}
+			long rows = header.getLong();
+			long dictOffset = header.getLong();
+			if(rows < 0 || dictOffset != HEADER_BYTES + rows * RECORD_BYTES){
+				throw new IOException("corrupt order file header: " + path);
+			}
+			String[] names = readDictionary(channel, dictOffset);
+			long regionCount = (rows + rowsPerRegion - 1) / rowsPerRegion;
+			if(regionCount > Integer.MAX_VALUE){
+				throw new IOException("order file too large: " + path);
+			}
+			MappedByteBuffer[] regions = new MappedByteBuffer[(int)regionCount];
+			for(int r=0; r<regions.length; r++){
+				long first = (long)r * rowsPerRegion;
+				long n = Math.min(rowsPerRegion, rows - first);
+				regions[r] = channel.map(FileChannel.MapMode.READ_ONLY,
+						HEADER_BYTES + first * RECORD_BYTES, n * RECORD_BYTES);
+				regions[r].order(BYTE_ORDER);
+			}
+			return new OrderFile(channel, regions, rowsPerRegion, names, rows);
+		}catch(IOException | RuntimeException e){
+			channel.close();
+			throw e;
+		}
+	}
+
+	public long rows(){
+		return rows;
+	}
+	public int userCount(){
+		return userNames.length;
+	}
+	public String userName(int userId){
+		return userNames[userId];
+	}
+	public int userId(long row){
+		return region(row).getInt(offset(row));
+	}
+	public double price(long row){
+		return region(row).getDouble(offset(row) + Integer.BYTES);
+	}
+	public long timestamp(long row){
+		return region(row).getLong(offset(row) + Integer.BYTES + Double.BYTES);
+	}
+
+	public Spliterator<Cursor> spliterator(){
+		return new RowSpliterator(0, rows);
+	}
+	public Stream<Cursor> stream(boolean parallel){
+		return StreamSupport.stream(spliterator(), parallel);
+	}
+
+	/**
+	 * Sum of prices per user id, straight from the mapped records.
+	 */
+	public double[] sumPriceByUserId(boolean parallel){
+		int users = userNames.length;
+		return stream(parallel).collect(() -> new double[users],
+				(sums, c) -> sums[c.userId()] += c.price(),
+				(a, b) -> {
+					for(int i=0; i<users; i++){
+						a[i] += b[i];
+					}
+				});
+	}
+	/**
+	 * Same result as {@code ReductionTest.sumOrderParallelStream} over the same rows.
+	 */
+	public Map<String, Double> sumOrderByUserName(boolean parallel){
+		double[] sums = sumPriceByUserId(parallel);
+		Map<String, Double> map = new HashMap<>(sums.length * 2);
+		for(int id=0; id<sums.length; id++){
+			map.put(userNames[id], sums[id]);
+		}
+		return map;
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	private ByteBuffer region(long row){
+		if(row < 0 || row >= rows){
+			throw new IndexOutOfBoundsException("row " + row + " of " + rows);
+		}
+		return regions[(int)(row / rowsPerRegion)];
+	}
+	private int offset(long row){
+		return (int)(row % rowsPerRegion) * RECORD_BYTES;
+	}
+	private static String[] readDictionary(FileChannel channel, long offset) throws IOException {
+		long length = channel.size() - offset;
+		if(length < Integer.BYTES || length > Integer.MAX_VALUE){
+			throw new IOException("corrupt order file dictionary");
+		}
+		ByteBuffer buf = ByteBuffer.allocate((int)length).order(BYTE_ORDER);
+		readFully(channel, buf, offset);
+		buf.flip();
+		String[] names = new String[buf.getInt()];
+		for(int i=0; i<names.length; i++){
+			byte[] bytes = new byte[buf.getInt()];
+			buf.get(bytes);
+			names[i] = new String(bytes, StandardCharsets.UTF_8);
+		}
+		return names;
+	}
+	private static void readFully(FileChannel channel, ByteBuffer dst, long position) throws IOException {
+		while(dst.hasRemaining()){
+			int n = channel.read(dst, position);
+			if(n < 0){
+				throw new IOException("unexpected end of order file");
+			}
+			position += n;
+		}
+	}
+
+	/**
+	 * Flyweight view of the current row of a spliterator. Only valid inside the
+	 * {@code Consumer} it was passed to.
+	 */
+	public final class Cursor {
+		private ByteBuffer region;
+		private int offset;
+
+		public int userId(){
+			return region.getInt(offset);
+		}
+		public String userName(){
+			return userNames[userId()];
+		}
+		public double price(){
+			return region.getDouble(offset + Integer.BYTES);
+		}
+		public long timestamp(){
+			return region.getLong(offset + Integer.BYTES + Double.BYTES);
+		}
+		public Order toOrder(){
+			return new Order(userName(), price(), timestamp());
+		}
+	}
+
+	/**
+	 * Covers rows {@code [from, to)}, splits in the middle of the range without
+	 * touching the data.
+	 */
+	private final class RowSpliterator implements Spliterator<Cursor> {
+		private static final long MIN_SPLIT = 1 << 12;
+
+		private long from;
+		private final long to;
+		private final Cursor cursor = new Cursor();
+
+		RowSpliterator(long from, long to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super Cursor> action){
+			if(from >= to){
+				return false;
+			}
+			cursor.region = regions[(int)(from / rowsPerRegion)];
+			cursor.offset = offset(from);
+			from++;
+			action.accept(cursor);
+			return true;
+		}
+		@Override
+		public void forEachRemaining(Consumer<? super Cursor> action){
+			long row = from;
+			long end = to;
+			from = end;
+			Cursor c = cursor;
+			while(row < end){
+				int r = (int)(row / rowsPerRegion);
+				long regionEnd = Math.min(end, (long)(r + 1) * rowsPerRegion);
+				c.region = regions[r];
+				int off = offset(row);
+				for(; row<regionEnd; row++, off+=RECORD_BYTES){
+					c.offset = off;
+					action.accept(c);
+				}
+			}
+		}
+		@Override
+		public Spliterator<Cursor> trySplit(){
+			long size = to - from;
+			if(size < MIN_SPLIT){
+				return null;
+			}
+			long mid = from + (size >>> 1);
+			RowSpliterator prefix = new RowSpliterator(from, mid);
+			from = mid;
+			return prefix;
+		}
+		@Override
+		public long estimateSize(){
+			return to - from;
+		}
+		@Override
+		public int characteristics(){
+			return ORDERED | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+		}
+	}
+}
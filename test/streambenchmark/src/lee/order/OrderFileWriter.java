@@ -0,0 +1,125 @@
+package lee.order;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import lee.Order;
+
+/**
+ * Streams orders into the {@link OrderFile} format. Records are written as they
+ * come through a small staging buffer; the user dictionary is kept in memory and
+ * appended on {@link #close()}, after which the header is patched with the row
+ * count and the dictionary offset.
+ */
+public class OrderFileWriter implements Closeable {
+	private static final int BUFFER_ROWS = 8192;
+
+	private final FileChannel channel;
+	private final ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_ROWS * OrderFile.RECORD_BYTES)
+			.order(OrderFile.BYTE_ORDER);
+	private final Map<String, Integer> dictionary = new HashMap<>();
+	private final List<String> names = new ArrayList<>();
+	private long rows;
+	private boolean closed;
+
+	public OrderFileWriter(Path path) throws IOException {
+		channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		channel.position(OrderFile.HEADER_BYTES);
+	}
+
+	/**
+	 * Writes {@code orders} to {@code path}, replacing any existing file.
+	 */
+	public static void write(Path path, Iterable<Order> orders) throws IOException {
+		try(OrderFileWriter writer = new OrderFileWriter(path)){
+			for(Order od : orders){
+				writer.add(od);
+			}
+		}
+	}
+
+	public OrderFileWriter add(Order order) throws IOException {
+		return add(order.getUserName(), order.getPrice(), order.getTimestamp());
+	}
+	public OrderFileWriter add(String userName, double price, long timestamp) throws IOException {
+		if(closed){
+			throw new IllegalStateException("writer is closed");
+		}
+		Integer id = dictionary.get(userName);
+		if(id == null){
+			id = names.size();
+			dictionary.put(userName, id);
+			names.add(userName);
+		}
+		if(buf.remaining() < OrderFile.RECORD_BYTES){
+			flush();
+		}
+		buf.putInt(id).putDouble(price).putLong(timestamp);
+		rows++;
+		return this;
+	}
+	public long rows(){
+		return rows;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if(closed){
+			return;
+		}
+		closed = true;
+		try{
+			flush();
+			long dictOffset = channel.position();
+			writeDictionary();
+			ByteBuffer header = ByteBuffer.allocate(OrderFile.HEADER_BYTES).order(OrderFile.BYTE_ORDER);
+			header.putInt(OrderFile.MAGIC).putInt(OrderFile.VERSION).putLong(rows).putLong(dictOffset).flip();
+			writeFully(header, 0);
+		}finally{
+			channel.close();
+		}
+	}
+
+	private void writeDictionary() throws IOException {
+		buf.putInt(names.size());
+		for(String name : names){
+			byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+			if(buf.remaining() < Integer.BYTES + bytes.length){
+				flush();
+			}
+			if(buf.remaining() < Integer.BYTES + bytes.length){
+				// longer than the staging buffer, write it on its own
+				ByteBuffer big = ByteBuffer.allocate(Integer.BYTES + bytes.length).order(OrderFile.BYTE_ORDER);
+				big.putInt(bytes.length).put(bytes).flip();
+				while(big.hasRemaining()){
+					channel.write(big);
+				}
+				continue;
+			}
+			buf.putInt(bytes.length).put(bytes);
+		}
+		flush();
+	}
+	private void flush() throws IOException {
+		buf.flip();
+		while(buf.hasRemaining()){
+			channel.write(buf);
+		}
+		buf.clear();
+	}
+	private void writeFully(ByteBuffer src, long position) throws IOException {
+		while(src.hasRemaining()){
+			position += channel.write(src, position);
+		}
+	}
+}
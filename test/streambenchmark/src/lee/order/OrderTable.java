@@ -0,0 +1,218 @@
+package lee.order;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import lee.BenchData;
+import lee.Order;
+
+/**
+ * Columnar, off-heap version of {@code List<Order>}. Every row is 20 bytes in
+ * three direct buffers: a dictionary-encoded user id ({@code int}), the price
+ * ({@code double}) and the timestamp ({@code long}). The heap only holds the
+ * user name dictionary, so a 40M-row table costs a few MB of heap instead of
+ * 40M {@link Order} objects plus the list's reference array.
+ * <p>
+ * A column is a single direct buffer, which caps a table at
+ * {@link #MAX_ROWS} rows. Tables are immutable once built.
+ */
+public class OrderTable {
+	public static final int MAX_ROWS = Integer.MAX_VALUE / Double.BYTES;
+
+	private final String[] userNames;
+	private final IntBuffer userIds;
+	private final DoubleBuffer prices;
+	private final LongBuffer timestamps;
+	private final int size;
+
+	private OrderTable(String[] userNames, IntBuffer userIds, DoubleBuffer prices, LongBuffer timestamps, int size) {
+		this.userNames = userNames;
+		this.userIds = userIds;
+		this.prices = prices;
+		this.timestamps = timestamps;
+		this.size = size;
+	}
+
+	public static OrderTable from(List<Order> orders){
+		Builder builder = new Builder(orders.size());
+		for(Order od : orders){
+			builder.add(od.getUserName(), od.getPrice(), od.getTimestamp());
+		}
+		return builder.build();
+	}
+	/**
+	 * The rows of {@link Order#genOrders(int)}, same seed and user names, but
+	 * written straight into the columns without creating {@code Order} objects.
+	 * Only the timestamps differ, as they are read from the clock.
+	 */
+	public static OrderTable generate(int rows){
+		Random rand = new Random(BenchData.SEED);
+		int users = rows/200;
+		users = users==0 ? rows : users;
+		String[] names = new String[users];
+		for(int i=0; i<users; i++){
+			names[i] = new UUID(rand.nextLong(), rand.nextLong()).toString();
+		}
+		Builder builder = new Builder(rows);
+		for(int i=0; i<rows; i++){
+			double price = rand.nextInt(1000);
+			builder.add(names[rand.nextInt(users)], price, System.nanoTime());
+		}
+		return builder.build();
+	}
+
+	public int size(){
+		return size;
+	}
+	/**
+	 * Number of distinct user names, ids are {@code 0..userCount()-1}.
+	 */
+	public int userCount(){
+		return userNames.length;
+	}
+	public String userName(int userId){
+		return userNames[userId];
+	}
+	public int userId(int row){
+		return userIds.get(row);
+	}
+	public double price(int row){
+		return prices.get(row);
+	}
+	public long timestamp(int row){
+		return timestamps.get(row);
+	}
+	public IntStream userIds(){
+		IntBuffer col = userIds;
+		return IntStream.range(0, size).map(col::get);
+	}
+	public DoubleStream prices(){
+		DoubleBuffer col = prices;
+		return IntStream.range(0, size).mapToDouble(col::get);
+	}
+	public LongStream timestamps(){
+		LongBuffer col = timestamps;
+		return IntStream.range(0, size).mapToLong(col::get);
+	}
+
+	/**
+	 * Sum of prices per user id, one scan over two columns into a dense array.
+	 */
+	public double[] sumPriceByUserId(){
+		return sumPriceByUserId(0, size);
+	}
+	/**
+	 * Parallel version of {@link #sumPriceByUserId()}: every fork-join leaf
+	 * owns one {@code double[userCount()]}, leaves are added element-wise.
+	 */
+	public double[] sumPriceByUserIdParallel(){
+		int users = userNames.length;
+		int chunk = Math.max(1 << 16, size / (parallelism() * 4));
+		int chunks = (size + chunk - 1) / chunk;
+		return IntStream.range(0, chunks).parallel()
+				.mapToObj(c -> sumPriceByUserId(c * chunk, Math.min(size, (c + 1) * chunk)))
+				.reduce((a, b) -> {
+					for(int i=0; i<users; i++){
+						a[i] += b[i];
+					}
+					return a;
+				})
+				.orElseGet(() -> new double[users]);
+	}
+	/**
+	 * Same result as {@code ReductionTest.sumOrderForLoop}.
+	 */
+	public Map<String, Double> sumOrderByUserName(){
+		return toNameMap(sumPriceByUserId());
+	}
+	public Map<String, Double> sumOrderByUserNameParallel(){
+		return toNameMap(sumPriceByUserIdParallel());
+	}
+	/**
+	 * Bytes held in direct buffers.
+	 */
+	public long offHeapBytes(){
+		return (long)size * (Integer.BYTES + Double.BYTES + Long.BYTES);
+	}
+
+	private double[] sumPriceByUserId(int from, int to){
+		IntBuffer ids = userIds;
+		DoubleBuffer ps = prices;
+		double[] sums = new double[userNames.length];
+		for(int i=from; i<to; i++){
+			sums[ids.get(i)] += ps.get(i);
+		}
+		return sums;
+	}
+	private static int parallelism(){
+		ForkJoinPool pool = ForkJoinTask.inForkJoinPool() ? ForkJoinTask.getPool() : ForkJoinPool.commonPool();
+		return Math.max(1, pool.getParallelism());
+	}
+	private Map<String, Double> toNameMap(double[] sums){
+		// the builder only assigns ids to users that have a row
+		Map<String, Double> map = new HashMap<>(userNames.length * 2);
+		for(int id=0; id<sums.length; id++){
+			map.put(userNames[id], sums[id]);
+		}
+		return map;
+	}
+
+	/**
+	 * Appends rows into direct buffers sized up front, assigning user ids
+	 * in first-seen order.
+	 */
+	public static class Builder {
+		private final Map<String, Integer> dictionary = new HashMap<>();
+		private final List<String> names = new ArrayList<>();
+		private final IntBuffer userIds;
+		private final DoubleBuffer prices;
+		private final LongBuffer timestamps;
+		private int size;
+
+		public Builder(int capacity) {
+			if(capacity < 0 || capacity > MAX_ROWS){
+				throw new IllegalArgumentException("capacity out of range: " + capacity);
+			}
+			userIds = allocate(capacity, Integer.BYTES).asIntBuffer();
+			prices = allocate(capacity, Double.BYTES).asDoubleBuffer();
+			timestamps = allocate(capacity, Long.BYTES).asLongBuffer();
+		}
+		public Builder add(String userName, double price, long timestamp){
+			if(size == userIds.capacity()){
+				throw new IllegalStateException("table is full: " + size);
+			}
+			Integer id = dictionary.get(userName);
+			if(id == null){
+				id = names.size();
+				dictionary.put(userName, id);
+				names.add(userName);
+			}
+			userIds.put(size, id);
+			prices.put(size, price);
+			timestamps.put(size, timestamp);
+			size++;
+			return this;
+		}
+		public OrderTable build(){
+			return new OrderTable(names.toArray(new String[0]),
+					userIds.asReadOnlyBuffer(), prices.asReadOnlyBuffer(), timestamps.asReadOnlyBuffer(), size);
+		}
+		private static ByteBuffer allocate(int rows, int width){
+			return ByteBuffer.allocateDirect(rows * width).order(ByteOrder.nativeOrder());
+		}
+	}
+}
@@ -0,0 +1,128 @@
+package lee.parallel;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Runs a pipeline sequentially or in parallel, whichever {@link ParallelAdvisor}
+ * predicts to be faster, and feeds the measured time back to it.
+ * <pre>
+ * Map&lt;String, Double&gt; sums = AdaptiveStreams.evaluate("sumOrder", orders,
+ *         s -&gt; s.collect(Collectors.groupingBy(Order::getUserName,
+ *                 Collectors.summingDouble(Order::getPrice))));
+ * </pre>
+ * The source size comes from the spliterator: exact when it reports
+ * {@code SIZED}, otherwise its estimate; a source of unknown size stays
+ * sequential. The shared advisor loads the file named by the system property
+ * {@value #CALIBRATION_PROPERTY} at startup if it exists, and keeps its
+ * defaults (with a logged warning) if the file is unreadable or malformed.
+ */
+public final class AdaptiveStreams {
+	public static final String CALIBRATION_PROPERTY = "lee.adaptive.calibration";
+
+	private static final Logger LOG = Logger.getLogger(AdaptiveStreams.class.getName());
+	private static final ParallelAdvisor ADVISOR = loadAdvisor(System.getProperty(CALIBRATION_PROPERTY));
+
+	private AdaptiveStreams(){}
+
+	public static ParallelAdvisor advisor(){
+		return ADVISOR;
+	}
+
+	/**
+	 * Stream over {@code source}, parallel if the advisor says so. Use
+	 * {@link #evaluate} instead to also record the run.
+	 */
+	public static <T> Stream<T> stream(String pipeline, Collection<T> source){
+		Spliterator<T> sp = source.spliterator();
+		return StreamSupport.stream(sp, decide(ADVISOR, pipeline, sizeOf(sp)));
+	}
+	public static IntStream intStream(String pipeline, int[] source){
+		Spliterator.OfInt sp = Arrays.spliterator(source);
+		return StreamSupport.intStream(sp, decide(ADVISOR, pipeline, sizeOf(sp)));
+	}
+
+	public static <T, R> R evaluate(String pipeline, Collection<T> source, Function<Stream<T>, R> terminal){
+		return evaluate(ADVISOR, pipeline, source.spliterator(), terminal);
+	}
+	public static <R> R evaluateInts(String pipeline, int[] source, Function<IntStream, R> terminal){
+		Spliterator.OfInt sp = Arrays.spliterator(source);
+		long size = sizeOf(sp);
+		boolean parallel = decide(ADVISOR, pipeline, size);
+		long start = System.nanoTime();
+		R result = terminal.apply(StreamSupport.intStream(sp, parallel));
+		ADVISOR.record(pipeline, size, parallel, parallelism(), System.nanoTime() - start);
+		return result;
+	}
+	public static <T, R> R evaluate(ParallelAdvisor advisor, String pipeline, Spliterator<T> source,
+			Function<Stream<T>, R> terminal){
+		long size = sizeOf(source);
+		boolean parallel = decide(advisor, pipeline, size);
+		long start = System.nanoTime();
+		R result = terminal.apply(StreamSupport.stream(source, parallel));
+		advisor.record(pipeline, size, parallel, parallelism(), System.nanoTime() - start);
+		return result;
+	}
+
+	static boolean decide(ParallelAdvisor advisor, String pipeline, long size){
+		return size >= 0 && advisor.shouldParallelize(pipeline, size, parallelism());
+	}
+	/**
+	 * Exact size when SIZED, the estimate when it is finite, -1 otherwise.
+	 */
+	static long sizeOf(Spliterator<?> sp){
+		long exact = sp.getExactSizeIfKnown();
+		if(exact >= 0){
+			return exact;
+		}
+		long estimate = sp.estimateSize();
+		return estimate == Long.MAX_VALUE ? -1 : estimate;
+	}
+	/**
+	 * Workers of the pool a parallel stream started here would use. The common
+	 * pool also runs tasks in the caller, but never more threads than cores.
+	 */
+	static int parallelism(){
+		if(ForkJoinTask.inForkJoinPool()){
+			return ForkJoinTask.getPool().getParallelism();
+		}
+		return Math.min(Runtime.getRuntime().availableProcessors(), ForkJoinPool.getCommonPoolParallelism() + 1);
+	}
+	/**
+	 * Advisor calibrated from {@code file}, or with the built-in thresholds if
+	 * there is no such file or it cannot be read; a bad file is logged, not
+	 * thrown, so it cannot break class initialization.
+	 */
+	static ParallelAdvisor loadAdvisor(String file){
+		ParallelAdvisor advisor = new ParallelAdvisor();
+		if(file == null){
+			return advisor;
+		}
+		try{
+			Path path = Paths.get(file);
+			if(Files.exists(path)){
+				advisor.load(path);
+			}
+			return advisor;
+		}catch(IOException | RuntimeException e){
+			LOG.warning("ignoring calibration file " + file + ", using the defaults: " + e);
+			return new ParallelAdvisor();
+		}
+	}
+	static Path calibrationFile(){
+		String file = System.getProperty(CALIBRATION_PROPERTY, "adaptive-calibration.properties");
+		return Paths.get(file);
+	}
+}
@@ -0,0 +1,164 @@
+package lee.parallel;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * A named {@link ForkJoinPool} of bounded size for parallel stream work.
+ * <p>
+ * A parallel stream whose terminal operation starts inside a ForkJoin task runs
+ * all its subtasks in that task's pool, so submitting the pipeline here keeps it
+ * off {@code ForkJoinPool.commonPool()}: one heavy aggregation can no longer take
+ * every common-pool worker from the rest of the process.
+ * <pre>
+ * BoundedStreamPool pool = BoundedStreamPool.named("report", 4);
+ * Map&lt;String, Double&gt; sums = pool.invoke(() -&gt; orders.parallelStream().collect(...));
+ * StreamJob&lt;Long&gt; job = pool.submit(t -&gt; t.guard(orders.parallelStream()).count(), 2, TimeUnit.SECONDS);
+ * </pre>
+ * At most {@code maxPendingJobs} jobs are admitted at a time, further submissions
+ * are rejected with {@link RejectedExecutionException}.
+ */
+public class BoundedStreamPool implements AutoCloseable {
+	private static final ConcurrentMap<String, BoundedStreamPool> POOLS = new ConcurrentHashMap<>();
+
+	private final String name;
+	private final ForkJoinPool pool;
+	private final Semaphore admission;
+	private final int maxPendingJobs;
+	private final AtomicLong completed = new AtomicLong();
+	private final AtomicLong rejected = new AtomicLong();
+
+	public BoundedStreamPool(String name, int parallelism) {
+		this(name, parallelism, Integer.MAX_VALUE);
+	}
+	public BoundedStreamPool(String name, int parallelism, int maxPendingJobs) {
+		if(maxPendingJobs <= 0){
+			throw new IllegalArgumentException("maxPendingJobs must be > 0: " + maxPendingJobs);
+		}
+		this.name = name;
+		this.maxPendingJobs = maxPendingJobs;
+		this.admission = new Semaphore(maxPendingJobs);
+		this.pool = new ForkJoinPool(parallelism, p -> {
+			ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+			t.setName(name + "-worker-" + t.getPoolIndex());
+			return t;
+		}, null, false);
+	}
+
+	/**
+	 * The shared pool called {@code name}, created on first use.
+	 *
+	 * @throws IllegalStateException if it exists with another parallelism
+	 */
+	public static BoundedStreamPool named(String name, int parallelism){
+		BoundedStreamPool p = POOLS.computeIfAbsent(name, n -> new BoundedStreamPool(n, parallelism));
+		if(p.parallelism() != parallelism){
+			throw new IllegalStateException("pool " + name + " exists with parallelism " + p.parallelism());
+		}
+		return p;
+	}
+
+	public String name(){
+		return name;
+	}
+	public int parallelism(){
+		return pool.getParallelism();
+	}
+
+	/**
+	 * Runs {@code pipeline} in this pool and waits for it.
+	 */
+	public <R> R invoke(Supplier<R> pipeline){
+		return submit(t -> pipeline.get()).join();
+	}
+	public <R> StreamJob<R> submit(Function<CancelToken, R> pipeline){
+		return submit(new CancelToken(Long.MAX_VALUE), pipeline);
+	}
+	/**
+	 * Submits {@code pipeline} with a deadline {@code timeout} from now, after which
+	 * its token reports cancelled and guarded pipelines fail with
+	 * {@code CancellationException}.
+	 */
+	public <R> StreamJob<R> submit(Function<CancelToken, R> pipeline, long timeout, TimeUnit unit){
+		return submit(new CancelToken(System.nanoTime() + unit.toNanos(timeout)), pipeline);
+	}
+
+	public PoolMetrics metrics(){
+		return new PoolMetrics(name, pool.getParallelism(), pool.getPoolSize(), pool.getActiveThreadCount(),
+				pool.getRunningThreadCount(), pool.getStealCount(), pool.getQueuedTaskCount(),
+				pool.getQueuedSubmissionCount(), maxPendingJobs - admission.availablePermits(),
+				completed.get(), rejected.get());
+	}
+
+	/**
+	 * Stops accepting jobs and removes the pool from the {@link #named} registry.
+	 * Running jobs finish.
+	 */
+	@Override
+	public void close(){
+		POOLS.remove(name, this);
+		pool.shutdown();
+	}
+	/**
+	 * Waits until no admitted job is left, e.g. after cancelling.
+	 */
+	public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		while(admission.availablePermits() != maxPendingJobs){
+			if(System.nanoTime() - deadline > 0){
+				return false;
+			}
+			Thread.sleep(1);
+		}
+		return true;
+	}
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		return pool.awaitTermination(timeout, unit);
+	}
+
+	private <R> StreamJob<R> submit(CancelToken token, Function<CancelToken, R> pipeline){
+		if(!admission.tryAcquire()){
+			rejected.incrementAndGet();
+			throw new RejectedExecutionException("pool " + name + " has " + maxPendingJobs + " pending jobs");
+		}
+		// whoever flips this first owns the permit: the task when it starts,
+		// or cancel() when the task never got to run
+		AtomicBoolean claimed = new AtomicBoolean();
+		Runnable releaseUnstarted = () -> {
+			if(claimed.compareAndSet(false, true)){
+				admission.release();
+			}
+		};
+		ForkJoinTask<R> task = ForkJoinTask.adapt(() -> {
+			if(!claimed.compareAndSet(false, true)){
+				throw new CancellationException("cancelled");
+			}
+			try{
+				token.checkpoint();
+				return pipeline.apply(token);
+			}finally{
+				completed.incrementAndGet();
+				admission.release();
+			}
+		});
+		try{
+			pool.execute(task);
+		}catch(RejectedExecutionException e){
+			releaseUnstarted.run();
+			rejected.incrementAndGet();
+			throw e;
+		}
+		return new StreamJob<>(task, token, releaseUnstarted);
+	}
+}
@@ -0,0 +1,84 @@
+package lee.parallel;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import lee.BenchData;
+import lee.Order;
+
+/**
+ * Measures the IntTest/StringTest/ReductionTest pipelines sequentially and saves
+ * their per-element cost, plus the fixed cost of going parallel, for
+ * {@link AdaptiveStreams} to load at startup.
+ * <pre>
+ * java -server -Dlee.adaptive.calibration=adaptive-calibration.properties lee.parallel.Calibration
+ * </pre>
+ * Pipeline keys are {@code minInt}, {@code minString} and {@code sumOrder}.
+ */
+public class Calibration {
+	private static final int TIMES = 8;
+
+	public static void main(String[] args) throws IOException {
+		ParallelAdvisor advisor = new ParallelAdvisor();
+		new Calibration().calibrate(advisor);
+		Path file = AdaptiveStreams.calibrationFile();
+		advisor.save(file);
+		System.out.println("calibration saved to " + file.toAbsolutePath());
+	}
+
+	public void calibrate(ParallelAdvisor advisor){
+		int[] small = BenchData.randomIntArray(1024);
+		int[] ints = BenchData.randomIntArray(1_000_000);
+		List<String> strings = BenchData.randomStringList(1_000_000);
+		List<Order> orders = Order.genOrders(1_000_000);
+		warmUp(small, ints, strings, orders);
+
+		// a parallel run over a tiny array is almost all fork/join cost
+		long seqSmall = time(() -> Arrays.stream(small).min().getAsInt());
+		long parSmall = time(() -> Arrays.stream(small).parallel().min().getAsInt());
+		advisor.setOverheadNs(Math.max(0, parSmall - seqSmall));
+		System.out.println(String.format("fork/join overhead: %.2f us", advisor.overheadNs() / 1000));
+
+		record(advisor, "minInt", ints.length, () -> Arrays.stream(ints).min().getAsInt());
+		record(advisor, "minString", strings.size(), () -> strings.stream().min(String::compareTo).get());
+		record(advisor, "sumOrder", orders.size(), () -> orders.stream().collect(
+				Collectors.groupingBy(Order::getUserName, Collectors.summingDouble(Order::getPrice))));
+	}
+
+	private void record(ParallelAdvisor advisor, String pipeline, int size, Supplier<?> run){
+		long ns = time(run);
+		advisor.setCostNs(pipeline, Math.max(Double.MIN_NORMAL, (double)ns / size));
+		System.out.println(String.format("%s: %.3f ns/element", pipeline, advisor.costNs(pipeline)));
+	}
+	private void warmUp(int[] small, int[] ints, List<String> strings, List<Order> orders){
+		for(int i=0; i<20000; i++){
+			Arrays.stream(small).min().getAsInt();
+			Arrays.stream(small).parallel().min().getAsInt();
+		}
+		for(int i=0; i<20; i++){
+			Arrays.stream(ints).min().getAsInt();
+			strings.stream().min(String::compareTo).get();
+			orders.stream().collect(
+					Collectors.groupingBy(Order::getUserName, Collectors.summingDouble(Order::getPrice)));
+		}
+	}
+	/**
+	 * Average nanoseconds of {@link #TIMES} runs.
+	 */
+	private static long time(Supplier<?> run){
+		Object sink = null;
+		long start = System.nanoTime();
+		for(int i=0; i<TIMES; i++){
+			sink = run.get();
+		}
+		long ns = (System.nanoTime() - start) / TIMES;
+		if(sink == null){
+			throw new AssertionError();
+		}
+		return ns;
+	}
+}
@@ -0,0 +1,99 @@
+package lee.parallel;
+
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Cancellation and deadline flag of one {@link BoundedStreamPool} job.
+ * <p>
+ * Cancelling a {@code ForkJoinTask} does not stop the leaf tasks of a parallel
+ * stream that are already running, so a pipeline has to poll: wrap its source with
+ * {@link #guard(Stream)}, or call {@link #checkpoint()} from a lambda. Both throw
+ * {@link CancellationException} once the job is cancelled or past its deadline,
+ * which unwinds every leaf of the pipeline.
+ */
+public final class CancelToken {
+	/** Elements between two polls of the flag in a guarded stream. */
+	static final int CHECK_INTERVAL = 1024;
+
+	private final long deadlineNanos;
+	private volatile String cancelled;
+
+	CancelToken(long deadlineNanos) {
+		this.deadlineNanos = deadlineNanos;
+	}
+
+	public boolean isCancelled(){
+		if(cancelled == null && deadlineNanos != Long.MAX_VALUE && System.nanoTime() - deadlineNanos > 0){
+			cancelled = "deadline exceeded";
+		}
+		return cancelled != null;
+	}
+	public void checkpoint(){
+		if(isCancelled()){
+			throw new CancellationException(cancelled);
+		}
+	}
+	public <T> Stream<T> guard(Stream<T> stream){
+		boolean parallel = stream.isParallel();
+		return StreamSupport.stream(new GuardedSpliterator<>(stream.spliterator()), parallel)
+				.onClose(stream::close);
+	}
+
+	void cancel(String reason){
+		if(cancelled == null){
+			cancelled = reason;
+		}
+	}
+
+	private final class GuardedSpliterator<T> implements Spliterator<T> {
+		private final Spliterator<T> source;
+
+		GuardedSpliterator(Spliterator<T> source) {
+			this.source = source;
+		}
+		@Override
+		public boolean tryAdvance(Consumer<? super T> action){
+			checkpoint();
+			return source.tryAdvance(action);
+		}
+		@Override
+		public void forEachRemaining(Consumer<? super T> action){
+			checkpoint();
+			int[] n = {0};
+			source.forEachRemaining(t -> {
+				if(++n[0] == CHECK_INTERVAL){
+					n[0] = 0;
+					checkpoint();
+				}
+				action.accept(t);
+			});
+		}
+		@Override
+		public Spliterator<T> trySplit(){
+			checkpoint();
+			Spliterator<T> prefix = source.trySplit();
+			return prefix == null ? null : new GuardedSpliterator<>(prefix);
+		}
+		@Override
+		public long estimateSize(){
+			return source.estimateSize();
+		}
+		@Override
+		public long getExactSizeIfKnown(){
+			return source.getExactSizeIfKnown();
+		}
+		@Override
+		public int characteristics(){
+			return source.characteristics();
+		}
+		@Override
+		public Comparator<? super T> getComparator(){
+			return source.getComparator();
+		}
+	}
+}
@@ -0,0 +1,116 @@
+package lee.parallel;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decides per pipeline whether {@code parallel()} pays off, from the source size
+ * and a per-element cost learned from earlier runs of the same pipeline.
+ * <p>
+ * With {@code N} elements costing {@code c} ns each on {@code P} workers the
+ * model is
+ * <pre>
+ * sequential = N * c
+ * parallel   = overhead + N * c / P
+ * </pre>
+ * and parallel wins when {@code N * c * (1 - 1/P) > overhead}. {@code overhead}
+ * is the fixed fork/join cost of a parallel pipeline, which the IntTest/StringTest
+ * measurements show to be tens of microseconds. A pipeline without samples is
+ * assumed to cost {@link #DEFAULT_COST_NS} per element.
+ * <p>
+ * Costs are updated with an exponential moving average and can be saved to and
+ * loaded from a properties file, see {@link Calibration}. Thread safe.
+ */
+public class ParallelAdvisor {
+	public static final double DEFAULT_COST_NS = 1.0;
+	public static final double DEFAULT_OVERHEAD_NS = 50_000;
+	static final String OVERHEAD_KEY = "forkJoinOverheadNs";
+	static final String COST_SUFFIX = ".nsPerElement";
+	private static final double ALPHA = 0.2;
+
+	private final Map<String, Double> costs = new ConcurrentHashMap<>();
+	private volatile double overheadNs = DEFAULT_OVERHEAD_NS;
+
+	/**
+	 * @param parallelism workers a parallel run gets
+	 */
+	public boolean shouldParallelize(String pipeline, long size, int parallelism){
+		if(parallelism <= 1 || size <= 1){
+			return false;
+		}
+		double work = size * costNs(pipeline);
+		return work * (1.0 - 1.0 / parallelism) > overheadNs;
+	}
+	/**
+	 * Feeds back one run. A parallel run is converted to a per-element cost
+	 * assuming linear speedup; a parallel run shorter than the overhead tells
+	 * nothing about the cost and is ignored.
+	 */
+	public void record(String pipeline, long size, boolean parallel, int parallelism, long elapsedNs){
+		if(size <= 0 || elapsedNs <= 0){
+			return;
+		}
+		double sample;
+		if(parallel){
+			double work = elapsedNs - overheadNs;
+			if(work <= 0){
+				return;
+			}
+			sample = work * Math.max(1, parallelism) / size;
+		}else{
+			sample = (double)elapsedNs / size;
+		}
+		costs.merge(pipeline, sample, (old, s) -> old + ALPHA * (s - old));
+	}
+	public double costNs(String pipeline){
+		return costs.getOrDefault(pipeline, DEFAULT_COST_NS);
+	}
+	public void setCostNs(String pipeline, double nsPerElement){
+		if(!(nsPerElement > 0)){
+			throw new IllegalArgumentException("cost must be > 0: " + nsPerElement);
+		}
+		costs.put(pipeline, nsPerElement);
+	}
+	public double overheadNs(){
+		return overheadNs;
+	}
+	public void setOverheadNs(double overheadNs){
+		if(!(overheadNs >= 0)){
+			throw new IllegalArgumentException("overhead must be >= 0: " + overheadNs);
+		}
+		this.overheadNs = overheadNs;
+	}
+
+	public void load(Path file) throws IOException {
+		Properties props = new Properties();
+		try(InputStream in = Files.newInputStream(file)){
+			props.load(in);
+		}
+		for(String name : props.stringPropertyNames()){
+			String value = props.getProperty(name);
+			try{
+				if(name.equals(OVERHEAD_KEY)){
+					setOverheadNs(Double.parseDouble(value));
+				}else if(name.endsWith(COST_SUFFIX)){
+					setCostNs(name.substring(0, name.length() - COST_SUFFIX.length()), Double.parseDouble(value));
+				}
+			}catch(IllegalArgumentException e){
+				throw new IOException("bad calibration entry " + name + "=" + value + " in " + file, e);
+			}
+		}
+	}
+	public void save(Path file) throws IOException {
+		Properties props = new Properties();
+		props.setProperty(OVERHEAD_KEY, Double.toString(overheadNs));
+		costs.forEach((k, v) -> props.setProperty(k + COST_SUFFIX, Double.toString(v)));
+		try(OutputStream out = Files.newOutputStream(file)){
+			props.store(out, "ParallelAdvisor calibration");
+		}
+	}
+}
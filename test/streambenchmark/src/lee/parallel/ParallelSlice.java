@@ -0,0 +1,347 @@
+package lee.parallel;
+
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * {@code skip}/{@code limit} for parallel streams without the JDK's buffering of
+ * ordered prefixes.
+ * <p>
+ * When the source is {@code SIZED} and {@code SUBSIZED} every split knows its
+ * absolute position, so splits wholly outside {@code [skip, skip + limit)} are
+ * dropped before any task is forked and the boundary leaves trim themselves.
+ * Encounter order is kept and the result stays sized.
+ * <p>
+ * Any other source falls back to a shared element budget: every leaf claims from
+ * it per element and all leaves stop, and stop splitting, as soon as it runs out.
+ * The result is then unordered (some {@code limit} elements, not the first ones),
+ * the same contract as {@code stream.unordered().limit(n)}; sequential streams
+ * still get the first ones.
+ */
+public final class ParallelSlice {
+	private ParallelSlice(){}
+
+	public static <T> Stream<T> limit(Stream<T> stream, long maxSize){
+		return slice(stream, 0, maxSize);
+	}
+	public static <T> Stream<T> skip(Stream<T> stream, long n){
+		return slice(stream, n, Long.MAX_VALUE);
+	}
+	/** Same elements as {@code stream.skip(skip).limit(limit)}. */
+	public static <T> Stream<T> slice(Stream<T> stream, long skip, long limit){
+		check(skip, limit);
+		Spliterator<T> source = stream.spliterator();
+		Spliterator<T> sliced = source.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED)
+				? new SizedSlice<>(source, 0, skip, end(skip, limit))
+				: new BudgetSlice<>(source, new Budget(skip, limit));
+		return StreamSupport.stream(sliced, stream.isParallel()).onClose(stream::close);
+	}
+
+	public static IntStream limit(IntStream stream, long maxSize){
+		return slice(stream, 0, maxSize);
+	}
+	public static IntStream skip(IntStream stream, long n){
+		return slice(stream, n, Long.MAX_VALUE);
+	}
+	/** Same elements as {@code stream.skip(skip).limit(limit)}. */
+	public static IntStream slice(IntStream stream, long skip, long limit){
+		check(skip, limit);
+		Spliterator.OfInt source = stream.spliterator();
+		Spliterator.OfInt sliced = source.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED)
+				? new SizedIntSlice(source, 0, skip, end(skip, limit))
+				: new BudgetIntSlice(source, new Budget(skip, limit));
+		return StreamSupport.intStream(sliced, stream.isParallel()).onClose(stream::close);
+	}
+
+	private static void check(long skip, long limit){
+		if(skip < 0) throw new IllegalArgumentException("skip " + skip);
+		if(limit < 0) throw new IllegalArgumentException("limit " + limit);
+	}
+	private static long end(long skip, long limit){
+		return limit > Long.MAX_VALUE - skip ? Long.MAX_VALUE : skip + limit;
+	}
+
+	/** Source positions {@code [lo, hi)} of a spliterator whose first element is at {@code index}. */
+	private static final class SizedSlice<T> implements Spliterator<T> {
+		private Spliterator<T> source;
+		private long index;
+		private final long lo, hi;
+
+		SizedSlice(Spliterator<T> source, long index, long lo, long hi) {
+			this.source = source;
+			this.index = index;
+			this.lo = lo;
+			this.hi = hi;
+		}
+		@Override
+		public Spliterator<T> trySplit(){
+			while(index < hi && index + source.estimateSize() > lo){
+				Spliterator<T> prefix = source.trySplit();
+				if(prefix == null){
+					return null;
+				}
+				long start = index;
+				index = start + prefix.getExactSizeIfKnown();
+				if(index <= lo){
+					continue;	// prefix wholly skipped
+				}
+				if(index >= hi){
+					source = prefix;	// suffix wholly past the limit
+					index = start;
+					continue;
+				}
+				return new SizedSlice<>(prefix, start, lo, hi);
+			}
+			return null;
+		}
+		@Override
+		public boolean tryAdvance(Consumer<? super T> action){
+			for(; index < lo; index++){
+				if(!source.tryAdvance(t -> {})) return false;
+			}
+			if(index < hi && source.tryAdvance(action)){
+				index++;
+				return true;
+			}
+			return false;
+		}
+		@Override
+		public void forEachRemaining(Consumer<? super T> action){
+			for(; index < lo; index++){
+				if(!source.tryAdvance(t -> {})) return;
+			}
+			long size = source.getExactSizeIfKnown();
+			if(index + size <= hi){
+				index += size;
+				source.forEachRemaining(action);
+				return;
+			}
+			for(; index < hi && source.tryAdvance(action); index++){
+			}
+		}
+		@Override
+		public long estimateSize(){
+			long end = Math.min(hi, index + source.estimateSize());
+			return Math.max(0, end - Math.max(lo, index));
+		}
+		@Override
+		public int characteristics(){
+			return source.characteristics();
+		}
+		@Override
+		public Comparator<? super T> getComparator(){
+			return source.getComparator();
+		}
+	}
+
+	private static final class SizedIntSlice implements Spliterator.OfInt {
+		private Spliterator.OfInt source;
+		private long index;
+		private final long lo, hi;
+
+		SizedIntSlice(Spliterator.OfInt source, long index, long lo, long hi) {
+			this.source = source;
+			this.index = index;
+			this.lo = lo;
+			this.hi = hi;
+		}
+		@Override
+		public Spliterator.OfInt trySplit(){
+			while(index < hi && index + source.estimateSize() > lo){
+				Spliterator.OfInt prefix = source.trySplit();
+				if(prefix == null){
+					return null;
+				}
+				long start = index;
+				index = start + prefix.getExactSizeIfKnown();
+				if(index <= lo){
+					continue;
+				}
+				if(index >= hi){
+					source = prefix;
+					index = start;
+					continue;
+				}
+				return new SizedIntSlice(prefix, start, lo, hi);
+			}
+			return null;
+		}
+		@Override
+		public boolean tryAdvance(IntConsumer action){
+			for(; index < lo; index++){
+				if(!source.tryAdvance((int x) -> {})) return false;
+			}
+			if(index < hi && source.tryAdvance(action)){
+				index++;
+				return true;
+			}
+			return false;
+		}
+		@Override
+		public void forEachRemaining(IntConsumer action){
+			for(; index < lo; index++){
+				if(!source.tryAdvance((int x) -> {})) return;
+			}
+			long size = source.getExactSizeIfKnown();
+			if(index + size <= hi){
+				index += size;
+				source.forEachRemaining(action);
+				return;
+			}
+			for(; index < hi && source.tryAdvance(action); index++){
+			}
+		}
+		@Override
+		public long estimateSize(){
+			long end = Math.min(hi, index + source.estimateSize());
+			return Math.max(0, end - Math.max(lo, index));
+		}
+		@Override
+		public int characteristics(){
+			return source.characteristics();
+		}
+		@Override
+		public Comparator<? super Integer> getComparator(){
+			return source.getComparator();
+		}
+	}
+
+	/** Elements still to drop and to pass, shared by every leaf of one unsized slice. */
+	private static final class Budget {
+		static final int DROP = 0, PASS = 1, STOP = 2;
+
+		private final AtomicLong toSkip;
+		private final AtomicLong toTake;
+		private final boolean unlimited;
+
+		Budget(long skip, long limit) {
+			this.toSkip = new AtomicLong(skip);
+			this.toTake = new AtomicLong(limit);
+			this.unlimited = limit == Long.MAX_VALUE;
+		}
+		boolean exhausted(){
+			return !unlimited && toTake.get() <= 0;
+		}
+		/** Claims one element that has already been read from the source. */
+		int claim(){
+			if(toSkip.get() > 0 && toSkip.getAndDecrement() > 0){
+				return DROP;
+			}
+			if(unlimited){
+				return PASS;
+			}
+			return toTake.getAndDecrement() > 0 ? PASS : STOP;
+		}
+		int characteristics(int source){
+			return source & ~(Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.ORDERED | Spliterator.SORTED);
+		}
+	}
+
+	private static final class BudgetSlice<T> implements Spliterator<T>, Consumer<T> {
+		private final Spliterator<T> source;
+		private final Budget budget;
+		private T current;
+
+		BudgetSlice(Spliterator<T> source, Budget budget) {
+			this.source = source;
+			this.budget = budget;
+		}
+		@Override
+		public void accept(T t){
+			current = t;
+		}
+		@Override
+		public boolean tryAdvance(Consumer<? super T> action){
+			while(!budget.exhausted() && source.tryAdvance(this)){
+				T t = current;
+				current = null;
+				switch(budget.claim()){
+				case Budget.PASS:
+					action.accept(t);
+					return true;
+				case Budget.STOP:
+					return false;
+				default:
+				}
+			}
+			return false;
+		}
+		@Override
+		public void forEachRemaining(Consumer<? super T> action){
+			while(tryAdvance(action)){
+			}
+		}
+		@Override
+		public Spliterator<T> trySplit(){
+			if(budget.exhausted()){
+				return null;
+			}
+			Spliterator<T> prefix = source.trySplit();
+			return prefix == null ? null : new BudgetSlice<>(prefix, budget);
+		}
+		@Override
+		public long estimateSize(){
+			return source.estimateSize();
+		}
+		@Override
+		public int characteristics(){
+			return budget.characteristics(source.characteristics());
+		}
+	}
+
+	private static final class BudgetIntSlice implements Spliterator.OfInt, IntConsumer {
+		private final Spliterator.OfInt source;
+		private final Budget budget;
+		private int current;
+
+		BudgetIntSlice(Spliterator.OfInt source, Budget budget) {
+			this.source = source;
+			this.budget = budget;
+		}
+		@Override
+		public void accept(int x){
+			current = x;
+		}
+		@Override
+		public boolean tryAdvance(IntConsumer action){
+			while(!budget.exhausted() && source.tryAdvance((IntConsumer)this)){
+				switch(budget.claim()){
+				case Budget.PASS:
+					action.accept(current);
+					return true;
+				case Budget.STOP:
+					return false;
+				default:
+				}
+			}
+			return false;
+		}
+		@Override
+		public void forEachRemaining(IntConsumer action){
+			while(tryAdvance(action)){
+			}
+		}
+		@Override
+		public Spliterator.OfInt trySplit(){
+			if(budget.exhausted()){
+				return null;
+			}
+			Spliterator.OfInt prefix = source.trySplit();
+			return prefix == null ? null : new BudgetIntSlice(prefix, budget);
+		}
+		@Override
+		public long estimateSize(){
+			return source.estimateSize();
+		}
+		@Override
+		public int characteristics(){
+			return budget.characteristics(source.characteristics());
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package lee.parallel;
+
+/**
+ * Point-in-time counters of a {@link BoundedStreamPool}.
+ */
+public final class PoolMetrics {
+	private final String name;
+	private final int parallelism;
+	private final int poolSize;
+	private final int activeThreads;
+	private final int runningThreads;
+	private final long stealCount;
+	private final long queuedTasks;
+	private final int queuedSubmissions;
+	private final int pendingJobs;
+	private final long completedJobs;
+	private final long rejectedJobs;
+
+	PoolMetrics(String name, int parallelism, int poolSize, int activeThreads, int runningThreads,
+			long stealCount, long queuedTasks, int queuedSubmissions, int pendingJobs,
+			long completedJobs, long rejectedJobs) {
+		this.name = name;
+		this.parallelism = parallelism;
+		this.poolSize = poolSize;
+		this.activeThreads = activeThreads;
+		this.runningThreads = runningThreads;
+		this.stealCount = stealCount;
+		this.queuedTasks = queuedTasks;
+		this.queuedSubmissions = queuedSubmissions;
+		this.pendingJobs = pendingJobs;
+		this.completedJobs = completedJobs;
+		this.rejectedJobs = rejectedJobs;
+	}
+
+	public String getName(){
+		return name;
+	}
+	public int getParallelism(){
+		return parallelism;
+	}
+	/** Worker threads started so far. */
+	public int getPoolSize(){
+		return poolSize;
+	}
+	/** Workers stealing or running tasks. */
+	public int getActiveThreads(){
+		return activeThreads;
+	}
+	/** Workers not blocked waiting to join. */
+	public int getRunningThreads(){
+		return runningThreads;
+	}
+	public long getStealCount(){
+		return stealCount;
+	}
+	/** Forked subtasks sitting in worker queues: the pool's queue depth. */
+	public long getQueuedTasks(){
+		return queuedTasks;
+	}
+	/** Jobs submitted but not yet picked up by a worker. */
+	public int getQueuedSubmissions(){
+		return queuedSubmissions;
+	}
+	/** Jobs admitted and not yet finished. */
+	public int getPendingJobs(){
+		return pendingJobs;
+	}
+	public long getCompletedJobs(){
+		return completedJobs;
+	}
+	public long getRejectedJobs(){
+		return rejectedJobs;
+	}
+
+	@Override
+	public String toString(){
+		return "PoolMetrics[" + name + ": parallelism=" + parallelism + ", poolSize=" + poolSize
+				+ ", active=" + activeThreads + ", running=" + runningThreads + ", steals=" + stealCount
+				+ ", queuedTasks=" + queuedTasks + ", queuedSubmissions=" + queuedSubmissions
+				+ ", pending=" + pendingJobs + ", completed=" + completedJobs + ", rejected=" + rejectedJobs + "]";
+	}
+}
@@ -0,0 +1,77 @@
+package lee.parallel;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A pipeline submitted to a {@link BoundedStreamPool}. Cancelling it flags its
+ * {@link CancelToken}, so guarded pipelines stop at their next checkpoint
+ * instead of running to completion in the background.
+ */
+public final class StreamJob<R> implements Future<R> {
+	private final ForkJoinTask<R> task;
+	private final CancelToken token;
+	private final Runnable releaseUnstarted;
+
+	StreamJob(ForkJoinTask<R> task, CancelToken token, Runnable releaseUnstarted) {
+		this.task = task;
+		this.token = token;
+		this.releaseUnstarted = releaseUnstarted;
+	}
+
+	@Override
+	public boolean cancel(boolean mayInterruptIfRunning){
+		token.cancel("cancelled");
+		boolean cancelled = task.cancel(mayInterruptIfRunning);
+		releaseUnstarted.run();
+		return cancelled;
+	}
+	@Override
+	public boolean isCancelled(){
+		return task.isCancelled() || (task.isDone() && token.isCancelled());
+	}
+	@Override
+	public boolean isDone(){
+		return task.isDone();
+	}
+	@Override
+	public R get() throws InterruptedException, ExecutionException {
+		try{
+			return task.get();
+		}catch(ExecutionException e){
+			throw unwrap(e);
+		}
+	}
+	/**
+	 * Waits at most the given time; on timeout the job is cancelled
+	 * before {@link TimeoutException} is thrown.
+	 */
+	@Override
+	public R get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+		try{
+			return task.get(timeout, unit);
+		}catch(ExecutionException e){
+			throw unwrap(e);
+		}catch(TimeoutException e){
+			cancel(false);
+			throw e;
+		}
+	}
+	/**
+	 * Like {@link #get()} but rethrows failures unchecked, as {@code join()} does.
+	 */
+	public R join(){
+		return task.join();
+	}
+
+	private static ExecutionException unwrap(ExecutionException e){
+		if(e.getCause() instanceof CancellationException){
+			throw (CancellationException)e.getCause();
+		}
+		return e;
+	}
+}
@@ -0,0 +1,30 @@
+package lee.reduce;
+
+import java.util.Objects;
+import java.util.function.DoubleBinaryOperator;
+import java.util.stream.DoubleStream;
+
+/**
+ * {@link Monoid} over {@code double} without boxing.
+ */
+public interface DoubleMonoid extends DoubleBinaryOperator {
+	double identity();
+
+	default double reduce(DoubleStream stream){
+		return stream.reduce(identity(), this);
+	}
+
+	static DoubleMonoid of(double identity, DoubleBinaryOperator op){
+		Objects.requireNonNull(op);
+		return new DoubleMonoid(){
+			@Override
+			public double identity(){
+				return identity;
+			}
+			@Override
+			public double applyAsDouble(double a, double b){
+				return op.applyAsDouble(a, b);
+			}
+		};
+	}
+}
@@ -0,0 +1,30 @@
+package lee.reduce;
+
+import java.util.Objects;
+import java.util.function.IntBinaryOperator;
+import java.util.stream.IntStream;
+
+/**
+ * {@link Monoid} over {@code int} without boxing.
+ */
+public interface IntMonoid extends IntBinaryOperator {
+	int identity();
+
+	default int reduce(IntStream stream){
+		return stream.reduce(identity(), this);
+	}
+
+	static IntMonoid of(int identity, IntBinaryOperator op){
+		Objects.requireNonNull(op);
+		return new IntMonoid(){
+			@Override
+			public int identity(){
+				return identity;
+			}
+			@Override
+			public int applyAsInt(int a, int b){
+				return op.applyAsInt(a, b);
+			}
+		};
+	}
+}
@@ -0,0 +1,30 @@
+package lee.reduce;
+
+import java.util.Objects;
+import java.util.function.LongBinaryOperator;
+import java.util.stream.LongStream;
+
+/**
+ * {@link Monoid} over {@code long} without boxing.
+ */
+public interface LongMonoid extends LongBinaryOperator {
+	long identity();
+
+	default long reduce(LongStream stream){
+		return stream.reduce(identity(), this);
+	}
+
+	static LongMonoid of(long identity, LongBinaryOperator op){
+		Objects.requireNonNull(op);
+		return new LongMonoid(){
+			@Override
+			public long identity(){
+				return identity;
+			}
+			@Override
+			public long applyAsLong(long a, long b){
+				return op.applyAsLong(a, b);
+			}
+		};
+	}
+}
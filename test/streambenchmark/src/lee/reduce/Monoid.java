@@ -0,0 +1,33 @@
+package lee.reduce;
+
+import java.util.Objects;
+import java.util.function.BinaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * Associative operation with an identity: the contract
+ * {@code Stream.reduce(identity, op)} needs to give the same result sequentially
+ * and in parallel. {@link ReducerCheck} tests an implementation against it.
+ */
+public interface Monoid<T> extends BinaryOperator<T> {
+	/** Neutral element; must be immutable, every leaf of a parallel reduce starts from it. */
+	T identity();
+
+	default T reduce(Stream<T> stream){
+		return stream.reduce(identity(), this);
+	}
+
+	static <T> Monoid<T> of(T identity, BinaryOperator<T> op){
+		Objects.requireNonNull(op);
+		return new Monoid<T>(){
+			@Override
+			public T identity(){
+				return identity;
+			}
+			@Override
+			public T apply(T a, T b){
+				return op.apply(a, b);
+			}
+		};
+	}
+}
@@ -0,0 +1,104 @@
+package lee.reduce;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collector;
+
+/**
+ * Monoids that are associative by construction, plus mutable-container
+ * collectors for the cases where combining immutable values would copy on
+ * every step (set union, histogram).
+ * <p>
+ * {@code int}/{@code long} sums wrap on overflow, which is still associative.
+ * {@link #DOUBLE_SUM} is associative only up to rounding: a parallel sum can
+ * differ in the last bits from the sequential one.
+ */
+public final class Monoids {
+	public static final IntMonoid INT_SUM = IntMonoid.of(0, Integer::sum);
+	public static final IntMonoid INT_MIN = IntMonoid.of(Integer.MAX_VALUE, Math::min);
+	public static final IntMonoid INT_MAX = IntMonoid.of(Integer.MIN_VALUE, Math::max);
+	public static final LongMonoid LONG_SUM = LongMonoid.of(0L, Long::sum);
+	public static final LongMonoid LONG_MIN = LongMonoid.of(Long.MAX_VALUE, Math::min);
+	public static final LongMonoid LONG_MAX = LongMonoid.of(Long.MIN_VALUE, Math::max);
+	public static final DoubleMonoid DOUBLE_SUM = DoubleMonoid.of(0.0, Double::sum);
+	public static final DoubleMonoid DOUBLE_MIN = DoubleMonoid.of(Double.POSITIVE_INFINITY, Math::min);
+	public static final DoubleMonoid DOUBLE_MAX = DoubleMonoid.of(Double.NEGATIVE_INFINITY, Math::max);
+
+	private static final Monoid<String> CONCAT = Monoid.of("", String::concat);
+
+	private Monoids(){}
+
+	public static Monoid<String> concat(){
+		return CONCAT;
+	}
+	/**
+	 * Joins with {@code delimiter}. The empty string is the identity, so empty
+	 * elements vanish instead of producing doubled delimiters; that is what makes
+	 * the operation associative.
+	 */
+	public static Monoid<String> concat(String delimiter){
+		return Monoid.of("", (a, b) -> a.isEmpty() ? b : b.isEmpty() ? a : a + delimiter + b);
+	}
+
+	/** Union of immutable sets; the result is a new unmodifiable set. */
+	public static <T> Monoid<Set<T>> union(){
+		return Monoid.of(Collections.<T>emptySet(), (a, b) -> {
+			if(a.isEmpty()) return b;
+			if(b.isEmpty()) return a;
+			Set<T> u = new HashSet<>(a);
+			u.addAll(b);
+			return Collections.unmodifiableSet(u);
+		});
+	}
+	/** Counts per key of immutable histograms; the result is a new unmodifiable map. */
+	public static <K> Monoid<Map<K, Long>> histogram(){
+		return Monoid.of(Collections.<K, Long>emptyMap(), (a, b) -> {
+			if(a.isEmpty()) return b;
+			if(b.isEmpty()) return a;
+			Map<K, Long> h = new HashMap<>(a);
+			b.forEach((k, n) -> h.merge(k, n, Long::sum));
+			return Collections.unmodifiableMap(h);
+		});
+	}
+
+	/** Mutable union: one {@code HashSet} per leaf, the smaller merged into the larger. */
+	public static <T> Collector<Collection<? extends T>, ?, Set<T>> toUnion(){
+		return Collector.<Collection<? extends T>, Set<T>>of(HashSet::new, Set::addAll, (a, b) -> {
+			if(a.size() < b.size()){
+				b.addAll(a);
+				return b;
+			}
+			a.addAll(b);
+			return a;
+		}, Collector.Characteristics.UNORDERED, Collector.Characteristics.IDENTITY_FINISH);
+	}
+	/** Mutable histogram: one {@code HashMap} of {@code long[1]} counters per leaf. */
+	public static <T, K> Collector<T, ?, Map<K, Long>> toHistogram(Function<? super T, ? extends K> classifier){
+		return Collector.<T, Map<K, long[]>, Map<K, Long>>of(HashMap::new,
+				(m, t) -> m.computeIfAbsent(classifier.apply(t), k -> new long[1])[0]++,
+				(a, b) -> {
+					if(a.size() < b.size()){
+						Map<K, long[]> swap = a;
+						a = b;
+						b = swap;
+					}
+					for(Map.Entry<K, long[]> e : b.entrySet()){
+						long[] c = a.putIfAbsent(e.getKey(), e.getValue());
+						if(c != null){
+							c[0] += e.getValue()[0];
+						}
+					}
+					return a;
+				},
+				m -> {
+					Map<K, Long> out = new HashMap<>(m.size() * 4 / 3 + 1);
+					m.forEach((k, c) -> out.put(k, c[0]));
+					return out;
+				}, Collector.Characteristics.UNORDERED);
+	}
+}
@@ -0,0 +1,192 @@
+package lee.reduce;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+import java.util.function.BinaryOperator;
+import java.util.stream.Collector;
+
+/**
+ * Test-mode harness for reducers: folds a sample sequentially, then again under
+ * many random fork/join split trees (including empty leaves, which exercise the
+ * identity) and reports the first tree whose result differs.
+ * <p>
+ * The trees are drawn from {@code seed}, independent of thread scheduling, so a
+ * reported counterexample reproduces. A passing check is evidence, not proof:
+ * use a sample with the kinds of values production sees.
+ * <pre>
+ * ReducerCheck.check(words, "", (acc, s) -&gt; acc + s, (a, b) -&gt; a + "|" + b, 100, 1).orThrow();
+ * </pre>
+ */
+public final class ReducerCheck {
+	public static final int DEFAULT_TRIALS = 200;
+	private static final int MAX_DEPTH = 64;
+
+	private ReducerCheck(){}
+
+	/** Outcome of a check. */
+	public static final class Result {
+		private final int trials;
+		private final String counterexample;
+
+		Result(int trials, String counterexample) {
+			this.trials = trials;
+			this.counterexample = counterexample;
+		}
+		public boolean passed(){
+			return counterexample == null;
+		}
+		/** Split tree, expected and actual result of the first failure, or null. */
+		public String counterexample(){
+			return counterexample;
+		}
+		public Result orThrow(){
+			if(!passed()){
+				throw new AssertionError("reducer is not split-invariant: " + counterexample);
+			}
+			return this;
+		}
+		@Override
+		public String toString(){
+			return passed() ? "passed " + trials + " split trees" : "failed: " + counterexample;
+		}
+	}
+
+	public static <T> Result check(List<T> sample, Monoid<T> monoid){
+		return check(sample, monoid, DEFAULT_TRIALS, 1);
+	}
+	public static <T> Result check(List<T> sample, Monoid<T> monoid, int trials, long seed){
+		return check(sample, monoid.identity(), monoid, monoid, trials, seed);
+	}
+
+	/** Checks the three-argument {@code Stream.reduce(identity, accumulator, combiner)}. */
+	public static <T, U> Result check(List<T> sample, U identity, BiFunction<U, ? super T, U> accumulator,
+			BinaryOperator<U> combiner, int trials, long seed){
+		return run(sample.size(), (from, to) -> {
+			U acc = identity;
+			for(int i=from; i<to; i++){
+				acc = accumulator.apply(acc, sample.get(i));
+			}
+			return acc;
+		}, combiner, Objects::equals, trials, seed);
+	}
+
+	/** Checks a collector: a fresh container per leaf, then its combiner and finisher. */
+	public static <T, A, R> Result check(List<T> sample, Collector<? super T, A, R> collector, int trials, long seed){
+		return run(sample.size(), (from, to) -> {
+			A container = collector.supplier().get();
+			for(int i=from; i<to; i++){
+				collector.accumulator().accept(container, sample.get(i));
+			}
+			return container;
+		}, collector.combiner(), (a, b) -> Objects.equals(finish(collector, a), finish(collector, b)), trials, seed);
+	}
+
+	public static Result check(int[] sample, IntMonoid monoid, int trials, long seed){
+		return run(sample.length, (from, to) -> {
+			int acc = monoid.identity();
+			for(int i=from; i<to; i++){
+				acc = monoid.applyAsInt(acc, sample[i]);
+			}
+			return acc;
+		}, monoid::applyAsInt, Integer::equals, trials, seed);
+	}
+	public static Result check(long[] sample, LongMonoid monoid, int trials, long seed){
+		return run(sample.length, (from, to) -> {
+			long acc = monoid.identity();
+			for(int i=from; i<to; i++){
+				acc = monoid.applyAsLong(acc, sample[i]);
+			}
+			return acc;
+		}, monoid::applyAsLong, Long::equals, trials, seed);
+	}
+	/**
+	 * Floating-point reductions are associative only up to rounding, so results
+	 * within {@code relativeTolerance} of each other count as equal.
+	 */
+	public static Result check(double[] sample, DoubleMonoid monoid, double relativeTolerance, int trials, long seed){
+		return run(sample.length, (from, to) -> {
+			double acc = monoid.identity();
+			for(int i=from; i<to; i++){
+				acc = monoid.applyAsDouble(acc, sample[i]);
+			}
+			return acc;
+		}, monoid::applyAsDouble, (a, b) -> a.equals(b)
+				|| Math.abs(a - b) <= relativeTolerance * Math.max(Math.abs(a), Math.abs(b)), trials, seed);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <A, R> R finish(Collector<?, A, R> collector, A container){
+		return collector.characteristics().contains(Collector.Characteristics.IDENTITY_FINISH)
+				? (R)container : collector.finisher().apply(container);
+	}
+
+	/** Folds {@code [from, to)} from the identity. */
+	private interface Leaf<A> {
+		A fold(int from, int to);
+	}
+
+	private static <A> Result run(int n, Leaf<A> leaf, BinaryOperator<A> combiner, BiPredicate<A, A> same,
+			int trials, long seed){
+		SplittableRandom seeds = new SplittableRandom(seed);
+		for(int t=0; t<trials; t++){
+			A expected = leaf.fold(0, n);
+			Node<A> actual = ForkJoinPool.commonPool().invoke(new Split<>(leaf, combiner, 0, n, 0, seeds.split()));
+			if(!same.test(expected, actual.value)){
+				return new Result(t + 1, "tree " + actual.shape + " gave " + actual.value + ", sequential gave " + expected);
+			}
+		}
+		return new Result(trials, null);
+	}
+
+	private static final class Node<A> {
+		final A value;
+		final String shape;
+
+		Node(A value, String shape) {
+			this.value = value;
+			this.shape = shape;
+		}
+	}
+
+	/**
+	 * One node of a random split tree: stops with probability 1/3 per level, and
+	 * usually at ranges of 0 or 1 elements, which still split now and then to
+	 * combine identities.
+	 */
+	private static final class Split<A> extends RecursiveTask<Node<A>> {
+		private static final long serialVersionUID = 1L;
+
+		private final Leaf<A> leaf;
+		private final BinaryOperator<A> combiner;
+		private final int from, to, depth;
+		private final SplittableRandom random;
+
+		Split(Leaf<A> leaf, BinaryOperator<A> combiner, int from, int to, int depth, SplittableRandom random) {
+			this.leaf = leaf;
+			this.combiner = combiner;
+			this.from = from;
+			this.to = to;
+			this.depth = depth;
+			this.random = random;
+		}
+		@Override
+		protected Node<A> compute(){
+			boolean tiny = to - from <= 1;
+			if(depth >= MAX_DEPTH || (tiny ? random.nextInt(4) != 0 : random.nextInt(3) == 0)){
+				return new Node<>(leaf.fold(from, to), "[" + from + "," + to + ")");
+			}
+			int mid = from + random.nextInt(to - from + 1);
+			Split<A> left = new Split<>(leaf, combiner, from, mid, depth + 1, random.split());
+			Split<A> right = new Split<>(leaf, combiner, mid, to, depth + 1, random.split());
+			left.fork();
+			Node<A> r = right.compute();
+			Node<A> l = left.join();
+			return new Node<>(combiner.apply(l.value, r.value), "(" + l.shape + " + " + r.shape + ")");
+		}
+	}
+}
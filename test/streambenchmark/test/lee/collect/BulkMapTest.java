@@ -0,0 +1,112 @@
+package lee.collect;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+public class BulkMapTest {
+
+	private static Map<Integer, Long> hashMap(int from, int to){
+		Map<Integer, Long> map = new HashMap<>();
+		for(int i=from; i<to; i++){
+			map.put(i, (long)i * 3);
+		}
+		return map;
+	}
+
+	@Test
+	public void replaceAllMatchesHashMap() {
+		for(long threshold : new long[]{1, 100, Long.MAX_VALUE}){
+			Map<Integer, Long> expected = hashMap(-1000, 50000);
+			BulkMap<Integer, Long> bulk = new BulkMap<>(new ConcurrentHashMap<>(expected), threshold);
+			expected.replaceAll((k, v) -> v + k);
+			bulk.replaceAll((k, v) -> v + k);
+			assertEquals(expected, bulk.map());
+		}
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void replaceAllRejectsNull() {
+		new BulkMap<>(new ConcurrentHashMap<>(hashMap(0, 100)), 1).replaceAll((k, v) -> null);
+	}
+
+	@Test
+	public void forEachVisitsEveryEntryOnce() {
+		BulkMap<Integer, Long> bulk = new BulkMap<>(new ConcurrentHashMap<>(hashMap(0, 100000)), 1);
+		LongAdder count = new LongAdder();
+		LongAdder sum = new LongAdder();
+		bulk.forEach((k, v) -> {
+			count.increment();
+			sum.add(v);
+		});
+		assertEquals(100000, count.sum());
+		assertEquals(3L * 99999 * 100000 / 2, sum.sum());
+	}
+
+	@Test
+	public void mergeAllFromEitherMapKind() {
+		Map<Integer, Long> other = hashMap(25000, 75000);
+		Map<Integer, Long> expected = hashMap(0, 50000);
+		other.forEach((k, v) -> expected.merge(k, v, Long::sum));
+		for(long threshold : new long[]{1, Long.MAX_VALUE}){
+			BulkMap<Integer, Long> fromHashMap = new BulkMap<>(new ConcurrentHashMap<>(hashMap(0, 50000)), threshold);
+			fromHashMap.mergeAll(other, Long::sum);
+			assertEquals(expected, fromHashMap.map());
+
+			BulkMap<Integer, Long> fromConcurrent = new BulkMap<>(new ConcurrentHashMap<>(hashMap(0, 50000)), threshold);
+			fromConcurrent.mergeAll(new ConcurrentHashMap<>(other), Long::sum);
+			assertEquals(expected, fromConcurrent.map());
+		}
+		BulkMap<Integer, Long> removing = new BulkMap<>(new ConcurrentHashMap<>(hashMap(0, 100)), 1);
+		removing.mergeAll(hashMap(50, 150), (a, b) -> null);
+		assertEquals(100, removing.size());
+		assertFalse(removing.map().containsKey(75));
+	}
+
+	@Test
+	public void intLongBulkOperations() {
+		for(long threshold : new long[]{1, Long.MAX_VALUE}){
+			IntLongBulkMap bulk = new IntLongBulkMap(0, threshold);
+			Map<Integer, Long> expected = hashMap(-1000, 50000);
+			expected.forEach(bulk::put);
+			assertEquals(expected, bulk.toMap());
+			assertEquals(expected.size(), bulk.size());
+
+			expected.replaceAll((k, v) -> v * 2 - k);
+			bulk.replaceAll((k, v) -> v * 2 - k);
+			assertEquals(expected, bulk.toMap());
+
+			IntLongBulkMap other = new IntLongBulkMap();
+			IntLongHashMap plain = new IntLongHashMap();
+			for(int i=40000; i<60000; i++){
+				other.put(i, i);
+				plain.put(i, 1);
+				expected.merge(i, (long)i + 1, Long::sum);
+			}
+			bulk.mergeAll(other, Long::sum);
+			bulk.mergeAll(plain, Long::sum);
+			assertEquals(expected, bulk.toMap());
+
+			LongAdder sum = new LongAdder();
+			bulk.forEach((k, v) -> sum.add(v));
+			assertEquals(expected.values().stream().mapToLong(Long::longValue).sum(), sum.sum());
+		}
+	}
+
+	@Test
+	public void intLongConcurrentPointUpdates() {
+		IntLongBulkMap bulk = new IntLongBulkMap();
+		IntStream.range(0, 200000).parallel().forEach(i -> bulk.addTo(i % 1000, 1));
+		assertEquals(1000, bulk.size());
+		for(int k=0; k<1000; k++){
+			assertEquals(200L, bulk.getOrDefault(k, -1));
+		}
+	}
+}
@@ -0,0 +1,124 @@
+package lee.collect;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import lee.Order;
+
+public class CompactSetMultimapTest {
+
+	@Test
+	public void matchesHashMapOfHashSets() {
+		SplittableRandom r = new SplittableRandom(7);
+		Map<Integer, Set<Integer>> expected = new HashMap<>();
+		CompactSetMultimap<Integer, Integer> compact = new CompactSetMultimap<>(16, 4);
+		for(int i=0; i<100000; i++){
+			int k = r.nextInt(2000);
+			int v = r.nextInt(20);
+			boolean remove = r.nextInt(4) == 0;
+			if(remove){
+				Set<Integer> set = expected.get(k);
+				boolean had = set != null && set.remove(v);
+				if(set != null && set.isEmpty()){
+					expected.remove(k);
+				}
+				assertEquals(had, compact.remove(k, v));
+			}else{
+				assertEquals(expected.computeIfAbsent(k, x -> new HashSet<>()).add(v), compact.put(k, v));
+			}
+		}
+		assertEquals(expected, compact.toMap());
+		assertEquals(expected.values().stream().mapToInt(Set::size).sum(), compact.size());
+		for(Map.Entry<Integer, Set<Integer>> e : expected.entrySet()){
+			assertEquals(e.getValue(), compact.get(e.getKey()));
+			assertEquals(e.getValue().size(), compact.count(e.getKey()));
+		}
+	}
+
+	@Test
+	public void groupsGrowFromSingleToArrayToSet() {
+		CompactSetMultimap<String, String> m = new CompactSetMultimap<>(16, 3);
+		Set<String> view = m.get("k");
+		assertTrue(view.isEmpty());
+		for(String v : Arrays.asList("a", "b", "c", "d", "a")){
+			m.put("k", v);
+		}
+		assertEquals(new HashSet<>(Arrays.asList("a", "b", "c", "d")), view);
+		assertTrue(m.containsEntry("k", "d"));
+		assertFalse(m.containsEntry("k", "e"));
+		for(String v : Arrays.asList("a", "b", "c", "d")){
+			assertTrue(m.remove("k", v));
+		}
+		assertFalse(m.containsKey("k"));
+		assertTrue(m.isEmpty());
+	}
+
+	@Test
+	public void arrayValuesAreNotMistakenForGroups() {
+		CompactSetMultimap<String, Object> m = new CompactSetMultimap<>();
+		Object[] value = {"x", "y"};
+		m.put("k", value);
+		assertEquals(1, m.count("k"));
+		assertTrue(m.get("k").contains(value));
+		m.put("k", "z");
+		assertTrue(m.remove("k", "z"));
+		assertEquals(1, m.count("k"));
+		assertTrue(m.get("k").iterator().next() == value);
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void viewIsReadOnly() {
+		CompactSetMultimap<String, String> m = new CompactSetMultimap<>();
+		m.put("k", "a");
+		m.get("k").add("b");
+	}
+
+	@Test
+	public void collectorsMatchGroupingBy() {
+		List<Order> orders = Order.genOrders(20000);
+		Map<String, Set<Order>> expected = orders.stream().collect(
+				Collectors.groupingBy(Order::getUserName, Collectors.toSet()));
+		assertEquals(expected, orders.parallelStream().collect(
+				CompactSetMultimap.toMultimap(Order::getUserName, Function.identity())).toMap());
+		assertEquals(expected, orders.parallelStream().collect(
+				ConcurrentSetMultimap.toMultimap(Order::getUserName, Function.identity())).toMap());
+	}
+
+	@Test
+	public void indexCollectorsAddEveryKey() {
+		List<String> docs = Arrays.asList("a b c", "b c", "c", "a c d");
+		Function<String, List<String>> terms = d -> Arrays.asList(d.split(" "));
+		Map<String, Set<String>> expected = new HashMap<>();
+		for(String d : docs){
+			for(String t : terms.apply(d)){
+				expected.computeIfAbsent(t, x -> new HashSet<>()).add(d);
+			}
+		}
+		assertEquals(expected, docs.stream().collect(CompactSetMultimap.toIndex(terms, Function.identity())).toMap());
+		assertEquals(expected, docs.parallelStream().collect(ConcurrentSetMultimap.toIndex(terms, Function.identity())).toMap());
+	}
+
+	@Test
+	public void concurrentPutsAndRemoves() {
+		ConcurrentSetMultimap<Integer, Integer> m = new ConcurrentSetMultimap<>(16, 4);
+		IntStream.range(0, 200000).parallel().forEach(i -> m.put(i % 100, i / 100 % 25));
+		assertEquals(100 * 25, m.size());
+		IntStream.range(0, 200000).parallel().forEach(i -> m.remove(i % 100, i / 100 % 25));
+		assertEquals(0, m.size());
+		assertTrue(m.isEmpty());
+	}
+}
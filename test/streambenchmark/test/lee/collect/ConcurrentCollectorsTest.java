@@ -0,0 +1,59 @@
+package lee.collect;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BinaryOperator;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import lee.Order;
+
+public class ConcurrentCollectorsTest {
+
+	@Test
+	public void matchesGroupingBy() {
+		List<Order> orders = Order.genOrders(20000);
+		Map<String, Double> sums = orders.stream().collect(
+				Collectors.groupingBy(Order::getUserName, Collectors.summingDouble(Order::getPrice)));
+		assertEquals(sums, orders.parallelStream().collect(
+				ConcurrentCollectors.groupingSumDouble(Order::getUserName, Order::getPrice)));
+		assertEquals(sums, orders.stream().collect(
+				ConcurrentCollectors.groupingSumDouble(Order::getUserName, Order::getPrice)));
+
+		Map<String, Long> counts = orders.stream().collect(
+				Collectors.groupingBy(Order::getUserName, Collectors.counting()));
+		assertEquals(counts, orders.parallelStream().collect(
+				ConcurrentCollectors.groupingCount(Order::getUserName)));
+
+		Map<String, Double> max = orders.stream().collect(
+				Collectors.toMap(Order::getUserName, Order::getPrice, Math::max));
+		assertEquals(max, orders.parallelStream().collect(
+				ConcurrentCollectors.groupingMaxDouble(Order::getUserName, Order::getPrice)));
+	}
+
+	@Test
+	public void combinerMergesCells() {
+		Collector<String, ?, ConcurrentHashMap<String, LongAdder>> c =
+				ConcurrentCollectors.groupingCountCells(s -> s);
+		assertEquals(3L, combine(c, "a", "a", "b").get("a").sum());
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <A> ConcurrentHashMap<String, LongAdder> combine(
+			Collector<String, A, ConcurrentHashMap<String, LongAdder>> c, String... left) {
+		A a = c.supplier().get();
+		A b = c.supplier().get();
+		for(String s : left){
+			c.accumulator().accept(a, s);
+		}
+		c.accumulator().accept(b, "a");
+		BinaryOperator<A> combiner = c.combiner();
+		return (ConcurrentHashMap<String, LongAdder>) combiner.apply(a, b);
+	}
+}
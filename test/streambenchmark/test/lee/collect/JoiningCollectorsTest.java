@@ -0,0 +1,55 @@
+package lee.collect;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+public class JoiningCollectorsTest {
+
+	@Test
+	public void matchesCollectorsJoining() {
+		for(int n : new int[]{0, 1, 2, 15, 16, 17, 8192, 8193, 100000}){
+			List<String> words = IntStream.range(0, n).mapToObj(i -> "w" + i).collect(Collectors.toList());
+			assertEquals(words.stream().collect(Collectors.joining(",", "{", "}")),
+					words.stream().collect(JoiningCollectors.joining(",", "{", "}")));
+			assertEquals(words.stream().collect(Collectors.joining(", ")),
+					words.parallelStream().collect(JoiningCollectors.joining(", ")));
+			assertEquals(words.stream().collect(Collectors.joining()),
+					words.parallelStream().collect(JoiningCollectors.joining()));
+		}
+	}
+
+	@Test
+	public void largeParallelJoinKeepsOrder() {
+		List<CharSequence> parts = new ArrayList<>();
+		for(int i=0; i<300000; i++){
+			parts.add(i % 3 == 0 ? new StringBuilder("sb").append(i) : "s" + i);
+		}
+		String expected = parts.stream().collect(Collectors.joining("|", "[", "]"));
+		assertEquals(expected, parts.parallelStream().collect(JoiningCollectors.joining("|", "[", "]")));
+	}
+
+	@Test
+	public void writesUtf8ToChannel() {
+		List<String> rows = Arrays.asList("id,name", "1,Zoë", "2,测试", "3,😀");
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		long written = rows.parallelStream().collect(JoiningCollectors.toChannel(Channels.newChannel(out), "\n", "", "\n"));
+		byte[] expected = (String.join("\n", rows) + "\n").getBytes(StandardCharsets.UTF_8);
+		assertEquals(expected.length, written);
+		assertEquals(new String(expected, StandardCharsets.UTF_8), new String(out.toByteArray(), StandardCharsets.UTF_8));
+
+		out.reset();
+		assertEquals(2, Stream.<String>empty().collect(JoiningCollectors.toChannel(Channels.newChannel(out), ",", "[", "]")).longValue());
+		assertEquals("[]", new String(out.toByteArray(), StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,115 @@
+package lee.collect;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import lee.Order;
+
+public class KeyDictionaryTest {
+
+	@Test
+	public void denseIdsInFirstSeenOrder() {
+		KeyDictionary<String> dict = new KeyDictionary<>(4);
+		assertEquals(0, dict.encode("a"));
+		assertEquals(1, dict.encode("b"));
+		assertEquals(0, dict.encode("a"));
+		assertEquals(-1, dict.lookup("c"));
+		assertEquals(2, dict.size());
+		assertEquals("b", dict.key(1));
+	}
+
+	@Test
+	public void parallelEncodingIsConsistent() {
+		List<Order> orders = Order.genOrders(100000);
+		KeyDictionary<String> dict = new KeyDictionary<>();
+		int[] ids = dict.encodeAll(orders, Order::getUserName, true);
+		Set<String> names = new HashSet<>();
+		for(int i=0; i<ids.length; i++){
+			String name = orders.get(i).getUserName();
+			names.add(name);
+			assertEquals(name, dict.key(ids[i]));
+		}
+		assertEquals(names.size(), dict.size());
+	}
+
+	@Test
+	public void sumsMatchHashMap() {
+		List<Order> orders = Order.genOrders(50000);
+		Map<String, Double> expected = new HashMap<>();
+		for(Order od : orders){
+			expected.merge(od.getUserName(), od.getPrice(), Double::sum);
+		}
+		KeyDictionary<String> dict = new KeyDictionary<>();
+		assertEquals(expected, dict.toMap(orders.parallelStream().collect(
+				DictionaryCollectors.groupingSumDouble(dict, Order::getUserName, Order::getPrice))));
+		int[] ids = dict.encodeAll(orders, Order::getUserName, false);
+		double[] prices = orders.stream().mapToDouble(Order::getPrice).toArray();
+		assertEquals(expected, dict.toMap(dict.sumById(ids, prices)));
+	}
+
+	@Test
+	public void readersBoundedBySizeSeeEveryKey() throws Exception {
+		KeyDictionary<Integer> dict = new KeyDictionary<>(64);
+		AtomicBoolean done = new AtomicBoolean();
+		Thread reader = new Thread(() -> {
+			while(!done.get()){
+				int n = dict.size();
+				for(int id=Math.max(0, n - 64); id<n; id++){
+					assertNotNull(dict.key(id));
+				}
+			}
+		});
+		Throwable[] failure = new Throwable[1];
+		reader.setUncaughtExceptionHandler((t, e) -> failure[0] = e);
+		reader.start();
+		IntStream.range(0, 200000).parallel().forEach(dict::encode);
+		done.set(true);
+		reader.join();
+		if(failure[0] != null){
+			throw new AssertionError(failure[0]);
+		}
+		assertEquals(200000, dict.size());
+		assertEquals(200000, dict.toMap(new double[dict.size()]).size());
+	}
+
+	@Test(timeout = 10000)
+	public void failedPublishDoesNotBlockLaterEncodes() throws Exception {
+		KeyDictionary<String> dict = new KeyDictionary<String>(1){
+			@Override
+			void publish(int id, String key){
+				if(key.equals("boom")){
+					throw new OutOfMemoryError("simulated");
+				}
+				super.publish(id, key);
+			}
+		};
+		assertEquals(0, dict.encode("a"));
+		try{
+			dict.encode("boom");
+			fail("publish should have failed");
+		}catch(OutOfMemoryError expected){
+		}
+		assertEquals(2, dict.size());
+		assertNull(dict.key(1));
+		assertEquals(-1, dict.lookup("boom"));
+		// same stripe, from another thread: must not wait for id 1
+		assertEquals(2, (int)CompletableFuture.supplyAsync(() -> dict.encode("b")).get(5, TimeUnit.SECONDS));
+		IntStream.range(0, 1000).parallel().forEach(i -> dict.encode("k" + i));
+		assertEquals(1003, dict.size());
+		assertEquals(1002, dict.toMap(new double[dict.size()]).size());
+	}
+}
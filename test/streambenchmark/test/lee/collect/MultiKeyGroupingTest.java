@@ -0,0 +1,65 @@
+package lee.collect;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import lee.Order;
+
+public class MultiKeyGroupingTest {
+
+	private static MultiKeyGrouping<Order> byUserAndBand(){
+		return MultiKeyGrouping.<Order>by(Order::getUserName)
+				.thenBy(o -> o.getPrice() >= 500)
+				.sum("total", Order::getPrice)
+				.min("cheapest", Order::getPrice)
+				.max("largest", Order::getPrice)
+				.list("prices", Order::getPrice);
+	}
+
+	@Test
+	public void nestedViewsMatchNestedGroupingBy() {
+		List<Order> orders = Order.genOrders(50000);
+		for(boolean parallel : new boolean[]{false, true}){
+			GroupedTable t = (parallel ? orders.parallelStream() : orders.stream()).collect(byUserAndBand().collector());
+
+			assertEquals(orders.stream().collect(Collectors.groupingBy(Order::getUserName,
+					Collectors.groupingBy(o -> o.getPrice() >= 500, Collectors.counting()))), t.asMap(MultiKeyGrouping.COUNT));
+			assertEquals(orders.stream().collect(Collectors.groupingBy(Order::getUserName,
+					Collectors.groupingBy(o -> o.getPrice() >= 500, Collectors.summingDouble(Order::getPrice)))), t.asMap("total"));
+			assertEquals(orders.stream().collect(Collectors.groupingBy(Order::getUserName,
+					Collectors.groupingBy(o -> o.getPrice() >= 500, Collectors.mapping(Order::getPrice, Collectors.toList())))), t.asMap("prices"));
+			Map<String, Map<Boolean, Double>> max = orders.stream().collect(Collectors.groupingBy(Order::getUserName,
+					Collectors.groupingBy(o -> o.getPrice() >= 500, Collectors.collectingAndThen(
+							Collectors.maxBy((a, b) -> Double.compare(a.getPrice(), b.getPrice())), o -> o.get().getPrice()))));
+			assertEquals(max, t.asMap("largest"));
+		}
+	}
+
+	@Test
+	public void flatAccessByGroupId() {
+		List<Order> orders = Arrays.asList(new Order("a", 10, 0), new Order("b", 600, 0),
+				new Order("a", 700, 0), new Order("a", 30, 0));
+		GroupedTable t = orders.stream().collect(byUserAndBand().collector());
+		assertEquals(3, t.size());
+		int g = t.find("a", false);
+		assertEquals(0, g);
+		assertEquals(2, t.count(g));
+		assertEquals(40, t.value("total", g), 0);
+		assertEquals(10, t.value("cheapest", g), 0);
+		assertEquals(30, t.value("largest", g), 0);
+		assertEquals(Arrays.asList(10.0, 30.0), t.list("prices", g));
+		assertEquals("b", t.key(1, 0));
+		assertEquals(-1, t.find("b", false));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void duplicateAggregationNameRejected() {
+		MultiKeyGrouping.<Order>by(Order::getUserName).sum("x", Order::getPrice).max("x", Order::getPrice);
+	}
+}
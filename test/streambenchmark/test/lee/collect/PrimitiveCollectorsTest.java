@@ -0,0 +1,81 @@
+package lee.collect;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import lee.Order;
+
+public class PrimitiveCollectorsTest {
+
+	@Test
+	public void sumDoubleMatchesGroupingBy() {
+		List<Order> orders = Order.genOrders(20000);
+		Map<String, Double> expected = orders.stream().collect(
+				Collectors.groupingBy(Order::getUserName, Collectors.summingDouble(Order::getPrice)));
+		assertEquals(expected, orders.stream().collect(
+				PrimitiveCollectors.groupingSumDouble(Order::getUserName, Order::getPrice)).toMap());
+		assertEquals(expected, orders.parallelStream().collect(
+				PrimitiveCollectors.groupingSumDouble(Order::getUserName, Order::getPrice)).toMap());
+	}
+
+	@Test
+	public void minMaxCount() {
+		List<Order> orders = Order.genOrders(20000);
+		Map<String, Long> counts = orders.stream().collect(
+				Collectors.groupingBy(Order::getUserName, Collectors.counting()));
+		assertEquals(counts, orders.parallelStream().collect(
+				PrimitiveCollectors.groupingCount(Order::getUserName)).toMap());
+		ObjDoubleHashMap<String> min = orders.parallelStream().collect(
+				PrimitiveCollectors.groupingMinDouble(Order::getUserName, Order::getPrice));
+		ObjDoubleHashMap<String> max = orders.parallelStream().collect(
+				PrimitiveCollectors.groupingMaxDouble(Order::getUserName, Order::getPrice));
+		for(Order od : orders){
+			assertFalse(min.getOrDefault(od.getUserName(), Double.NaN) > od.getPrice());
+			assertFalse(max.getOrDefault(od.getUserName(), Double.NaN) < od.getPrice());
+		}
+	}
+
+	@Test
+	public void intKeysIncludingZero() {
+		IntLongHashMap sums = IntStream.range(-500, 100000).boxed().parallel().collect(
+				PrimitiveCollectors.groupingIntSumLong(i -> i % 7, i -> i));
+		Map<Integer, Long> expected = IntStream.range(-500, 100000).boxed().collect(
+				Collectors.groupingBy(i -> i % 7, Collectors.summingLong(i -> i)));
+		assertEquals(expected, sums.toMap());
+		assertEquals(13, sums.size());
+
+		IntLongHashMap max = IntStream.range(0, 1000).boxed().collect(
+				PrimitiveCollectors.groupingIntMaxLong(i -> i % 3, i -> -i));
+		assertEquals(0L, max.getOrDefault(0, 1L));
+		assertEquals(-1L, max.getOrDefault(1, 1L));
+	}
+
+	@Test
+	public void putAndAddToAcrossRehash() {
+		IntLongHashMap map = new IntLongHashMap(4);
+		for(int i=1; i<=100000; i++){
+			map.addTo(i, i);
+			map.addTo(i, 1);
+		}
+		for(int i=-1; i>=-1000; i--){
+			map.put(i, i);
+		}
+		assertEquals(101000, map.size());
+		for(int i=1; i<=100000; i++){
+			assertEquals(i + 1L, map.getOrDefault(i, -1));
+		}
+		assertEquals(-1000L, map.getOrDefault(-1000, 0));
+
+		IntLongHashMap counts = IntStream.range(0, 100000).boxed().collect(
+				PrimitiveCollectors.groupingIntCount(i -> i));
+		assertEquals(100000, counts.size());
+		assertEquals(1L, counts.getOrDefault(99999, 0));
+	}
+}
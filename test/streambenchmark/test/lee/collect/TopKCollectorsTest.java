@@ -0,0 +1,51 @@
+package lee.collect;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import lee.BenchData;
+
+public class TopKCollectorsTest {
+
+	@Test
+	public void matchesSortedLimit() {
+		List<String> list = BenchData.randomStringList(50000);
+		for(int k : new int[]{1, 10, 1000}){
+			List<String> expected = list.stream().sorted().limit(k).collect(Collectors.toList());
+			assertEquals(expected, list.parallelStream().collect(TopKCollectors.smallestStrings(k)));
+			assertEquals(expected, list.parallelStream().collect(TopKCollectors.smallest(k, String::compareTo)));
+			List<String> largest = list.stream().sorted(Comparator.reverseOrder()).limit(k).collect(Collectors.toList());
+			assertEquals(largest, list.parallelStream().collect(TopKCollectors.largestStrings(k)));
+			assertEquals(largest, list.stream().collect(TopKCollectors.largest(k, String::compareTo)));
+		}
+	}
+
+	@Test
+	public void prefixEdgeCases() {
+		List<String> words = Arrays.asList("ab", "ab\u0000", "abcdefgh", "abcdefghi", "abcdefgg",
+				"", "ÿ", "Ā", "中文", "a中", "abcdefgh中", "zz", "a");
+		List<String> expected = words.stream().sorted().collect(Collectors.toList());
+		assertEquals(expected, words.stream().collect(TopKCollectors.smallestStrings(words.size())));
+		assertEquals(expected.subList(0, 5), words.stream().collect(TopKCollectors.smallestStrings(5)));
+		assertEquals(Arrays.asList("中文", "Ā"),
+				words.stream().collect(TopKCollectors.largestStrings(2)));
+	}
+
+	@Test
+	public void fewerThanK() {
+		assertEquals(Arrays.asList("a", "b"), Stream.of("b", "a").collect(TopKCollectors.smallestStrings(5)));
+		assertEquals(Arrays.asList(), Stream.<String>empty().collect(TopKCollectors.smallestStrings(5)));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void zeroK() {
+		TopKCollectors.smallestStrings(0);
+	}
+}
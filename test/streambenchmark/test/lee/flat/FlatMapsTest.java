@@ -0,0 +1,98 @@
+package lee.flat;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+public class FlatMapsTest {
+
+	private static List<List<Integer>> nested(int outer, long seed){
+		Random r = new Random(seed);
+		List<List<Integer>> lists = new ArrayList<>(outer);
+		for(int i=0; i<outer; i++){
+			lists.add(r.ints(r.nextInt(5), 0, 100).boxed().collect(Collectors.toList()));
+		}
+		return lists;
+	}
+
+	@Test
+	public void matchesFlatMapSequentialAndParallel() {
+		List<List<Integer>> lists = nested(20000, 1);
+		List<Integer> expected = lists.stream().flatMap(List::stream).collect(Collectors.toList());
+		for(boolean parallel : new boolean[]{false, true}){
+			Stream<List<Integer>> s1 = parallel ? lists.parallelStream() : lists.stream();
+			assertEquals(expected, FlatMaps.<List<Integer>, Integer>mapMulti(s1, (l, sink) -> l.forEach(sink)).collect(Collectors.toList()));
+			Stream<List<Integer>> s2 = parallel ? lists.parallelStream() : lists.stream();
+			assertEquals(expected, FlatMaps.flatMapCollection(s2, l -> l).collect(Collectors.toList()));
+			Stream<List<Integer>> s3 = parallel ? lists.parallelStream() : lists.stream();
+			assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(),
+					FlatMaps.mapMultiToInt(s3, (List<Integer> l, IntConsumer sink) -> l.forEach(sink::accept)).toArray());
+			Stream<List<Integer>> s4 = parallel ? lists.parallelStream() : lists.stream();
+			assertEquals(expected.stream().mapToLong(Integer::longValue).sum(),
+					FlatMaps.mapMultiToLong(s4, (List<Integer> l, LongConsumer sink) -> l.forEach(sink::accept)).sum());
+			Stream<List<Integer>> s5 = parallel ? lists.parallelStream() : lists.stream();
+			assertEquals(expected.size(), FlatMaps.mapMultiToDouble(s5, (List<Integer> l, DoubleConsumer sink) -> l.forEach(sink::accept)).count());
+		}
+	}
+
+	@Test
+	public void shortCircuitUsesTryAdvance() {
+		List<List<Integer>> lists = nested(1000, 2);
+		List<Integer> expected = lists.stream().flatMap(List::stream).limit(7).collect(Collectors.toList());
+		assertEquals(expected, FlatMaps.<List<Integer>, Integer>mapMulti(lists.stream(), (l, sink) -> l.forEach(sink)).limit(7).collect(Collectors.toList()));
+		assertEquals(expected, FlatMaps.flatMapCollection(lists.stream(), l -> l).limit(7).collect(Collectors.toList()));
+		int[][] arrays = {{1, 2}, {}, {3}, {4, 5, 6}};
+		assertArrayEquals(new int[]{1, 2, 3, 4}, FlatMaps.flatMapToInt(Stream.of(arrays), a -> a).limit(4).toArray());
+		assertArrayEquals(new int[]{1, 2, 3}, FlatMaps.mapMultiToInt(Stream.of(arrays), (int[] a, IntConsumer sink) -> {
+			for(int x : a) sink.accept(x);
+		}).limit(3).toArray());
+	}
+
+	@Test
+	public void splitsInsideLargeInnerCollections() {
+		int[][] arrays = {IntStream.range(0, 1_000_000).toArray(), IntStream.range(0, 10).toArray()};
+		Spliterator.OfInt s = FlatMaps.flatMapToInt(Arrays.stream(arrays), a -> a).spliterator();
+		Spliterator.OfInt prefix = s.trySplit();	// outer splits: {big} | {small}
+		Spliterator.OfInt inside = prefix.trySplit();	// one outer element left: split the big array
+		assertEquals(500_000, inside.estimateSize());
+		assertEquals(IntStream.concat(IntStream.range(0, 1_000_000), IntStream.range(0, 10)).asLongStream().sum(),
+				FlatMaps.flatMapToInt(Arrays.stream(arrays).parallel(), a -> a).asLongStream().sum());
+
+		List<List<Integer>> big = Arrays.asList(IntStream.range(0, 300_000).boxed().collect(Collectors.toList()));
+		assertEquals(big.get(0), FlatMaps.flatMapCollection(big.parallelStream(), l -> l).collect(Collectors.toList()));
+	}
+
+	@Test
+	public void splitsOuterAfterEstimateSize() {
+		List<int[]> arrays = IntStream.range(0, 1_000_000).mapToObj(i -> new int[]{i, i, i}).collect(Collectors.toList());
+		Spliterator.OfInt s = FlatMaps.flatMapToInt(arrays.stream(), a -> a).spliterator();
+		assertEquals(3_000_000, s.estimateSize());	// opens the first array
+		Spliterator.OfInt open = s.trySplit();
+		assertEquals(3, open.estimateSize());
+		Spliterator.OfInt half = s.trySplit();
+		assertEquals(1_499_997, half.estimateSize(), 3);
+		assertEquals(1_500_000, s.estimateSize(), 3);
+
+		List<List<Integer>> lists = nested(100_000, 3);
+		Spliterator<Integer> c = FlatMaps.flatMapCollection(lists.stream(), l -> l).spliterator();
+		c.estimateSize();
+		c.trySplit();
+		Spliterator<Integer> prefix = c.trySplit();
+		assertEquals(c.estimateSize(), prefix.estimateSize(), c.estimateSize() / 10);
+		assertEquals(IntStream.range(0, 1_000_000).asLongStream().sum() * 3,
+				FlatMaps.flatMapToInt(arrays.parallelStream(), a -> a).asLongStream().sum());
+	}
+}
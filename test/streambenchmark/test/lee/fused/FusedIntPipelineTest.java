@@ -0,0 +1,59 @@
+package lee.fused;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+public class FusedIntPipelineTest {
+
+	@Test
+	public void terminalsMatchIntStream() {
+		int[] a = new Random(42).ints(10000, -1000, 1000).toArray();
+		assertEquals(IntStream.of(a).map(x -> x * 3).filter(x -> (x & 1) == 0).asLongStream().sum(),
+				FusedIntPipeline.of(a).map(x -> x * 3).filter(x -> (x & 1) == 0).sum());
+		assertEquals(IntStream.of(a).filter(x -> x > 0).count(),
+				FusedIntPipeline.of(a).filter(x -> x > 0).count());
+		assertEquals(IntStream.of(a).reduce(Integer.MAX_VALUE, Math::min),
+				FusedIntPipeline.of(a).reduce(Integer.MAX_VALUE, Math::min));
+		assertEquals(IntStream.range(-5, 100).skip(3).limit(50).map(x -> x - 1).sum(),
+				FusedIntPipeline.range(-5, 100).skip(3).limit(50).map(x -> x - 1).sum());
+		assertEquals(0, FusedIntPipeline.range(10, 0).count());
+		assertEquals(0, FusedIntPipeline.of(new int[0]).limit(0).sum());
+	}
+
+	@Test
+	public void limitShortCircuitsUpstreamPeek() {
+		List<Integer> expected = new ArrayList<>(), actual = new ArrayList<>();
+		IntStream.range(1, 10).peek(expected::add).skip(2).limit(3).forEach(expected::add);
+		FusedIntPipeline.range(1, 10).peek(actual::add).skip(2).limit(3).forEach(actual::add);
+		assertEquals(expected, actual);
+
+		expected.clear();
+		actual.clear();
+		IntStream.range(1, 20).peek(expected::add).filter(x -> x % 3 == 0).limit(2).skip(1).forEach(expected::add);
+		FusedIntPipeline.range(1, 20).peek(actual::add).filter(x -> x % 3 == 0).limit(2).skip(1).forEach(actual::add);
+		assertEquals(expected, actual);
+	}
+
+	@Test
+	public void sharedPrefixAndCachedShapes() {
+		FusedIntPipeline evens = FusedIntPipeline.range(0, 100).filter(x -> (x & 1) == 0);
+		assertEquals(50, evens.count());
+		assertEquals(10, evens.limit(10).count());
+		assertEquals(50, evens.count());
+		// same shape and lambda classes, different captured values
+		for(int k=1; k<5; k++){
+			final int m = k;
+			int[] out = new int[3];
+			int[] pos = {0};
+			FusedIntPipeline.range(0, 3).map(x -> x * m).forEach(x -> out[pos[0]++] = x);
+			assertArrayEquals(new int[]{0, m, 2 * m}, out);
+		}
+	}
+}
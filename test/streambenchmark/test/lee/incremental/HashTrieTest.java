@@ -0,0 +1,84 @@
+package lee.incremental;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class HashTrieTest {
+
+	/** Key with a deliberately tiny hash range to force collision chains. */
+	static final class Colliding {
+		final int id;
+
+		Colliding(int id) {
+			this.id = id;
+		}
+		@Override
+		public int hashCode(){
+			return id % 7;
+		}
+		@Override
+		public boolean equals(Object o){
+			return o instanceof Colliding && ((Colliding)o).id == id;
+		}
+	}
+
+	@Test
+	public void matchesHashMapUnderRandomEdits() {
+		Random r = new Random(42);
+		Map<Object, Integer> expected = new HashMap<>();
+		HashTrie.Editor<Object, Integer> editor = HashTrie.<Object, Integer>empty().edit();
+		HashTrie<Object, Integer> published = editor.publish();
+		for(int i=0; i<200000; i++){
+			Object key = r.nextBoolean() ? (Object)r.nextInt(5000) : new Colliding(r.nextInt(300));
+			int op = r.nextInt(10);
+			if(op == 0){
+				expected.remove(key);
+				editor.remove(key);
+			}else{
+				expected.merge(key, 1, Integer::sum);
+				editor.merge(key, 1, Integer::sum);
+			}
+			if(i % 1000 == 0){
+				published = editor.publish();
+				assertEquals(expected, published.asMap());
+			}
+		}
+		published = editor.publish();
+		assertEquals(expected.size(), published.size());
+		assertEquals(expected, published.asMap());
+	}
+
+	@Test
+	public void publishedVersionsAreImmutableAndDiffable() {
+		HashTrie.Editor<Integer, String> editor = HashTrie.<Integer, String>empty().edit();
+		for(int i=0; i<10000; i++){
+			editor.put(i, "v" + i);
+		}
+		HashTrie<Integer, String> v1 = editor.publish();
+		editor.put(5, "five");
+		editor.put(10000, "new");
+		editor.remove(7);
+		HashTrie<Integer, String> v2 = editor.publish();
+
+		assertEquals("v5", v1.get(5));
+		assertEquals("v7", v1.get(7));
+		assertFalse(v1.containsKey(10000));
+		assertEquals("five", v2.get(5));
+		assertNull(v2.get(7));
+
+		Map<Integer, String> changes = new HashMap<>();
+		v2.diff(v1, changes::put);
+		Map<Integer, String> expected = new HashMap<>();
+		expected.put(5, "five");
+		expected.put(10000, "new");
+		expected.put(7, null);
+		assertEquals(expected, changes);
+	}
+}
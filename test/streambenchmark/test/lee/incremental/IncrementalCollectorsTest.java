@@ -0,0 +1,97 @@
+package lee.incremental;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import lee.Order;
+
+public class IncrementalCollectorsTest {
+
+	@Test
+	public void snapshotsMatchTerminalCollectorsAfterEachBatch() {
+		List<Order> orders = Order.genOrders(20000);
+		IncrementalCollector<Order, List<Order>> list = IncrementalCollectors.toList();
+		IncrementalCollector<Order, HashTrie<String, Long>> counts = IncrementalCollectors.groupingByCounting(Order::getUserName);
+		IncrementalCollector<Order, HashTrie<String, Double>> sums = IncrementalCollectors.groupingBySumDouble(Order::getUserName, Order::getPrice);
+		IncrementalCollector<Order, HashTrie<String, List<Double>>> prices = IncrementalCollectors.groupingByMapping(Order::getUserName, Order::getPrice);
+		IncrementalCollector<Order, HashTrie<Boolean, List<Order>>> cheap = IncrementalCollectors.partitioningBy(o -> o.getPrice() < 100);
+
+		List<List<Order>> snapshots = new ArrayList<>();
+		for(int from=0; from<orders.size(); from+=3000){
+			List<Order> batch = orders.subList(from, Math.min(orders.size(), from + 3000));
+			list.append(batch);
+			counts.append(batch);
+			sums.append(batch);
+			prices.append(batch);
+			cheap.append(batch);
+			snapshots.add(list.snapshot());
+
+			List<Order> seen = orders.subList(0, from + batch.size());
+			assertEquals(seen, list.snapshot());
+			assertEquals(seen.stream().collect(Collectors.groupingBy(Order::getUserName, Collectors.counting())), counts.snapshot().asMap());
+			assertEquals(seen.stream().collect(Collectors.groupingBy(Order::getUserName, Collectors.summingDouble(Order::getPrice))), sums.snapshot().asMap());
+			assertEquals(seen.stream().collect(Collectors.groupingBy(Order::getUserName, Collectors.mapping(Order::getPrice, Collectors.toList()))), prices.snapshot().asMap());
+			assertEquals(seen.stream().collect(Collectors.partitioningBy(o -> o.getPrice() < 100)), cheap.snapshot().asMap());
+		}
+		// earlier snapshots are unaffected by later appends
+		for(int i=0; i<snapshots.size(); i++){
+			assertEquals(Math.min(orders.size(), (i + 1) * 3000), snapshots.get(i).size());
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void toMapRejectsDuplicateKeys() {
+		IncrementalCollector<String, HashTrie<Integer, String>> byLength = IncrementalCollectors.toMap(String::length, s -> s);
+		byLength.append(Arrays.asList("a", "bb"));
+		byLength.add("c");
+	}
+
+	@Test
+	public void slidingWindowSubtractsExpiredPanes() {
+		WindowedAggregates<Order, String> w = WindowedAggregates.sliding(Order::getUserName, Order::getTimestamp, Order::getPrice, 30, 10);
+		w.append(Arrays.asList(new Order("a", 1, 0), new Order("b", 2, 5), new Order("a", 4, 12)));
+		assertEquals(2, w.snapshot().groups().get("a").count());
+		assertEquals(5.0, w.snapshot().groups().get("a").sum(), 0);
+		assertEquals(-10, w.snapshot().start());
+
+		w.add(new Order("a", 8, 31));	// window [10, 40): pane [0, 10) expires
+		WindowedAggregates.Window<String> now = w.snapshot();
+		assertEquals(10, now.start());
+		assertEquals(12.0, now.groups().get("a").sum(), 0);
+		assertNull(now.groups().get("b"));
+		assertEquals(2, w.closed().groups().size());
+
+		w.add(new Order("b", 100, 3));	// behind the window
+		assertEquals(1, w.snapshot().late());
+
+		Map<String, WindowedAggregates.Aggregate> changed = new HashMap<>();
+		w.snapshot().groups().diff(now.groups(), changed::put);
+		assertEquals(0, changed.size());
+	}
+
+	@Test
+	public void tumblingWindowMatchesRecompute() {
+		List<Order> orders = new ArrayList<>();
+		for(int i=0; i<5000; i++){
+			orders.add(new Order("u" + (i % 17), i % 100, i));
+		}
+		WindowedAggregates<Order, String> w = WindowedAggregates.tumbling(Order::getUserName, Order::getTimestamp, Order::getPrice, 1000);
+		w.append(orders.subList(0, 2500));
+		w.append(orders.subList(2500, 5000));
+		Map<String, Long> expected = orders.stream().filter(o -> o.getTimestamp() >= 4000)
+				.collect(Collectors.groupingBy(Order::getUserName, Collectors.counting()));
+		Map<String, Long> actual = new HashMap<>();
+		w.snapshot().groups().forEach((k, a) -> actual.put(k, a.count()));
+		assertEquals(expected, actual);
+		assertEquals(3000, w.closed().start());
+	}
+}
@@ -0,0 +1,187 @@
+package lee.instrument;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import org.junit.After;
+import org.junit.Test;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import lee.Order;
+
+public class InstrumentedStreamTest {
+	private static final List<Order> ORDERS = Order.genOrders(20_000);
+
+	@After
+	public void clear() {
+		Instrumentation.reset();
+		Instrumentation.enableAll(false);
+	}
+
+	@Test
+	public void sameResultsAsStream() {
+		Map<String, Double> expected = ORDERS.stream().filter(o -> o.getPrice() > 100)
+				.collect(Collectors.groupingBy(Order::getUserName, Collectors.summingDouble(Order::getPrice)));
+		List<Integer> expectedList = IntStream.range(0, 1000).boxed().flatMap(i -> IntStream.range(0, i % 4).boxed())
+				.map(i -> i * 3).collect(Collectors.toList());
+		for(boolean parallel : new boolean[]{false, true}){
+			for(boolean on : new boolean[]{false, true}){
+				InstrumentedStream<Order> orders = InstrumentedStream.of("sumOrder", ORDERS).instrument(on);
+				Map<String, Double> sums = (parallel ? orders.parallel() : orders).filter(o -> o.getPrice() > 100)
+						.collect(Collectors.groupingBy(Order::getUserName, Collectors.summingDouble(Order::getPrice)));
+				assertEquals(expected.keySet(), sums.keySet());
+				for(Map.Entry<String, Double> e : expected.entrySet()){
+					assertEquals(e.getValue(), sums.get(e.getKey()), 1e-6);
+				}
+
+				InstrumentedStream<Integer> ints = InstrumentedStream.of("flat", range(1000)).instrument(on);
+				List<Integer> list = (parallel ? ints.parallel() : ints)
+						.flatMap(i -> IntStream.range(0, i % 4).boxed()).map(i -> i * 3).toList();
+				assertEquals(expectedList, list);
+
+				InstrumentedStream<Integer> sum = InstrumentedStream.of("sum", range(10_000)).instrument(on);
+				assertEquals(Integer.valueOf(49_995_000), (parallel ? sum.parallel() : sum).reduce(0, Integer::sum));
+				assertEquals(5000, InstrumentedStream.of("count", range(10_000)).instrument(on)
+						.filter(i -> i % 2 == 0).count());
+			}
+		}
+	}
+
+	@Test
+	public void countsEveryElementPerStage() {
+		AtomicLong seen = new AtomicLong();
+		InstrumentedStream.of("stages", range(10_000)).instrument(true).parallel().sampleEvery(8)
+				.filter(i -> i % 10 != 0, "drop10")
+				.map(i -> i * 2, "double")
+				.peek(i -> seen.incrementAndGet())
+				.forEach(i -> {});
+		assertEquals(9000, seen.get());
+
+		PipelineMetrics m = Instrumentation.snapshot("stages");
+		assertNotNull(m);
+		assertEquals(1, m.getRuns());
+		assertEquals(1, m.getParallelRuns());
+		assertEquals(10_000, m.getElements());
+		List<StageMetrics> stages = m.getStages();
+		assertEquals(Arrays.asList("source", "drop10", "double", "peek", "forEach"),
+				stages.stream().map(StageMetrics::getName).collect(Collectors.toList()));
+		assertEquals(10_000, stages.get(1).getElements());
+		assertEquals(9000, stages.get(2).getElements());
+		assertEquals(9000, stages.get(4).getElements());
+		for(int i=1; i<stages.size(); i++){
+			assertEquals(i, stages.get(i).getIndex());
+			assertTrue(stages.get(i).getSampledElements() > 0);
+			assertTrue(stages.get(i).getSampledElements() < stages.get(i).getElements());
+		}
+		assertEquals(10_000, LongStream.of(m.getLeafElements()).sum());
+		assertEquals(m.getLeaves(), m.getLeafDepths().length);
+		assertTrue(m.getMaxDepth() >= 0);
+		assertTrue(m.getSteals() >= 0);
+	}
+
+	@Test
+	public void findsTheHotStage() {
+		InstrumentedStream.of("hot", range(2000)).instrument(true).sampleEvery(1)
+				.map(i -> i + 1, "cheap")
+				.map(InstrumentedStreamTest::spin, "slow")
+				.filter(i -> i > 0, "cheapFilter")
+				.count();
+		PipelineMetrics m = Instrumentation.snapshot("hot");
+		assertEquals("slow", m.getHotStage().getName());
+		assertEquals(2000, m.getHotStage().getSampledElements());
+		assertEquals(1, m.getLeaves());
+		assertEquals(0, m.getMaxDepth());
+	}
+
+	@Test
+	public void registryAccumulatesEnabledPipelines() {
+		assertFalse(Instrumentation.isEnabled("acc"));
+		InstrumentedStream.of("acc", range(100)).count();
+		assertNull(Instrumentation.snapshot("acc"));
+
+		Instrumentation.enable("acc");
+		try{
+			InstrumentedStream.of("acc", range(100)).map(i -> i).count();
+			InstrumentedStream.of("acc", range(50)).parallel().map(i -> i).count();
+		}finally{
+			Instrumentation.disable("acc");
+		}
+		PipelineMetrics m = Instrumentation.snapshot("acc");
+		assertEquals(2, m.getRuns());
+		assertEquals(1, m.getParallelRuns());
+		assertEquals(150, m.getElements());
+		assertEquals(150, m.getStages().get(1).getElements());
+		assertTrue(Instrumentation.snapshot().containsKey("acc"));
+
+		Instrumentation.enableAll(true);
+		assertTrue(Instrumentation.isEnabled("anything"));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void singleUse() {
+		InstrumentedStream<Integer> s = InstrumentedStream.of("once", range(10));
+		s.count();
+		s.count();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void sampleEveryMustBePowerOfTwo() {
+		InstrumentedStream.of("bad", range(10)).sampleEvery(3);
+	}
+
+	@Test
+	public void publishesJfrEvents() throws Exception {
+		Path file = Files.createTempFile("instrument", ".jfr");
+		try(Recording recording = new Recording()){
+			recording.enable("lee.PipelineRun");
+			recording.enable("lee.PipelineStage");
+			recording.start();
+			InstrumentedStream.of("jfr", range(1000)).instrument(true).parallel()
+					.map(i -> i * 2, "double").count();
+			recording.stop();
+			recording.dump(file);
+		}
+		List<RecordedEvent> runs = new ArrayList<>();
+		List<RecordedEvent> stages = new ArrayList<>();
+		for(RecordedEvent e : RecordingFile.readAllEvents(file)){
+			if(!"jfr".equals(e.getString("pipeline"))){
+				continue;
+			}
+			String type = e.getEventType().getName();
+			(type.equals("lee.PipelineRun") ? runs : stages).add(e);
+		}
+		Files.delete(file);
+		assertEquals(1, runs.size());
+		assertEquals(1000, runs.get(0).getLong("elements"));
+		assertTrue(runs.get(0).getBoolean("parallel"));
+		assertEquals("double", runs.get(0).getString("hotStage"));
+		assertEquals(3, stages.size());
+	}
+
+	private static List<Integer> range(int n) {
+		return IntStream.range(0, n).boxed().collect(Collectors.toList());
+	}
+	private static int spin(int x) {
+		int h = x;
+		for(int i=0; i<2000; i++){
+			h = h * 31 + i;
+		}
+		return h == 42 ? x + 1 : x;
+	}
+}
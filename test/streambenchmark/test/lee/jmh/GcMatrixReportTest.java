@@ -0,0 +1,89 @@
+package lee.jmh;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class GcMatrixReportTest {
+
+	@Test
+	public void extractsOwnOptions() {
+		Map<String, String> own = new LinkedHashMap<>();
+		own.put("-gc", GcMatrixRunner.DEFAULT_GCS);
+		own.put("-heap", GcMatrixRunner.DEFAULT_HEAPS);
+		String[] rest = GcMatrixRunner.extract(
+				new String[]{"IntBenchmark", "-gc", "z,Parallel", "-p", "length=10", "-f", "1"}, own);
+		assertArrayEquals(new String[]{"IntBenchmark", "-p", "length=10", "-f", "1"}, rest);
+		assertEquals("z,Parallel", own.get("-gc"));
+		assertEquals(GcMatrixRunner.DEFAULT_HEAPS, own.get("-heap"));
+	}
+
+	@Test
+	public void parsesCollectorNames() {
+		assertEquals(GcMatrixRunner.Gc.Z, GcMatrixRunner.Gc.parse("ZGC"));
+		assertEquals(GcMatrixRunner.Gc.Z, GcMatrixRunner.Gc.parse("z"));
+		assertEquals(GcMatrixRunner.Gc.G1, GcMatrixRunner.Gc.parse("G1GC"));
+		assertEquals(GcMatrixRunner.Gc.PARALLEL, GcMatrixRunner.Gc.parse(" Parallel "));
+		assertEquals(GcMatrixRunner.Gc.SHENANDOAH, GcMatrixRunner.Gc.parse("shenandoah"));
+	}
+
+	@Test
+	public void countsOnlyPauses() {
+		assertTrue(GcPauseProfiler.isPause("G1 Young Generation", "end of minor GC"));
+		assertTrue(GcPauseProfiler.isPause("PS MarkSweep", "end of major GC"));
+		assertTrue(GcPauseProfiler.isPause("ZGC Pauses", "end of GC pause"));
+		assertFalse(GcPauseProfiler.isPause("ZGC Cycles", "end of GC cycle"));
+		assertFalse(GcPauseProfiler.isPause("Shenandoah Cycles", "end of GC cycle"));
+		assertFalse(GcPauseProfiler.isPause("G1 Concurrent GC", "end of concurrent GC pause"));
+	}
+
+	@Test
+	public void picksBestScoreAndShortestPause() {
+		GcMatrixReport.Row g1 = row("G1", 100, 12);
+		GcMatrixReport.Row parallel = row("PARALLEL", 80, 40);
+		GcMatrixReport.Row z = row("Z", 120, 0);
+		GcMatrixReport.Row shenandoah = row("SHENANDOAH", 110, 0);
+		List<GcMatrixReport.Row> rows = Arrays.asList(g1, parallel, z, shenandoah);
+		assertSame(parallel, GcMatrixReport.best(rows));
+		assertSame(shenandoah, GcMatrixReport.calmest(rows));
+		assertEquals(1.5, GcMatrixReport.relative(z, parallel), 1e-9);
+
+		GcMatrixReport report = new GcMatrixReport();
+		for(GcMatrixReport.Row r : rows){
+			report.add(r);
+		}
+		report.fail("CMS", "1G", "not supported");
+		assertEquals(4, report.size());
+		String md = report.toMarkdown();
+		assertTrue(md, md.contains("| IntBenchmark.minIntStream length=10 | PARALLEL 1G (80) | SHENANDOAH 1G (0 ms) |"));
+		assertTrue(md, md.contains("| Z | 1G | 120 | 1 | 1.50x | 100 | 16 | 2 | 3 | 4 | 5 | 0 |"));
+		assertTrue(md, md.contains("- CMS 1G: not supported"));
+		String[] csv = report.toCsv().split("\n");
+		assertEquals(5, csv.length);
+		assertEquals("IntBenchmark.minIntStream,\"length=10\",G1,1G,100.0,1.0,us/op,100.0,16.0,2.0,3.0,4.0,5.0,12.0",
+				csv[1]);
+	}
+
+	private static GcMatrixReport.Row row(String gc, double score, double maxPause) {
+		Map<String, Double> metrics = new HashMap<>();
+		metrics.put("gc.alloc.rate", 100.0);
+		metrics.put("gc.alloc.rate.norm", 16.0);
+		metrics.put("gc.count", 2.0);
+		metrics.put("gc.time", 3.0);
+		metrics.put("gc.pause.count", 4.0);
+		metrics.put("gc.pause.total", 5.0);
+		metrics.put("gc.pause.max", maxPause);
+		return new GcMatrixReport.Row("IntBenchmark.minIntStream", "length=10", gc, "1G", score, 1, "us/op", false,
+				metrics);
+	}
+}
@@ -0,0 +1,125 @@
+package lee.jmh;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class ScalingReportTest {
+	private static final double[] CORES = {1, 2, 4, 8, 16};
+
+	@Test
+	public void amdahlRecoversParallelFraction() {
+		double p = 0.9;
+		double[] s = new double[CORES.length];
+		for(int i=0; i<s.length; i++){
+			s[i] = 1 / ((1 - p) + p / CORES[i]);
+		}
+		ScalingFit fit = ScalingFit.amdahl(CORES, s);
+		assertEquals(0.9, fit.getParallelFraction(), 1e-9);
+		assertEquals(1.0, fit.getRSquared(), 1e-9);
+		assertEquals(Double.POSITIVE_INFINITY, fit.getPeakCores(), 0);
+		assertEquals(0.9, ScalingFit.usl(CORES, s).getParallelFraction(), 1e-9);
+	}
+
+	@Test
+	public void uslRecoversContentionAndCoherency() {
+		double sigma = 0.05, kappa = 0.002;
+		double[] s = new double[CORES.length];
+		for(int i=0; i<s.length; i++){
+			double n = CORES[i];
+			s[i] = n / (1 + sigma * (n - 1) + kappa * n * (n - 1));
+		}
+		ScalingFit fit = ScalingFit.usl(CORES, s);
+		assertEquals(sigma, fit.getSigma(), 1e-9);
+		assertEquals(kappa, fit.getKappa(), 1e-9);
+		assertEquals(Math.sqrt((1 - sigma) / kappa), fit.getPeakCores(), 1e-6);
+		assertEquals(s[3], fit.speedup(8), 1e-9);
+		assertTrue(ScalingFit.amdahl(CORES, s).getRSquared() < fit.getRSquared());
+	}
+
+	@Test
+	public void singleCoreCountHasNoFit() {
+		ScalingFit fit = ScalingFit.usl(new double[]{1}, new double[]{1});
+		assertFalse(fit.isDefined());
+		assertTrue(Double.isNaN(fit.getRSquared()));
+	}
+
+	@Test
+	public void speedupAndEfficiencyAgainstFewestCores() throws Exception {
+		ScalingReport report = new ScalingReport();
+		report.add(point("length=1000", 4, 30));
+		report.add(point("length=1000", 1, 100));
+		report.add(point("length=1000", 2, 55));
+		report.add(point("length=9", 1, 10));
+		List<ScalingReport.Series> series = report.series();
+		assertEquals(2, series.size());
+		ScalingReport.Series big = series.get(0);
+		assertEquals(Arrays.asList(1, 2, 4), Arrays.asList(big.points.get(0).cores, big.points.get(1).cores,
+				big.points.get(2).cores));
+		assertEquals(100.0 / 55, big.speedup[1], 1e-9);
+		assertEquals(100.0 / 30 / 4, big.efficiency(2), 1e-9);
+		assertTrue(big.usl.isDefined());
+
+		String[] csv = report.pointsCsv().split("\n");
+		assertEquals(5, csv.length);
+		assertEquals("IntBenchmark.minIntParallelStream,\"length=1000\",auto,4,30.0,1.0,us/op,3.333,0.8333", csv[3]);
+
+		Path dir = Files.createTempDirectory("scaling");
+		List<Path> files = report.write(dir);
+		assertEquals(3, files.size());
+		String svg = new String(Files.readAllBytes(files.get(2)), "UTF-8");
+		assertTrue(svg.startsWith("<svg"));
+		assertTrue(svg.contains("length=1000"));
+		assertEquals(4, svg.split("<circle").length - 1 - 2);
+		for(Path f : files){
+			Files.delete(f);
+		}
+		Files.delete(dir);
+	}
+
+	@Test
+	public void parsesJmhCsv() {
+		List<String> lines = Arrays.asList(
+				"\"Benchmark\",\"Mode\",\"Threads\",\"Samples\",\"Score\",\"Score Error (99.9%)\",\"Unit\",\"Param: length\"",
+				"\"lee.jmh.IntBenchmark.minIntParallelStream\",\"avgt\",1,3,101.346867,38.876922,\"us/op\",100000",
+				"\"lee.jmh.IntBenchmark.minIntParallelStream:gc.alloc.rate\",\"avgt\",1,3,5.1,1.0,\"MB/sec\",100000",
+				"\"lee.jmh.StringBenchmark.minStringParallelStream\",\"thrpt\",1,1,9.5,NaN,\"ops/s\",10");
+		List<ScalingReport.Point> points = ScalingRunner.parse(lines, 4, "auto");
+		assertEquals(2, points.size());
+		ScalingReport.Point p = points.get(0);
+		assertEquals("IntBenchmark.minIntParallelStream", p.benchmark);
+		assertEquals("length=100000", p.params);
+		assertEquals(4, p.cores);
+		assertEquals(101.346867, p.score, 0);
+		assertFalse(p.higherIsBetter);
+		assertTrue(points.get(1).higherIsBetter);
+		assertTrue(Double.isNaN(points.get(1).error));
+	}
+
+	@Test
+	public void buildsTasksetCommand() {
+		assertEquals("1,2,4,8", ScalingRunner.defaultCores(8));
+		assertEquals("1,2,4,6", ScalingRunner.defaultCores(6));
+		List<String> cmd = ScalingRunner.command(4, "3", true, new String[]{"-f", "1"}, false, "-Xmx1G",
+				Paths.get("r.csv"));
+		assertEquals(Arrays.asList("taskset", "-c", "0-3"), cmd.subList(0, 3));
+		assertTrue(cmd.contains(ScalingRunner.DEFAULT_INCLUDES));
+		int i = cmd.indexOf("-jvmArgsAppend");
+		assertEquals("-Xmx1G -D" + ScalingRunner.PARALLELISM_PROPERTY + "=3", cmd.get(i + 1));
+		List<String> pinned = ScalingRunner.command(2, "auto", false, new String[0], true, "", Paths.get("r.csv"));
+		assertFalse(pinned.contains("taskset"));
+		assertEquals("-XX:ActiveProcessorCount=2", pinned.get(pinned.indexOf("-jvmArgsAppend") + 1));
+	}
+
+	private static ScalingReport.Point point(String params, int cores, double score) {
+		return new ScalingReport.Point("IntBenchmark.minIntParallelStream", params, "auto", cores, score, 1, "us/op", false);
+	}
+}
@@ -0,0 +1,30 @@
+package lee.kernel;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import org.junit.Test;
+
+public class PrimitiveDistinctTest {
+
+	@Test
+	public void keepsFirstOccurrencesInOrder() {
+		Random r = new Random(9);
+		for(int n : new int[]{0, 1, 10, 1000, 500000}){
+			int[] a = r.ints(n, -n / 3 - 1, n / 3 + 1).toArray();
+			int[] expected = IntStream.of(a).distinct().toArray();
+			assertArrayEquals(expected, PrimitiveDistinct.distinct(a));
+			assertArrayEquals(expected, PrimitiveDistinct.parallelDistinct(a));
+			assertArrayEquals(expected, PrimitiveDistinct.distinct(IntStream.of(a).parallel()).toArray());
+
+			long[] l = r.longs(n, 0, n / 2 + 1).map(x -> x * 0x100000001L).toArray();
+			long[] expectedL = LongStream.of(l).distinct().toArray();
+			assertArrayEquals(expectedL, PrimitiveDistinct.distinct(l));
+			assertArrayEquals(expectedL, PrimitiveDistinct.parallelDistinct(l));
+		}
+		assertArrayEquals(new int[]{0, 3, -1}, PrimitiveDistinct.distinct(new int[]{0, 3, 0, -1, 3, -1}));
+	}
+}
@@ -0,0 +1,57 @@
+package lee.kernel;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class PrimitiveKernelsTest {
+
+	@Test
+	public void intKernelsMatchStreams() {
+		Random r = new Random(42);
+		for(int length : new int[]{0, 1, 3, 4, 7, 1000, 300001}){
+			int[] a = r.ints(length).toArray();
+			assertEquals(Arrays.stream(a).min().orElse(Integer.MAX_VALUE), PrimitiveKernels.min(a));
+			assertEquals(Arrays.stream(a).max().orElse(Integer.MIN_VALUE), PrimitiveKernels.max(a));
+			assertEquals(Arrays.stream(a).asLongStream().sum(), PrimitiveKernels.sum(a));
+			assertEquals(Arrays.stream(a).filter(x -> x > 0).count(), PrimitiveKernels.countIf(a, x -> x > 0));
+			assertEquals(PrimitiveKernels.min(a), PrimitiveKernels.parallelMin(a));
+			assertEquals(PrimitiveKernels.max(a), PrimitiveKernels.parallelMax(a));
+			assertEquals(PrimitiveKernels.sum(a), PrimitiveKernels.parallelSum(a));
+			assertEquals(PrimitiveKernels.countIf(a, x -> x > 0), PrimitiveKernels.parallelCountIf(a, x -> x > 0));
+		}
+	}
+
+	@Test
+	public void longAndDoubleKernels() {
+		Random r = new Random(7);
+		long[] l = r.longs(200003, -1000, 1000).toArray();
+		assertEquals(Arrays.stream(l).min().getAsLong(), PrimitiveKernels.parallelMin(l));
+		assertEquals(Arrays.stream(l).max().getAsLong(), PrimitiveKernels.max(l));
+		assertEquals(Arrays.stream(l).sum(), PrimitiveKernels.parallelSum(l));
+		assertEquals(Arrays.stream(l).filter(x -> x < 0).count(), PrimitiveKernels.parallelCountIf(l, x -> x < 0));
+
+		double[] d = r.ints(200003, 0, 1000).asDoubleStream().toArray();
+		assertEquals(Arrays.stream(d).min().getAsDouble(), PrimitiveKernels.parallelMin(d), 0.0);
+		assertEquals(Arrays.stream(d).max().getAsDouble(), PrimitiveKernels.max(d), 0.0);
+		assertEquals(Arrays.stream(d).sum(), PrimitiveKernels.sum(d), 0.0);
+		assertEquals(Arrays.stream(d).sum(), PrimitiveKernels.parallelSum(d), 0.0);
+		assertEquals(Double.POSITIVE_INFINITY, PrimitiveKernels.min(new double[0]), 0.0);
+	}
+
+	@Test
+	public void subRange() {
+		int[] a = {5, 1, 9, -3, 7, 2};
+		assertEquals(1, PrimitiveKernels.min(a, 0, 3));
+		assertEquals(9, PrimitiveKernels.max(a, 1, 4));
+		assertEquals(6L, PrimitiveKernels.sum(a, 3, 6));
+	}
+
+	@Test(expected = ArrayIndexOutOfBoundsException.class)
+	public void badRange() {
+		PrimitiveKernels.min(new int[3], 2, 4);
+	}
+}
@@ -0,0 +1,75 @@
+package lee.kernel;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import lee.BenchData;
+
+public class RadixSortTest {
+
+	@Test
+	public void intAndLongSortsMatchArraysSort() {
+		Random r = new Random(11);
+		for(int n : new int[]{0, 1, 63, 64, 1000, 200000}){
+			int[][] ints = {r.ints(n).toArray(), r.ints(n, -300, 300).toArray(), r.ints(n, 0, 1 << 20).toArray()};
+			for(int[] a : ints){
+				int[] expected = a.clone();
+				Arrays.sort(expected);
+				int[] seq = a.clone(), par = a.clone();
+				RadixSort.sort(seq);
+				RadixSort.parallelSort(par);
+				assertArrayEquals(expected, seq);
+				assertArrayEquals(expected, par);
+			}
+			long[] longs = r.longs(n).toArray();
+			long[] expected = longs.clone();
+			Arrays.sort(expected);
+			long[] seq = longs.clone(), par = longs.clone();
+			RadixSort.sort(seq);
+			RadixSort.parallelSort(par);
+			assertArrayEquals(expected, seq);
+			assertArrayEquals(expected, par);
+		}
+	}
+
+	@Test
+	public void fixedWidthStringsMatchNaturalOrder() {
+		for(int n : new int[]{0, 1, 100, 200000}){
+			String[] a = BenchData.randomStringList(n).toArray(new String[0]);
+			String[] expected = a.clone();
+			Arrays.sort(expected);
+			String[] seq = a.clone(), par = a.clone();
+			RadixSort.sortFixedWidth(seq, 10);
+			RadixSort.parallelSortFixedWidth(par, 10);
+			assertArrayEquals(expected, seq);
+			assertArrayEquals(expected, par);
+		}
+		String[] mixed = {"b~", "a ", "a!", "Z0", "zz"};
+		String[] expected = mixed.clone();
+		Arrays.sort(expected);
+		RadixSort.sortFixedWidth(mixed, 2);
+		assertArrayEquals(expected, mixed);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void wrongWidthRejected() {
+		RadixSort.sortFixedWidth(new String[]{"abc", "ab"}, 3);
+	}
+
+	@Test
+	public void streamAdapters() {
+		int[] a = new Random(1).ints(300000).toArray();
+		assertArrayEquals(IntStream.of(a).sorted().toArray(), RadixSort.sorted(IntStream.of(a).parallel()).toArray());
+		Comparator<String> byLength = Comparator.comparing(String::length);
+		String[] words = {"ccc", "a", "bb", "dd", "e"};
+		assertArrayEquals(Stream.of(words).sorted(byLength).toArray(),
+				RadixSort.sorted(Stream.of(words).parallel(), byLength).toArray());
+	}
+}
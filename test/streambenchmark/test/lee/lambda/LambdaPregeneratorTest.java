@@ -0,0 +1,127 @@
+package lee.lambda;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LambdaPregeneratorTest {
+	private static final int LAMBDAS = 64;
+
+	@ClassRule
+	public static TemporaryFolder tmp = new TemporaryFolder();
+
+	private static Path plain;
+	private static long expected;
+
+	@BeforeClass
+	public static void buildApp() throws Exception {
+		Path src = tmp.newFolder("src").toPath();
+		plain = tmp.newFolder("plain").toPath();
+		SyntheticLambdaApp.writeSources(src, LAMBDAS);
+		SyntheticLambdaApp.compile(src, plain);
+		expected = firstRequest(plain);
+	}
+
+	private static Path copyOfPlain(String name) throws IOException {
+		Path to = tmp.newFolder(name).toPath();
+		try(Stream<Path> walk = Files.walk(plain)){
+			for(Path p : (Iterable<Path>)walk::iterator){
+				Path dst = to.resolve(plain.relativize(p).toString());
+				if(Files.isDirectory(p)){
+					Files.createDirectories(dst);
+				}else{
+					Files.copy(p, dst);
+				}
+			}
+		}
+		return to;
+	}
+	private static long firstRequest(Path classes) throws Exception {
+		try(URLClassLoader loader = new URLClassLoader(new URL[]{classes.toUri().toURL()},
+				LambdaPregeneratorTest.class.getClassLoader())){
+			return (Long)loader.loadClass(SyntheticLambdaApp.MAIN).getMethod("firstRequest").invoke(null);
+		}
+	}
+	private static long preLambdaClasses(Path classes) throws IOException {
+		try(Stream<Path> walk = Files.walk(classes)){
+			return walk.filter(p -> p.getFileName().toString().contains(LambdaPregenerator.SUFFIX)).count();
+		}
+	}
+
+	@Test
+	public void directModeRelinksEverySite() throws Exception {
+		Path classes = copyOfPlain("direct");
+		LambdaPregenerator.Report report = LambdaPregenerator.run(classes, LambdaPregenerator.Mode.DIRECT);
+		assertEquals(LAMBDAS, report.sites());
+		assertEquals(LAMBDAS, report.generated());
+		assertEquals(LAMBDAS, preLambdaClasses(classes));
+		assertEquals(expected, firstRequest(classes));
+
+		LambdaPregenerator.Report again = LambdaPregenerator.run(classes, LambdaPregenerator.Mode.DIRECT);
+		assertEquals(0, again.sites());
+		assertEquals(LAMBDAS, preLambdaClasses(classes));
+	}
+
+	@Test
+	public void bootstrapModeLinksAndFallsBack() throws Exception {
+		Path classes = copyOfPlain("bootstrap");
+		assertEquals(LAMBDAS, LambdaPregenerator.run(classes, LambdaPregenerator.Mode.BOOTSTRAP).generated());
+		long linked = PregeneratedLambdas.linked();
+		assertEquals(expected, firstRequest(classes));
+		assertEquals(LAMBDAS, PregeneratedLambdas.linked() - linked);
+
+		Files.delete(classes.resolve("synth/Handler0" + LambdaPregenerator.SUFFIX + "0.class"));
+		long fallbacks = PregeneratedLambdas.fallbacks();
+		assertEquals(expected, firstRequest(classes));
+		assertEquals(1, PregeneratedLambdas.fallbacks() - fallbacks);
+	}
+
+	@Test
+	public void unsupportedSitesAreLeftToTheMetafactory() throws Exception {
+		Path src = tmp.newFolder("special-src").toPath();
+		Path classes = tmp.newFolder("special").toPath();
+		Files.createDirectories(src.resolve("synth"));
+		String source = "package synth;\n"
+				+ "import java.io.Serializable;\n"
+				+ "import java.util.function.*;\n"
+				+ "public class Special extends Base {\n"
+				+ "\tpublic static String run(){\n"
+				+ "\t\tRunnable r = (Runnable & Serializable)() -> {};\n"
+				+ "\t\tr.run();\n"
+				+ "\t\treturn new Special().viaSuper().get() + ((Supplier<String>)() -> \"!\").get();\n"
+				+ "\t}\n"
+				+ "\tSupplier<String> viaSuper(){\n"
+				+ "\t\treturn super::name;\n"
+				+ "\t}\n"
+				+ "\t@Override\n"
+				+ "\tString name(){\n"
+				+ "\t\treturn \"sub\";\n"
+				+ "\t}\n"
+				+ "}\n"
+				+ "class Base {\n"
+				+ "\tString name(){\n"
+				+ "\t\treturn \"base\";\n"
+				+ "\t}\n"
+				+ "}\n";
+		Files.write(src.resolve("synth/Special.java"), source.getBytes(StandardCharsets.UTF_8));
+		SyntheticLambdaApp.compile(src, classes);
+		LambdaPregenerator.Report report = LambdaPregenerator.run(classes, LambdaPregenerator.Mode.DIRECT);
+		assertTrue(report.sites() >= 2);
+		assertTrue(report.generated() >= 1);
+		try(URLClassLoader loader = new URLClassLoader(new URL[]{classes.toUri().toURL()})){
+			assertEquals("base!", loader.loadClass("synth.Special").getMethod("run").invoke(null));
+		}
+	}
+}
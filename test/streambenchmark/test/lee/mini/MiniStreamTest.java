@@ -0,0 +1,116 @@
+package lee.mini;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import lee.BenchData;
+
+public class MiniStreamTest {
+
+	@Test
+	public void matchesStreamOnWords() {
+		assertEquals(Stream.of("I", "love", "you", "too").filter(s -> s.length() == 3).collect(Collectors.toList()),
+				MiniStream.of("I", "love", "you", "too").filter(s -> s.length() == 3).toList());
+		assertEquals(Stream.of("I", "love", "you", "too", "too").distinct().collect(Collectors.toList()),
+				MiniStream.of("I", "love", "you", "too", "too").distinct().toList());
+		Comparator<String> byLength = (a, b) -> a.length() - b.length();
+		assertEquals(Stream.of("I", "love", "you", "too").sorted(byLength).collect(Collectors.toList()),
+				MiniStream.of("I", "love", "you", "too").sorted(byLength).toList());
+		assertEquals(Arrays.asList(1, 4, 3, 3),
+				MiniStream.of("I", "love", "you", "too").map(String::length).toList());
+		assertEquals(Arrays.asList(1, 2, 3, 4, 5),
+				MiniStream.of(Arrays.asList(1, 2), Arrays.asList(3, 4, 5)).flatMap(l -> l).toList());
+	}
+
+	@Test
+	public void ofArrayLeavesSourceUntouched() {
+		String[] words = {"b", "a", "c", "a"};
+		List<Object> mapped = MiniStream.ofArray(words).filter(s -> !s.equals("c")).sorted().distinct()
+				.map(s -> (Object)s.charAt(0)).toList();
+		assertEquals(Arrays.asList('a', 'b'), mapped);
+		assertArrayEquals(new String[]{"b", "a", "c", "a"}, words);
+
+		int[] ints = {3, 1, 2};
+		assertArrayEquals(new int[]{2, 4, 6}, IntMiniStream.ofArray(ints).sorted().map(x -> x * 2).toArray());
+		assertArrayEquals(new int[]{3, 1, 2}, ints);
+	}
+
+	@Test
+	public void mapOutOfATypedArray() {
+		List<Integer> lengths = MiniStream.of("I", "love").map(String::length).toList();
+		assertEquals(Arrays.asList(1, 4), lengths);
+		List<String> upper = MiniStream.of("I", "love").map(String::toUpperCase).toList();
+		assertEquals(Arrays.asList("I", "LOVE"), upper);
+	}
+
+	@Test
+	public void terminalsMatchStream() {
+		List<String> words = BenchData.randomStringList(1000);
+		for(int n : new int[]{0, 1, 5, 20, 100, 1000}){
+			List<String> in = words.subList(0, n);
+			assertEquals(in.stream().filter(s -> s.charAt(0) < 'm').count(),
+					MiniStream.from(in).filter(s -> s.charAt(0) < 'm').count());
+			assertEquals(in.stream().reduce(String::concat), MiniStream.from(in).reduce(String::concat));
+			assertEquals(in.stream().max(Comparator.naturalOrder()), MiniStream.from(in).max(Comparator.naturalOrder()));
+			assertEquals(in.stream().min(Comparator.naturalOrder()), MiniStream.from(in).min(Comparator.naturalOrder()));
+			assertEquals(in.stream().findFirst(), MiniStream.from(in).findFirst());
+			Map<Character, List<String>> expected = in.stream().collect(Collectors.groupingBy(s -> s.charAt(0)));
+			assertEquals(expected, MiniStream.from(in).collect(Collectors.groupingBy(s -> s.charAt(0))));
+			assertEquals(in.stream().mapToInt(String::length).sum(), MiniStream.from(in).mapToInt(String::length).sum());
+			assertEquals(new ArrayList<>(in.stream().distinct().collect(Collectors.toList())),
+					MiniStream.from(in).distinct().toList());
+		}
+	}
+
+	@Test
+	public void leavesCallerArraysUntouched() {
+		String[] words = {"you", "I", "too", "love", "I"};
+		String[] before = words.clone();
+		assertEquals(Arrays.asList("I", "LOVE", "TOO", "YOU"),
+				MiniStream.of(words).distinct().filter(w -> !w.isEmpty()).map(String::toUpperCase).sorted().toList());
+		assertArrayEquals(before, words);
+		List<String> view = MiniStream.of(words).toList();
+		words[0] = "changed";
+		assertEquals("you", view.get(0));
+
+		int[] ints = {5, 3, 3, 9, 1};
+		int[] intsBefore = ints.clone();
+		assertArrayEquals(new int[]{2, 6, 6, 10, 18}, IntMiniStream.of(ints).filter(x -> x > 0).map(x -> x * 2).sorted().toArray());
+		assertArrayEquals(intsBefore, ints);
+	}
+
+	@Test
+	public void intMatchesIntStream() {
+		int[] data = BenchData.randomIntArray(1000);
+		for(int n : new int[]{0, 1, 7, 1000}){
+			int[] a = Arrays.copyOf(data, n);
+			assertArrayEquals(IntStream.of(a).map(x -> x >>> 3).filter(x -> x % 3 != 0).sorted().toArray(),
+					IntMiniStream.of(a).map(x -> x >>> 3).filter(x -> x % 3 != 0).sorted().toArray());
+			assertEquals(IntStream.of(a).sum(), IntMiniStream.ofArray(a).sum());
+			assertEquals(IntStream.of(a).min(), IntMiniStream.ofArray(a).min());
+			assertEquals(IntStream.of(a).max(), IntMiniStream.ofArray(a).max());
+			assertEquals(IntStream.of(a).average(), IntMiniStream.ofArray(a).average());
+			assertEquals(IntStream.of(a).anyMatch(x -> x > 0), IntMiniStream.ofArray(a).anyMatch(x -> x > 0));
+			assertEquals(IntStream.of(a).allMatch(x -> x > 0), IntMiniStream.ofArray(a).allMatch(x -> x > 0));
+		}
+		assertEquals(OptionalInt.empty(), IntMiniStream.of().min());
+		assertEquals(45, IntMiniStream.range(0, 10).sum());
+		assertEquals(Arrays.asList("0", "1"), IntMiniStream.range(0, 2).mapToObj(Integer::toString).toList());
+		assertTrue(IntMiniStream.range(0, 5).limit(2).noneMatch(x -> x > 1));
+		assertFalse(MiniStream.empty().anyMatch(x -> true));
+	}
+}
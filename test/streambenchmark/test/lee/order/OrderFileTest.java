@@ -0,0 +1,135 @@
+package lee.order;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import lee.Order;
+
+public class OrderFileTest {
+	private Path path;
+
+	@Before
+	public void setUp() throws IOException {
+		path = Files.createTempFile("orders", ".bin");
+	}
+	@After
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(path);
+	}
+
+	@Test
+	public void roundTrip() throws IOException {
+		List<Order> orders = Order.genOrders(30000);
+		OrderFileWriter.write(path, orders);
+		try(OrderFile file = OrderFile.open(path)){
+			assertEquals(orders.size(), file.rows());
+			for(int i=0; i<orders.size(); i+=97){
+				Order od = orders.get(i);
+				assertEquals(od.getUserName(), file.userName(file.userId(i)));
+				assertEquals(od.getPrice(), file.price(i), 0.0);
+				assertEquals(od.getTimestamp(), file.timestamp(i));
+			}
+			List<String> names = file.stream(false).map(OrderFile.Cursor::userName).collect(Collectors.toList());
+			assertEquals(orders.stream().map(Order::getUserName).collect(Collectors.toList()), names);
+		}
+	}
+
+	@Test
+	public void parallelSumMatchesHeap() throws IOException {
+		List<Order> orders = Order.genOrders(50000);
+		OrderFileWriter.write(path, orders);
+		Map<String, Double> expected = new HashMap<>();
+		for(Order od : orders){
+			expected.merge(od.getUserName(), od.getPrice(), Double::sum);
+		}
+		try(OrderFile file = OrderFile.open(path)){
+			assertEquals(expected, file.sumOrderByUserName(false));
+			assertEquals(expected, file.sumOrderByUserName(true));
+			assertEquals(orders.size(), file.stream(true).count());
+		}
+	}
+
+	@Test
+	public void splitsAreExact() throws IOException {
+		OrderFileWriter.write(path, Order.genOrders(10001));
+		try(OrderFile file = OrderFile.open(path)){
+			Spliterator<OrderFile.Cursor> right = file.spliterator();
+			Spliterator<OrderFile.Cursor> left = right.trySplit();
+			assertEquals(5000, left.estimateSize());
+			assertEquals(5001, right.estimateSize());
+			assertTrue(right.hasCharacteristics(Spliterator.SUBSIZED));
+		}
+	}
+
+	private static String row(Order od){
+		return od.getUserName() + "|" + od.getPrice() + "|" + od.getTimestamp();
+	}
+	private static List<String> rows(Spliterator<OrderFile.Cursor> s, int advanceFirst){
+		List<String> out = new ArrayList<>();
+		for(int i=0; i<advanceFirst && s.tryAdvance(c -> out.add(row(c.toOrder()))); i++){
+		}
+		s.forEachRemaining(c -> out.add(row(c.toOrder())));
+		return out;
+	}
+
+	@Test
+	public void crossesRegionBoundaries() throws IOException {
+		List<Order> orders = Order.genOrders(10001);
+		List<String> expected = orders.stream().map(OrderFileTest::row).collect(Collectors.toList());
+		OrderFileWriter.write(path, orders);
+		try(OrderFile file = OrderFile.open(path, 7)){	// 1429 regions, the last one of 5 rows
+			for(int i : new int[]{0, 6, 7, 8, 13, 14, 9996, 9999, 10000}){
+				Order od = orders.get(i);
+				assertEquals(od.getUserName(), file.userName(file.userId(i)));
+				assertEquals(od.getPrice(), file.price(i), 0.0);
+				assertEquals(od.getTimestamp(), file.timestamp(i));
+			}
+			assertEquals(expected, rows(file.spliterator(), 0));
+			assertEquals(expected, rows(file.spliterator(), 10));	// tryAdvance over two boundaries
+			assertEquals(expected, rows(file.spliterator(), 10001));
+
+			Spliterator<OrderFile.Cursor> right = file.spliterator();
+			Spliterator<OrderFile.Cursor> left = right.trySplit();	// at row 5000, mid-region
+			assertNotNull(left);
+			List<String> halves = rows(left, 3);
+			halves.addAll(rows(right, 9));
+			assertEquals(expected, halves);
+
+			List<String> parallel = file.stream(true).map(c -> row(c.toOrder())).collect(Collectors.toList());
+			assertEquals(expected, parallel);
+			Map<String, Double> sums = new HashMap<>();
+			for(Order od : orders){
+				sums.merge(od.getUserName(), od.getPrice(), Double::sum);
+			}
+			assertEquals(sums, file.sumOrderByUserName(true));
+		}
+	}
+
+	@Test
+	public void emptyFile() throws IOException {
+		try(OrderFileWriter writer = new OrderFileWriter(path)){
+			assertEquals(0, writer.rows());
+		}
+		try(OrderFile file = OrderFile.open(path)){
+			assertEquals(0, file.rows());
+			assertNull(file.spliterator().trySplit());
+			assertTrue(file.sumOrderByUserName(true).isEmpty());
+		}
+	}
+}
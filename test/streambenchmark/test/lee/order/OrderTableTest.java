@@ -0,0 +1,57 @@
+package lee.order;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import lee.Order;
+
+public class OrderTableTest {
+
+	@Test
+	public void sumMatchesForLoop() {
+		List<Order> orders = Order.genOrders(50000);
+		Map<String, Double> expected = new HashMap<>();
+		for(Order od : orders){
+			expected.merge(od.getUserName(), od.getPrice(), Double::sum);
+		}
+		OrderTable table = OrderTable.from(orders);
+		assertEquals(orders.size(), table.size());
+		assertEquals(expected.size(), table.userCount());
+		assertEquals(expected, table.sumOrderByUserName());
+		assertEquals(expected, table.sumOrderByUserNameParallel());
+		assertArrayEquals(table.sumPriceByUserId(), table.sumPriceByUserIdParallel(), 0.0);
+	}
+
+	@Test
+	public void columnsRoundTrip() {
+		List<Order> orders = Order.genOrders(1000);
+		OrderTable table = OrderTable.from(orders);
+		for(int i=0; i<orders.size(); i++){
+			Order od = orders.get(i);
+			assertEquals(od.getUserName(), table.userName(table.userId(i)));
+			assertEquals(od.getPrice(), table.price(i), 0.0);
+			assertEquals(od.getTimestamp(), table.timestamp(i));
+		}
+		double total = orders.stream().mapToDouble(Order::getPrice).sum();
+		assertEquals(total, table.prices().parallel().sum(), 0.0);
+		assertEquals(orders.get(999).getTimestamp(), table.timestamps().max().getAsLong());
+	}
+
+	@Test
+	public void generateMatchesGenOrders() {
+		List<Order> orders = Order.genOrders(5000);
+		OrderTable table = OrderTable.generate(5000);
+		assertEquals(orders.size(), table.size());
+		for(int i=0; i<orders.size(); i++){
+			Order od = orders.get(i);
+			assertEquals(od.getUserName(), table.userName(table.userId(i)));
+			assertEquals(od.getPrice(), table.price(i), 0.0);
+		}
+	}
+}
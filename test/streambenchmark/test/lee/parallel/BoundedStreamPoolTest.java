@@ -0,0 +1,94 @@
+package lee.parallel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import lee.Order;
+
+public class BoundedStreamPoolTest {
+
+	@Test
+	public void runsPipelineInOwnPool() {
+		try(BoundedStreamPool pool = new BoundedStreamPool("orders", 2)){
+			List<Order> orders = Order.genOrders(20000);
+			Map<String, Double> expected = orders.stream().collect(
+					Collectors.groupingBy(Order::getUserName, Collectors.summingDouble(Order::getPrice)));
+			assertEquals(expected, pool.invoke(() -> orders.parallelStream().collect(
+					Collectors.groupingBy(Order::getUserName, Collectors.summingDouble(Order::getPrice)))));
+			List<String> threads = pool.invoke(() -> IntStream.range(0, 100000).parallel()
+					.mapToObj(i -> Thread.currentThread().getName()).distinct().collect(Collectors.toList()));
+			for(String t : threads){
+				assertTrue(t, t.startsWith("orders-worker-"));
+			}
+			assertEquals(2, pool.metrics().getCompletedJobs());
+			assertEquals(0, pool.metrics().getPendingJobs());
+		}
+	}
+
+	@Test
+	public void deadlineStopsGuardedPipeline() throws Exception {
+		try(BoundedStreamPool pool = new BoundedStreamPool("deadline", 2)){
+			StreamJob<Long> job = pool.submit(t -> t.guard(Stream.iterate(0L, i -> i + 1)).filter(i -> i < 0).count(),
+					50, TimeUnit.MILLISECONDS);
+			try{
+				job.get(10, TimeUnit.SECONDS);
+				fail();
+			}catch(CancellationException expected){
+				// deadline reached inside the pipeline
+			}
+			assertTrue(pool.awaitIdle(10, TimeUnit.SECONDS));
+		}
+	}
+
+	@Test
+	public void cancelAndReject() throws Exception {
+		try(BoundedStreamPool pool = new BoundedStreamPool("bounded", 1, 1)){
+			CountDownLatch started = new CountDownLatch(1);
+			StreamJob<Long> job = pool.submit(t -> {
+				started.countDown();
+				return t.guard(Stream.iterate(0L, i -> i + 1)).parallel().filter(i -> i < 0).count();
+			});
+			started.await();
+			try{
+				pool.submit(t -> 1);
+				fail();
+			}catch(RejectedExecutionException expected){
+				assertEquals(1, pool.metrics().getRejectedJobs());
+			}
+			try{
+				job.get(50, TimeUnit.MILLISECONDS);
+				fail();
+			}catch(TimeoutException expected){
+				// get(timeout) cancels the job
+			}
+			assertTrue(job.isCancelled());
+			assertTrue(pool.awaitIdle(10, TimeUnit.SECONDS));
+			assertEquals(Integer.valueOf(1), pool.submit(t -> 1).get());
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void namedPoolKeepsParallelism() {
+		BoundedStreamPool pool = BoundedStreamPool.named("shared", 2);
+		try{
+			assertTrue(pool == BoundedStreamPool.named("shared", 2));
+			BoundedStreamPool.named("shared", 3);
+		}finally{
+			pool.close();
+		}
+	}
+}
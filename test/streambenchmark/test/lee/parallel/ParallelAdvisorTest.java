@@ -0,0 +1,101 @@
+package lee.parallel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+public class ParallelAdvisorTest {
+
+	@Test
+	public void smallOrCheapStaysSequential() {
+		ParallelAdvisor advisor = new ParallelAdvisor();
+		advisor.setOverheadNs(50_000);
+		assertFalse(advisor.shouldParallelize("p", 1000, 8));
+		assertTrue(advisor.shouldParallelize("p", 10_000_000, 8));
+		assertFalse(advisor.shouldParallelize("p", 10_000_000, 1));
+		advisor.setCostNs("expensive", 1000);
+		assertTrue(advisor.shouldParallelize("expensive", 1000, 8));
+	}
+
+	@Test
+	public void learnsFromSequentialRuns() {
+		ParallelAdvisor advisor = new ParallelAdvisor();
+		for(int i=0; i<100; i++){
+			advisor.record("p", 1000, false, 4, 100_000);
+		}
+		assertEquals(100.0, advisor.costNs("p"), 0.01);
+		// parallel runs shorter than the overhead are ignored
+		advisor.record("p", 1000, true, 4, 10);
+		assertEquals(100.0, advisor.costNs("p"), 0.01);
+	}
+
+	@Test
+	public void saveAndLoad() throws IOException {
+		ParallelAdvisor advisor = new ParallelAdvisor();
+		advisor.setOverheadNs(1234);
+		advisor.setCostNs("minString", 3.5);
+		Path file = Files.createTempFile("calibration", ".properties");
+		try{
+			advisor.save(file);
+			ParallelAdvisor loaded = new ParallelAdvisor();
+			loaded.load(file);
+			assertEquals(1234, loaded.overheadNs(), 0.0);
+			assertEquals(3.5, loaded.costNs("minString"), 0.0);
+			assertEquals(ParallelAdvisor.DEFAULT_COST_NS, loaded.costNs("other"), 0.0);
+		}finally{
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	public void badCalibrationFallsBackToDefaults() throws IOException {
+		assertEquals(ParallelAdvisor.DEFAULT_OVERHEAD_NS, AdaptiveStreams.loadAdvisor(null).overheadNs(), 0.0);
+		assertEquals(ParallelAdvisor.DEFAULT_OVERHEAD_NS, AdaptiveStreams.loadAdvisor("no-such-calibration.properties").overheadNs(), 0.0);
+		Path file = Files.createTempFile("calibration", ".properties");
+		try{
+			Files.write(file, Arrays.asList("forkJoinOverheadNs=1234", "minString.nsPerElement=-1"));
+			ParallelAdvisor advisor = AdaptiveStreams.loadAdvisor(file.toString());
+			assertEquals(ParallelAdvisor.DEFAULT_OVERHEAD_NS, advisor.overheadNs(), 0.0);	// nothing half-loaded
+			assertEquals(ParallelAdvisor.DEFAULT_COST_NS, advisor.costNs("minString"), 0.0);
+			Files.write(file, Arrays.asList("forkJoinOverheadNs=\\u12"));	// malformed escape
+			assertEquals(ParallelAdvisor.DEFAULT_OVERHEAD_NS, AdaptiveStreams.loadAdvisor(file.toString()).overheadNs(), 0.0);
+			Files.write(file, Arrays.asList("forkJoinOverheadNs=1234"));
+			assertEquals(1234, AdaptiveStreams.loadAdvisor(file.toString()).overheadNs(), 0.0);
+		}finally{
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	public void unknownSizeStaysSequential() {
+		ParallelAdvisor advisor = new ParallelAdvisor();
+		advisor.setOverheadNs(0);
+		Spliterator<Integer> unsized = Spliterators.spliteratorUnknownSize(
+				Arrays.asList(1, 2, 3).iterator(), 0);
+		assertEquals(-1, AdaptiveStreams.sizeOf(unsized));
+		boolean parallel = AdaptiveStreams.evaluate(advisor, "p", unsized, Stream::isParallel);
+		assertFalse(parallel);
+	}
+
+	@Test
+	public void evaluateGivesSameResult() {
+		List<Integer> list = new ArrayList<>();
+		for(int i=0; i<100000; i++){
+			list.add(i);
+		}
+		long sum = AdaptiveStreams.evaluate("sum", list, s -> s.mapToLong(Integer::longValue).sum());
+		assertEquals(99999L * 100000 / 2, sum);
+	}
+}
@@ -0,0 +1,52 @@
+package lee.parallel;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+public class ParallelSliceTest {
+
+	@Test
+	public void sizedSliceKeepsOrderAndSize() {
+		int n = 1_000_000;
+		long[][] cases = {{0, 3}, {6, Long.MAX_VALUE}, {999_990, 100}, {123_456, 654_321}, {n, 5}, {0, 0}, {5, Long.MAX_VALUE - 2}};
+		for(long[] c : cases){
+			int[] expected = IntStream.range(0, n).skip(c[0]).limit(c[1]).toArray();
+			assertArrayEquals(expected, ParallelSlice.slice(IntStream.range(0, n).parallel(), c[0], c[1]).toArray());
+			assertArrayEquals(expected, ParallelSlice.slice(IntStream.range(0, n), c[0], c[1]).toArray());
+			List<Integer> boxed = ParallelSlice.slice(IntStream.range(0, n).boxed().collect(Collectors.toList()).parallelStream(), c[0], c[1])
+					.collect(Collectors.toList());
+			assertEquals(Arrays.stream(expected).boxed().collect(Collectors.toList()), boxed);
+		}
+		Spliterator.OfInt s = ParallelSlice.limit(IntStream.range(0, n).parallel(), 10).spliterator();
+		assertTrue(s.hasCharacteristics(Spliterator.SIZED));
+		assertEquals(10, s.getExactSizeIfKnown());
+	}
+
+	@Test
+	public void unsizedSliceTakesExactCount() {
+		int n = 1_000_000;
+		int[] limited = ParallelSlice.limit(IntStream.range(0, n).parallel().filter(x -> (x & 1) == 0), 1000).toArray();
+		assertEquals(1000, limited.length);
+		assertEquals(1000, Arrays.stream(limited).distinct().filter(x -> (x & 1) == 0).count());
+		assertEquals(n / 2 - 10, ParallelSlice.skip(IntStream.range(0, n).parallel().filter(x -> (x & 1) == 0), 10).count());
+		assertEquals(n / 2, ParallelSlice.limit(IntStream.range(0, n).parallel().filter(x -> (x & 1) == 0), n).count());
+		// sequential keeps the first elements
+		assertArrayEquals(new int[]{4, 6, 8}, ParallelSlice.slice(IntStream.range(0, n).filter(x -> (x & 1) == 0), 2, 3).toArray());
+		assertEquals(Arrays.asList("c", "d"),
+				ParallelSlice.slice(Arrays.asList("a", "b", "c", "d", "e").stream().filter(x -> true), 2, 2).collect(Collectors.toList()));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void negativeLimitRejected() {
+		ParallelSlice.limit(IntStream.range(0, 10), -1);
+	}
+}
@@ -0,0 +1,74 @@
+package lee.reduce;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+public class ReducerCheckTest {
+	private static final List<String> WORDS = Arrays.asList("I", "love", "you", "too", "", "a", "lot", "of", "words", "here");
+
+	@Test
+	public void libraryMonoidsPass() {
+		Random r = new Random(3);
+		int[] ints = r.ints(500).toArray();
+		long[] longs = r.longs(500).toArray();
+		double[] doubles = r.doubles(500).toArray();
+		for(IntMonoid m : new IntMonoid[]{Monoids.INT_SUM, Monoids.INT_MIN, Monoids.INT_MAX}){
+			ReducerCheck.check(ints, m, 100, 1).orThrow();
+		}
+		for(LongMonoid m : new LongMonoid[]{Monoids.LONG_SUM, Monoids.LONG_MIN, Monoids.LONG_MAX}){
+			ReducerCheck.check(longs, m, 100, 1).orThrow();
+		}
+		for(DoubleMonoid m : new DoubleMonoid[]{Monoids.DOUBLE_SUM, Monoids.DOUBLE_MIN, Monoids.DOUBLE_MAX}){
+			ReducerCheck.check(doubles, m, 1e-12, 100, 1).orThrow();
+		}
+		ReducerCheck.check(WORDS, Monoids.concat()).orThrow();
+		ReducerCheck.check(WORDS, Monoids.concat(" ")).orThrow();
+
+		List<Set<Integer>> sets = IntStream.range(0, 50).mapToObj(i -> Collections.singleton(i % 17)).collect(Collectors.toList());
+		ReducerCheck.check(sets, Monoids.<Integer>union()).orThrow();
+		ReducerCheck.check(sets, Monoids.<Integer>toUnion(), 100, 1).orThrow();
+		List<Map<String, Long>> hists = WORDS.stream().map(w -> Collections.singletonMap(w, 1L)).collect(Collectors.toList());
+		ReducerCheck.check(hists, Monoids.<String>histogram()).orThrow();
+		ReducerCheck.check(WORDS, Monoids.toHistogram(String::length), 100, 1).orThrow();
+	}
+
+	@Test
+	public void flagsTheReductionStreamOperationCombiner() {
+		// the combiner from ReductionStreamOperation 1.3: "|" only appears where a split happened
+		ReducerCheck.Result r = ReducerCheck.check(WORDS, "",
+				(sum, str) -> !sum.trim().isEmpty() ? sum + " " + str : sum + str, (a, b) -> a + "|" + b, 100, 1);
+		assertFalse(r.passed());
+		assertTrue(r.counterexample(), r.counterexample().contains("|"));
+		// summing lengths is fine
+		assertTrue(ReducerCheck.check(WORDS, 0, (sum, str) -> sum + str.length(), Integer::sum, 100, 1).passed());
+	}
+
+	@Test
+	public void flagsNonAssociativeAndNonIdentity() {
+		assertFalse(ReducerCheck.check(new int[]{10, 3, 2, 1}, IntMonoid.of(0, (a, b) -> a - b), 100, 1).passed());
+		assertFalse(ReducerCheck.check(new int[]{1, 2, 3}, IntMonoid.of(1, Integer::sum), 100, 1).passed());
+		assertFalse(ReducerCheck.check(new double[]{1, 1e20, -1e20}, Monoids.DOUBLE_SUM, 0, 200, 1).passed());
+	}
+
+	@Test
+	public void monoidReduceMatchesStream() {
+		int[] a = new Random(5).ints(100000).toArray();
+		assertEquals(Arrays.stream(a).min().getAsInt(), Monoids.INT_MIN.reduce(Arrays.stream(a).parallel()));
+		assertEquals("I love you too a lot of words here", Monoids.concat(" ").reduce(WORDS.parallelStream()));
+		assertEquals(new HashSet<>(Arrays.asList(0, 1, 2)), Monoids.<Integer>union().reduce(
+				IntStream.range(0, 9).parallel().mapToObj(i -> Collections.singleton(i % 3))));
+	}
+}